@@ -48,6 +48,7 @@ public class ParserOptions {
 	private boolean myAutoContainReferenceTargetsWithNoId = true;
 	private Set<String> myEncodeElementsForSummaryMode = null;
 	private Set<String> myDontEncodeElementsForSummaryMode = null;
+	private boolean myStreamingJsonParsing = false;
 
 	/**
 	 * If set to {@literal true} (which is the default), contained resources may be specified by
@@ -337,4 +338,37 @@ public class ParserOptions {
 	public Set<String> getDontEncodeElementsForSummaryMode() {
 		return myDontEncodeElementsForSummaryMode;
 	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), the JSON parser reads resources directly from
+	 * the underlying token stream instead of first loading the complete document into a JSON tree and then
+	 * walking that tree. Only the value currently being processed is buffered, so large documents such as
+	 * transaction Bundles are no longer held in memory twice while they are being parsed.
+	 * <p>
+	 * Documents that are not canonically ordered (e.g. a resource where <code>resourceType</code> is not the
+	 * first property) are still accepted, but the part of the document affected is buffered.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public boolean isStreamingJsonParsing() {
+		return myStreamingJsonParsing;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), the JSON parser reads resources directly from
+	 * the underlying token stream instead of first loading the complete document into a JSON tree and then
+	 * walking that tree. Only the value currently being processed is buffered, so large documents such as
+	 * transaction Bundles are no longer held in memory twice while they are being parsed.
+	 * <p>
+	 * Documents that are not canonically ordered (e.g. a resource where <code>resourceType</code> is not the
+	 * first property) are still accepted, but the part of the document affected is buffered.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public ParserOptions setStreamingJsonParsing(boolean theStreamingJsonParsing) {
+		myStreamingJsonParsing = theStreamingJsonParsing;
+		return this;
+	}
 }
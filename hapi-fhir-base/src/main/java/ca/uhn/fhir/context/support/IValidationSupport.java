@@ -331,6 +331,55 @@ public interface IValidationSupport {
 		return null;
 	}
 
+	/**
+	 * Validates a number of codes at once, either against the CodeSystems they belong to or against
+	 * a single ValueSet. The validator uses this method when it has collected a group of codes which
+	 * all need to be validated, e.g. all of the codes found in a resource.
+	 * <p>
+	 * The default implementation validates each code in turn using
+	 * {@link #validateCode(ValidationSupportContext, ConceptValidationOptions, String, String, String, String)}
+	 * or {@link #validateCodeInValueSet(ValidationSupportContext, ConceptValidationOptions, String, String, String, IBaseResource)}.
+	 * Implementations which can validate many codes more efficiently than one at a time (e.g. by
+	 * making concurrent requests to a remote terminology server) may override it.
+	 * </p>
+	 *
+	 * @param theValidationSupportContext The validation support module will be passed in to this method. This is convenient in cases where the operation needs to make calls to
+	 *                                    other method in the support chain, so that they can be passed through the entire chain. Implementations of this interface may always safely ignore this parameter.
+	 * @param theOptions                  Provides options controlling the validation
+	 * @param theRequests                 The codes to validate
+	 * @param theValueSet                 The ValueSet to validate the codes against, or <code>null</code> if they should be validated against their CodeSystems
+	 * @return Returns the validation results, in the same order as the requests. An individual result will be <code>null</code> if this validation support module can not handle that request.
+	 * @since 8.8.0
+	 */
+	@Nonnull
+	default List<CodeValidationResult> validateCodeBatch(
+			ValidationSupportContext theValidationSupportContext,
+			ConceptValidationOptions theOptions,
+			@Nonnull List<CodeValidationRequest> theRequests,
+			@Nullable IBaseResource theValueSet) {
+		List<CodeValidationResult> retVal = new ArrayList<>(theRequests.size());
+		for (CodeValidationRequest next : theRequests) {
+			if (theValueSet != null) {
+				retVal.add(validateCodeInValueSet(
+						theValidationSupportContext,
+						theOptions,
+						next.getSystem(),
+						next.getCode(),
+						next.getDisplay(),
+						theValueSet));
+			} else {
+				retVal.add(validateCode(
+						theValidationSupportContext,
+						theOptions,
+						next.getSystem(),
+						next.getCode(),
+						next.getDisplay(),
+						null));
+			}
+		}
+		return retVal;
+	}
+
 	/**
 	 * Look up a code using the system and code value.
 	 * @deprecated This method has been deprecated in HAPI FHIR 7.0.0. Use {@link IValidationSupport#lookupCode(ValidationSupportContext, LookupCodeRequest)} instead.
@@ -1342,6 +1391,71 @@ public interface IValidationSupport {
 		}
 	}
 
+	/**
+	 * A single code to validate as a part of
+	 * {@link #validateCodeBatch(ValidationSupportContext, ConceptValidationOptions, List, IBaseResource)}
+	 *
+	 * @since 8.8.0
+	 */
+	class CodeValidationRequest {
+		private final String mySystem;
+		private final String myCode;
+		private final String myDisplay;
+
+		/**
+		 * Constructor
+		 *
+		 * @param theSystem  The code system, e.g. "<code>http://loinc.org</code>"
+		 * @param theCode    The code, e.g. "<code>1234-5</code>"
+		 * @param theDisplay The display name, if it should also be validated
+		 */
+		public CodeValidationRequest(String theSystem, String theCode, String theDisplay) {
+			mySystem = theSystem;
+			myCode = theCode;
+			myDisplay = theDisplay;
+		}
+
+		public String getSystem() {
+			return mySystem;
+		}
+
+		public String getCode() {
+			return myCode;
+		}
+
+		public String getDisplay() {
+			return myDisplay;
+		}
+
+		@Override
+		public boolean equals(Object theO) {
+			if (this == theO) {
+				return true;
+			}
+			if (!(theO instanceof CodeValidationRequest)) {
+				return false;
+			}
+			CodeValidationRequest that = (CodeValidationRequest) theO;
+			return Objects.equals(mySystem, that.mySystem)
+					&& Objects.equals(myCode, that.myCode)
+					&& Objects.equals(myDisplay, that.myDisplay);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(mySystem, myCode, myDisplay);
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringBuilder(this)
+					.append("system", mySystem)
+					.append("code", myCode)
+					.append("display", myDisplay)
+					.toString();
+		}
+	}
+
 	class TranslateCodeRequest {
 		private final String myTargetSystemUrl;
 		private final String myConceptMapUrl;
@@ -46,6 +46,7 @@ import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.CollectionUtil;
 import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.MetaUtil;
+import ca.uhn.fhir.util.PreEncodedResourceUtil;
 import ca.uhn.fhir.util.ResourceUtil;
 import ca.uhn.fhir.util.UrlUtil;
 import com.google.common.base.Charsets;
@@ -80,6 +81,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -612,7 +614,7 @@ public abstract class BaseParser implements IParser {
 		return myOmitResourceId;
 	}
 
-	private boolean isOverrideResourceIdWithBundleEntryFullUrl() {
+	boolean isOverrideResourceIdWithBundleEntryFullUrl() {
 		Boolean overrideResourceIdWithBundleEntryFullUrl = myOverrideResourceIdWithBundleEntryFullUrl;
 		if (overrideResourceIdWithBundleEntryFullUrl != null) {
 			return overrideResourceIdWithBundleEntryFullUrl;
@@ -719,51 +721,56 @@ public abstract class BaseParser implements IParser {
 		if ("Bundle".equals(def.getName())) {
 
 			if (isOverrideResourceIdWithBundleEntryFullUrl()) {
-				BundleUtil.processEntries(myContext, (IBaseBundle) retVal, t -> {
-					String fullUrl = t.getFullUrl();
-					if (fullUrl != null) {
-						IBaseResource resource = t.getResource();
-						if (resource != null) {
-							IIdType resourceId = resource.getIdElement();
-							if (isBlank(resourceId.getValue())) {
-								resourceId.setValue(fullUrl);
-							} else {
-								if (fullUrl.startsWith("urn:")
-										&& fullUrl.length()
-												> resourceId.getIdPart().length()
-										&& fullUrl.charAt(fullUrl.length()
-														- resourceId.getIdPart().length()
-														- 1)
-												== ':'
-										&& fullUrl.endsWith(resourceId.getIdPart())) {
-									resourceId.setValue(fullUrl);
-								} else {
-									IIdType fullUrlId = myContext.getVersion().newIdType();
-									fullUrlId.setValue(fullUrl);
-									if (myContext.getVersion().getVersion().isOlderThan(FhirVersionEnum.DSTU3)) {
-										IIdType newId = fullUrlId;
-										if (!newId.hasVersionIdPart() && resourceId.hasVersionIdPart()) {
-											newId = newId.withVersion(resourceId.getVersionIdPart());
-										}
-										resourceId.setValue(newId.getValue());
-									} else if (StringUtils.equals(fullUrlId.getIdPart(), resourceId.getIdPart())) {
-										if (fullUrlId.hasBaseUrl()) {
-											IIdType newResourceId = resourceId.withServerBase(
-													fullUrlId.getBaseUrl(), resourceId.getResourceType());
-											resourceId.setValue(newResourceId.getValue());
-										}
-									}
-								}
-							}
-						}
-					}
-				});
+				BundleUtil.processEntries(
+						myContext,
+						(IBaseBundle) retVal,
+						t -> overrideResourceIdWithBundleEntryFullUrl(t.getFullUrl(), t.getResource()));
 			}
 		}
 
 		return retVal;
 	}
 
+	/**
+	 * Applies the {@link #isOverrideResourceIdWithBundleEntryFullUrl() fullUrl override} to
+	 * a single Bundle entry
+	 */
+	void overrideResourceIdWithBundleEntryFullUrl(String theFullUrl, IBaseResource theResource) {
+		if (theFullUrl == null || theResource == null) {
+			return;
+		}
+
+		IIdType resourceId = theResource.getIdElement();
+		if (isBlank(resourceId.getValue())) {
+			resourceId.setValue(theFullUrl);
+		} else {
+			if (theFullUrl.startsWith("urn:")
+					&& theFullUrl.length() > resourceId.getIdPart().length()
+					&& theFullUrl.charAt(
+									theFullUrl.length() - resourceId.getIdPart().length() - 1)
+							== ':'
+					&& theFullUrl.endsWith(resourceId.getIdPart())) {
+				resourceId.setValue(theFullUrl);
+			} else {
+				IIdType fullUrlId = myContext.getVersion().newIdType();
+				fullUrlId.setValue(theFullUrl);
+				if (myContext.getVersion().getVersion().isOlderThan(FhirVersionEnum.DSTU3)) {
+					IIdType newId = fullUrlId;
+					if (!newId.hasVersionIdPart() && resourceId.hasVersionIdPart()) {
+						newId = newId.withVersion(resourceId.getVersionIdPart());
+					}
+					resourceId.setValue(newId.getValue());
+				} else if (StringUtils.equals(fullUrlId.getIdPart(), resourceId.getIdPart())) {
+					if (fullUrlId.hasBaseUrl()) {
+						IIdType newResourceId =
+								resourceId.withServerBase(fullUrlId.getBaseUrl(), resourceId.getResourceType());
+						resourceId.setValue(newResourceId.getValue());
+					}
+				}
+			}
+		}
+	}
+
 	@SuppressWarnings("cast")
 	@Override
 	public <T extends IBaseResource> T parseResource(Class<T> theResourceType, String theMessageString) {
@@ -776,6 +783,24 @@ public abstract class BaseParser implements IParser {
 		return parseResource(null, theReader);
 	}
 
+	@Override
+	public IBundleEntryIterator parseBundleEntries(Reader theReader) throws DataFormatException {
+		Class<? extends IBaseResource> bundleType =
+				myContext.getResourceDefinition("Bundle").getImplementingClass();
+		IBaseBundle bundle = (IBaseBundle) parseResource(bundleType, theReader);
+		return IBundleEntryIterator.detachFromBundle(myContext, bundle);
+	}
+
+	@Override
+	public void encodeBundleToWriter(IBundleEntryIterator theEntries, Writer theWriter)
+			throws IOException, DataFormatException {
+		IBaseBundle bundle = theEntries.getBundle();
+		BaseRuntimeChildDefinition entryChild =
+				myContext.getResourceDefinition(bundle).getChildByName("entry");
+		theEntries.forEachRemaining(t -> entryChild.getMutator().addValue(bundle, t));
+		encodeResourceToWriter(bundle, theWriter);
+	}
+
 	@Override
 	public IBaseResource parseResource(String theMessageString) throws ConfigurationException, DataFormatException {
 		return parseResource(null, theMessageString);
@@ -996,6 +1021,32 @@ public abstract class BaseParser implements IParser {
 		return retVal;
 	}
 
+	/**
+	 * Returns <code>true</code> if a resource carrying pre-encoded JSON (see {@link PreEncodedResourceUtil})
+	 * can be written using that JSON as-is, i.e. if this parser has not been asked to filter or otherwise
+	 * transform the resources it encodes.
+	 */
+	protected boolean isPreEncodedResourcePassthroughPossible(EncodeContext theEncodeContext) {
+		return !isSummaryMode()
+				&& !isSuppressNarratives()
+				&& !isOmitResourceId()
+				&& getEncodeForceResourceId() == null
+				&& theEncodeContext.myEncodeElementPaths == null
+				&& theEncodeContext.myDontEncodeElementPaths == null;
+	}
+
+	/**
+	 * If the given resource carries pre-encoded JSON (see {@link PreEncodedResourceUtil}), parses
+	 * that JSON and returns the fully populated resource. Otherwise the given resource is returned.
+	 */
+	protected IBaseResource inflatePreEncodedResource(IBaseResource theResource) {
+		String json = PreEncodedResourceUtil.getPreEncodedJson(theResource);
+		if (json == null) {
+			return theResource;
+		}
+		return myContext.newJsonParser().parseResource(theResource.getClass(), json);
+	}
+
 	/**
 	 * Used for DSTU2 only
 	 */
@@ -1108,6 +1159,8 @@ public abstract class BaseParser implements IParser {
 		private final Set<String> myEncodeElementsAppliesToResourceTypes;
 		private final List<EncodeContextPath> myDontEncodeElementPaths;
 		private FhirTerser.ContainedResources myContainedResources;
+		private IBaseBundle myStreamedBundle;
+		private Iterator<IBase> myStreamedBundleEntries;
 
 		public EncodeContext(
 				BaseParser theParser,
@@ -1152,6 +1205,23 @@ public abstract class BaseParser implements IParser {
 		public void setContainedResources(FhirTerser.ContainedResources theContainedResources) {
 			myContainedResources = theContainedResources;
 		}
+
+		/**
+		 * The Bundle whose entries are taken from {@link #getStreamedBundleEntries()} instead of
+		 * from <code>Bundle.entry</code>, if any
+		 */
+		IBaseBundle getStreamedBundle() {
+			return myStreamedBundle;
+		}
+
+		Iterator<IBase> getStreamedBundleEntries() {
+			return myStreamedBundleEntries;
+		}
+
+		void setStreamedBundleEntries(IBaseBundle theBundle, Iterator<IBase> theEntries) {
+			myStreamedBundle = theBundle;
+			myStreamedBundleEntries = theEntries;
+		}
 	}
 
 	protected class CompositeChildElement {
@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the entries of a Bundle as they are parsed. Returned by
+ * {@link IParser#parseBundleEntries(java.io.Reader)}.
+ * <p>
+ * Entries are handed out one at a time and are not retained by the iterator or added to
+ * {@link #getBundle() the Bundle}, so a consumer which processes each entry and then
+ * discards it can work through an arbitrarily large Bundle in constant memory.
+ * </p>
+ * <p>
+ * Because each entry is parsed in isolation, references between resources in different
+ * entries are not linked to each other (i.e. {@link org.hl7.fhir.instance.model.api.IBaseReference#getResource()}
+ * will not be populated with the resource from another entry).
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public interface IBundleEntryIterator extends Iterator<IBase>, Closeable {
+
+	/**
+	 * Returns the Bundle being parsed, populated with every element except <code>Bundle.entry</code>.
+	 * Elements which appear before the entries in the source document (which is the case for
+	 * <code>Bundle.type</code> in any canonically ordered Bundle) are available as soon as the
+	 * iterator is created. Elements which appear after the entries are only available once
+	 * {@link #hasNext()} has returned <code>false</code>.
+	 */
+	IBaseBundle getBundle();
+
+	/**
+	 * Returns a sequential {@link Stream} over the remaining entries. Closing the stream
+	 * closes this iterator.
+	 */
+	default Stream<IBase> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+				.onClose(this::close);
+	}
+
+	/**
+	 * Reads the remaining entries into {@link #getBundle() the Bundle} and returns it, for consumers
+	 * which need the complete Bundle after all. Entries which are already in the Bundle (i.e. if this
+	 * iterator was created by {@link #fromBundle(FhirContext, IBaseBundle)}) are not added a second time.
+	 *
+	 * @param theContext The FHIR context
+	 */
+	default IBaseBundle readRemainingEntriesIntoBundle(FhirContext theContext) {
+		IBaseBundle bundle = getBundle();
+		BaseRuntimeChildDefinition entryChild =
+				theContext.getResourceDefinition(bundle).getChildByName("entry");
+		forEachRemaining(t -> entryChild.getMutator().addValue(bundle, t));
+		return bundle;
+	}
+
+	/**
+	 * Releases any resources held by the parser. The source {@link java.io.Reader} is not closed.
+	 */
+	@Override
+	void close();
+
+	/**
+	 * Removes the entries from a Bundle which has already been parsed or built and returns an iterator over
+	 * them. Each entry is released by the iterator as soon as it has been handed out, so once nothing else
+	 * refers to them the entries can be garbage collected as they are processed.
+	 *
+	 * @param theContext The FHIR context
+	 * @param theBundle  The Bundle. Its entries will be removed.
+	 */
+	static IBundleEntryIterator detachFromBundle(FhirContext theContext, IBaseBundle theBundle) {
+		BaseRuntimeChildDefinition entryChild =
+				theContext.getResourceDefinition(theBundle).getChildByName("entry");
+		List<IBase> entries = new ArrayList<>(entryChild.getAccessor().getValues(theBundle));
+		entryChild.getMutator().setValue(theBundle, null);
+		return new ListBundleEntryIterator(theBundle, entries, false);
+	}
+
+	/**
+	 * Creates an iterator over the entries of a Bundle which has already been parsed. Unlike
+	 * {@link IParser#parseBundleEntries(java.io.Reader)}, the entries are left in place on
+	 * the Bundle.
+	 *
+	 * @param theContext The FHIR context
+	 * @param theBundle  The Bundle to iterate over
+	 */
+	static IBundleEntryIterator fromBundle(FhirContext theContext, IBaseBundle theBundle) {
+		BaseRuntimeChildDefinition entryChild =
+				theContext.getResourceDefinition(theBundle).getChildByName("entry");
+		return new ListBundleEntryIterator(
+				theBundle, new ArrayList<>(entryChild.getAccessor().getValues(theBundle)), true);
+	}
+}
@@ -71,6 +71,29 @@ public interface IParser {
 	 */
 	void encodeResourceToWriter(IBaseResource theResource, Writer theWriter) throws IOException, DataFormatException;
 
+	/**
+	 * Encodes a Bundle whose entries are supplied by an iterator instead of being held in
+	 * <code>Bundle.entry</code>. This is the encoding counterpart of {@link #parseBundleEntries(Reader)}:
+	 * the Bundle returned by {@link IBundleEntryIterator#getBundle()} is encoded, and the entries
+	 * from the iterator are written in place of <code>Bundle.entry</code>.
+	 * <p>
+	 * Parsers which are able to stream entries (currently the JSON parser) request each entry from the
+	 * iterator only when it is about to be written and do not retain it afterwards, so an iterator
+	 * which releases its entries allows them to be garbage collected while the rest of the Bundle is
+	 * still being written. Other parsers add the entries to the Bundle and then encode it.
+	 * </p>
+	 *
+	 * @param theEntries The Bundle and its entries. The Bundle must not have any entries of its own.
+	 * @param theWriter  The writer to write to.
+	 * @throws DataFormatException If any invalid elements within the contents to be encoded prevent successful encoding.
+	 * @since 8.8.0
+	 */
+	default void encodeBundleToWriter(IBundleEntryIterator theEntries, Writer theWriter)
+			throws IOException, DataFormatException {
+		throw new UnsupportedOperationException(
+				Msg.code(2844) + getClass().getName() + " does not support this operation");
+	}
+
 	/**
 	 * Encodes any FHIR element to a string.
 	 * If a {@link IBaseResource resource object} is passed in, the resource will be encoded using standard FHIR
@@ -299,6 +322,26 @@ public interface IParser {
 	 */
 	IBaseResource parseResource(String theMessageString) throws ConfigurationException, DataFormatException;
 
+	/**
+	 * Parses a Bundle, returning its entries one at a time as they are read instead of
+	 * building the complete Bundle in memory. See {@link IBundleEntryIterator} for details.
+	 * <p>
+	 * Parsers which are not able to stream entries will parse the complete Bundle and
+	 * then iterate over its entries. The JSON parser only streams entries if
+	 * {@link ca.uhn.fhir.context.ParserOptions#setStreamingJsonParsing(boolean) streaming JSON parsing}
+	 * is enabled.
+	 * </p>
+	 *
+	 * @param theReader The reader to parse input from. Note that the Reader will not be closed by the parser upon completion.
+	 * @throws DataFormatException If the Bundle can not be parsed because the data is not recognized or invalid for any
+	 *                             reason, or if the content is not a Bundle
+	 * @since 8.8.0
+	 */
+	default IBundleEntryIterator parseBundleEntries(Reader theReader) throws DataFormatException {
+		throw new UnsupportedOperationException(
+				Msg.code(2841) + getClass().getName() + " does not support this operation");
+	}
+
 	/**
 	 * If provided, specifies the elements which should NOT be encoded. Valid values for this
 	 * field would include:
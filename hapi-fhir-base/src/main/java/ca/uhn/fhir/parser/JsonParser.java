@@ -46,6 +46,8 @@ import ca.uhn.fhir.model.primitive.InstantDt;
 import ca.uhn.fhir.narrative.INarrativeGenerator;
 import ca.uhn.fhir.parser.json.BaseJsonLikeArray;
 import ca.uhn.fhir.parser.json.BaseJsonLikeObject;
+import ca.uhn.fhir.parser.json.BaseJsonLikeStreamReader;
+import ca.uhn.fhir.parser.json.BaseJsonLikeStreamReader.TokenType;
 import ca.uhn.fhir.parser.json.BaseJsonLikeValue;
 import ca.uhn.fhir.parser.json.BaseJsonLikeValue.ScalarType;
 import ca.uhn.fhir.parser.json.BaseJsonLikeValue.ValueType;
@@ -55,12 +57,14 @@ import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.util.ElementUtil;
 import ca.uhn.fhir.util.FhirTerser;
+import ca.uhn.fhir.util.PreEncodedResourceUtil;
 import jakarta.annotation.Nonnull;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.text.WordUtils;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBooleanDatatype;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseDecimalDatatype;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
 import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
@@ -78,9 +82,13 @@ import java.io.Writer;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.ID_DATATYPE;
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.PRIMITIVE_DATATYPE;
@@ -252,6 +260,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 
 	@Override
 	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader) {
+		if (getContext().getParserOptions().isStreamingJsonParsing()) {
+			return doParseResourceStreaming(theResourceType, theReader);
+		}
+
 		JsonLikeStructure jsonStructure = new JacksonStructure();
 		jsonStructure.load(theReader);
 
@@ -286,6 +298,95 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	@Override
+	public IBundleEntryIterator parseBundleEntries(Reader theReader) throws DataFormatException {
+		if (!getContext().getParserOptions().isStreamingJsonParsing()) {
+			return super.parseBundleEntries(theReader);
+		}
+		return new StreamingBundleEntryIterator(theReader);
+	}
+
+	@Override
+	public void encodeBundleToWriter(IBundleEntryIterator theEntries, Writer theWriter)
+			throws IOException, DataFormatException {
+		IBaseBundle bundle = theEntries.getBundle();
+		BaseRuntimeElementCompositeDefinition<?> entryDef = (BaseRuntimeElementCompositeDefinition<?>) getContext()
+				.getResourceDefinition(bundle)
+				.getChildByName("entry")
+				.getChildByName("entry");
+		BaseRuntimeChildDefinition fullUrlChild = entryDef.getChildByName("fullUrl");
+		BaseRuntimeChildDefinition resourceChild = entryDef.getChildByName("resource");
+
+		EncodeContext encodeContext =
+				new EncodeContext(this, getContext().getParserOptions(), new FhirTerser.ContainedResources());
+		encodeContext.setStreamedBundleEntries(bundle, new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return theEntries.hasNext();
+			}
+
+			@Override
+			public IBase next() {
+				IBase retVal = theEntries.next();
+				assignPlaceholderIdFromFullUrl(retVal, fullUrlChild, resourceChild);
+				return retVal;
+			}
+		});
+		encodeResourceToWriter(bundle, theWriter, encodeContext);
+	}
+
+	/**
+	 * Streamed entries are not visible to {@link #containResourcesInReferences(IBaseResource, EncodeContext)}
+	 * when it runs against the root Bundle, so this applies the same placeholder handling to each entry
+	 * as it is encoded
+	 */
+	private static void assignPlaceholderIdFromFullUrl(
+			IBase theEntry, BaseRuntimeChildDefinition theFullUrlChild, BaseRuntimeChildDefinition theResourceChild) {
+		IBaseResource resource = (IBaseResource)
+				theResourceChild.getAccessor().getFirstValueOrNull(theEntry).orElse(null);
+		if (resource == null || resource.getIdElement().getValue() != null) {
+			return;
+		}
+		String fullUrl = theFullUrlChild
+				.getAccessor()
+				.getFirstValueOrNull(theEntry)
+				.map(t -> ((IPrimitiveType<?>) t).getValueAsString())
+				.orElse(null);
+		if (StringUtils.startsWith(fullUrl, "urn:")) {
+			resource.getIdElement().setValue(fullUrl);
+		}
+	}
+
+	/**
+	 * Parses a resource directly from the JSON token stream, driving the {@link ParserState} as each
+	 * property is read instead of loading the complete document into a tree first.
+	 *
+	 * @see ca.uhn.fhir.context.ParserOptions#setStreamingJsonParsing(boolean)
+	 */
+	private <T extends IBaseResource> T doParseResourceStreaming(Class<T> theResourceType, Reader theReader) {
+		JsonLikeStructure jsonStructure = new JacksonStructure();
+		try (BaseJsonLikeStreamReader reader = jsonStructure.getJsonLikeStreamReader(theReader)) {
+			// The structure has already verified that the content starts with '{'
+			reader.nextToken();
+
+			ParserState<? extends IBaseResource> state =
+					ParserState.getPreResourceInstance(this, theResourceType, getContext(), true, getErrorHandler());
+			streamResourceObject(reader, state, true);
+			state.endingElement();
+
+			if (reader.nextToken() != TokenType.END) {
+				throw new DataFormatException(
+						Msg.code(2840)
+								+ "Failed to parse JSON encoded FHIR content: Unexpected content after the end of the resource");
+			}
+
+			@SuppressWarnings("unchecked")
+			T retVal = (T) state.getObject();
+
+			return retVal;
+		}
+	}
+
 	private void encodeChildElementToStreamWriter(
 			RuntimeResourceDefinition theResDef,
 			IBaseResource theResource,
@@ -552,10 +653,19 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 				continue;
 			}
 
-			List<? extends IBase> values = nextChild.getAccessor().getValues(theElement);
-			values = preProcessValues(nextChild, theResource, values, nextChildElem, theEncodeContext);
+			Iterator<? extends IBase> valueIterator;
+			if (theElement == theEncodeContext.getStreamedBundle() && "entry".equals(nextChild.getElementName())) {
+				valueIterator = theEncodeContext.getStreamedBundleEntries();
+			} else {
+				List<? extends IBase> values = nextChild.getAccessor().getValues(theElement);
+				values = preProcessValues(nextChild, theResource, values, nextChildElem, theEncodeContext);
+				if (values == null) {
+					continue;
+				}
+				valueIterator = values.iterator();
+			}
 
-			if (values == null || values.isEmpty()) {
+			if (!valueIterator.hasNext()) {
 				continue;
 			}
 
@@ -568,7 +678,8 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 			ArrayList<String> ids = new ArrayList<>(0);
 
 			int valueIdx = 0;
-			for (IBase nextValue : values) {
+			while (valueIterator.hasNext()) {
+				IBase nextValue = valueIterator.next();
 
 				if (nextValue == null || nextValue.isEmpty()) {
 					if (nextValue instanceof BaseContainedDt) {
@@ -844,6 +955,12 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 				theEncodeContext);
 	}
 
+	@Override
+	protected boolean isPreEncodedResourcePassthroughPossible(EncodeContext theEncodeContext) {
+		// Pre-encoded JSON is compact, so it can't be embedded in pretty printed output
+		return !myPrettyPrint && super.isPreEncodedResourcePassthroughPossible(theEncodeContext);
+	}
+
 	@Override
 	public void encodeResourceToJsonLikeWriter(IBaseResource theResource, BaseJsonLikeWriter theJsonLikeWriter)
 			throws IOException, DataFormatException {
@@ -913,6 +1030,14 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 			return;
 		}
 
+		if (PreEncodedResourceUtil.hasPreEncodedJson(theResource)) {
+			if (!theContainedResource && isPreEncodedResourcePassthroughPossible(theEncodeContext)) {
+				theEventWriter.writeRaw(theObjectNameOrNull, PreEncodedResourceUtil.getPreEncodedJson(theResource));
+				return;
+			}
+			theResource = inflatePreEncodedResource(theResource);
+		}
+
 		if (!theContainedResource) {
 			containResourcesInReferences(theResource, theEncodeContext);
 		}
@@ -1251,7 +1376,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 	}
 
 	private BaseJsonLikeArray grabJsonArray(BaseJsonLikeObject theObject, String nextName, String thePosition) {
-		BaseJsonLikeValue object = theObject.get(nextName);
+		return grabJsonArray(theObject.get(nextName), thePosition);
+	}
+
+	private BaseJsonLikeArray grabJsonArray(BaseJsonLikeValue object, String thePosition) {
 		if (object == null || object.isNull()) {
 			return null;
 		}
@@ -1485,6 +1613,139 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		}
 	}
 
+	/**
+	 * Streaming counterpart to {@link #parseChildren(BaseJsonLikeObject, ParserState)}. The reader must be
+	 * positioned inside an object, and this method consumes everything up to and including the
+	 * closing brace of that object.
+	 * <p>
+	 * Complex values (objects and arrays of objects) are handed to the parser state as soon as they are
+	 * encountered. Primitive values are held until the end of the enclosing object, since their
+	 * <code>_name</code> sibling carrying the element id and extensions may appear after them.
+	 * </p>
+	 */
+	private void streamChildren(BaseJsonLikeStreamReader theReader, ParserState<?> theState) {
+		StreamedObject object = new StreamedObject(theReader, theState);
+		while (theReader.nextToken() == TokenType.FIELD_NAME) {
+			object.streamField(theReader.currentName(), theReader.nextToken());
+		}
+		object.finish();
+	}
+
+	/**
+	 * Streaming counterpart to the object branch of
+	 * {@link #parseChildren(ParserState, String, BaseJsonLikeValue, BaseJsonLikeValue, String, boolean)}.
+	 * The reader must be positioned on the opening brace of the object.
+	 */
+	private void streamObject(
+			BaseJsonLikeStreamReader theReader,
+			ParserState<?> theState,
+			String theName,
+			BaseJsonLikeValue theAlternateVal,
+			String theAlternateName,
+			boolean theInArray) {
+		if (!theInArray && theState.elementIsRepeating(theName)) {
+			getErrorHandler().incorrectJsonType(null, theName, ValueType.ARRAY, null, ValueType.OBJECT, null);
+		}
+
+		theState.enteringNewElement(null, theName);
+		parseAlternates(theAlternateVal, theState, theAlternateName, theAlternateName);
+		if (theState.isPreResource()) {
+			streamResourceObject(theReader, theState, false);
+		} else {
+			streamChildren(theReader, theState);
+		}
+		theState.endingElement();
+	}
+
+	/**
+	 * The reader must be positioned on the opening bracket of an array. Arrays of objects are streamed
+	 * one element at a time and <code>null</code> is returned. Any other array (e.g. the values of a
+	 * repeating primitive element) is buffered and returned so that it can be processed along with its
+	 * <code>_name</code> sibling.
+	 */
+	private BaseJsonLikeArray streamArray(
+			BaseJsonLikeStreamReader theReader,
+			ParserState<?> theState,
+			String theName,
+			BaseJsonLikeValue theAlternateVal,
+			String theAlternateName) {
+		TokenType token = theReader.nextToken();
+		if (token != TokenType.START_OBJECT) {
+			List<BaseJsonLikeValue> values = new ArrayList<>();
+			while (token != TokenType.END_ARRAY) {
+				values.add(theReader.readValue());
+				token = theReader.nextToken();
+			}
+			return new BufferedJsonLikeArray(values);
+		}
+
+		BaseJsonLikeValue alternateVal = theAlternateVal;
+		if (alternateVal != null && alternateVal.isArray() == false) {
+			getErrorHandler()
+					.incorrectJsonType(null, theAlternateName, ValueType.ARRAY, null, alternateVal.getJsonType(), null);
+			alternateVal = null;
+		}
+
+		BaseJsonLikeArray nextAlternateArray = BaseJsonLikeValue.asArray(alternateVal); // could be null
+		for (int i = 0; token != TokenType.END_ARRAY; i++) {
+			BaseJsonLikeValue nextAlternate = null;
+			if (nextAlternateArray != null && nextAlternateArray.size() >= (i + 1)) {
+				nextAlternate = nextAlternateArray.get(i);
+			}
+			if (token == TokenType.START_OBJECT) {
+				streamObject(theReader, theState, theName, nextAlternate, theAlternateName, true);
+			} else {
+				parseChildren(theState, theName, theReader.readValue(), nextAlternate, theAlternateName, true);
+			}
+			token = theReader.nextToken();
+		}
+		return null;
+	}
+
+	/**
+	 * The reader must be positioned on the opening brace of a resource, and the state must be expecting
+	 * a resource. In canonically ordered JSON, <code>resourceType</code> is the first property so
+	 * the resource body can be streamed. Otherwise, the remainder of the resource is buffered.
+	 */
+	private void streamResourceObject(BaseJsonLikeStreamReader theReader, ParserState<?> theState, boolean theRoot) {
+		TokenType token = theReader.nextToken();
+		if (token == TokenType.FIELD_NAME && "resourceType".equals(theReader.currentName())) {
+			theReader.nextToken();
+			String resourceType = validateResourceType(theReader.readValue(), theRoot);
+			theState.enteringNewElement(null, resourceType);
+			streamChildren(theReader, theState);
+			theState.endingElement();
+			return;
+		}
+
+		BaseJsonLikeObject object = null;
+		BaseJsonLikeValue resourceTypeObj = null;
+		if (token == TokenType.FIELD_NAME) {
+			object = theReader.readValue().getAsObject();
+			resourceTypeObj = object.get("resourceType");
+		}
+		String resourceType = validateResourceType(resourceTypeObj, theRoot);
+
+		theState.enteringNewElement(null, resourceType);
+		parseChildren(object, theState);
+		theState.endingElement();
+	}
+
+	private String validateResourceType(BaseJsonLikeValue theResourceTypeObj, boolean theRoot) {
+		if (theRoot) {
+			if (theResourceTypeObj == null
+					|| !theResourceTypeObj.isString()
+					|| isBlank(theResourceTypeObj.getAsString())) {
+				throw new DataFormatException(
+						Msg.code(1838) + "Invalid JSON content detected, missing required element: 'resourceType'");
+			}
+		} else if (theResourceTypeObj == null || !theResourceTypeObj.isString()) {
+			throw new DataFormatException(Msg.code(1843)
+					+ "Missing required element 'resourceType' from JSON resource object, unable to parse");
+		}
+		return theResourceTypeObj.getAsString();
+	}
+
 	private void parseExtension(ParserState<?> theState, BaseJsonLikeArray theValues, boolean theIsModifier) {
 		int allUnderscoreNames = 0;
 		int handledUnderscoreNames = 0;
@@ -1793,6 +2054,342 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		theWriter.write(theName, theValue);
 	}
 
+	/**
+	 * Tracks the properties of a single JSON object while it is being streamed into the parser state
+	 *
+	 * @see #streamChildren(BaseJsonLikeStreamReader, ParserState)
+	 */
+	private class StreamedObject {
+		private final BaseJsonLikeStreamReader myReader;
+		private final ParserState<?> myState;
+		private final Map<String, BaseJsonLikeValue> myHeldValues = new LinkedHashMap<>();
+		private final Map<String, BaseJsonLikeValue> myAlternateValues = new LinkedHashMap<>();
+		private final Set<String> myStreamedNames = new HashSet<>();
+
+		StreamedObject(BaseJsonLikeStreamReader theReader, ParserState<?> theState) {
+			myReader = theReader;
+			myState = theState;
+		}
+
+		/**
+		 * The reader must be positioned on the first token of the value for the given property
+		 */
+		void streamField(String theName, TokenType theValueToken) {
+			if ("resourceType".equals(theName) && myState.isToplevelResourceElement()) {
+				myReader.skipValue();
+			} else if ("extension".equals(theName)) {
+				BaseJsonLikeArray array = grabJsonArray(myReader.readValue(), "extension");
+				parseExtension(myState, array, false);
+			} else if ("modifierExtension".equals(theName)) {
+				BaseJsonLikeArray array = grabJsonArray(myReader.readValue(), "modifierExtension");
+				parseExtension(myState, array, true);
+			} else if (theName.equals("fhir_comments")) {
+				parseFhirComments(myReader.readValue(), myState);
+			} else if (theName.charAt(0) == '_') {
+				myAlternateValues.put(theName, myReader.readValue());
+			} else if (theValueToken == TokenType.START_OBJECT && !"id".equals(theName)) {
+				String alternateName = '_' + theName;
+				streamObject(myReader, myState, theName, myAlternateValues.get(alternateName), alternateName, false);
+				myStreamedNames.add(theName);
+			} else if (theValueToken == TokenType.START_ARRAY && !"id".equals(theName)) {
+				String alternateName = '_' + theName;
+				BaseJsonLikeArray heldArray =
+						streamArray(myReader, myState, theName, myAlternateValues.get(alternateName), alternateName);
+				if (heldArray != null) {
+					myHeldValues.put(theName, heldArray);
+				} else {
+					myStreamedNames.add(theName);
+				}
+			} else {
+				myHeldValues.put(theName, myReader.readValue());
+			}
+		}
+
+		/**
+		 * Processes any primitive values held so far without waiting for the end of the object. Any
+		 * <code>_name</code> sibling which appears after this point is ignored.
+		 */
+		void flushHeldValues() {
+			processHeldValues();
+			myStreamedNames.addAll(myHeldValues.keySet());
+			myHeldValues.clear();
+		}
+
+		/**
+		 * Processes any held primitive values once the end of the object has been reached
+		 */
+		void finish() {
+			processHeldValues();
+
+			/*
+			 * See the equivalent block in parseChildren(BaseJsonLikeObject, ParserState) - an
+			 * "_name" element with no corresponding "name" element
+			 */
+			for (Map.Entry<String, BaseJsonLikeValue> next : myAlternateValues.entrySet()) {
+				String alternateName = next.getKey();
+				if (alternateName.length() > 1) {
+					String nextName = alternateName.substring(1);
+					if (myHeldValues.containsKey(nextName) || myStreamedNames.contains(nextName)) {
+						continue;
+					}
+
+					BaseJsonLikeValue nextValue = next.getValue();
+					if (nextValue.isObject()) {
+						myState.enteringNewElement(null, nextName);
+						parseAlternates(nextValue, myState, alternateName, alternateName);
+						myState.endingElement();
+					} else {
+						getErrorHandler()
+								.incorrectJsonType(
+										null, alternateName, ValueType.OBJECT, null, nextValue.getJsonType(), null);
+					}
+				}
+			}
+		}
+
+		private void processHeldValues() {
+			for (Map.Entry<String, BaseJsonLikeValue> next : myHeldValues.entrySet()) {
+				String nextName = next.getKey();
+				String alternateName = '_' + nextName;
+				parseChildren(
+						myState, nextName, next.getValue(), myAlternateValues.get(alternateName), alternateName, false);
+			}
+		}
+	}
+
+	/**
+	 * Streams a Bundle, parsing each entry in <code>Bundle.entry</code> only when it is requested
+	 */
+	private class StreamingBundleEntryIterator implements IBundleEntryIterator {
+		private final BaseJsonLikeStreamReader myReader;
+		private final RuntimeResourceDefinition myBundleDef;
+		private final BaseRuntimeElementCompositeDefinition<?> myEntryDef;
+		private ParserState<? extends IBaseResource> myBundleState;
+		private StreamedObject myBundleObject;
+		private IBaseBundle myBundle;
+		private List<IBase> myBufferedEntries;
+		private int myBufferedEntryIndex;
+		private boolean myInEntryArray;
+		private boolean myHaveNext;
+
+		StreamingBundleEntryIterator(Reader theReader) {
+			myBundleDef = getContext().getResourceDefinition("Bundle");
+			myEntryDef = (BaseRuntimeElementCompositeDefinition<?>)
+					myBundleDef.getChildByName("entry").getChildByName("entry");
+
+			JsonLikeStructure jsonStructure = new JacksonStructure();
+			myReader = jsonStructure.getJsonLikeStreamReader(theReader);
+			try {
+				start();
+			} catch (RuntimeException e) {
+				myReader.close();
+				throw e;
+			}
+		}
+
+		private void start() {
+			// The structure has already verified that the content starts with '{'
+			myReader.nextToken();
+			Class<? extends IBaseResource> bundleType = myBundleDef.getImplementingClass();
+
+			TokenType token = myReader.nextToken();
+			if (token == TokenType.FIELD_NAME && "resourceType".equals(myReader.currentName())) {
+				myReader.nextToken();
+				String resourceType = validateResourceType(myReader.readValue(), true);
+				validateIsBundle(resourceType);
+
+				myBundleState = ParserState.getPreResourceInstance(
+						JsonParser.this, bundleType, getContext(), true, getErrorHandler());
+				myBundleState.enteringNewElement(null, resourceType);
+				myBundle = (IBaseBundle) myBundleState.getCurrentElement();
+				myBundleObject = new StreamedObject(myReader, myBundleState);
+				advance();
+				return;
+			}
+
+			/*
+			 * The resourceType isn't the first property, so we can't stream. Buffer the
+			 * rest of the document and hand out the entries from the fully parsed Bundle.
+			 */
+			BaseJsonLikeObject object = null;
+			BaseJsonLikeValue resourceTypeObj = null;
+			if (token == TokenType.FIELD_NAME) {
+				object = myReader.readValue().getAsObject();
+				resourceTypeObj = object.get("resourceType");
+			}
+			String resourceType = validateResourceType(resourceTypeObj, true);
+			validateIsBundle(resourceType);
+
+			ParserState<? extends IBaseResource> state = ParserState.getPreResourceInstance(
+					JsonParser.this, bundleType, getContext(), true, getErrorHandler());
+			state.enteringNewElement(null, resourceType);
+			parseChildren(object, state);
+			state.endingElement();
+			state.endingElement();
+			verifyNoTrailingContent();
+
+			myBundle = (IBaseBundle) state.getObject();
+			BaseRuntimeChildDefinition entryChild = myBundleDef.getChildByName("entry");
+			myBufferedEntries = new ArrayList<>(entryChild.getAccessor().getValues(myBundle));
+			entryChild.getMutator().setValue(myBundle, null);
+			for (IBase next : myBufferedEntries) {
+				postProcessEntry(next);
+			}
+		}
+
+		private void validateIsBundle(String theResourceType) {
+			if (!"Bundle".equals(theResourceType)) {
+				throw new DataFormatException(Msg.code(2842) + "Expected a Bundle resource, found: " + theResourceType);
+			}
+		}
+
+		/**
+		 * Reads forward until the reader is positioned on the start of the next entry,
+		 * or until the end of the Bundle has been reached
+		 */
+		private void advance() {
+			myHaveNext = false;
+			while (true) {
+				if (myInEntryArray) {
+					TokenType token = myReader.nextToken();
+					if (token == TokenType.START_OBJECT) {
+						myHaveNext = true;
+						return;
+					}
+					if (token == TokenType.END_ARRAY) {
+						myInEntryArray = false;
+						continue;
+					}
+					getErrorHandler().incorrectJsonType(null, "entry", ValueType.OBJECT, null, ValueType.SCALAR, null);
+					myReader.skipValue();
+					continue;
+				}
+
+				TokenType token = myReader.nextToken();
+				if (token != TokenType.FIELD_NAME) {
+					// End of the Bundle object
+					myBundleObject.finish();
+					myBundleState.endingElement();
+					myBundleState.endingElement();
+					verifyNoTrailingContent();
+					return;
+				}
+
+				String nextName = myReader.currentName();
+				TokenType valueToken = myReader.nextToken();
+				if ("entry".equals(nextName) && valueToken == TokenType.START_ARRAY) {
+					// Make sure that Bundle.type etc. are visible to the consumer of the entries
+					myBundleObject.flushHeldValues();
+					myInEntryArray = true;
+				} else {
+					myBundleObject.streamField(nextName, valueToken);
+				}
+			}
+		}
+
+		private void verifyNoTrailingContent() {
+			if (myReader.nextToken() != TokenType.END) {
+				throw new DataFormatException(
+						Msg.code(2843)
+								+ "Failed to parse JSON encoded FHIR content: Unexpected content after the end of the resource");
+			}
+		}
+
+		/**
+		 * Applies the processing which would normally happen once the complete Bundle has been parsed
+		 */
+		private void postProcessEntry(IBase theEntry) {
+			FhirTerser terser = getContext().newTerser();
+			IBaseResource resource = terser.getSingleValueOrNull(theEntry, "resource", IBaseResource.class);
+			if (resource == null) {
+				return;
+			}
+
+			IPrimitiveType<?> requestUrl = terser.getSingleValueOrNull(theEntry, "request.url", IPrimitiveType.class);
+			if (requestUrl != null
+					&& isNotBlank(requestUrl.getValueAsString())
+					&& requestUrl.getValueAsString().startsWith("urn:")
+					&& resource.getIdElement().isEmpty()) {
+				resource.setId(requestUrl.getValueAsString());
+			}
+
+			if (isOverrideResourceIdWithBundleEntryFullUrl()) {
+				IPrimitiveType<?> fullUrl = terser.getSingleValueOrNull(theEntry, "fullUrl", IPrimitiveType.class);
+				if (fullUrl != null) {
+					overrideResourceIdWithBundleEntryFullUrl(fullUrl.getValueAsString(), resource);
+				}
+			}
+		}
+
+		@Override
+		public IBaseBundle getBundle() {
+			return myBundle;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (myBufferedEntries != null) {
+				return myBufferedEntryIndex < myBufferedEntries.size();
+			}
+			return myHaveNext;
+		}
+
+		@Override
+		public IBase next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			if (myBufferedEntries != null) {
+				IBase retVal = myBufferedEntries.set(myBufferedEntryIndex, null);
+				myBufferedEntryIndex++;
+				return retVal;
+			}
+
+			IBase entry = myEntryDef.newInstance();
+			ParserState<IBase> entryState = ParserState.getComplexObjectState(
+					JsonParser.this, getContext(), getContext(), true, entry, getErrorHandler());
+			entryState.enteringNewElement(null, null);
+			streamChildren(myReader, entryState);
+			entryState.endingElement();
+			postProcessEntry(entry);
+
+			advance();
+			return entry;
+		}
+
+		@Override
+		public void close() {
+			myReader.close();
+		}
+	}
+
+	/**
+	 * A JSON array which has been read from a {@link BaseJsonLikeStreamReader} one element at a time
+	 */
+	private static class BufferedJsonLikeArray extends BaseJsonLikeArray {
+		private final List<BaseJsonLikeValue> myValues;
+
+		BufferedJsonLikeArray(List<BaseJsonLikeValue> theValues) {
+			myValues = theValues;
+		}
+
+		@Override
+		public Object getValue() {
+			return null;
+		}
+
+		@Override
+		public int size() {
+			return myValues.size();
+		}
+
+		@Override
+		public BaseJsonLikeValue get(int index) {
+			return myValues.get(index);
+		}
+	}
+
 	private class HeldExtension implements Comparable<HeldExtension> {
 
 		private CompositeChildElement myChildElem;
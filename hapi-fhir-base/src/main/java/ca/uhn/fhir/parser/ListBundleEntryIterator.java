@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link IBundleEntryIterator} over entries which have already been fully parsed
+ */
+class ListBundleEntryIterator implements IBundleEntryIterator {
+	private final IBaseBundle myBundle;
+	private final List<IBase> myEntries;
+	private final boolean myEntriesInBundle;
+	private int myIndex;
+
+	/**
+	 * @param theEntries        A mutable list. Each slot is cleared as its entry is handed out so that
+	 *                          processed entries can be garbage collected.
+	 * @param theEntriesInBundle Are the entries still present in the Bundle itself
+	 */
+	ListBundleEntryIterator(IBaseBundle theBundle, List<IBase> theEntries, boolean theEntriesInBundle) {
+		myBundle = theBundle;
+		myEntries = theEntries;
+		myEntriesInBundle = theEntriesInBundle;
+	}
+
+	@Override
+	public IBaseBundle getBundle() {
+		return myBundle;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return myIndex < myEntries.size();
+	}
+
+	@Override
+	public IBase next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		IBase retVal = myEntries.set(myIndex, null);
+		myIndex++;
+		return retVal;
+	}
+
+	@Override
+	public IBaseBundle readRemainingEntriesIntoBundle(FhirContext theContext) {
+		if (myEntriesInBundle) {
+			myIndex = myEntries.size();
+			return myBundle;
+		}
+		return IBundleEntryIterator.super.readRemainingEntriesIntoBundle(theContext);
+	}
+
+	@Override
+	public void close() {
+		// nothing
+	}
+}
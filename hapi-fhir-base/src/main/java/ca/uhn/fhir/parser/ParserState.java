@@ -148,6 +148,13 @@ class ParserState<T> {
 		return myObject;
 	}
 
+	/**
+	 * Returns the element currently being populated, which may not be complete yet
+	 */
+	IBase getCurrentElement() {
+		return myState.getCurrentElement();
+	}
+
 	boolean isPreResource() {
 		return myState.isPreResource();
 	}
@@ -192,7 +192,7 @@ public class RDFParser extends BaseParser {
 	}
 
 	private Resource encodeResourceToRDFStreamWriter(
-			final IBaseResource resource,
+			final IBaseResource theResource,
 			final Model rdfModel,
 			final boolean containedResource,
 			final IIdType resourceId,
@@ -200,6 +200,7 @@ public class RDFParser extends BaseParser {
 			final boolean rootResource,
 			Resource parentResource) {
 
+		final IBaseResource resource = inflatePreEncodedResource(theResource);
 		RuntimeResourceDefinition resDef = getContext().getResourceDefinition(resource);
 		if (resDef == null) {
 			throw new ConfigurationException(Msg.code(1845) + "Unknown resource type: " + resource.getClass());
@@ -660,6 +660,7 @@ public class XmlParser extends BaseParser {
 			boolean theIncludedResource,
 			EncodeContext theEncodeContext)
 			throws XMLStreamException, DataFormatException {
+		theResource = inflatePreEncodedResource(theResource);
 		IIdType resourceId = null;
 
 		if (StringUtils.isNotBlank(theResource.getIdElement().getIdPart())) {
@@ -0,0 +1,91 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser.json;
+
+import ca.uhn.fhir.parser.DataFormatException;
+
+import java.io.Closeable;
+
+/**
+ * Forward-only token reader over a JSON-like document. Unlike {@link JsonLikeStructure#load(java.io.Reader)},
+ * which materializes the complete document tree before any of it can be consumed, this reader exposes the
+ * document as a stream of tokens so that callers only need to buffer the parts of the document they are
+ * currently working with.
+ *
+ * @since 8.8.0
+ */
+public abstract class BaseJsonLikeStreamReader implements Closeable {
+
+	public enum TokenType {
+		START_OBJECT,
+		END_OBJECT,
+		START_ARRAY,
+		END_ARRAY,
+		FIELD_NAME,
+		SCALAR,
+		NULL,
+		/**
+		 * The end of the input has been reached
+		 */
+		END
+	}
+
+	/**
+	 * Advances to the next token in the document and returns its type
+	 *
+	 * @throws DataFormatException when invalid JSON is received
+	 */
+	public abstract TokenType nextToken() throws DataFormatException;
+
+	/**
+	 * Returns the type of the token the reader is currently positioned on
+	 */
+	public abstract TokenType currentToken();
+
+	/**
+	 * Returns the name of the current field if the reader is positioned on a {@link TokenType#FIELD_NAME}
+	 * token, or on the value token immediately following it
+	 */
+	public abstract String currentName();
+
+	/**
+	 * Reads the value starting at the current token into a navigable {@link BaseJsonLikeValue}. When positioned on a
+	 * {@link TokenType#START_OBJECT} or {@link TokenType#START_ARRAY} token, the complete object or array is
+	 * consumed. When positioned on a {@link TokenType#FIELD_NAME} token, the remainder of the enclosing object
+	 * (including the current field) is consumed and returned as an object.
+	 *
+	 * @throws DataFormatException when invalid JSON is received
+	 */
+	public abstract BaseJsonLikeValue readValue() throws DataFormatException;
+
+	/**
+	 * Skips over the value starting at the current token without buffering it. Has no effect if the
+	 * reader is positioned on a scalar token.
+	 *
+	 * @throws DataFormatException when invalid JSON is received
+	 */
+	public abstract void skipValue() throws DataFormatException;
+
+	/**
+	 * Closes this reader. The underlying {@link java.io.Reader} is not closed.
+	 */
+	@Override
+	public abstract void close();
+}
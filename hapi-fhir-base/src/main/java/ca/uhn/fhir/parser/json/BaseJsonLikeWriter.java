@@ -19,6 +19,8 @@
  */
 package ca.uhn.fhir.parser.json;
 
+import ca.uhn.fhir.i18n.Msg;
+
 import java.io.IOException;
 import java.io.Writer;
 import java.math.BigDecimal;
@@ -96,4 +98,15 @@ public abstract class BaseJsonLikeWriter {
 	public abstract BaseJsonLikeWriter endArray() throws IOException;
 
 	public abstract BaseJsonLikeWriter endBlock() throws IOException;
+
+	/**
+	 * Writes a value which has already been serialized as JSON, without any further validation or escaping.
+	 *
+	 * @param name The field name, or <code>null</code> if the value is not being written as a field of an object
+	 * @param theJson The serialized value
+	 * @since 8.8.0
+	 */
+	public BaseJsonLikeWriter writeRaw(String name, String theJson) throws IOException {
+		throw new UnsupportedOperationException(Msg.code(2845) + "This writer does not support writing raw JSON");
+	}
 }
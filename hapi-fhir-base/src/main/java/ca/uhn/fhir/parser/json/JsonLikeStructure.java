@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.parser.json;
 
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.parser.DataFormatException;
 
 import java.io.IOException;
@@ -53,4 +54,18 @@ public interface JsonLikeStructure {
 	BaseJsonLikeWriter getJsonLikeWriter();
 
 	BaseJsonLikeWriter getJsonLikeWriter(Writer writer) throws IOException;
+
+	/**
+	 * Creates a forward-only token reader over the given JSON document. Unlike
+	 * {@link #load(Reader)}, the document is not materialized as a tree.
+	 *
+	 * @param theReader a <code>Reader</code> that will
+	 *                  process the JSON input stream
+	 * @throws DataFormatException when invalid JSON is received
+	 * @since 8.8.0
+	 */
+	default BaseJsonLikeStreamReader getJsonLikeStreamReader(Reader theReader) throws DataFormatException {
+		throw new UnsupportedOperationException(
+				Msg.code(2839) + getClass().getName() + " does not support streaming reads");
+	}
 }
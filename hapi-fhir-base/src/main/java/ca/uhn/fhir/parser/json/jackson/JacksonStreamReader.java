@@ -0,0 +1,131 @@
+/*-
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser.json.jackson;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.parser.json.BaseJsonLikeStreamReader;
+import ca.uhn.fhir.parser.json.BaseJsonLikeValue;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+
+/**
+ * {@link BaseJsonLikeStreamReader} backed by a Jackson {@link JsonParser} token stream. Instances
+ * are created using {@link JacksonStructure#getJsonLikeStreamReader(java.io.Reader)}.
+ *
+ * @since 8.8.0
+ */
+public class JacksonStreamReader extends BaseJsonLikeStreamReader {
+
+	private final ObjectReader myObjectReader;
+	private final JsonParser myJsonParser;
+
+	/**
+	 * @param theObjectReader Used to buffer individual values. Must not be configured to fail on
+	 *                        trailing tokens, since values are read from the middle of the stream.
+	 */
+	JacksonStreamReader(ObjectReader theObjectReader, JsonParser theJsonParser) {
+		myObjectReader = theObjectReader;
+		myJsonParser = theJsonParser;
+	}
+
+	@Override
+	public TokenType nextToken() throws DataFormatException {
+		try {
+			return toTokenType(myJsonParser.nextToken());
+		} catch (IOException e) {
+			throw JacksonStructure.toDataFormatException(e);
+		}
+	}
+
+	@Override
+	public TokenType currentToken() {
+		return toTokenType(myJsonParser.currentToken());
+	}
+
+	@Override
+	public String currentName() {
+		try {
+			return myJsonParser.currentName();
+		} catch (IOException e) {
+			throw JacksonStructure.toDataFormatException(e);
+		}
+	}
+
+	@Override
+	public BaseJsonLikeValue readValue() throws DataFormatException {
+		try {
+			JsonNode node = myObjectReader.readTree(myJsonParser);
+			return JacksonStructure.wrap(node);
+		} catch (IOException e) {
+			throw JacksonStructure.toDataFormatException(e);
+		}
+	}
+
+	@Override
+	public void skipValue() throws DataFormatException {
+		try {
+			myJsonParser.skipChildren();
+		} catch (IOException e) {
+			throw JacksonStructure.toDataFormatException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			myJsonParser.close();
+		} catch (IOException e) {
+			throw JacksonStructure.toDataFormatException(e);
+		}
+	}
+
+	private static TokenType toTokenType(JsonToken theToken) {
+		if (theToken == null) {
+			return TokenType.END;
+		}
+		switch (theToken) {
+			case START_OBJECT:
+				return TokenType.START_OBJECT;
+			case END_OBJECT:
+				return TokenType.END_OBJECT;
+			case START_ARRAY:
+				return TokenType.START_ARRAY;
+			case END_ARRAY:
+				return TokenType.END_ARRAY;
+			case FIELD_NAME:
+				return TokenType.FIELD_NAME;
+			case VALUE_NULL:
+				return TokenType.NULL;
+			case VALUE_STRING:
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+			case VALUE_TRUE:
+			case VALUE_FALSE:
+			case VALUE_EMBEDDED_OBJECT:
+			case NOT_AVAILABLE:
+			default:
+				return TokenType.SCALAR;
+		}
+	}
+}
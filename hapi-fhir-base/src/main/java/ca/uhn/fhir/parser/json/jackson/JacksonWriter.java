@@ -196,4 +196,13 @@ public class JacksonWriter extends BaseJsonLikeWriter {
 		myJsonGenerator.writeEndObject();
 		return this;
 	}
+
+	@Override
+	public BaseJsonLikeWriter writeRaw(String name, String theJson) throws IOException {
+		if (name != null) {
+			myJsonGenerator.writeFieldName(name);
+		}
+		myJsonGenerator.writeRawValue(theJson);
+		return this;
+	}
 }
@@ -30,6 +30,14 @@ import java.lang.annotation.Target;
  * <p>
  * This method should have a parameter of type Bundle annotated with the {@link TransactionParam} annotation.
  * </p>
+ * <p>
+ * If the provider also declares a public overload of the method which accepts an
+ * {@link ca.uhn.fhir.parser.IBundleEntryIterator} in place of the Bundle, and
+ * {@link ca.uhn.fhir.context.ParserOptions#isStreamingJsonParsing() streaming JSON parsing} is enabled,
+ * JSON requests are passed to that overload instead, with the entries being handed out as they are parsed.
+ * This is only done when no interceptors which may inspect the request Bundle are registered against the
+ * server pointcuts, since the Bundle they see does not hold the entries (since 8.8.0).
+ * </p>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
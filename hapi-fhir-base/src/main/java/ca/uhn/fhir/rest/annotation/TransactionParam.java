@@ -29,6 +29,11 @@ import java.util.List;
  * Parameter annotation for the "transaction" operation. The parameter annotated with this
  * annotation must be a Bundle resource type, or a type that implements
  * <code>{@link List}&lt;IBaseResource&gt;</code>
+ * <p>
+ * The parameter may also be an {@link ca.uhn.fhir.parser.IBundleEntryIterator}, in which case
+ * the entries are handed to the method one at a time as they are parsed from the request body
+ * instead of the complete Bundle being parsed up front (since 8.8.0).
+ * </p>
  */
 @Target(value = ElementType.PARAMETER)
 @Retention(RetentionPolicy.RUNTIME)
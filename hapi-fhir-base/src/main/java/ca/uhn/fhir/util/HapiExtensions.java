@@ -60,6 +60,37 @@ public class HapiExtensions {
 	public static final String EXT_SUBSCRIPTION_RESTHOOK_DELIVER_LATEST_VERSION =
 			"http://hapifhir.io/fhir/StructureDefinition/subscription-resthook-deliver-latest-version";
 
+	/**
+	 * This extension URL indicates that REST HOOK deliveries for a subscription
+	 * should be coalesced, and sets the maximum number of notifications which
+	 * will be sent to the endpoint in a single <code>history</code> Bundle. A value
+	 * of <code>1</code> or less (the default) means that each notification is
+	 * delivered on its own.
+	 * <p>
+	 * This extension should be of type <code>integer</code> and should be
+	 * placed on the <code>Subscription.channel</code> element.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public static final String EXT_SUBSCRIPTION_RESTHOOK_BATCH_MAX_SIZE =
+			"http://hapifhir.io/fhir/StructureDefinition/subscription-resthook-batch-max-size";
+
+	/**
+	 * This extension URL sets the maximum number of milliseconds a REST HOOK
+	 * notification will be held while waiting for other notifications to the
+	 * same endpoint to be coalesced with. Only used if
+	 * {@link #EXT_SUBSCRIPTION_RESTHOOK_BATCH_MAX_SIZE} is also set.
+	 * <p>
+	 * This extension should be of type <code>integer</code> and should be
+	 * placed on the <code>Subscription.channel</code> element.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public static final String EXT_SUBSCRIPTION_RESTHOOK_BATCH_WINDOW_MILLIS =
+			"http://hapifhir.io/fhir/StructureDefinition/subscription-resthook-batch-window-millis";
+
 	/**
 	 * Indicate which strategy will be used to match this subscription
 	 */
@@ -0,0 +1,156 @@
+/*-
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.util;
+
+import ca.uhn.fhir.context.FhirContext;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Utilities for working with resources whose JSON representation has already been
+ * produced elsewhere (e.g. read directly from a repository) and which can therefore be
+ * written to a response without being parsed into the model and encoded again.
+ * <p>
+ * A pre-encoded resource is a resource instance carrying only its ID and
+ * <code>Resource.meta</code>, with the complete JSON representation attached as
+ * user data. The JSON parser writes the attached JSON directly whenever it is not
+ * asked to transform the resource (e.g. using summary mode or element filters), and
+ * all parsers fall back to parsing the attached JSON otherwise, so a pre-encoded resource
+ * always encodes to the same content as the resource it represents.
+ * </p>
+ * <p>
+ * Because the instance itself only holds the ID and metadata, pre-encoded resources
+ * must only be handed to code which is known not to inspect the resource contents.
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public class PreEncodedResourceUtil {
+
+	/**
+	 * Resource user data key holding the pre-encoded JSON
+	 */
+	public static final String USER_DATA_PRE_ENCODED_JSON =
+			PreEncodedResourceUtil.class.getName() + "_PRE_ENCODED_JSON";
+
+	private static final Logger ourLog = LoggerFactory.getLogger(PreEncodedResourceUtil.class);
+	private static final JsonFactory ourJsonFactory = new JsonFactory();
+
+	private PreEncodedResourceUtil() {
+		// non-instantiable
+	}
+
+	/**
+	 * Returns the pre-encoded JSON attached to the given resource, or <code>null</code> if
+	 * the resource is a regular (fully populated) resource
+	 */
+	@Nullable
+	public static String getPreEncodedJson(@Nonnull IBaseResource theResource) {
+		return (String) theResource.getUserData(USER_DATA_PRE_ENCODED_JSON);
+	}
+
+	public static boolean hasPreEncodedJson(@Nonnull IBaseResource theResource) {
+		return theResource.getUserData(USER_DATA_PRE_ENCODED_JSON) != null;
+	}
+
+	/**
+	 * Attaches pre-encoded JSON to the given resource. The resource should contain only
+	 * its ID and <code>Resource.meta</code>, and the JSON must be the complete representation
+	 * of the resource including those elements (see {@link #spliceResourceJson(FhirContext, IBaseResource, String)}).
+	 */
+	public static void setPreEncodedJson(@Nonnull IBaseResource theResource, @Nullable String theJson) {
+		theResource.setUserData(USER_DATA_PRE_ENCODED_JSON, theJson);
+	}
+
+	/**
+	 * Combines the ID and <code>Resource.meta</code> of the given resource with the
+	 * remaining elements of a JSON resource body which was encoded without an ID
+	 * and without <code>Resource.meta</code> (as is the case for resource bodies stored by
+	 * the JPA server). The body is scanned but not parsed into the model, and the
+	 * elements are copied verbatim.
+	 *
+	 * @param theContext      The context used to encode the ID and metadata
+	 * @param theIdAndMeta    A resource containing only the ID and metadata to splice in
+	 * @param theResourceJson The compact JSON resource body
+	 * @return The combined JSON, or <code>null</code> if the body can not be combined with the
+	 * 	given ID and metadata without parsing it (e.g. because it contains its own
+	 * 	<code>Resource.meta</code>), in which case the caller should parse the body instead.
+	 */
+	@Nullable
+	public static String spliceResourceJson(
+			@Nonnull FhirContext theContext, @Nonnull IBaseResource theIdAndMeta, @Nonnull String theResourceJson) {
+		String resourceType = theContext.getResourceType(theIdAndMeta);
+
+		int elementsStart = -1;
+		try (JsonParser parser = ourJsonFactory.createParser(theResourceJson)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+
+			boolean first = true;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				int nameOffset = (int) parser.currentTokenLocation().getCharOffset();
+				parser.nextToken();
+				if (first) {
+					// The encoder always writes resourceType first
+					if (!"resourceType".equals(name) || !resourceType.equals(parser.getValueAsString())) {
+						return null;
+					}
+					first = false;
+					continue;
+				}
+				if ("id".equals(name) || "meta".equals(name) || "_id".equals(name)) {
+					return null;
+				}
+				if (elementsStart == -1) {
+					elementsStart = nameOffset;
+				}
+				parser.skipChildren();
+			}
+
+			if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+				return null;
+			}
+		} catch (IOException e) {
+			ourLog.debug("Unable to scan resource JSON, it will be parsed instead", e);
+			return null;
+		}
+
+		String idAndMetaJson = theContext.newJsonParser().encodeResourceToString(theIdAndMeta);
+		if (elementsStart == -1) {
+			return idAndMetaJson;
+		}
+
+		StringBuilder b = new StringBuilder(idAndMetaJson.length() + theResourceJson.length() - elementsStart + 1);
+		b.append(idAndMetaJson, 0, idAndMetaJson.length() - 1);
+		b.append(',');
+		b.append(theResourceJson, elementsStart, theResourceJson.length());
+		return b.toString();
+	}
+}
@@ -0,0 +1,115 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.batch2;
+
+import ca.uhn.fhir.batch2.model.WorkChunk;
+import ca.uhn.fhir.batch2.model.WorkChunkStatistics;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The statistics for the finished (COMPLETED or FAILED) work chunks of a single job instance.
+ * A finished chunk never changes again, so these are kept between maintenance passes and each
+ * pass only needs to add the chunks which have ended since the previous one.
+ * <p>
+ * Chunks which ended before the threshold are held in aggregated form. Chunks which ended at
+ * or after it are held individually by ID, because the window between the threshold and the
+ * current time is loaded again on every pass in order to pick up transactions which commit
+ * after the pass has run, and a chunk must only be counted once.
+ * </p>
+ */
+class FinishedWorkChunkStatistics {
+
+	private final Map<String, WorkChunk> myRecentChunks = new HashMap<>();
+	private WorkChunkStatistics myAggregated;
+	private Date myThreshold;
+	private long myRebuiltMillis;
+	private volatile long myLastAccessedMillis;
+
+	/**
+	 * Has this never been loaded, or was it last loaded from scratch more than the given
+	 * number of millis ago
+	 */
+	boolean isRebuildDue(long theNowMillis, long theRebuildIntervalMillis) {
+		return myAggregated == null || theNowMillis - myRebuiltMillis > theRebuildIntervalMillis;
+	}
+
+	/**
+	 * Replaces everything held here with the given statistics for the chunks which ended before
+	 * the given threshold
+	 */
+	void rebuild(WorkChunkStatistics theAggregated, Date theThreshold, long theNowMillis) {
+		myAggregated = theAggregated;
+		myThreshold = theThreshold;
+		myRebuiltMillis = theNowMillis;
+		myRecentChunks.clear();
+	}
+
+	/**
+	 * Chunks which ended at or after this time are not in the aggregated statistics yet
+	 */
+	Date getThreshold() {
+		return myThreshold;
+	}
+
+	/**
+	 * Adds a chunk which ended at or after the threshold. Adding a chunk which has already been
+	 * added has no effect.
+	 */
+	void addRecentChunk(WorkChunk theChunk) {
+		myRecentChunks.put(theChunk.getId(), theChunk);
+	}
+
+	/**
+	 * Moves the threshold forward, aggregating the recent chunks which ended before the new one
+	 */
+	void advanceThreshold(Date theThreshold) {
+		if (!theThreshold.after(myThreshold)) {
+			return;
+		}
+		for (Iterator<WorkChunk> iter = myRecentChunks.values().iterator(); iter.hasNext(); ) {
+			WorkChunk next = iter.next();
+			if (next.getEndTime().before(theThreshold)) {
+				myAggregated.addChunk(next);
+				iter.remove();
+			}
+		}
+		myThreshold = theThreshold;
+	}
+
+	/**
+	 * Adds the statistics for all of the finished chunks to the given statistics
+	 */
+	void addTo(WorkChunkStatistics theStatistics) {
+		theStatistics.addAll(myAggregated);
+		myRecentChunks.values().forEach(theStatistics::addChunk);
+	}
+
+	long getLastAccessedMillis() {
+		return myLastAccessedMillis;
+	}
+
+	void setLastAccessedMillis(long theLastAccessedMillis) {
+		myLastAccessedMillis = theLastAccessedMillis;
+	}
+}
@@ -128,7 +128,7 @@ class JobInstanceUtil {
 		retVal.setNextPollTime(theEntity.getNextPollTime());
 		retVal.setPollAttempts(theEntity.getPollAttempts());
 		// note: may be null out if queried NoData
-		retVal.setData(theEntity.getSerializedData());
+		retVal.setData(WorkChunkDataCodec.decode(theEntity.getSerializedData()));
 		retVal.setWarningMessage(theEntity.getWarningMessage());
 		return retVal;
 	}
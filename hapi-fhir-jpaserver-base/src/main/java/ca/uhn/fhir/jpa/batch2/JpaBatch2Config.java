@@ -22,6 +22,7 @@ package ca.uhn.fhir.jpa.batch2;
 import ca.uhn.fhir.batch2.api.IJobPersistence;
 import ca.uhn.fhir.batch2.config.BaseBatch2Config;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.bulk.export.job.BulkExportJobConfig;
 import ca.uhn.fhir.jpa.dao.data.IBatch2JobInstanceRepository;
 import ca.uhn.fhir.jpa.dao.data.IBatch2WorkChunkMetadataViewRepository;
@@ -43,13 +44,16 @@ public class JpaBatch2Config extends BaseBatch2Config {
 			IBatch2WorkChunkMetadataViewRepository theWorkChunkMetadataViewRepo,
 			IHapiTransactionService theTransactionService,
 			EntityManager theEntityManager,
-			IInterceptorBroadcaster theInterceptorBroadcaster) {
-		return new JpaJobPersistenceImpl(
+			IInterceptorBroadcaster theInterceptorBroadcaster,
+			JpaStorageSettings theStorageSettings) {
+		JpaJobPersistenceImpl retVal = new JpaJobPersistenceImpl(
 				theJobInstanceRepository,
 				theWorkChunkRepository,
 				theWorkChunkMetadataViewRepo,
 				theTransactionService,
 				theEntityManager,
 				theInterceptorBroadcaster);
+		retVal.setStorageSettings(theStorageSettings);
+		return retVal;
 	}
 }
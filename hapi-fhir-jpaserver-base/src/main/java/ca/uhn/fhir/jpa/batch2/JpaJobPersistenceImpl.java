@@ -31,11 +31,13 @@ import ca.uhn.fhir.batch2.model.WorkChunkCompletionEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkCreateEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkErrorEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkMetadata;
+import ca.uhn.fhir.batch2.model.WorkChunkStatistics;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
 import ca.uhn.fhir.batch2.models.JobInstanceFetchRequest;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.IBatch2JobInstanceRepository;
 import ca.uhn.fhir.jpa.dao.data.IBatch2WorkChunkMetadataViewRepository;
 import ca.uhn.fhir.jpa.dao.data.IBatch2WorkChunkRepository;
@@ -43,6 +45,7 @@ import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.entity.Batch2JobInstanceEntity;
 import ca.uhn.fhir.jpa.entity.Batch2WorkChunkEntity;
 import ca.uhn.fhir.jpa.entity.Batch2WorkChunkMetadataView;
+import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.model.api.PagingIterator;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.util.Batch2JobDefinitionConstants;
@@ -58,6 +61,7 @@ import jakarta.persistence.LockModeType;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -68,14 +72,18 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -87,6 +95,12 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 public class JpaJobPersistenceImpl implements IJobPersistence {
 	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
 	public static final String CREATE_TIME = "myCreateTime";
+	private static final Set<WorkChunkStatusEnum> FINISHED_STATUSES =
+			Collections.unmodifiableSet(EnumSet.of(WorkChunkStatusEnum.COMPLETED, WorkChunkStatusEnum.FAILED));
+	private static final Set<WorkChunkStatusEnum> UNFINISHED_STATUSES =
+			Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.copyOf(FINISHED_STATUSES)));
+	private static final long FINISHED_CHUNK_OVERLAP_MILLIS = 2 * DateUtils.MILLIS_PER_MINUTE;
+	private static final long FINISHED_CHUNK_REBUILD_MILLIS = DateUtils.MILLIS_PER_HOUR;
 
 	private final IBatch2JobInstanceRepository myJobInstanceRepository;
 	private final IBatch2WorkChunkRepository myWorkChunkRepository;
@@ -94,6 +108,9 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 	private final EntityManager myEntityManager;
 	private final IHapiTransactionService myTransactionService;
 	private final IInterceptorBroadcaster myInterceptorBroadcaster;
+	private final Map<String, FinishedWorkChunkStatistics> myInstanceIdToFinishedChunkStatistics =
+			new ConcurrentHashMap<>();
+	private JpaStorageSettings myStorageSettings;
 
 	/**
 	 * Constructor
@@ -115,6 +132,16 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 		myInterceptorBroadcaster = theInterceptorBroadcaster;
 	}
 
+	/**
+	 * Sets the storage settings, which control how work chunk data is stored. If not set,
+	 * the defaults are used.
+	 *
+	 * @since 8.8.0
+	 */
+	public void setStorageSettings(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
 	@Override
 	@Transactional(propagation = Propagation.REQUIRED)
 	public String onWorkChunkCreate(WorkChunkCreateEvent theBatchWorkChunk) {
@@ -125,14 +152,20 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 		entity.setJobDefinitionVersion(theBatchWorkChunk.jobDefinitionVersion);
 		entity.setTargetStepId(theBatchWorkChunk.targetStepId);
 		entity.setInstanceId(theBatchWorkChunk.instanceId);
-		entity.setSerializedData(theBatchWorkChunk.serializedData);
+		entity.setSerializedData(
+				myStorageSettings != null && myStorageSettings.isJobWorkChunkDataCompressionEnabled()
+						? WorkChunkDataCodec.encode(theBatchWorkChunk.serializedData)
+						: theBatchWorkChunk.serializedData);
 		entity.setCreateTime(new Date());
 		entity.setStartTime(new Date());
 		entity.setStatus(getOnCreateStatus(theBatchWorkChunk));
 
 		ourLog.debug("Create work chunk {}/{}/{}", entity.getInstanceId(), entity.getId(), entity.getTargetStepId());
 		ourLog.trace(
-				"Create work chunk data {}/{}: {}", entity.getInstanceId(), entity.getId(), entity.getSerializedData());
+				"Create work chunk data {}/{}: {}",
+				entity.getInstanceId(),
+				entity.getId(),
+				theBatchWorkChunk.serializedData);
 		myTransactionService.withSystemRequestOnDefaultPartition().execute(() -> myWorkChunkRepository.save(entity));
 
 		return entity.getId();
@@ -183,6 +216,58 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 		}
 	}
 
+	/**
+	 * Claims all of the chunks with one query to lock them and one to update them. Rows locked by another
+	 * transaction are waited for rather than skipped, since the maintenance pass sends notifications before
+	 * it commits the chunks' move to QUEUED.
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRED)
+	public List<WorkChunk> onWorkChunksDequeue(List<String> theChunkIds) {
+		List<WorkChunk> retVal = new ArrayList<>(theChunkIds.size());
+		List<WorkChunkStatusEnum> priorStates =
+				List.of(WorkChunkStatusEnum.QUEUED, WorkChunkStatusEnum.ERRORED, WorkChunkStatusEnum.IN_PROGRESS);
+
+		QueryChunker.chunk(theChunkIds, chunkIds -> {
+			List<Batch2WorkChunkEntity> chunks = myWorkChunkRepository.findAllByIdForUpdate(chunkIds);
+			if (chunks.size() < chunkIds.size()) {
+				ourLog.warn(
+						"{} of {} chunk ids were unknown. Their messages will be discarded.",
+						chunkIds.size() - chunks.size(),
+						chunkIds.size());
+			}
+
+			// remove from the current state to avoid stale data.
+			chunks.forEach(myEntityManager::detach);
+
+			List<Batch2WorkChunkEntity> startable = chunks.stream()
+					.filter(t -> priorStates.contains(t.getStatus()))
+					.collect(Collectors.toList());
+			if (startable.size() < chunks.size()) {
+				ourLog.info(
+						"Attempting to start {} chunks but they were already started.",
+						chunks.size() - startable.size());
+			}
+			if (startable.isEmpty()) {
+				return;
+			}
+
+			Date startTime = new Date();
+			List<String> startableIds =
+					startable.stream().map(Batch2WorkChunkEntity::getId).collect(Collectors.toList());
+			myWorkChunkRepository.updateChunksStatusForStart(
+					startableIds, startTime, WorkChunkStatusEnum.IN_PROGRESS, priorStates);
+
+			for (Batch2WorkChunkEntity next : startable) {
+				next.setStatus(WorkChunkStatusEnum.IN_PROGRESS);
+				next.setStartTime(startTime);
+				retVal.add(toChunk(next));
+			}
+		});
+
+		return retVal;
+	}
+
 	@Override
 	@Transactional(propagation = Propagation.REQUIRED)
 	public String storeNewInstance(RequestDetails theRequestDetails, JobInstance theInstance) {
@@ -533,6 +618,93 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 				fetchChunks(theInstanceId, theWithData, theBatchSize, thePageIndex, theConsumer));
 	}
 
+	/**
+	 * The statistics for finished chunks are kept between passes, so that each pass only loads the
+	 * chunks which have finished since the previous one. Chunks which are still being worked on are
+	 * aggregated in the database on every pass.
+	 */
+	@Override
+	public WorkChunkStatistics fetchWorkChunkStatistics(String theInstanceId) {
+		long now = System.currentTimeMillis();
+		expireFinishedWorkChunkStatistics(now);
+		FinishedWorkChunkStatistics finished = myInstanceIdToFinishedChunkStatistics.computeIfAbsent(
+				theInstanceId, t -> new FinishedWorkChunkStatistics());
+		finished.setLastAccessedMillis(now);
+
+		return myTransactionService
+				.withSystemRequestOnDefaultPartition()
+				.withPropagation(Propagation.REQUIRES_NEW)
+				.readOnly()
+				.execute(() -> {
+					// Unfinished chunks are loaded first, so that a chunk which finishes in between is counted
+					// twice for this pass rather than not at all
+					WorkChunkStatistics retVal = new WorkChunkStatistics();
+					addStepStatusStatistics(
+							theInstanceId,
+							myWorkChunkRepository.fetchChunkStatistics(theInstanceId, UNFINISHED_STATUSES),
+							retVal);
+					synchronized (finished) {
+						updateFinishedWorkChunkStatistics(theInstanceId, finished, now);
+						finished.addTo(retVal);
+					}
+					return retVal;
+				});
+	}
+
+	private void updateFinishedWorkChunkStatistics(
+			String theInstanceId, FinishedWorkChunkStatistics theFinished, long theNowMillis) {
+		// Chunks are stamped with their end time before their transaction commits, so a chunk is only
+		// aggregated once its end time is older than the overlap and is loaded individually until then
+		Date threshold = new Date(theNowMillis - FINISHED_CHUNK_OVERLAP_MILLIS);
+
+		if (theFinished.isRebuildDue(theNowMillis, FINISHED_CHUNK_REBUILD_MILLIS)) {
+			WorkChunkStatistics aggregated = new WorkChunkStatistics();
+			addStepStatusStatistics(
+					theInstanceId,
+					myWorkChunkRepository.fetchChunkStatisticsEndedBefore(theInstanceId, FINISHED_STATUSES, threshold),
+					aggregated);
+			// Warning messages are only stored when a chunk completes
+			myWorkChunkRepository.fetchDistinctWarningMessages(theInstanceId).forEach(aggregated::addWarningMessage);
+			theFinished.rebuild(aggregated, threshold, theNowMillis);
+		}
+
+		myWorkChunkRepository
+				.fetchChunksNoDataEndedSince(theInstanceId, FINISHED_STATUSES, theFinished.getThreshold())
+				.stream()
+				.map(this::toChunk)
+				.forEach(theFinished::addRecentChunk);
+		theFinished.advanceThreshold(threshold);
+	}
+
+	private void addStepStatusStatistics(
+			String theInstanceId, List<Object[]> theRows, WorkChunkStatistics theStatistics) {
+		for (Object[] next : theRows) {
+			String stepId = (String) next[0];
+			WorkChunkStatusEnum status = (WorkChunkStatusEnum) next[1];
+			WorkChunkStatistics.StepStatusStatistics statistics = new WorkChunkStatistics.StepStatusStatistics(
+							stepId, status)
+					.setChunkCount(((Number) next[2]).intValue())
+					.setRecordsProcessed(next[3] != null ? ((Number) next[3]).longValue() : 0)
+					.setErrorCount(next[4] != null ? ((Number) next[4]).longValue() : 0)
+					.setEarliestStartTime((Date) next[5])
+					.setLatestEndTime((Date) next[6]);
+			if (status == WorkChunkStatusEnum.ERRORED || status == WorkChunkStatusEnum.FAILED) {
+				myWorkChunkRepository
+						.fetchLatestErrorMessages(PageRequest.of(0, 1), theInstanceId, stepId, status)
+						.stream()
+						.findFirst()
+						.ifPresent(statistics::setErrorMessage);
+			}
+			theStatistics.addStepStatusStatistics(statistics);
+		}
+	}
+
+	private void expireFinishedWorkChunkStatistics(long theNowMillis) {
+		myInstanceIdToFinishedChunkStatistics
+				.values()
+				.removeIf(t -> theNowMillis - t.getLastAccessedMillis() > FINISHED_CHUNK_REBUILD_MILLIS);
+	}
+
 	@Override
 	public Stream<WorkChunk> fetchAllWorkChunksForStepStream(String theInstanceId, String theStepId) {
 		return myWorkChunkRepository
@@ -582,6 +754,7 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public void deleteInstanceAndChunks(String theInstanceId) {
 		ourLog.info("Deleting instance and chunks: {}", theInstanceId);
+		myInstanceIdToFinishedChunkStatistics.remove(theInstanceId);
 		myWorkChunkRepository.deleteAllForInstance(theInstanceId);
 		myJobInstanceRepository.deleteById(theInstanceId);
 	}
@@ -590,6 +763,7 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public void deleteChunksAndMarkInstanceAsChunksPurged(String theInstanceId) {
 		ourLog.info("Deleting all chunks for instance ID: {}", theInstanceId);
+		myInstanceIdToFinishedChunkStatistics.remove(theInstanceId);
 		int updateCount = myJobInstanceRepository.updateWorkChunksPurgedTrue(theInstanceId);
 		int deleteCount = myWorkChunkRepository.deleteAllForInstance(theInstanceId);
 		ourLog.debug("Purged {} chunks, and updated {} instance.", deleteCount, updateCount);
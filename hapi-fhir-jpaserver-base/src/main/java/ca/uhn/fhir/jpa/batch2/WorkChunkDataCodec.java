@@ -0,0 +1,283 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.batch2;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact storage encoding for work chunk data.
+ * <p>
+ * Work chunk data is the JSON serialization of the step's input model. The encoded form is the
+ * deflated binary encoding of that JSON, in Base64 and prefixed with {@link #PREFIX} so that it can
+ * be stored in the same text column and told apart from plain JSON. Payloads holding a list of
+ * typed resource PIDs (e.g. {@link ca.uhn.fhir.batch2.jobs.chunk.ResourceIdListWorkChunkJson}) are
+ * encoded as a dictionary of resource types and a delta-encoded array of PIDs, which is much
+ * smaller than the JSON objects. Decoding rebuilds equivalent JSON, so the step workers see the
+ * same model objects whichever way the data was stored.
+ * </p>
+ */
+class WorkChunkDataCodec {
+
+	static final String PREFIX = "~wcd1:";
+
+	private static final ObjectMapper ourObjectMapper = new ObjectMapper();
+	private static final int KIND_JSON = 0;
+	private static final int KIND_TYPED_PID_LIST = 1;
+	private static final String IDS = "ids";
+	private static final String TYPE = "type";
+	private static final String PART = "part";
+	private static final String ID = "id";
+
+	private WorkChunkDataCodec() {}
+
+	/**
+	 * Encodes serialized work chunk data for storage. Returns the data unchanged if the encoded
+	 * form would not be shorter.
+	 */
+	@Nullable
+	static String encode(@Nullable String theSerializedData) {
+		if (theSerializedData == null || theSerializedData.isEmpty()) {
+			return theSerializedData;
+		}
+
+		byte[] bytes;
+		try {
+			bytes = encodeToBytes(theSerializedData);
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2860) + "Failed to encode work chunk data", e);
+		}
+
+		String retVal = PREFIX + Base64.getEncoder().encodeToString(bytes);
+		if (retVal.length() >= theSerializedData.length()) {
+			return theSerializedData;
+		}
+		return retVal;
+	}
+
+	/**
+	 * Decodes stored work chunk data back to its JSON serialization. Data which was stored
+	 * without encoding is returned unchanged.
+	 */
+	@Nullable
+	static String decode(@Nullable String theStoredData) {
+		if (theStoredData == null || !theStoredData.startsWith(PREFIX)) {
+			return theStoredData;
+		}
+
+		byte[] bytes = Base64.getDecoder().decode(theStoredData.substring(PREFIX.length()));
+		try (DataInputStream input = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+			int kind = input.readUnsignedByte();
+			if (kind == KIND_JSON) {
+				return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			if (kind == KIND_TYPED_PID_LIST) {
+				return readTypedPidList(input);
+			}
+			throw new IOException("Unknown work chunk data encoding: " + kind);
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2861) + "Failed to decode work chunk data", e);
+		}
+	}
+
+	private static byte[] encodeToBytes(String theSerializedData) throws IOException {
+		ObjectNode typedPidList = parseTypedPidList(theSerializedData);
+
+		ByteArrayOutputStream retVal = new ByteArrayOutputStream(theSerializedData.length() / 4);
+		try (DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(retVal))) {
+			if (typedPidList != null) {
+				output.writeByte(KIND_TYPED_PID_LIST);
+				writeTypedPidList(output, typedPidList);
+			} else {
+				output.writeByte(KIND_JSON);
+				output.write(theSerializedData.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return retVal.toByteArray();
+	}
+
+	/**
+	 * @return The parsed JSON if it is an object with a non-empty {@literal ids} array where every
+	 * entry has a string type, an optional integer partition and a numeric ID, or <code>null</code>
+	 */
+	@Nullable
+	private static ObjectNode parseTypedPidList(String theSerializedData) {
+		JsonNode root;
+		try {
+			root = ourObjectMapper.readTree(theSerializedData);
+		} catch (JsonProcessingException e) {
+			return null;
+		}
+		if (!(root instanceof ObjectNode) || !(root.get(IDS) instanceof ArrayNode ids) || ids.isEmpty()) {
+			return null;
+		}
+
+		for (JsonNode next : ids) {
+			if (!next.isObject() || !next.path(TYPE).isTextual() || !isCanonicalLong(next.path(ID))) {
+				return null;
+			}
+			JsonNode part = next.get(PART);
+			if (part != null && !part.isNull() && !part.isInt()) {
+				return null;
+			}
+			for (Iterator<String> fieldNames = next.fieldNames(); fieldNames.hasNext(); ) {
+				String fieldName = fieldNames.next();
+				if (!TYPE.equals(fieldName) && !PART.equals(fieldName) && !ID.equals(fieldName)) {
+					return null;
+				}
+			}
+		}
+		return (ObjectNode) root;
+	}
+
+	private static boolean isCanonicalLong(JsonNode theNode) {
+		if (!theNode.isTextual()) {
+			return false;
+		}
+		String value = theNode.textValue();
+		try {
+			return Long.toString(Long.parseLong(value)).equals(value);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static void writeTypedPidList(DataOutputStream theOutput, ObjectNode theRoot) throws IOException {
+		ArrayNode ids = (ArrayNode) theRoot.remove(IDS);
+		writeString(theOutput, ourObjectMapper.writeValueAsString(theRoot));
+
+		Map<String, Integer> typeIndexes = new HashMap<>();
+		List<String> types = new ArrayList<>();
+		for (JsonNode next : ids) {
+			String type = next.get(TYPE).textValue();
+			if (typeIndexes.putIfAbsent(type, types.size()) == null) {
+				types.add(type);
+			}
+		}
+		writeVarLong(theOutput, types.size());
+		for (String next : types) {
+			writeString(theOutput, next);
+		}
+
+		writeVarLong(theOutput, ids.size());
+		long previousId = 0;
+		for (JsonNode next : ids) {
+			writeVarLong(theOutput, typeIndexes.get(next.get(TYPE).textValue()));
+
+			// Zero means no partition, otherwise the zigzag encoded partition ID plus one
+			JsonNode part = next.get(PART);
+			writeVarLong(theOutput, part == null || part.isNull() ? 0 : zigZag(part.intValue()) + 1);
+
+			long id = Long.parseLong(next.get(ID).textValue());
+			writeVarLong(theOutput, zigZag(id - previousId));
+			previousId = id;
+		}
+	}
+
+	private static String readTypedPidList(DataInputStream theInput) throws IOException {
+		ObjectNode root = (ObjectNode) ourObjectMapper.readTree(readString(theInput));
+
+		int typeCount = (int) readVarLong(theInput);
+		List<String> types = new ArrayList<>(typeCount);
+		for (int i = 0; i < typeCount; i++) {
+			types.add(readString(theInput));
+		}
+
+		int idCount = (int) readVarLong(theInput);
+		ArrayNode ids = root.putArray(IDS);
+		long previousId = 0;
+		for (int i = 0; i < idCount; i++) {
+			ObjectNode next = ids.addObject();
+			next.put(TYPE, types.get((int) readVarLong(theInput)));
+
+			long part = readVarLong(theInput);
+			if (part != 0) {
+				next.put(PART, (int) unZigZag(part - 1));
+			}
+
+			previousId += unZigZag(readVarLong(theInput));
+			next.put(ID, Long.toString(previousId));
+		}
+
+		return ourObjectMapper.writeValueAsString(root);
+	}
+
+	private static void writeString(DataOutputStream theOutput, String theValue) throws IOException {
+		byte[] bytes = theValue.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(theOutput, bytes.length);
+		theOutput.write(bytes);
+	}
+
+	private static String readString(DataInputStream theInput) throws IOException {
+		byte[] bytes = new byte[(int) readVarLong(theInput)];
+		theInput.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeVarLong(DataOutputStream theOutput, long theValue) throws IOException {
+		long value = theValue;
+		while ((value & ~0x7FL) != 0) {
+			theOutput.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		theOutput.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream theInput) throws IOException {
+		long retVal = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int next = theInput.readUnsignedByte();
+			retVal |= (long) (next & 0x7F) << shift;
+			if ((next & 0x80) == 0) {
+				return retVal;
+			}
+		}
+		throw new IOException("Malformed variable length number");
+	}
+
+	private static long zigZag(long theValue) {
+		return (theValue << 1) ^ (theValue >> 63);
+	}
+
+	private static long unZigZag(long theValue) {
+		return (theValue >>> 1) ^ -(theValue & 1);
+	}
+}
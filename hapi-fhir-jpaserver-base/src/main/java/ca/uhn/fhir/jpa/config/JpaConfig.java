@@ -162,6 +162,7 @@ import ca.uhn.fhir.jpa.search.cache.DatabaseSearchCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.DatabaseSearchResultCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
+import ca.uhn.fhir.jpa.search.cache.InMemorySearchResultCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.elastic.IndexNamePrefixLayoutStrategy;
 import ca.uhn.fhir.jpa.search.reindex.IInstanceReindexService;
 import ca.uhn.fhir.jpa.search.reindex.IResourceReindexingSvc;
@@ -459,10 +460,17 @@ public class JpaConfig {
 	}
 
 	@Bean
-	public ISearchResultCacheSvc searchResultCacheSvc() {
+	public DatabaseSearchResultCacheSvcImpl databaseSearchResultCacheSvc() {
 		return new DatabaseSearchResultCacheSvcImpl();
 	}
 
+	@Bean
+	@Primary
+	public ISearchResultCacheSvc searchResultCacheSvc(
+			DatabaseSearchResultCacheSvcImpl theDatabaseSearchResultCacheSvc, JpaStorageSettings theStorageSettings) {
+		return new InMemorySearchResultCacheSvcImpl(theDatabaseSearchResultCacheSvc, theStorageSettings);
+	}
+
 	@Bean
 	public ITermConceptMappingSvc termConceptMappingSvc() {
 		return new TermConceptMappingSvcImpl();
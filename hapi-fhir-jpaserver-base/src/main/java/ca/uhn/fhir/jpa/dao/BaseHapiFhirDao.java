@@ -1837,6 +1837,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceText = GZipUtil.decompress(theResourceBytes);
 				break;
+			case JSOND:
+				resourceText = DeflateDictionaryUtil.decompress(theResourceBytes);
+				break;
 			case DEL:
 			case ESR:
 				break;
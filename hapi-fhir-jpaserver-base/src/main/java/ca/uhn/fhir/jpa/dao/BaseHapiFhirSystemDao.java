@@ -40,6 +40,7 @@ import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.SearchConstants;
 import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.jpa.util.ResourceCountCache;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
@@ -168,6 +169,13 @@ public abstract class BaseHapiFhirSystemDao<T extends IBaseBundle, MT> extends B
 		return myTransactionProcessor.transaction(theRequestDetails, theRequest, false);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public T transactionFromEntries(RequestDetails theRequestDetails, IBundleEntryIterator theEntries) {
+		HapiTransactionService.noTransactionAllowed();
+		return (T) myTransactionProcessor.transaction(theRequestDetails, theEntries, false);
+	}
+
 	@Override
 	public T transactionNested(RequestDetails theRequestDetails, T theRequest) {
 		HapiTransactionService.requireTransaction();
@@ -24,6 +24,7 @@ import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.IDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceHistoryProvenanceDao;
@@ -44,6 +45,7 @@ import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.entity.TagDefinition;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
 import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
+import ca.uhn.fhir.jpa.provider.BaseJpaResourceProvider;
 import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
 import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
@@ -57,9 +59,13 @@ import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.parser.LenientErrorHandler;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.RestfulServerUtils;
+import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
 import ca.uhn.fhir.util.IMetaTagSorter;
 import ca.uhn.fhir.util.MetaUtil;
+import ca.uhn.fhir.util.PreEncodedResourceUtil;
 import jakarta.annotation.Nullable;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.Validate;
@@ -75,8 +81,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static ca.uhn.fhir.jpa.dao.BaseHapiFhirDao.decodeResource;
 import static java.util.Objects.nonNull;
@@ -86,6 +94,11 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 	public static final LenientErrorHandler LENIENT_ERROR_HANDLER = new LenientErrorHandler(false).disableAllErrors();
 	private static final Logger ourLog = LoggerFactory.getLogger(JpaStorageResourceParser.class);
+	private static final Set<RestOperationTypeEnum> ourStoredResourcePassthroughOperations = EnumSet.of(
+			RestOperationTypeEnum.READ,
+			RestOperationTypeEnum.VREAD,
+			RestOperationTypeEnum.SEARCH_TYPE,
+			RestOperationTypeEnum.GET_PAGE);
 
 	@Autowired
 	private FhirContext myFhirContext;
@@ -121,6 +134,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		return toResource(null, resourceType, (IBaseResourceEntity<JpaPid>) theEntity, null, theForHistoryOperation);
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public <R extends IBaseResource> R toResource(
 			RequestDetails theRequestDetails,
@@ -245,24 +259,101 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		// 3. Use the appropriate custom type if one is specified in the context
 		Class<R> resourceType = determineTypeToParse(theResourceType, tagList);
 
-		// 4. parse the text to FHIR
+		// 4. If the stored JSON can be sent to the client as-is, only the metadata needs to be populated
+		if (isStoredResourcePassthroughPossible(
+				theRequestDetails, theEntity, resourceEncoding, theResourceType, resourceType)) {
+			R idAndMeta = (R) myFhirContext.getResourceDefinition(resourceType).newInstance();
+			idAndMeta = populateResourceMetadataAndSource(
+					theEntity,
+					theForHistoryOperation,
+					tagList,
+					version,
+					provenanceSourceUri,
+					provenanceRequestId,
+					idAndMeta);
+			String json = PreEncodedResourceUtil.spliceResourceJson(myFhirContext, idAndMeta, decodedResourceText);
+			if (json != null) {
+				PreEncodedResourceUtil.setPreEncodedJson(idAndMeta, json);
+				return idAndMeta;
+			}
+		}
+
+		// 5. parse the text to FHIR
 		R retVal = parseResource(theEntity, resourceEncoding, decodedResourceText, resourceType);
 
-		// 5. fill MetaData
-		retVal = populateResourceMetadata(theEntity, theForHistoryOperation, tagList, version, retVal);
+		// 6. fill MetaData, source (provenance) and partition information
+		return populateResourceMetadataAndSource(
+				theEntity, theForHistoryOperation, tagList, version, provenanceSourceUri, provenanceRequestId, retVal);
+	}
 
-		// 6. Handle source (provenance)
-		MetaUtil.populateResourceSource(myFhirContext, provenanceSourceUri, provenanceRequestId, retVal);
+	private <R extends IBaseResource> R populateResourceMetadataAndSource(
+			IBaseResourceEntity<?> theEntity,
+			boolean theForHistoryOperation,
+			@Nullable Collection<? extends BaseTag> theTagList,
+			long theVersion,
+			String theProvenanceSourceUri,
+			String theProvenanceRequestId,
+			R theResource) {
+		R retVal = populateResourceMetadata(theEntity, theForHistoryOperation, theTagList, theVersion, theResource);
+
+		MetaUtil.populateResourceSource(myFhirContext, theProvenanceSourceUri, theProvenanceRequestId, retVal);
 
-		// 7. Add partition information
 		populateResourcePartitionInformation(theEntity, retVal);
 
-		// 8. sort tags, security labels and profiles
+		// sort tags, security labels and profiles
 		myMetaTagSorter.sort(retVal.getMeta());
 
 		return retVal;
 	}
 
+	/**
+	 * Returns <code>true</code> if the stored JSON for the given entity can be returned as a pre-encoded
+	 * resource (see {@link JpaStorageSettings#setStoredResourcePassthroughEnabled(boolean)}), meaning
+	 * that it will be written to the HTTP response without anything inspecting the resource contents.
+	 */
+	private boolean isStoredResourcePassthroughPossible(
+			@Nullable RequestDetails theRequestDetails,
+			IBaseResourceEntity<?> theEntity,
+			ResourceEncodingEnum theResourceEncoding,
+			Class<?> theResourceType,
+			Class<?> theTypeToParse) {
+		if (!myStorageSettings.isStoredResourcePassthroughEnabled() || theRequestDetails == null) {
+			return false;
+		}
+		// Only the built-in providers are known to hand the resources straight to the response
+		if (!Boolean.TRUE.equals(theRequestDetails
+				.getUserData()
+				.get(BaseJpaResourceProvider.USER_DATA_STORED_RESOURCE_PASSTHROUGH_PERMITTED))) {
+			return false;
+		}
+		if (theResourceEncoding != ResourceEncodingEnum.JSON
+				&& theResourceEncoding != ResourceEncodingEnum.JSONC
+				&& theResourceEncoding != ResourceEncodingEnum.JSOND) {
+			return false;
+		}
+		if (theEntity.getDeleted() != null
+				|| theTypeToParse != theResourceType
+				|| theEntity.getFhirVersion() != myFhirContext.getVersion().getVersion()
+				|| "Binary".equals(theEntity.getResourceType())) {
+			return false;
+		}
+		if (!myFhirContext.getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.DSTU3)
+				|| myFhirContext.getNarrativeGenerator() != null) {
+			return false;
+		}
+		if (theRequestDetails.getRestOperationType() == null
+				|| !ourStoredResourcePassthroughOperations.contains(theRequestDetails.getRestOperationType())) {
+			return false;
+		}
+		if (!RestfulServerUtils.isResponseEncodedAsUnfilteredJson(theRequestDetails)) {
+			return false;
+		}
+		IInterceptorBroadcaster compositeBroadcaster =
+				CompositeInterceptorBroadcaster.newCompositeBroadcaster(myInterceptorBroadcaster, theRequestDetails);
+		return !compositeBroadcaster.hasHooks(Pointcut.STORAGE_PREACCESS_RESOURCES)
+				&& !compositeBroadcaster.hasHooks(Pointcut.STORAGE_PRESHOW_RESOURCES);
+	}
+
 	private <R extends IBaseResource> void populateResourcePartitionInformation(
 			IBaseResourceEntity theEntity, R retVal) {
 		if (myPartitionSettings.isPartitioningEnabled()) {
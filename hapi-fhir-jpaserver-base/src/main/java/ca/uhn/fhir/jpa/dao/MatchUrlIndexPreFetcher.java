@@ -0,0 +1,888 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.context.ComboSearchParamType;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParamQuantity;
+import ca.uhn.fhir.jpa.model.entity.NormalizedQuantitySearchLevel;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedComboStringUnique;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamDate;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamQuantity;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamUri;
+import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.util.JpaParamUtil;
+import ca.uhn.fhir.jpa.util.QueryChunker;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
+import ca.uhn.fhir.rest.param.QuantityParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.UriParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.util.StringUtil;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Resolves a batch of conditional URLs from a transaction bundle using a handful of queries
+ * against the search index tables, instead of performing a full search for each URL. This
+ * covers URLs which can't be handled by the single-token aggregate query in
+ * {@link TransactionProcessor}, such as <code>Patient?identifier=a|b&amp;birthdate=2020-01-01</code>
+ * or <code>Practitioner?name=smith</code>.
+ * <p>
+ * Each URL is broken up into its ANDed parameters, and one of these is picked as the
+ * <b>primary</b> criterion: a unique combo search parameter covering some of the URL parameters,
+ * or a token, URI or string parameter. The primary criteria of all URLs in the batch are looked up
+ * together, with one query per index table and column, which yields a few candidate resources for
+ * each URL. The remaining criteria (which can also be DAY precision dates and quantities) are then
+ * checked by loading the index rows of just these candidates, again with one query per index table,
+ * and comparing them in memory using the same semantics as the SQL generated by the search builder.
+ * </p>
+ * <p>
+ * URLs which can't be decomposed this way are rejected by {@link #addMatchUrl(TransactionProcessor.MatchUrlToResolve)},
+ * and URLs which match more than one resource (or whose primary lookup returns an unexpectedly large
+ * number of rows) are returned by {@link #resolve(TransactionDetails, BiConsumer)} so that they can be
+ * resolved individually, along with the usual error handling for ambiguous conditional URLs.
+ * </p>
+ */
+class MatchUrlIndexPreFetcher {
+
+	/**
+	 * A batch of primary lookups is abandoned (and the URLs resolved individually) if it returns
+	 * more than this many index rows per URL
+	 */
+	static final int MAX_CANDIDATE_ROWS_PER_URL = 10;
+
+	private static final Logger ourLog = LoggerFactory.getLogger(MatchUrlIndexPreFetcher.class);
+	private static final String COLUMN_PARTITION_ID = "myPartitionIdValue";
+	private static final String COLUMN_HASH_IDENTITY = "myHashIdentity";
+	private static final String COLUMN_RESOURCE_PID = "myResourcePid";
+	private static final String COLUMN_FHIR_ID = "myFhirId";
+	private static final String COLUMN_RESOURCE_TYPE = "myResourceType";
+
+	private final FhirContext myFhirContext;
+	private final EntityManager myEntityManager;
+	private final PartitionSettings myPartitionSettings;
+	private final JpaStorageSettings myStorageSettings;
+	private final ISearchParamRegistry mySearchParamRegistry;
+	private final IRequestPartitionHelperSvc myRequestPartitionHelperSvc;
+	private final RequestPartitionId myRequestPartitionId;
+	private final List<MatchUrlCriteria> myMatchUrls = new ArrayList<>();
+
+	/**
+	 * Constructor
+	 */
+	MatchUrlIndexPreFetcher(
+			FhirContext theFhirContext,
+			EntityManager theEntityManager,
+			PartitionSettings thePartitionSettings,
+			JpaStorageSettings theStorageSettings,
+			ISearchParamRegistry theSearchParamRegistry,
+			IRequestPartitionHelperSvc theRequestPartitionHelperSvc,
+			RequestPartitionId theRequestPartitionId) {
+		myFhirContext = theFhirContext;
+		myEntityManager = theEntityManager;
+		myPartitionSettings = thePartitionSettings;
+		myStorageSettings = theStorageSettings;
+		mySearchParamRegistry = theSearchParamRegistry;
+		myRequestPartitionHelperSvc = theRequestPartitionHelperSvc;
+		myRequestPartitionId = theRequestPartitionId;
+	}
+
+	/**
+	 * Adds a URL to be resolved by {@link #resolve(TransactionDetails, BiConsumer)}
+	 *
+	 * @return Returns <code>false</code> if the URL can't be resolved using the index tables
+	 * alone, in which case the caller needs to resolve it some other way
+	 */
+	boolean addMatchUrl(TransactionProcessor.MatchUrlToResolve theMatchUrl) {
+		SearchParameterMap map = theMatchUrl.getMatchUrlSearchMap();
+		if (map.isEmpty()
+				|| map.getLastUpdated() != null
+				|| map.getSort() != null
+				|| !map.getIncludes().isEmpty()
+				|| !map.getRevIncludes().isEmpty()
+				|| map.getEverythingMode() != null) {
+			return false;
+		}
+
+		String resourceType = theMatchUrl.getResourceDefinition().getName();
+		Map<String, IQueryParameterType> comboCandidateValues = new HashMap<>();
+		List<Criterion> criteria = new ArrayList<>();
+		for (Map.Entry<String, List<List<IQueryParameterType>>> nextEntry : map.entrySet()) {
+			String paramName = nextEntry.getKey();
+			if (paramName.startsWith("_")) {
+				return false;
+			}
+			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
+					resourceType, paramName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+			if (searchParam == null) {
+				return false;
+			}
+
+			for (List<IQueryParameterType> nextOrList : nextEntry.getValue()) {
+				if (nextOrList.size() != 1) {
+					return false;
+				}
+				Criterion criterion = createCriterion(resourceType, searchParam, nextOrList.get(0));
+				if (criterion == null) {
+					return false;
+				}
+				criteria.add(criterion);
+			}
+
+			if (nextEntry.getValue().size() == 1) {
+				comboCandidateValues.put(paramName, nextEntry.getValue().get(0).get(0));
+			}
+		}
+
+		/*
+		 * If a combo search parameter covers this URL, the search builder would use the
+		 * combo index instead of the individual parameters, so we need to do the same in
+		 * order to get the same results.
+		 */
+		LookupCriterion primary = null;
+		if (myStorageSettings.isUniqueIndexesEnabled()) {
+			List<RuntimeSearchParam> comboParams = mySearchParamRegistry.getActiveComboSearchParams(
+					resourceType, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+			for (RuntimeSearchParam nextComboParam : comboParams) {
+				List<JpaParamUtil.ComponentAndCorrespondingParam> components =
+						JpaParamUtil.resolveCompositeComponents(mySearchParamRegistry, nextComboParam);
+				if (!components.stream()
+						.allMatch(
+								t -> map.containsKey(t.getParamName()) || map.containsKey(t.getCombinedParamName()))) {
+					continue;
+				}
+				ComboUniqueCriterion comboCriterion =
+						createComboCriterion(resourceType, nextComboParam, components, comboCandidateValues);
+				if (comboCriterion == null || primary != null) {
+					return false;
+				}
+				criteria.removeIf(t -> comboCriterion.myParamNames.contains(t.myParamName));
+				primary = comboCriterion;
+			}
+		}
+
+		if (primary == null) {
+			primary = criteria.stream()
+					.filter(LookupCriterion.class::isInstance)
+					.map(LookupCriterion.class::cast)
+					.min((o1, o2) -> Integer.compare(o1.getLookupPreference(), o2.getLookupPreference()))
+					.orElse(null);
+			if (primary == null) {
+				return false;
+			}
+			criteria.remove(primary);
+		}
+
+		myMatchUrls.add(new MatchUrlCriteria(theMatchUrl, primary, criteria));
+		return true;
+	}
+
+	/**
+	 * Resolves all URLs which have been added to this object. URLs which don't match any
+	 * resource are left unresolved.
+	 *
+	 * @param theTransactionDetails The active transaction details, which will be populated with the
+	 *                              FHIR IDs of any resolved resources
+	 * @param theFoundConsumer      Invoked for each URL which matches exactly one resource
+	 * @return Returns any URLs which couldn't be resolved and need to be resolved individually
+	 */
+	List<TransactionProcessor.MatchUrlToResolve> resolve(
+			TransactionDetails theTransactionDetails,
+			BiConsumer<TransactionProcessor.MatchUrlToResolve, JpaPid> theFoundConsumer) {
+		List<TransactionProcessor.MatchUrlToResolve> retVal = new ArrayList<>();
+		if (myMatchUrls.isEmpty()) {
+			return retVal;
+		}
+
+		Map<JpaPid, IIdType> candidateIds = new HashMap<>();
+		fetchPrimaryCandidates(candidateIds);
+		filterCandidatesBySecondaryCriteria();
+
+		for (MatchUrlCriteria next : myMatchUrls) {
+			if (next.myFallback || next.myCandidates.size() > 1) {
+				retVal.add(next.myMatchUrl);
+			} else if (next.myCandidates.size() == 1) {
+				JpaPid pid = next.myCandidates.iterator().next();
+				ourLog.debug("Matched url {} from search indexes", next.myMatchUrl.getRequestUrl());
+				theTransactionDetails.addResolvedResourceId(candidateIds.get(pid), pid);
+				theFoundConsumer.accept(next.myMatchUrl, pid);
+			}
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Looks up the primary criterion of every URL, using one query per index table and column
+	 */
+	private void fetchPrimaryCandidates(Map<JpaPid, IIdType> theCandidateIdsOutput) {
+		ListMultimap<LookupColumn, MatchUrlCriteria> lookupColumnToUrls = ArrayListMultimap.create();
+		for (MatchUrlCriteria next : myMatchUrls) {
+			lookupColumnToUrls.put(next.myPrimary.getLookupColumn(), next);
+		}
+
+		for (LookupColumn nextColumn : lookupColumnToUrls.keySet()) {
+			List<MatchUrlCriteria> matchUrls = lookupColumnToUrls.get(nextColumn);
+			ListMultimap<Object, MatchUrlCriteria> valueToUrls = ArrayListMultimap.create();
+			Set<String> likePrefixes = new LinkedHashSet<>();
+			for (MatchUrlCriteria next : matchUrls) {
+				valueToUrls.put(next.myPrimary.getLookupValue(), next);
+				if (next.myPrimary.getLikePrefix() != null) {
+					likePrefixes.add(next.myPrimary.getLikePrefix());
+				}
+			}
+
+			IndexTableEnum table = nextColumn.table();
+			CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
+			CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+			Root<?> root = cq.from(table.getEntityType());
+			Join<?, ?> resourceTable = root.join("myResource");
+
+			List<Selection<?>> selections = createSelections(table, root);
+			selections.add(resourceTable.get(COLUMN_FHIR_ID).alias(COLUMN_FHIR_ID));
+			selections.add(resourceTable.get(COLUMN_RESOURCE_TYPE).alias(COLUMN_RESOURCE_TYPE));
+			cq.multiselect(selections);
+
+			Predicate predicate = root.get(nextColumn.column()).in(valueToUrls.keySet());
+			if (!likePrefixes.isEmpty()) {
+				Path<String> valueNormalized = root.get("myValueNormalized");
+				Predicate[] likePredicates = likePrefixes.stream()
+						.map(t -> cb.like(valueNormalized, t + "%"))
+						.toArray(Predicate[]::new);
+				predicate = cb.and(predicate, cb.or(likePredicates));
+			}
+			Predicate partitionPredicate = createPartitionPredicate(cb, root, table);
+			if (partitionPredicate != null) {
+				predicate = cb.and(partitionPredicate, predicate);
+			}
+			cq.where(predicate);
+
+			/*
+			 * Each URL should match 0..1 resources, but a URL whose primary criterion isn't
+			 * very selective (e.g. a string prefix) could match many more before the remaining
+			 * criteria are applied. This limit makes sure we don't do a super-expensive fetch
+			 * in that case.
+			 */
+			int maxRows = valueToUrls.keySet().size() * MAX_CANDIDATE_ROWS_PER_URL;
+			List<Tuple> results =
+					myEntityManager.createQuery(cq).setMaxResults(maxRows + 1).getResultList();
+			if (results.size() > maxRows) {
+				ourLog.debug(
+						"Lookup against {} for {} URLs returned too many rows, resolving individually",
+						nextColumn,
+						matchUrls.size());
+				matchUrls.forEach(t -> t.myFallback = true);
+				continue;
+			}
+
+			for (Tuple nextRow : results) {
+				JpaPid pid = toPid(nextRow);
+				for (MatchUrlCriteria next : valueToUrls.get(nextRow.get(nextColumn.column()))) {
+					if (next.myPrimary.matches(nextRow)) {
+						next.myCandidates.add(pid);
+						theCandidateIdsOutput.computeIfAbsent(pid, t -> myFhirContext
+								.getVersion()
+								.newIdType(
+										nextRow.get(COLUMN_RESOURCE_TYPE, String.class),
+										nextRow.get(COLUMN_FHIR_ID, String.class)));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the index rows for the secondary criteria of every URL which has candidates,
+	 * using one query per index table, and removes any candidates which don't match
+	 * all of the criteria
+	 */
+	private void filterCandidatesBySecondaryCriteria() {
+		Map<IndexTableEnum, Set<Long>> tableToPids = new HashMap<>();
+		Map<IndexTableEnum, Set<Long>> tableToHashIdentities = new HashMap<>();
+		for (MatchUrlCriteria next : myMatchUrls) {
+			if (next.myFallback || next.myCandidates.isEmpty()) {
+				continue;
+			}
+			for (Criterion nextCriterion : next.mySecondary) {
+				Set<Long> pids = tableToPids.computeIfAbsent(nextCriterion.myTable, t -> new HashSet<>());
+				next.myCandidates.forEach(t -> pids.add(t.getId()));
+				tableToHashIdentities
+						.computeIfAbsent(nextCriterion.myTable, t -> new HashSet<>())
+						.add(nextCriterion.myHashIdentity);
+			}
+		}
+
+		Map<IndexTableEnum, ListMultimap<Long, Tuple>> tableToRows = new HashMap<>();
+		for (Map.Entry<IndexTableEnum, Set<Long>> nextEntry : tableToPids.entrySet()) {
+			IndexTableEnum table = nextEntry.getKey();
+			Set<Long> hashIdentities = tableToHashIdentities.get(table);
+			ListMultimap<Long, Tuple> pidToRows = ArrayListMultimap.create();
+			tableToRows.put(table, pidToRows);
+
+			QueryChunker.chunk(nextEntry.getValue(), pidChunk -> {
+				CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
+				CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+				Root<?> root = cq.from(table.getEntityType());
+				cq.multiselect(createSelections(table, root));
+				cq.where(cb.and(
+						root.get(table.getResourcePidColumn()).in(pidChunk),
+						root.get(COLUMN_HASH_IDENTITY).in(hashIdentities)));
+				for (Tuple nextRow : myEntityManager.createQuery(cq).getResultList()) {
+					pidToRows.put(toPid(nextRow).getId(), nextRow);
+				}
+			});
+		}
+
+		for (MatchUrlCriteria next : myMatchUrls) {
+			if (next.myFallback || next.myCandidates.isEmpty()) {
+				continue;
+			}
+			next.myCandidates.removeIf(candidate -> !next.mySecondary.stream()
+					.allMatch(criterion -> tableToRows.get(criterion.myTable).get(candidate.getId()).stream()
+							.anyMatch(criterion::matches)));
+		}
+	}
+
+	@Nonnull
+	private List<Selection<?>> createSelections(IndexTableEnum theTable, Root<?> theRoot) {
+		List<Selection<?>> retVal = new ArrayList<>();
+		retVal.add(theRoot.get(COLUMN_PARTITION_ID).alias(COLUMN_PARTITION_ID));
+		retVal.add(theRoot.get(theTable.getResourcePidColumn()).alias(COLUMN_RESOURCE_PID));
+		if (theTable != IndexTableEnum.COMBO_UNIQUE) {
+			retVal.add(theRoot.get(COLUMN_HASH_IDENTITY).alias(COLUMN_HASH_IDENTITY));
+		}
+		for (String nextColumn : theTable.getValueColumns()) {
+			retVal.add(theRoot.get(nextColumn).alias(nextColumn));
+		}
+		return retVal;
+	}
+
+	/**
+	 * The hash columns include the partition ID when {@link PartitionSettings#isIncludePartitionInSearchHashes()}
+	 * is enabled, otherwise (and for the combo index strings, which never include it) we restrict
+	 * the lookup to the request partition here.
+	 */
+	@Nullable
+	private Predicate createPartitionPredicate(CriteriaBuilder theCb, Root<?> theRoot, IndexTableEnum theTable) {
+		if (!myPartitionSettings.isPartitioningEnabled()
+				|| (myPartitionSettings.isIncludePartitionInSearchHashes()
+						&& theTable != IndexTableEnum.COMBO_UNIQUE)) {
+			return null;
+		}
+		if (myRequestPartitionHelperSvc.isDefaultPartition(myRequestPartitionId)
+				&& myPartitionSettings.getDefaultPartitionId() == null) {
+			return theCb.isNull(theRoot.get(COLUMN_PARTITION_ID));
+		} else if (!myRequestPartitionId.isAllPartitions()) {
+			return theRoot.get(COLUMN_PARTITION_ID).in(myRequestPartitionId.getPartitionIds());
+		}
+		return null;
+	}
+
+	@Nullable
+	private Criterion createCriterion(
+			String theResourceType, RuntimeSearchParam theSearchParam, IQueryParameterType theParam) {
+		String paramName = theSearchParam.getName();
+		if (theParam.getMissing() != null) {
+			return null;
+		}
+		String qualifier = theParam.getQueryParameterQualifier();
+		boolean exactString = theParam instanceof StringParam stringParam && stringParam.isExact();
+		if (isNotBlank(qualifier) && !exactString) {
+			return null;
+		}
+
+		long hashIdentity = BaseResourceIndexedSearchParam.calculateHashIdentity(
+				myPartitionSettings, myRequestPartitionId, theResourceType, paramName);
+
+		switch (theSearchParam.getParamType()) {
+			case TOKEN:
+				if (theParam instanceof TokenParam tokenParam && isNotBlank(tokenParam.getValue())) {
+					if (isNotBlank(tokenParam.getSystem())) {
+						long hash = ResourceIndexedSearchParamToken.calculateHashSystemAndValue(
+								myPartitionSettings,
+								myRequestPartitionId,
+								theResourceType,
+								paramName,
+								tokenParam.getSystem(),
+								tokenParam.getValue());
+						return new HashCriterion(
+								paramName, hashIdentity, IndexTableEnum.TOKEN, "myHashSystemAndValue", hash, 1);
+					} else if (tokenParam.getSystem() == null) {
+						long hash = ResourceIndexedSearchParamToken.calculateHashValue(
+								myPartitionSettings,
+								myRequestPartitionId,
+								theResourceType,
+								paramName,
+								tokenParam.getValue());
+						return new HashCriterion(paramName, hashIdentity, IndexTableEnum.TOKEN, "myHashValue", hash, 4);
+					}
+				}
+				return null;
+			case URI:
+				if (theParam instanceof UriParam uriParam && isNotBlank(uriParam.getValue())) {
+					long hash = ResourceIndexedSearchParamUri.calculateHashUri(
+							myPartitionSettings, myRequestPartitionId, theResourceType, paramName, uriParam.getValue());
+					return new HashCriterion(paramName, hashIdentity, IndexTableEnum.URI, "myHashUri", hash, 2);
+				}
+				return null;
+			case STRING:
+				if (theParam instanceof StringParam stringParam
+						&& !stringParam.isContains()
+						&& isNotBlank(stringParam.getValue())) {
+					String value = theSearchParam.encode(stringParam.getValue());
+					if (value.length() > ResourceIndexedSearchParamString.MAX_LENGTH) {
+						return null;
+					}
+					if (exactString) {
+						long hash = ResourceIndexedSearchParamString.calculateHashExact(
+								myPartitionSettings, myRequestPartitionId, theResourceType, paramName, value);
+						return new HashCriterion(
+								paramName, hashIdentity, IndexTableEnum.STRING, "myHashExact", hash, 3);
+					}
+					String normalized = StringUtil.normalizeStringForSearchIndexing(value);
+					long hash = ResourceIndexedSearchParamString.calculateHashNormalized(
+							myPartitionSettings,
+							myRequestPartitionId,
+							myStorageSettings,
+							theResourceType,
+							paramName,
+							normalized);
+					return new StringPrefixCriterion(paramName, hashIdentity, hash, normalized);
+				}
+				return null;
+			case DATE:
+				if (theParam instanceof DateParam dateParam
+						&& !dateParam.isEmpty()
+						&& (dateParam.getPrefix() == null || dateParam.getPrefix() == ParamPrefixEnum.EQUAL)
+						&& dateParam.getPrecision() == TemporalPrecisionEnum.DAY
+						&& myStorageSettings.getUseOrdinalDatesForDayPrecisionSearches()) {
+					DateRangeParam range = new DateRangeParam(dateParam);
+					return new DateCriterion(
+							paramName,
+							hashIdentity,
+							range.getLowerBoundAsDateInteger(),
+							range.getUpperBoundAsDateInteger());
+				}
+				return null;
+			case QUANTITY:
+				if (theParam instanceof QuantityParam quantityParam
+						&& quantityParam.getValue() != null
+						&& (quantityParam.getPrefix() == null || quantityParam.getPrefix() == ParamPrefixEnum.EQUAL)
+						&& myStorageSettings.getNormalizedQuantitySearchLevel()
+								!= NormalizedQuantitySearchLevel.NORMALIZED_QUANTITY_SEARCH_SUPPORTED) {
+					return createQuantityCriterion(theResourceType, paramName, hashIdentity, quantityParam);
+				}
+				return null;
+			default:
+				return null;
+		}
+	}
+
+	@Nonnull
+	private Criterion createQuantityCriterion(
+			String theResourceType, String theParamName, long theHashIdentity, QuantityParam theParam) {
+		String system = theParam.getSystem();
+		String units = theParam.getUnits();
+		String column;
+		long hash;
+		if (isNotBlank(system) && isNotBlank(units)) {
+			column = "myHashIdentitySystemAndUnits";
+			hash = BaseResourceIndexedSearchParamQuantity.calculateHashSystemAndUnits(
+					myPartitionSettings, myRequestPartitionId, theResourceType, theParamName, system, units);
+		} else if (isNotBlank(units)) {
+			column = "myHashIdentityAndUnits";
+			hash = BaseResourceIndexedSearchParamQuantity.calculateHashUnits(
+					myPartitionSettings, myRequestPartitionId, theResourceType, theParamName, units);
+		} else {
+			column = COLUMN_HASH_IDENTITY;
+			hash = theHashIdentity;
+		}
+		return new QuantityCriterion(
+				theParamName, theHashIdentity, column, hash, theParam.getValue().doubleValue());
+	}
+
+	/**
+	 * Builds the index string for a unique combo search parameter using the same helpers as the
+	 * search builder does, or returns <code>null</code> if the combo parameter covers the URL but
+	 * the index string can't be built (e.g. because a component has several values, or is a
+	 * parameter type we don't handle here)
+	 */
+	@Nullable
+	private ComboUniqueCriterion createComboCriterion(
+			String theResourceType,
+			RuntimeSearchParam theComboParam,
+			List<JpaParamUtil.ComponentAndCorrespondingParam> theComponents,
+			Map<String, IQueryParameterType> theValues) {
+		if (theComboParam.getComboSearchParamType() != ComboSearchParamType.UNIQUE) {
+			return null;
+		}
+
+		Set<String> paramNames = new HashSet<>();
+		List<String> parameters = new ArrayList<>();
+		for (JpaParamUtil.ComponentAndCorrespondingParam nextComponent : theComponents) {
+			IQueryParameterType value = theValues.get(nextComponent.getParamName());
+			if (value == null || nextComponent.getChain() != null) {
+				return null;
+			}
+			RestSearchParameterTypeEnum paramType =
+					JpaParamUtil.getParameterTypeForComposite(mySearchParamRegistry, nextComponent);
+			if (paramType != RestSearchParameterTypeEnum.TOKEN
+					&& paramType != RestSearchParameterTypeEnum.STRING
+					&& paramType != RestSearchParameterTypeEnum.URI) {
+				return null;
+			}
+
+			parameters.add(JpaParamUtil.createComboIndexStringParameter(
+					ComboSearchParamType.UNIQUE, paramType, nextComponent, value));
+			paramNames.add(nextComponent.getParamName());
+		}
+
+		String indexString = JpaParamUtil.createComboIndexString(theResourceType, parameters);
+		return new ComboUniqueCriterion(paramNames, indexString);
+	}
+
+	private static JpaPid toPid(Tuple theRow) {
+		Integer partitionId = theRow.get(COLUMN_PARTITION_ID, Integer.class);
+		Long resourcePid = theRow.get(COLUMN_RESOURCE_PID, Long.class);
+		return JpaPid.fromId(resourcePid, partitionId);
+	}
+
+	enum IndexTableEnum {
+		TOKEN(ResourceIndexedSearchParamToken.class, "myResourcePid", "myHashSystemAndValue", "myHashValue"),
+		STRING(
+				ResourceIndexedSearchParamString.class,
+				"myResourcePid",
+				"myHashExact",
+				"myHashNormalizedPrefix",
+				"myValueNormalized"),
+		URI(ResourceIndexedSearchParamUri.class, "myResourcePid", "myHashUri"),
+		DATE(ResourceIndexedSearchParamDate.class, "myResourcePid", "myValueLowDateOrdinal", "myValueHighDateOrdinal"),
+		QUANTITY(
+				ResourceIndexedSearchParamQuantity.class,
+				"myResourcePid",
+				"myHashIdentityAndUnits",
+				"myHashIdentitySystemAndUnits",
+				"myValue"),
+		COMBO_UNIQUE(ResourceIndexedComboStringUnique.class, "myResourceId", "myIndexString");
+
+		private final Class<?> myEntityType;
+		private final String myResourcePidColumn;
+		private final List<String> myValueColumns;
+
+		IndexTableEnum(Class<?> theEntityType, String theResourcePidColumn, String... theValueColumns) {
+			myEntityType = theEntityType;
+			myResourcePidColumn = theResourcePidColumn;
+			myValueColumns = List.of(theValueColumns);
+		}
+
+		Class<?> getEntityType() {
+			return myEntityType;
+		}
+
+		String getResourcePidColumn() {
+			return myResourcePidColumn;
+		}
+
+		List<String> getValueColumns() {
+			return myValueColumns;
+		}
+	}
+
+	/**
+	 * An index column which can be used to look up the primary criterion of a URL
+	 */
+	private record LookupColumn(IndexTableEnum table, String column) {}
+
+	private static class MatchUrlCriteria {
+		private final TransactionProcessor.MatchUrlToResolve myMatchUrl;
+		private final LookupCriterion myPrimary;
+		private final List<Criterion> mySecondary;
+		private final Set<JpaPid> myCandidates = new HashSet<>();
+		private boolean myFallback;
+
+		private MatchUrlCriteria(
+				TransactionProcessor.MatchUrlToResolve theMatchUrl,
+				LookupCriterion thePrimary,
+				List<Criterion> theSecondary) {
+			myMatchUrl = theMatchUrl;
+			myPrimary = thePrimary;
+			mySecondary = theSecondary;
+		}
+	}
+
+	/**
+	 * A single ANDed parameter value from a URL, which is tested against index rows
+	 */
+	private abstract static class Criterion {
+		final String myParamName;
+		final long myHashIdentity;
+		final IndexTableEnum myTable;
+
+		Criterion(String theParamName, long theHashIdentity, IndexTableEnum theTable) {
+			myParamName = theParamName;
+			myHashIdentity = theHashIdentity;
+			myTable = theTable;
+		}
+
+		boolean matches(Tuple theRow) {
+			return Objects.equals(theRow.get(COLUMN_HASH_IDENTITY), myHashIdentity) && matchesValue(theRow);
+		}
+
+		abstract boolean matchesValue(Tuple theRow);
+	}
+
+	/**
+	 * A criterion which is selective enough to be used as the primary criterion for a URL
+	 */
+	private abstract static class LookupCriterion extends Criterion {
+
+		LookupCriterion(String theParamName, long theHashIdentity, IndexTableEnum theTable) {
+			super(theParamName, theHashIdentity, theTable);
+		}
+
+		/**
+		 * Returns the column used to look this criterion up
+		 */
+		abstract LookupColumn getLookupColumn();
+
+		/**
+		 * Returns the value to look up in the {@link #getLookupColumn() lookup column}
+		 */
+		abstract Object getLookupValue();
+
+		/**
+		 * Lower values are preferred when picking the primary criterion for a URL
+		 */
+		abstract int getLookupPreference();
+
+		/**
+		 * A prefix which all matching <code>myValueNormalized</code> values start with, used
+		 * to narrow down string lookups
+		 */
+		@Nullable
+		String getLikePrefix() {
+			return null;
+		}
+	}
+
+	private static class HashCriterion extends LookupCriterion {
+		private final LookupColumn myLookupColumn;
+		private final long myHash;
+		private final int myLookupPreference;
+
+		HashCriterion(
+				String theParamName,
+				long theHashIdentity,
+				IndexTableEnum theTable,
+				String theColumn,
+				long theHash,
+				int theLookupPreference) {
+			super(theParamName, theHashIdentity, theTable);
+			myLookupColumn = new LookupColumn(theTable, theColumn);
+			myHash = theHash;
+			myLookupPreference = theLookupPreference;
+		}
+
+		@Override
+		LookupColumn getLookupColumn() {
+			return myLookupColumn;
+		}
+
+		@Override
+		Object getLookupValue() {
+			return myHash;
+		}
+
+		@Override
+		int getLookupPreference() {
+			return myLookupPreference;
+		}
+
+		@Override
+		boolean matchesValue(Tuple theRow) {
+			return Objects.equals(theRow.get(myLookupColumn.column()), myHash);
+		}
+	}
+
+	/**
+	 * A string search without the <code>:exact</code> modifier, which matches any indexed value
+	 * starting with the normalized search value
+	 */
+	private static class StringPrefixCriterion extends HashCriterion {
+		private final String myNormalizedValue;
+
+		StringPrefixCriterion(String theParamName, long theHashIdentity, long theHash, String theNormalizedValue) {
+			super(theParamName, theHashIdentity, IndexTableEnum.STRING, "myHashNormalizedPrefix", theHash, 5);
+			myNormalizedValue = theNormalizedValue;
+		}
+
+		/**
+		 * LIKE wildcards in the value are left out of the prefix rather than escaped, since
+		 * escaping isn't portable across databases. The exact comparison happens in
+		 * {@link #matchesValue(Tuple)}.
+		 */
+		@Override
+		String getLikePrefix() {
+			int wildcardIndex = -1;
+			for (int i = 0; i < myNormalizedValue.length() && wildcardIndex == -1; i++) {
+				char next = myNormalizedValue.charAt(i);
+				if (next == '%' || next == '_' || next == '\\') {
+					wildcardIndex = i;
+				}
+			}
+			return wildcardIndex == -1 ? myNormalizedValue : myNormalizedValue.substring(0, wildcardIndex);
+		}
+
+		@Override
+		boolean matchesValue(Tuple theRow) {
+			String valueNormalized = theRow.get("myValueNormalized", String.class);
+			return super.matchesValue(theRow)
+					&& valueNormalized != null
+					&& valueNormalized.startsWith(myNormalizedValue);
+		}
+	}
+
+	/**
+	 * A DAY precision date search, which matches any indexed period lying entirely within the day
+	 */
+	private static class DateCriterion extends Criterion {
+		private final int myLowerBound;
+		private final int myUpperBound;
+
+		DateCriterion(String theParamName, long theHashIdentity, int theLowerBound, int theUpperBound) {
+			super(theParamName, theHashIdentity, IndexTableEnum.DATE);
+			myLowerBound = theLowerBound;
+			myUpperBound = theUpperBound;
+		}
+
+		@Override
+		boolean matchesValue(Tuple theRow) {
+			Integer low = theRow.get("myValueLowDateOrdinal", Integer.class);
+			Integer high = theRow.get("myValueHighDateOrdinal", Integer.class);
+			return low != null
+					&& high != null
+					&& low >= myLowerBound
+					&& low <= myUpperBound
+					&& high >= myLowerBound
+					&& high <= myUpperBound;
+		}
+	}
+
+	private static class QuantityCriterion extends Criterion {
+		private final String myHashColumn;
+		private final long myHash;
+		private final double myValue;
+
+		QuantityCriterion(
+				String theParamName, long theHashIdentity, String theHashColumn, long theHash, double theValue) {
+			super(theParamName, theHashIdentity, IndexTableEnum.QUANTITY);
+			myHashColumn = theHashColumn;
+			myHash = theHash;
+			myValue = theValue;
+		}
+
+		@Override
+		boolean matchesValue(Tuple theRow) {
+			Double value = theRow.get("myValue", Double.class);
+			return Objects.equals(theRow.get(myHashColumn), myHash) && value != null && value == myValue;
+		}
+	}
+
+	private static class ComboUniqueCriterion extends LookupCriterion {
+		private static final LookupColumn LOOKUP_COLUMN =
+				new LookupColumn(IndexTableEnum.COMBO_UNIQUE, "myIndexString");
+		private final Set<String> myParamNames;
+		private final String myIndexString;
+
+		ComboUniqueCriterion(Set<String> theParamNames, String theIndexString) {
+			super(null, 0, IndexTableEnum.COMBO_UNIQUE);
+			myParamNames = theParamNames;
+			myIndexString = theIndexString;
+		}
+
+		@Override
+		LookupColumn getLookupColumn() {
+			return LOOKUP_COLUMN;
+		}
+
+		@Override
+		Object getLookupValue() {
+			return myIndexString;
+		}
+
+		@Override
+		int getLookupPreference() {
+			return 0;
+		}
+
+		@Override
+		boolean matches(Tuple theRow) {
+			return matchesValue(theRow);
+		}
+
+		@Override
+		boolean matchesValue(Tuple theRow) {
+			return myIndexString.equals(theRow.get("myIndexString"));
+		}
+	}
+}
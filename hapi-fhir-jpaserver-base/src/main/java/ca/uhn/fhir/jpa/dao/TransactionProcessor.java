@@ -54,6 +54,7 @@ import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
 import ca.uhn.fhir.rest.server.util.ICachedSearchDetails;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.ResourceReferenceInfo;
 import ca.uhn.fhir.util.StopWatch;
@@ -151,6 +152,9 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionHelperSvc;
 
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
 	public void setEntityManagerForUnitTest(EntityManager theEntityManager) {
 		myEntityManager = theEntityManager;
 	}
@@ -815,6 +819,14 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		IInterceptorBroadcaster compositeBroadcaster =
 				CompositeInterceptorBroadcaster.newCompositeBroadcaster(myInterceptorBroadcaster, theRequestDetails);
 		boolean hasPreSearchHook = compositeBroadcaster.hasHooks(Pointcut.STORAGE_PRESEARCH_REGISTERED);
+		MatchUrlIndexPreFetcher indexPreFetcher = new MatchUrlIndexPreFetcher(
+				myFhirContext,
+				myEntityManager,
+				myPartitionSettings,
+				myStorageSettings,
+				mySearchParamRegistry,
+				myRequestPartitionHelperSvc,
+				theRequestPartitionId);
 
 		for (MatchUrlToResolve next : theInputParameters) {
 
@@ -836,10 +848,10 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 			 * up into a single query against the HFJ_SPIDX_TOKEN table so that we only
 			 * perform one SQL query for all of them.
 			 *
-			 * We could potentially add other patterns in the future, but it's much more
-			 * tricky to implement this when there are multiple parameters, and non-token
-			 * parameter types aren't often used on their own in conditional URLs. So for
-			 * now we handle single-token only, and that's probably good enough.
+			 * Other URLs made up of simple token, string, uri, date and quantity parameters
+			 * (including ones covered by a unique combo search parameter) are resolved
+			 * together by the MatchUrlIndexPreFetcher, which needs a few queries per batch
+			 * instead of one search per URL.
 			 */
 			boolean canBeHandledInAggregateQuery = false;
 
@@ -856,20 +868,17 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 			}
 
 			if (!canBeHandledInAggregateQuery) {
-				Set<JpaPid> matchUrlResults = myMatchResourceUrlService.processMatchUrl(
-						next.myRequestUrl,
-						next.myResourceDefinition.getImplementingClass(),
-						theTransactionDetails,
+				canBeHandledInAggregateQuery = indexPreFetcher.addMatchUrl(next);
+			}
+
+			if (!canBeHandledInAggregateQuery) {
+				resolveMatchUrlIndividually(
 						theRequestDetails,
-						theRequestPartitionId);
-				for (JpaPid matchUrlResult : matchUrlResults) {
-					handleFoundPreFetchResourceId(
-							theTransactionDetails,
-							theOutputPidsToLoadBodiesFor,
-							theOutputPidsToLoadVersionsFor,
-							next,
-							matchUrlResult);
-				}
+						theTransactionDetails,
+						theRequestPartitionId,
+						next,
+						theOutputPidsToLoadBodiesFor,
+						theOutputPidsToLoadVersionsFor);
 			}
 		}
 
@@ -890,6 +899,24 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 				theOutputPidsToLoadBodiesFor,
 				theOutputPidsToLoadVersionsFor);
 
+		List<MatchUrlToResolve> unresolvedByIndex = indexPreFetcher.resolve(
+				theTransactionDetails,
+				(matchUrl, pid) -> handleFoundPreFetchResourceId(
+						theTransactionDetails,
+						theOutputPidsToLoadBodiesFor,
+						theOutputPidsToLoadVersionsFor,
+						matchUrl,
+						pid));
+		for (MatchUrlToResolve next : unresolvedByIndex) {
+			resolveMatchUrlIndividually(
+					theRequestDetails,
+					theTransactionDetails,
+					theRequestPartitionId,
+					next,
+					theOutputPidsToLoadBodiesFor,
+					theOutputPidsToLoadVersionsFor);
+		}
+
 		// For each SP Map which did not return a result, tag it as not found.
 		theInputParameters.stream()
 				// No matches
@@ -999,6 +1026,32 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		}
 	}
 
+	/**
+	 * Resolves a conditional URL by performing a regular search for it
+	 */
+	private void resolveMatchUrlIndividually(
+			RequestDetails theRequestDetails,
+			TransactionDetails theTransactionDetails,
+			RequestPartitionId theRequestPartitionId,
+			MatchUrlToResolve theMatchUrl,
+			Set<JpaPid> theOutputPidsToLoadBodiesFor,
+			Set<JpaPid> theOutputPidsToLoadVersionsFor) {
+		Set<JpaPid> matchUrlResults = myMatchResourceUrlService.processMatchUrl(
+				theMatchUrl.myRequestUrl,
+				theMatchUrl.myResourceDefinition.getImplementingClass(),
+				theTransactionDetails,
+				theRequestDetails,
+				theRequestPartitionId);
+		for (JpaPid matchUrlResult : matchUrlResults) {
+			handleFoundPreFetchResourceId(
+					theTransactionDetails,
+					theOutputPidsToLoadBodiesFor,
+					theOutputPidsToLoadVersionsFor,
+					theMatchUrl,
+					matchUrlResult);
+		}
+	}
+
 	private void handleFoundPreFetchResourceId(
 			TransactionDetails theTransactionDetails,
 			Set<JpaPid> theOutputPidsToLoadFully,
@@ -1166,6 +1219,11 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		myIdHelperService = theIdHelperService;
 	}
 
+	@VisibleForTesting
+	public void setSearchParamRegistryForUnitTest(ISearchParamRegistry theSearchParamRegistry) {
+		mySearchParamRegistry = theSearchParamRegistry;
+	}
+
 	@VisibleForTesting
 	public void setApplicationContextForUnitTest(ApplicationContext theAppCtx) {
 		myApplicationContext = theAppCtx;
@@ -1247,6 +1305,18 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 			return myAssociatedResource;
 		}
 
+		String getRequestUrl() {
+			return myRequestUrl;
+		}
+
+		SearchParameterMap getMatchUrlSearchMap() {
+			return myMatchUrlSearchMap;
+		}
+
+		RuntimeResourceDefinition getResourceDefinition() {
+			return myResourceDefinition;
+		}
+
 		public void setResolved(boolean theResolved) {
 			myResolved = theResolved;
 		}
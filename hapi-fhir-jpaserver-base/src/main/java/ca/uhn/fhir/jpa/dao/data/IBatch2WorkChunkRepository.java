@@ -22,8 +22,10 @@ package ca.uhn.fhir.jpa.dao.data;
 import ca.uhn.fhir.batch2.model.BatchWorkChunkStatusDTO;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
 import ca.uhn.fhir.jpa.entity.Batch2WorkChunkEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -55,6 +57,65 @@ public interface IBatch2WorkChunkRepository
 			+ ") FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId ORDER BY e.mySequence ASC, e.myId ASC")
 	List<Batch2WorkChunkEntity> fetchChunksNoData(Pageable thePageRequest, @Param("instanceId") String theInstanceId);
 
+	/**
+	 * Returns one row per step and status for the chunks in the given statuses, holding the step ID,
+	 * status, chunk count, sum of records processed, sum of error counts, earliest start time and
+	 * latest end time
+	 */
+	@Query("SELECT e.myTargetStepId, e.myStatus, COUNT(e), SUM(e.myRecordsProcessed), SUM(e.myErrorCount), "
+			+ "MIN(e.myStartTime), MAX(e.myEndTime) "
+			+ "FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId AND e.myStatus IN (:statuses) "
+			+ "GROUP BY e.myTargetStepId, e.myStatus")
+	List<Object[]> fetchChunkStatistics(
+			@Param("instanceId") String theInstanceId, @Param("statuses") Collection<WorkChunkStatusEnum> theStatuses);
+
+	/**
+	 * The same as {@link #fetchChunkStatistics(String, Collection)}, but only for the chunks which
+	 * ended before the given time
+	 */
+	@Query("SELECT e.myTargetStepId, e.myStatus, COUNT(e), SUM(e.myRecordsProcessed), SUM(e.myErrorCount), "
+			+ "MIN(e.myStartTime), MAX(e.myEndTime) "
+			+ "FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId AND e.myStatus IN (:statuses) "
+			+ "AND e.myEndTime < :endTime "
+			+ "GROUP BY e.myTargetStepId, e.myStatus")
+	List<Object[]> fetchChunkStatisticsEndedBefore(
+			@Param("instanceId") String theInstanceId,
+			@Param("statuses") Collection<WorkChunkStatusEnum> theStatuses,
+			@Param("endTime") Date theEndTime);
+
+	/**
+	 * A projection query (without the chunk data) for the chunks in the given statuses which
+	 * ended at or after the given time
+	 */
+	@Query("SELECT new Batch2WorkChunkEntity("
+			+ "e.myId, e.mySequence, e.myJobDefinitionId, e.myJobDefinitionVersion, e.myInstanceId, e.myTargetStepId, e.myStatus,"
+			+ "e.myCreateTime, e.myStartTime, e.myUpdateTime, e.myEndTime,"
+			+ "e.myErrorMessage, e.myErrorCount, e.myRecordsProcessed, e.myWarningMessage,"
+			+ "e.myNextPollTime, e.myPollAttempts"
+			+ ") FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId AND e.myStatus IN (:statuses) "
+			+ "AND e.myEndTime >= :endTime")
+	List<Batch2WorkChunkEntity> fetchChunksNoDataEndedSince(
+			@Param("instanceId") String theInstanceId,
+			@Param("statuses") Collection<WorkChunkStatusEnum> theStatuses,
+			@Param("endTime") Date theEndTime);
+
+	/**
+	 * Returns the error messages of the chunks with the given step and status, most recently
+	 * ended first
+	 */
+	@Query("SELECT e.myErrorMessage FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId "
+			+ "AND e.myTargetStepId = :stepId AND e.myStatus = :status AND e.myErrorMessage IS NOT NULL "
+			+ "ORDER BY e.myEndTime DESC")
+	List<String> fetchLatestErrorMessages(
+			Pageable thePageable,
+			@Param("instanceId") String theInstanceId,
+			@Param("stepId") String theStepId,
+			@Param("status") WorkChunkStatusEnum theStatus);
+
+	@Query(
+			"SELECT DISTINCT e.myWarningMessage FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId AND e.myWarningMessage IS NOT NULL")
+	List<String> fetchDistinctWarningMessages(@Param("instanceId") String theInstanceId);
+
 	@Query(
 			"SELECT DISTINCT e.myStatus from Batch2WorkChunkEntity e where e.myInstanceId = :instanceId AND e.myTargetStepId = :stepId")
 	Set<WorkChunkStatusEnum> getDistinctStatusesForStep(
@@ -142,6 +203,23 @@ public interface IBatch2WorkChunkRepository
 			@Param("status") WorkChunkStatusEnum theInProgress,
 			@Param("startStatuses") Collection<WorkChunkStatusEnum> theStartStatuses);
 
+	@Modifying
+	@Query(
+			"UPDATE Batch2WorkChunkEntity e SET e.myStatus = :status, e.myStartTime = :st WHERE e.myId IN (:ids) AND e.myStatus IN :startStatuses")
+	int updateChunksStatusForStart(
+			@Param("ids") Collection<String> theChunkIds,
+			@Param("st") Date theStartedTime,
+			@Param("status") WorkChunkStatusEnum theInProgress,
+			@Param("startStatuses") Collection<WorkChunkStatusEnum> theStartStatuses);
+
+	/**
+	 * Loads the given chunks and locks them, waiting for any other transaction holding a lock on one of
+	 * them. The chunks are locked in ID order so that two callers with overlapping IDs can't deadlock.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT e FROM Batch2WorkChunkEntity e WHERE e.myId IN (:ids) ORDER BY e.myId ASC")
+	List<Batch2WorkChunkEntity> findAllByIdForUpdate(@Param("ids") Collection<String> theChunkIds);
+
 	@Modifying
 	@Query("UPDATE Batch2WorkChunkEntity e SET e.myStatus = :newStatus WHERE e.myId = :id AND e.myStatus = :oldStatus")
 	int updateChunkStatus(
@@ -36,6 +36,9 @@ public interface ITermConceptDao extends JpaRepository<TermConcept, TermConcept.
 	@Query("SELECT t FROM TermConcept t " + "LEFT JOIN FETCH t.myDesignations d " + "WHERE t.myId IN :pids")
 	List<TermConcept> fetchConceptsAndDesignationsByPid(@Param("pids") List<TermConcept.TermConceptPk> thePids);
 
+	@Query("SELECT t FROM TermConcept t WHERE t.myId IN :pids")
+	List<TermConcept> findByPids(@Param("pids") List<TermConcept.TermConceptPk> thePids);
+
 	@Query("SELECT t FROM TermConcept t " + "LEFT JOIN FETCH t.myDesignations d "
 			+ "WHERE t.myCodeSystemVersionPid = :pid")
 	List<TermConcept> fetchConceptsAndDesignationsByVersionPid(@Param("pid") Long theCodeSystemVersionPid);
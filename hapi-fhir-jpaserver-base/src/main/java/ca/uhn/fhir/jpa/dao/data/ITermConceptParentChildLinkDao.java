@@ -34,6 +34,9 @@ public interface ITermConceptParentChildLinkDao
 	@Query("SELECT t.myParentPid FROM TermConceptParentChildLink t WHERE t.myChildPid = :child_pid")
 	Collection<Long> findAllWithChild(@Param("child_pid") Long theConceptPid);
 
+	@Query("SELECT t.myChildPid FROM TermConceptParentChildLink t WHERE t.myParentPid IN (:parent_pids)")
+	Collection<Long> findChildPidsWithParents(@Param("parent_pids") Collection<Long> theParentConceptPids);
+
 	@Modifying
 	@Query("DELETE FROM TermConceptParentChildLink WHERE myCodeSystemVersionPid = :cs_pid")
 	int deleteByCodeSystemVersion(@Param("cs_pid") Long thePid);
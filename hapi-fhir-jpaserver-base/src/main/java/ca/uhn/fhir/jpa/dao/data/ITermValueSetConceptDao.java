@@ -77,6 +77,10 @@ public interface ITermValueSetConceptDao
 			@Param("system_version") String theSystemVersion,
 			@Param("codeval") String theCode);
 
+	@Query(
+			"SELECT vsc.mySystem, vsc.mySystemVer, vsc.myCode, vsc.myDisplay FROM TermValueSetConcept vsc WHERE vsc.myValueSetPid = :pid")
+	List<Object[]> findSystemVersionCodeAndDisplayByTermValueSetId(@Param("pid") Long theValueSetId);
+
 	@Query("SELECT vsc.myId FROM TermValueSetConcept vsc WHERE vsc.myValueSetPid = :pid ORDER BY vsc.myId")
 	List<Long> findIdsByTermValueSetId(@Param("pid") Long theValueSetId);
 
@@ -26,6 +26,7 @@ import ca.uhn.fhir.jpa.model.entity.IdAndPartitionId;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -46,6 +47,21 @@ public interface ITermValueSetDao extends JpaRepository<TermValueSet, IdAndParti
 	Slice<TermValueSet> findByExpansionStatus(
 			Pageable pageable, @Param("expansion_status") TermValueSetPreExpansionStatusEnum theExpansionStatus);
 
+	/**
+	 * Moves a ValueSet from one expansion status to another, only if it still has the expected status.
+	 *
+	 * @return The number of ValueSets updated, which is <code>0</code> if the ValueSet did not have the expected status
+	 * @since 8.8.0
+	 */
+	@Modifying
+	@Query(
+			"UPDATE TermValueSet vs SET vs.myExpansionStatus = :new_status, vs.myTotalConcepts = 0, vs.myTotalConceptDesignations = 0 "
+					+ "WHERE vs.myId = :pid AND vs.myExpansionStatus = :expected_status")
+	int updateExpansionStatusAndResetTotals(
+			@Param("pid") Long thePid,
+			@Param("expected_status") TermValueSetPreExpansionStatusEnum theExpectedStatus,
+			@Param("new_status") TermValueSetPreExpansionStatusEnum theNewStatus);
+
 	@Query(
 			value =
 					"SELECT vs FROM TermValueSet vs INNER JOIN ResourceTable r ON r = vs.myResource WHERE vs.myUrl = :url ORDER BY r.myUpdated DESC")
@@ -27,6 +27,7 @@ import ca.uhn.fhir.jpa.dao.expunge.ResourceForeignKey;
 import ca.uhn.fhir.jpa.dao.expunge.ResourceTableFKProvider;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.dao.JpaPidSet;
 import ca.uhn.fhir.jpa.model.entity.ResourceLink;
 import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
@@ -170,6 +171,9 @@ public class DeleteExpungeSqlBuilder {
 		// We only need to find one conflict, so if we found one already in an earlier partition run, we can skip the
 		// rest of the searches
 		if (theConflictResourceLinks.isEmpty()) {
+			// theAllTargetPids can be very large, so use a set for the lookups below
+			JpaPidSet allTargetPids = new JpaPidSet(theAllTargetPids);
+
 			// Chunker is used because theSomeTargetPids can contain list sizes over 100,000, a number that some
 			// databases can't handle as a query parameter count in an IN clause of a query.
 			QueryChunker.chunk(theSomeTargetPids, targetPidsChunk -> {
@@ -181,7 +185,7 @@ public class DeleteExpungeSqlBuilder {
 								// want
 								// to consider a link to be a conflict if the source of that link is not in
 								// theAllTargetPids.
-								.filter(link -> !(theAllTargetPids).contains(link.getSourceResourcePk()))
+								.filter(link -> !allTargetPids.contains(link.getSourceResourcePk()))
 								.collect(Collectors.toList());
 
 				// We do this in two steps to avoid lock contention on this synchronized list
@@ -194,6 +194,13 @@ public class HapiFhirJpaMigrationTasks extends BaseMigrationTasks<VersionEnum> {
 					// note that we do not apply the onlyIf() here since we have now fixed the column.
 					.onlyAppliesToPlatforms(DriverTypeEnum.MSSQL_2012);
 		}
+
+		// Lets the batch2 maintenance pass load only the work chunks which have finished recently
+		version.onTable("BT2_WORK_CHUNK")
+				.addIndex("20261018.1", "IDX_BT2WC_II_S_ET")
+				.unique(false)
+				.online(true)
+				.withColumns("INSTANCE_ID", "STAT", "END_TIME");
 	}
 
 	protected void init860() {
@@ -31,6 +31,7 @@ import ca.uhn.fhir.merge.MergeResourceHelper;
 import ca.uhn.fhir.model.api.IProvenanceAgent;
 import ca.uhn.fhir.model.api.annotation.Description;
 import ca.uhn.fhir.model.primitive.IdDt;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.replacereferences.ReplaceReferencesRequest;
 import ca.uhn.fhir.replacereferences.UndoReplaceReferencesRequest;
 import ca.uhn.fhir.rest.annotation.Operation;
@@ -167,6 +168,25 @@ public final class JpaSystemProvider<T, MT> extends BaseJpaSystemProvider<T, MT>
 		}
 	}
 
+	/**
+	 * Processes the entries of a transaction or batch request as they are parsed, so that batches can be
+	 * processed without holding the complete request Bundle in memory. The server invokes this in place of
+	 * {@link #transaction(RequestDetails, IBaseBundle)} when
+	 * {@link ca.uhn.fhir.context.ParserOptions#isStreamingJsonParsing() streaming JSON parsing} is enabled
+	 * (see {@link Transaction}).
+	 *
+	 * @since 8.8.0
+	 */
+	public IBaseBundle transaction(RequestDetails theRequestDetails, IBundleEntryIterator theEntries) {
+		startRequest(((ServletRequestDetails) theRequestDetails).getServletRequest());
+		try {
+			IFhirSystemDao<T, MT> dao = getDao();
+			return (IBaseBundle) dao.transactionFromEntries(theRequestDetails, theEntries);
+		} finally {
+			endRequest(((ServletRequestDetails) theRequestDetails).getServletRequest());
+		}
+	}
+
 	@Operation(name = ProviderConstants.OPERATION_REPLACE_REFERENCES, global = true)
 	@Description(
 			value =
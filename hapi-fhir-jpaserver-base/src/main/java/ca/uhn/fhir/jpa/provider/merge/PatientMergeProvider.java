@@ -57,6 +57,11 @@ public class PatientMergeProvider extends BaseJpaResourceProvider<Patient> {
 		return Patient.class;
 	}
 
+	@Override
+	protected boolean isBuiltInProvider() {
+		return getClass() == PatientMergeProvider.class;
+	}
+
 	/**
 	 * /Patient/$merge
 	 */
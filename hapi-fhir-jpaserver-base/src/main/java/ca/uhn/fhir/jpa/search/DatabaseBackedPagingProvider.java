@@ -22,6 +22,7 @@ package ca.uhn.fhir.jpa.search;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.provider.BaseJpaResourceProvider;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.BasePagingProvider;
@@ -64,6 +65,12 @@ public class DatabaseBackedPagingProvider extends BasePagingProvider {
 
 	@Override
 	public synchronized IBundleProvider retrieveResultList(RequestDetails theRequestDetails, String theId) {
+		// Subclasses may modify the bundle provider, so they must only see fully populated resources
+		if (theRequestDetails != null && getClass() == DatabaseBackedPagingProvider.class) {
+			theRequestDetails
+					.getUserData()
+					.put(BaseJpaResourceProvider.USER_DATA_STORED_RESOURCE_PASSTHROUGH_PERMITTED, Boolean.TRUE);
+		}
 		PersistedJpaBundleProvider provider = myPersistedJpaBundleProviderFactory.newInstance(theRequestDetails, theId);
 		return validateAndReturnBundleProvider(provider);
 	}
@@ -44,10 +44,12 @@ import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTagDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
 import ca.uhn.fhir.jpa.dao.search.ResourceNotFoundInIndexException;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.dao.JpaPidSet;
 import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
 import ca.uhn.fhir.jpa.model.entity.BaseTag;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
@@ -66,6 +68,7 @@ import ca.uhn.fhir.jpa.search.builder.models.SearchQueryProperties;
 import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryExecutor;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryPlanCache;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.lastn.IElasticsearchSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -75,6 +78,7 @@ import ca.uhn.fhir.jpa.searchparam.util.LastNParameterHelper;
 import ca.uhn.fhir.jpa.util.BaseIterator;
 import ca.uhn.fhir.jpa.util.CartesianProductUtil;
 import ca.uhn.fhir.jpa.util.CurrentThreadCaptureQueriesListener;
+import ca.uhn.fhir.jpa.util.QueryChunkExecutor;
 import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.jpa.util.ScrollableResultsIterator;
 import ca.uhn.fhir.jpa.util.SqlQueryList;
@@ -106,8 +110,6 @@ import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import ca.uhn.fhir.system.HapiSystemProperties;
 import ca.uhn.fhir.util.SearchParameterUtil;
 import ca.uhn.fhir.util.StopWatch;
-import ca.uhn.fhir.util.StringUtil;
-import ca.uhn.fhir.util.UrlUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
@@ -156,6 +158,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.model.util.JpaConstants.NO_MORE;
@@ -168,7 +172,6 @@ import static java.util.Objects.requireNonNull;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.apache.commons.lang3.StringUtils.stripStart;
 
 /**
  * The SearchBuilder is responsible for actually forming the SQL query that handles
@@ -249,6 +252,15 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	@Autowired
 	private IRequestPartitionHelperSvc myPartitionHelperSvc;
 
+	@Autowired(required = false)
+	private SearchQueryPlanCache mySearchQueryPlanCache;
+
+	@Autowired(required = false)
+	private QueryChunkExecutor myQueryChunkExecutor;
+
+	@Autowired
+	private IHapiTransactionService myTxService;
+
 	/**
 	 * Constructor
 	 */
@@ -418,7 +430,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	 */
 	@Override
 	public void setPreviouslyAddedResourcePids(@Nonnull List<JpaPid> thePidSet) {
-		myPidSet = new HashSet<>(thePidSet);
+		myPidSet = new JpaPidSet(thePidSet);
 	}
 
 	@SuppressWarnings("ConstantConditions")
@@ -434,7 +446,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		init(theParams, theSearchRuntimeDetails.getSearchUuid(), theRequestPartitionId);
 
 		if (myPidSet == null) {
-			myPidSet = new HashSet<>();
+			myPidSet = new JpaPidSet();
 		}
 
 		return new QueryIterator(theSearchRuntimeDetails, theRequest);
@@ -719,6 +731,9 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			RequestDetails theRequest,
 			List<JpaPid> thePidList,
 			List<ISearchQueryExecutor> theSearchQueryExecutors) {
+		// Must be determined before the query stack consumes the parameters
+		SearchQueryPlanCache.Key queryPlanKey = createSearchQueryPlanKey(theParams, theSearchProperties, thePidList);
+
 		SearchQueryBuilder sqlBuilder = new SearchQueryBuilder(
 				myContext,
 				myStorageSettings,
@@ -844,15 +859,56 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		/*
 		 * Now perform the search
 		 */
-		executeSearch(theSearchProperties, theSearchQueryExecutors, sqlBuilder);
+		executeSearch(theSearchProperties, theSearchQueryExecutors, sqlBuilder, queryPlanKey);
+	}
+
+	/**
+	 * Returns the key under which the SQL for this search can be cached, or <code>null</code>
+	 * if the query plan cache is disabled or the search is not eligible for it.
+	 */
+	@Nullable
+	private SearchQueryPlanCache.Key createSearchQueryPlanKey(
+			SearchParameterMap theParams, SearchQueryProperties theSearchProperties, List<JpaPid> thePidList) {
+		if (mySearchQueryPlanCache == null
+				|| !myStorageSettings.isSearchQueryPlanCacheEnabled()
+				|| thePidList != null
+				|| myHasNextIteratorQuery) {
+			return null;
+		}
+
+		// Combo parameters are applied depending on the parameter values
+		if (myResourceName != null
+				&& !theParams.isEmpty()
+				&& !mySearchParamRegistry
+						.getActiveComboSearchParams(
+								myResourceName,
+								theParams.keySet(),
+								ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH)
+						.isEmpty()) {
+			return null;
+		}
+
+		return SearchQueryPlanCache.createKey(
+				myResourceName, myRequestPartitionId, theParams, theSearchProperties, mySearchParamRegistry);
 	}
 
 	private void executeSearch(
 			SearchQueryProperties theProperties,
 			List<ISearchQueryExecutor> theSearchQueryExecutors,
 			SearchQueryBuilder sqlBuilder) {
-		GeneratedSql generatedSql =
-				sqlBuilder.generate(theProperties.getOffset(), theProperties.getMaxResultsRequested());
+		executeSearch(theProperties, theSearchQueryExecutors, sqlBuilder, null);
+	}
+
+	private void executeSearch(
+			SearchQueryProperties theProperties,
+			List<ISearchQueryExecutor> theSearchQueryExecutors,
+			SearchQueryBuilder sqlBuilder,
+			@Nullable SearchQueryPlanCache.Key theQueryPlanKey) {
+		GeneratedSql generatedSql = sqlBuilder.generate(
+				theProperties.getOffset(),
+				theProperties.getMaxResultsRequested(),
+				mySearchQueryPlanCache,
+				theQueryPlanKey);
 		if (!generatedSql.isMatchNothing()) {
 			SearchQueryExecutor executor =
 					mySqlBuilderFactory.newSearchQueryExecutor(generatedSql, theProperties.getMaxResultsRequested());
@@ -1247,7 +1303,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			RequestDetails theRequest,
 			Collection<JpaPid> thePids,
 			Collection<JpaPid> theIncludedPids,
-			List<IBaseResource> theResourceListToPopulate,
+			BiConsumer<Integer, IBaseResource> theResourceConsumer,
 			boolean theForHistoryOperation,
 			Map<Long, Integer> thePosition) {
 
@@ -1364,14 +1420,19 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(resource, BundleEntrySearchModeEnum.MATCH);
 			}
 
-			// ensure there's enough space; "<=" because of 0-indexing
-			while (theResourceListToPopulate.size() <= index) {
-				theResourceListToPopulate.add(null);
-			}
-			theResourceListToPopulate.set(index, resource);
+			theResourceConsumer.accept(index, resource);
 		}
 	}
 
+	private static void setResourceAtPosition(
+			List<IBaseResource> theResourceListToPopulate, int theIndex, IBaseResource theResource) {
+		// ensure there's enough space; "<=" because of 0-indexing
+		while (theResourceListToPopulate.size() <= theIndex) {
+			theResourceListToPopulate.add(null);
+		}
+		theResourceListToPopulate.set(theIndex, theResource);
+	}
+
 	@SuppressWarnings("OptionalIsPresent")
 	@Nonnull
 	public static Optional<ResourceHistoryTable> findLatestVersion(
@@ -1540,15 +1601,64 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 
 		// We only chunk because some jdbc drivers can't handle long param lists.
-		QueryChunker.chunk(
+		Executor chunkExecutor = getQueryChunkExecutor(thePids);
+		if (chunkExecutor == null) {
+			QueryChunker.chunk(
+					thePids,
+					t -> doLoadPids(
+							theRequestDetails,
+							t,
+							theIncludedPids,
+							(pos, resource) -> setResourceAtPosition(theResourceListToPopulate, pos, resource),
+							theForHistoryOperation,
+							position));
+			return;
+		}
+
+		/*
+		 * Each chunk is loaded in its own read-only transaction on a pool thread and
+		 * collects its resources locally. The results are placed into the list on this
+		 * thread, so the list itself is never touched concurrently.
+		 */
+		QueryChunker.chunkInParallel(
 				thePids,
-				t -> doLoadPids(
-						theRequestDetails,
-						t,
-						theIncludedPids,
-						theResourceListToPopulate,
-						theForHistoryOperation,
-						position));
+				getMaximumPageSize(),
+				chunkExecutor,
+				false,
+				t -> myTxService
+						.withRequest(theRequestDetails)
+						.withRequestPartitionId(myRequestPartitionId)
+						.readOnly()
+						.execute(() -> {
+							List<Pair<Integer, IBaseResource>> loaded = new ArrayList<>(t.size());
+							doLoadPids(
+									theRequestDetails,
+									t,
+									theIncludedPids,
+									(pos, resource) -> loaded.add(Pair.of(pos, resource)),
+									theForHistoryOperation,
+									position);
+							return loaded;
+						}),
+				t -> t.forEach(p -> setResourceAtPosition(theResourceListToPopulate, p.getLeft(), p.getRight())));
+	}
+
+	/**
+	 * Returns the executor to load the given PIDs on in parallel chunks, or <code>null</code>
+	 * if they should be loaded sequentially on the calling thread. Chunks are only loaded in
+	 * parallel if there is more than one of them and the calling thread has no read-write
+	 * transaction, since the pool threads would not see any uncommitted changes it has made.
+	 */
+	@Nullable
+	private Executor getQueryChunkExecutor(Collection<JpaPid> thePids) {
+		if (myQueryChunkExecutor == null || thePids.size() <= getMaximumPageSize()) {
+			return null;
+		}
+		if (TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return null;
+		}
+		return myQueryChunkExecutor.getExecutor();
 	}
 
 	/**
@@ -1656,7 +1766,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		List<JpaPid> nextRoundMatches = new ArrayList<>(matches);
 		HashSet<JpaPid> allAdded = new HashSet<>();
-		HashSet<JpaPid> original = new HashSet<>(matches);
+		JpaPidSet original = new JpaPidSet(matches);
 		ArrayList<Include> includes = new ArrayList<>(currentIncludes);
 
 		int roundCounts = 0;
@@ -1737,7 +1847,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		} while (!includes.isEmpty() && !nextRoundMatches.isEmpty() && addedSomeThisRound);
 
-		allAdded.removeAll(original);
+		allAdded.removeIf(original::contains);
 
 		ourLog.info(
 				"Loaded {} {} in {} rounds and {} ms for search {}",
@@ -2597,59 +2707,17 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 				JpaParamUtil.ComponentAndCorrespondingParam componentAndCorrespondingParam =
 						theComboParamComponents.get(paramIndex);
-				String nextParamName = componentAndCorrespondingParam.getCombinedParamName();
 				IQueryParameterType nextOr = nextPermutation.get(paramIndex);
-
-				// The only prefix accepted when combo searching is 'eq' (see validateParamValuesAreValidForComboParam).
-				// As a result, we strip the prefix if present.
-				String nextOrValue = stripStart(nextOr.getValueAsQueryToken(), EQUAL.getValue());
-
 				RestSearchParameterTypeEnum paramType = JpaParamUtil.getParameterTypeForComposite(
 						mySearchParamRegistry, componentAndCorrespondingParam);
-				if (theComboParam.getComboSearchParamType() == ComboSearchParamType.NON_UNIQUE) {
-					if (paramType == RestSearchParameterTypeEnum.STRING) {
-						nextOrValue = StringUtil.normalizeStringForSearchIndexing(nextOrValue);
-					}
-				}
-
-				if (paramType == RestSearchParameterTypeEnum.TOKEN) {
-
-					/*
-					 * The gender SP indexes a fixed binding ValueSet with a single CodeSystem, so we
-					 * infer the codesystem just to be friendly to clients who don't provide it
-					 * in the search.
-					 */
-					if ("gender".equals(componentAndCorrespondingParam.getParamName())
-							|| "gender".equals(componentAndCorrespondingParam.getChain())) {
-						if (!nextOrValue.contains("|")) {
-							nextOrValue = "http://hl7.org/fhir/administrative-gender|" + nextOrValue;
-						}
-					}
-				}
-
-				nextParamName = UrlUtil.escapeUrlParam(nextParamName);
-				nextOrValue = UrlUtil.escapeUrlParam(nextOrValue);
-
-				parameters.add(nextParamName + "=" + nextOrValue);
+				parameters.add(JpaParamUtil.createComboIndexStringParameter(
+						theComboParam.getComboSearchParamType(), paramType, componentAndCorrespondingParam, nextOr));
 			}
 
 			// Make sure the parameters end up in the search URL in the same order
 			// we would index them in (we also alphabetically sort when we create
 			// the index rows)
-			Collections.sort(parameters);
-
-			StringBuilder searchStringBuilder = new StringBuilder();
-			searchStringBuilder.append(myResourceName);
-			for (int i = 0; i < parameters.size(); i++) {
-				if (i == 0) {
-					searchStringBuilder.append("?");
-				} else {
-					searchStringBuilder.append("&");
-				}
-				searchStringBuilder.append(parameters.get(i));
-			}
-
-			String indexString = searchStringBuilder.toString();
+			String indexString = JpaParamUtil.createComboIndexString(myResourceName, parameters);
 			ourLog.debug(
 					"Checking for {} combo index for query: {}", theComboParam.getComboSearchParamType(), indexString);
 
@@ -2818,7 +2886,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		private JpaPid myNext;
 
 		IncludesIterator(Set<JpaPid> thePidSet, RequestDetails theRequest) {
-			myCurrentPids = new HashSet<>(thePidSet);
+			myCurrentPids = new JpaPidSet(thePidSet);
 			myCurrentIterator = null;
 			myRequest = theRequest;
 		}
@@ -76,6 +76,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -533,27 +534,41 @@ public class SearchQueryBuilder {
 	 * Generate and return the SQL generated by this builder
 	 */
 	public GeneratedSql generate(@Nullable Integer theOffset, @Nullable Integer theMaxResultsToFetch) {
-		getOrCreateFirstPredicateBuilder();
-
-		mySelect.validate();
-		String sql = mySelect.toString();
+		return generate(theOffset, theMaxResultsToFetch, null, null);
+	}
 
-		List<Object> bindVariables = new ArrayList<>();
-		while (true) {
+	/**
+	 * Generate and return the SQL generated by this builder, reusing SQL previously rendered for
+	 * a search with the same shape if the given cache holds it.
+	 *
+	 * @param theQueryPlanCache The cache to use, or <code>null</code> to always render the SQL
+	 * @param theQueryPlanKey   The shape of the search being built, or <code>null</code> if it is not eligible for caching
+	 * @since 8.8.0
+	 */
+	public GeneratedSql generate(
+			@Nullable Integer theOffset,
+			@Nullable Integer theMaxResultsToFetch,
+			@Nullable SearchQueryPlanCache theQueryPlanCache,
+			@Nullable SearchQueryPlanCache.Key theQueryPlanKey) {
+		getOrCreateFirstPredicateBuilder();
 
-			int idx = sql.indexOf(myBindVariableSubstitutionBase);
-			if (idx == -1) {
-				break;
+		SearchQueryPlanCache.QueryTemplate template;
+		if (theQueryPlanCache != null && theQueryPlanKey != null) {
+			template = theQueryPlanCache.get(theQueryPlanKey, myBindVariableValues.size());
+			if (template == null) {
+				template = renderTemplate();
+				theQueryPlanCache.put(theQueryPlanKey, template);
+			} else if (theQueryPlanCache.isVerifyHits()) {
+				assert template.isSameAs(renderTemplate())
+						: "Cached SQL does not match rendered SQL for " + theQueryPlanKey + ": " + template.getSql();
 			}
-
-			int endIdx = sql.indexOf("'", idx + myBindVariableSubstitutionBase.length());
-			String substitutionIndexString = sql.substring(idx + myBindVariableSubstitutionBase.length(), endIdx);
-			int substitutionIndex = Integer.parseInt(substitutionIndexString);
-			bindVariables.add(myBindVariableValues.get(substitutionIndex));
-
-			sql = sql.substring(0, idx - 1) + "?" + sql.substring(endIdx + 1);
+		} else {
+			template = renderTemplate();
 		}
 
+		String sql = template.getSql();
+		List<Object> bindVariables = template.bind(myBindVariableValues);
+
 		Integer maxResultsToFetch = theMaxResultsToFetch;
 		Integer offset = theOffset;
 		if (offset != null && offset == 0) {
@@ -570,6 +585,41 @@ public class SearchQueryBuilder {
 		return new GeneratedSql(myMatchNothing, sql, bindVariables);
 	}
 
+	/**
+	 * Renders the select tree, replacing each bind variable placeholder with <code>?</code> in a
+	 * single pass and recording which collected value binds to it.
+	 */
+	private SearchQueryPlanCache.QueryTemplate renderTemplate() {
+		mySelect.validate();
+		String sql = mySelect.toString();
+
+		StringBuilder retVal = new StringBuilder(sql.length());
+		int[] bindVariableIndexes = new int[myBindVariableValues.size()];
+		int bindVariableCount = 0;
+		int baseLength = myBindVariableSubstitutionBase.length();
+		int position = 0;
+		while (true) {
+			int idx = sql.indexOf(myBindVariableSubstitutionBase, position);
+			if (idx == -1) {
+				break;
+			}
+
+			int endIdx = sql.indexOf('\'', idx + baseLength);
+			int substitutionIndex = Integer.parseInt(sql, idx + baseLength, endIdx, 10);
+			if (bindVariableCount == bindVariableIndexes.length) {
+				bindVariableIndexes = Arrays.copyOf(bindVariableIndexes, bindVariableCount * 2 + 1);
+			}
+			bindVariableIndexes[bindVariableCount++] = substitutionIndex;
+
+			retVal.append(sql, position, idx - 1).append('?');
+			position = endIdx + 1;
+		}
+		retVal.append(sql, position, sql.length());
+
+		return new SearchQueryPlanCache.QueryTemplate(
+				retVal.toString(), Arrays.copyOf(bindVariableIndexes, bindVariableCount), myBindVariableValues.size());
+	}
+
 	/**
 	 * This method applies the theDialect limiter (select first NNN offset MMM etc etc..) to
 	 * a SQL string. It enhances the built-in Hibernate dialect version with some additional
@@ -0,0 +1,383 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder.sql;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.search.builder.models.SearchQueryProperties;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SearchContainedModeEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.NumberParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.UriParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Caches the SQL rendered by {@link SearchQueryBuilder} for searches which have the same
+ * <i>shape</i>: the same resource type, partition, parameter names, modifiers, prefixes,
+ * number of AND/OR values and sort, but possibly different parameter values. On a hit,
+ * the builder skips validating and rendering its select tree and only binds the
+ * values collected for the current request into the cached SQL.
+ * <p>
+ * Only searches whose generated SQL is fully determined by their shape are eligible (see
+ * {@link #createKey(String, RequestPartitionId, SearchParameterMap, SearchQueryProperties, ISearchParamRegistry)}).
+ * Anything else (chains, references, <code>_has</code>, <code>_filter</code>, terminology-backed
+ * modifiers, etc.) is simply never cached. Keys do not capture storage settings, so this cache
+ * must be {@link #invalidateAll() invalidated} if settings which affect SQL generation are
+ * changed at runtime.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setSearchQueryPlanCacheEnabled(boolean)
+ * @since 8.8.0
+ */
+public class SearchQueryPlanCache {
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+	private final Cache<Key, QueryTemplate> myCache;
+	private final AtomicLong myHitCount = new AtomicLong();
+	private final AtomicLong myMissCount = new AtomicLong();
+	private boolean myVerifyHits;
+
+	/**
+	 * Constructor
+	 */
+	public SearchQueryPlanCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaximumSize The maximum number of distinct query shapes to hold
+	 */
+	public SearchQueryPlanCache(int theMaximumSize) {
+		myCache = CacheFactory.buildEternal(Math.min(100, theMaximumSize), theMaximumSize);
+
+		// Re-render and compare on every hit when assertions are enabled (i.e. in tests)
+		boolean assertionsEnabled = false;
+		assert assertionsEnabled = true;
+		myVerifyHits = assertionsEnabled;
+	}
+
+	/**
+	 * Returns the cached template for the given key, or <code>null</code> if there is none or
+	 * if it was rendered from a different number of bind variables than the caller has.
+	 */
+	@Nullable
+	QueryTemplate get(@Nonnull Key theKey, int theBindVariableCount) {
+		QueryTemplate retVal = myCache.getIfPresent(theKey);
+		if (retVal != null && retVal.getBindVariableCount() == theBindVariableCount) {
+			myHitCount.incrementAndGet();
+			return retVal;
+		}
+		myMissCount.incrementAndGet();
+		return null;
+	}
+
+	void put(@Nonnull Key theKey, @Nonnull QueryTemplate theTemplate) {
+		myCache.put(theKey, theTemplate);
+	}
+
+	boolean isVerifyHits() {
+		return myVerifyHits;
+	}
+
+	/**
+	 * When assertions are enabled, every hit is verified by also rendering the SQL and comparing
+	 * it to the cached SQL. This can be disabled in order to measure the cost of a hit.
+	 */
+	@VisibleForTesting
+	public void setVerifyHitsForUnitTest(boolean theVerifyHits) {
+		myVerifyHits = theVerifyHits;
+	}
+
+	/**
+	 * The number of times SQL was served from this cache
+	 */
+	public long getHitCount() {
+		return myHitCount.get();
+	}
+
+	/**
+	 * The number of times an eligible search had to render its SQL
+	 */
+	public long getMissCount() {
+		return myMissCount.get();
+	}
+
+	/**
+	 * The approximate number of query shapes currently held
+	 */
+	public long getEstimatedSize() {
+		return myCache.estimatedSize();
+	}
+
+	/**
+	 * Discards all cached SQL and resets the hit and miss counts
+	 */
+	public void invalidateAll() {
+		myCache.invalidateAll();
+		myHitCount.set(0);
+		myMissCount.set(0);
+	}
+
+	/**
+	 * Creates the cache key for a search, or returns <code>null</code> if the search is not
+	 * eligible for caching. The parameter map must not yet have been consumed by the query stack.
+	 */
+	@Nullable
+	public static Key createKey(
+			String theResourceType,
+			RequestPartitionId theRequestPartitionId,
+			SearchParameterMap theParams,
+			SearchQueryProperties theSearchProperties,
+			ISearchParamRegistry theSearchParamRegistry) {
+		if (isBlank(theResourceType)
+				|| theParams.getEverythingMode() != null
+				|| theParams.isLastN()
+				|| theParams.getNearDistanceParam() != null
+				|| theParams.getSearchIncludeDeletedMode() != null
+				|| (theParams.getSearchContainedMode() != null
+						&& theParams.getSearchContainedMode() != SearchContainedModeEnum.FALSE)) {
+			return null;
+		}
+
+		StringBuilder shape = new StringBuilder(128);
+		shape.append(theSearchProperties.isDoCountOnlyFlag() ? 'C' : 'S');
+		shape.append(theSearchProperties.isDeduplicateInDatabase() ? 'D' : 'M');
+
+		for (String nextParamName : theParams.keySet()) {
+			List<List<IQueryParameterType>> andList = theParams.get(nextParamName);
+			if (andList.isEmpty()) {
+				continue;
+			}
+			RuntimeSearchParam searchParam =
+					getEligibleSearchParam(theResourceType, nextParamName, theSearchParamRegistry);
+			if (searchParam == null) {
+				return null;
+			}
+			shape.append('|').append(nextParamName).append('@').append(searchParam.getPath());
+			for (List<IQueryParameterType> nextOrList : andList) {
+				if (nextOrList.isEmpty() || !appendOrListShape(shape.append('&'), searchParam, nextOrList)) {
+					return null;
+				}
+			}
+		}
+
+		DateRangeParam lastUpdated = theParams.getLastUpdated();
+		if (lastUpdated != null && !lastUpdated.isEmpty()) {
+			shape.append("|lu");
+			appendDateShape(shape, lastUpdated.getLowerBound());
+			appendDateShape(shape, lastUpdated.getUpperBound());
+		}
+
+		if (theSearchProperties.hasSort()) {
+			for (SortSpec nextSort = theSearchProperties.getSortSpec();
+					nextSort != null;
+					nextSort = nextSort.getChain()) {
+				String sortParamName = nextSort.getParamName();
+				if (!Constants.PARAM_ID.equals(sortParamName)
+						&& !Constants.PARAM_PID.equals(sortParamName)
+						&& !Constants.PARAM_LASTUPDATED.equals(sortParamName)
+						&& getEligibleSearchParam(theResourceType, sortParamName, theSearchParamRegistry) == null) {
+					return null;
+				}
+				shape.append("|s:").append(sortParamName).append(':').append(nextSort.getOrder());
+			}
+		}
+
+		return new Key(theResourceType, theRequestPartitionId, shape.toString());
+	}
+
+	@Nullable
+	private static RuntimeSearchParam getEligibleSearchParam(
+			String theResourceType, String theParamName, ISearchParamRegistry theSearchParamRegistry) {
+		if (isBlank(theParamName)
+				|| theParamName.startsWith("_")
+				|| theParamName.contains(".")
+				|| theParamName.contains(":")) {
+			return null;
+		}
+		RuntimeSearchParam retVal = theSearchParamRegistry.getActiveSearchParam(
+				theResourceType, theParamName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+		if (retVal == null || retVal.getParamType() == null) {
+			return null;
+		}
+		switch (retVal.getParamType()) {
+			case TOKEN:
+			case STRING:
+			case DATE:
+			case NUMBER:
+			case URI:
+				return retVal;
+			default:
+				return null;
+		}
+	}
+
+	private static boolean appendOrListShape(
+			StringBuilder theShape, RuntimeSearchParam theSearchParam, List<IQueryParameterType> theOrList) {
+		Set<String> tokens = null;
+		char tokenShape = 0;
+		for (IQueryParameterType next : theOrList) {
+			if (next == null || next.getMissing() != null) {
+				return false;
+			}
+			switch (theSearchParam.getParamType()) {
+				case TOKEN:
+					/*
+					 * Token OR values are sorted and de-duplicated before the SQL is generated, so they
+					 * must all use the same index column and be distinct for the SQL to not depend on
+					 * their values.
+					 */
+					if (!(next instanceof TokenParam token) || token.getModifier() != null) {
+						return false;
+					}
+					char nextTokenShape;
+					if (token.getSystem() == null) {
+						nextTokenShape = isBlank(token.getValue()) ? 0 : 'v';
+					} else {
+						nextTokenShape = isBlank(token.getValue()) ? 's' : 'x';
+					}
+					if (nextTokenShape == 0 || (tokenShape != 0 && tokenShape != nextTokenShape)) {
+						return false;
+					}
+					tokenShape = nextTokenShape;
+					if (tokens == null) {
+						tokens = new HashSet<>();
+					}
+					if (!tokens.add(token.getSystem() + "|" + token.getValue())) {
+						return false;
+					}
+					theShape.append(tokenShape);
+					break;
+				case STRING:
+					if (!(next instanceof StringParam string) || string.getValue() == null || string.isText()) {
+						return false;
+					}
+					theShape.append(string.isExact() ? 'e' : string.isContains() ? 'c' : 'n');
+					break;
+				case DATE:
+					if (!(next instanceof DateParam date) || date.isEmpty()) {
+						return false;
+					}
+					appendDateShape(theShape, date);
+					break;
+				case NUMBER:
+					if (!(next instanceof NumberParam number) || number.getValue() == null) {
+						return false;
+					}
+					theShape.append(number.getPrefix());
+					break;
+				case URI:
+					if (!(next instanceof UriParam uri) || uri.getValue() == null || uri.getQualifier() != null) {
+						return false;
+					}
+					theShape.append('u');
+					break;
+				default:
+					return false;
+			}
+			theShape.append(',');
+		}
+		return true;
+	}
+
+	/**
+	 * Dates are compared on their ordinal columns when the precision is a day or coarser, so
+	 * the precision class is part of the shape along with the prefix.
+	 */
+	private static void appendDateShape(StringBuilder theShape, @Nullable DateParam theDate) {
+		if (theDate == null || theDate.isEmpty()) {
+			theShape.append('-');
+			return;
+		}
+		theShape.append(theDate.getPrefix());
+		TemporalPrecisionEnum precision = theDate.getPrecision();
+		theShape.append(precision != null && precision.ordinal() <= TemporalPrecisionEnum.DAY.ordinal() ? 'o' : 'i');
+	}
+
+	/**
+	 * Identifies a query shape
+	 */
+	public record Key(
+			@Nonnull String resourceType, @Nullable RequestPartitionId requestPartitionId, @Nonnull String shape) {}
+
+	/**
+	 * SQL with <code>?</code> placeholders, along with the index of the value (in the order
+	 * the values were collected by the builder) which binds to each placeholder.
+	 */
+	static class QueryTemplate {
+
+		private final String mySql;
+		private final int[] myBindVariableIndexes;
+		private final int myBindVariableCount;
+
+		QueryTemplate(String theSql, int[] theBindVariableIndexes, int theBindVariableCount) {
+			mySql = theSql;
+			myBindVariableIndexes = theBindVariableIndexes;
+			myBindVariableCount = theBindVariableCount;
+		}
+
+		String getSql() {
+			return mySql;
+		}
+
+		int getBindVariableCount() {
+			return myBindVariableCount;
+		}
+
+		List<Object> bind(List<Object> theBindVariableValues) {
+			List<Object> retVal = new ArrayList<>(myBindVariableIndexes.length + 2);
+			for (int next : myBindVariableIndexes) {
+				retVal.add(theBindVariableValues.get(next));
+			}
+			return retVal;
+		}
+
+		boolean isSameAs(QueryTemplate theOther) {
+			return mySql.equals(theOther.mySql)
+					&& myBindVariableCount == theOther.myBindVariableCount
+					&& Arrays.equals(myBindVariableIndexes, theOther.myBindVariableIndexes);
+		}
+	}
+}
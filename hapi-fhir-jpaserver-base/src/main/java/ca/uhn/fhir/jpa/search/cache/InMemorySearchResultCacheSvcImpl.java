@@ -0,0 +1,214 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node-local tier in front of another {@link ISearchResultCacheSvc} (normally the
+ * {@link DatabaseSearchResultCacheSvcImpl database implementation}), which keeps the result
+ * PIDs of searches stored by this node in memory so that subsequent pages can be served
+ * without reading them back from the database.
+ * <p>
+ * All results are still written to the delegate, so that other nodes (and this node, once an
+ * entry has been evicted) can serve pages as usual. An entry is only used to serve a request if
+ * it is known to hold every PID in the requested range: entries always hold a contiguous run of
+ * results starting at the first one, and any store which can not be appended to the run (e.g.
+ * because another node has stored results for the same search in the meantime) discards the entry.
+ * </p>
+ * <p>
+ * The cache is bounded by the total number of PIDs held (see
+ * {@link JpaStorageSettings#setInMemorySearchResultCacheMaxPids(int)}), evicting the least recently
+ * used searches first. If the limit is {@code 0} all calls go straight to the delegate.
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public class InMemorySearchResultCacheSvcImpl implements ISearchResultCacheSvc {
+	private static final Logger ourLog = LoggerFactory.getLogger(InMemorySearchResultCacheSvcImpl.class);
+
+	private final ISearchResultCacheSvc myDelegate;
+	private final JpaStorageSettings myStorageSettings;
+
+	/**
+	 * Search UUID to results, in access order. Guarded by synchronizing on the map.
+	 */
+	private final LinkedHashMap<String, List<JpaPid>> myResults = new LinkedHashMap<>(16, 0.75f, true);
+
+	private int myPidCount;
+
+	/**
+	 * Constructor
+	 */
+	public InMemorySearchResultCacheSvcImpl(ISearchResultCacheSvc theDelegate, JpaStorageSettings theStorageSettings) {
+		myDelegate = theDelegate;
+		myStorageSettings = theStorageSettings;
+	}
+
+	@Override
+	public void storeResults(
+			Search theSearch,
+			List<JpaPid> thePreviouslyStoredResourcePids,
+			List<JpaPid> theNewResourcePids,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		myDelegate.storeResults(
+				theSearch,
+				thePreviouslyStoredResourcePids,
+				theNewResourcePids,
+				theRequestDetails,
+				theRequestPartitionId);
+
+		if (!isEnabled() || theSearch.getUuid() == null) {
+			return;
+		}
+
+		// The caller may reuse these lists once we return, so capture them now
+		String uuid = theSearch.getUuid();
+		int previouslyStoredCount = thePreviouslyStoredResourcePids.size();
+		List<JpaPid> newPids = new ArrayList<>(theNewResourcePids);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					appendResults(uuid, previouslyStoredCount, newPids);
+				}
+			});
+		} else {
+			appendResults(uuid, previouslyStoredCount, newPids);
+		}
+	}
+
+	@Nullable
+	@Override
+	public List<JpaPid> fetchResultPids(
+			Search theSearch,
+			int theFrom,
+			int theTo,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		if (isEnabled() && theSearch.getUuid() != null) {
+			synchronized (myResults) {
+				List<JpaPid> results = myResults.get(theSearch.getUuid());
+				if (results != null && (theTo <= results.size() || isComplete(theSearch, results))) {
+					int from = Math.min(theFrom, results.size());
+					int to = Math.min(theTo, results.size());
+					ourLog.trace("Serving results {}-{} of search {} from memory", from, to, theSearch.getUuid());
+					return new ArrayList<>(results.subList(from, to));
+				}
+			}
+		}
+
+		return myDelegate.fetchResultPids(theSearch, theFrom, theTo, theRequestDetails, theRequestPartitionId);
+	}
+
+	@Nullable
+	@Override
+	public List<JpaPid> fetchAllResultPids(
+			Search theSearch, RequestDetails theRequestDetails, RequestPartitionId theRequestPartitionId) {
+		if (isEnabled() && theSearch.getUuid() != null) {
+			synchronized (myResults) {
+				List<JpaPid> results = myResults.get(theSearch.getUuid());
+				if (results != null && isComplete(theSearch, results)) {
+					return new ArrayList<>(results);
+				}
+			}
+		}
+
+		return myDelegate.fetchAllResultPids(theSearch, theRequestDetails, theRequestPartitionId);
+	}
+
+	/**
+	 * Discards all results held in memory
+	 */
+	public void clear() {
+		synchronized (myResults) {
+			myResults.clear();
+			myPidCount = 0;
+		}
+	}
+
+	@VisibleForTesting
+	int getPidCountForUnitTest() {
+		synchronized (myResults) {
+			return myPidCount;
+		}
+	}
+
+	private void appendResults(String theUuid, int thePreviouslyStoredCount, List<JpaPid> theNewPids) {
+		int maxPids = myStorageSettings.getInMemorySearchResultCacheMaxPids();
+		synchronized (myResults) {
+			List<JpaPid> results = myResults.get(theUuid);
+			if (results == null && thePreviouslyStoredCount == 0) {
+				results = new ArrayList<>(theNewPids.size());
+				myResults.put(theUuid, results);
+			} else if (results == null || results.size() != thePreviouslyStoredCount) {
+				// We didn't see all of the earlier results, so we can't append these ones
+				if (results != null) {
+					ourLog.debug("Discarding in-memory results for search {}", theUuid);
+					myResults.remove(theUuid);
+					myPidCount -= results.size();
+				}
+				return;
+			}
+
+			results.addAll(theNewPids);
+			myPidCount += theNewPids.size();
+
+			for (Iterator<Map.Entry<String, List<JpaPid>>> iter =
+							myResults.entrySet().iterator();
+					iter.hasNext() && myPidCount > maxPids; ) {
+				Map.Entry<String, List<JpaPid>> eldest = iter.next();
+				ourLog.trace("Evicting in-memory results for search {}", eldest.getKey());
+				myPidCount -= eldest.getValue().size();
+				iter.remove();
+			}
+		}
+	}
+
+	private boolean isEnabled() {
+		return myStorageSettings.getInMemorySearchResultCacheMaxPids() > 0;
+	}
+
+	/**
+	 * The number of results stored for a search is the number found minus those blocked
+	 * by interceptors, so if we hold that many we hold all of them.
+	 */
+	private static boolean isComplete(Search theSearch, List<JpaPid> theResults) {
+		return theResults.size() == theSearch.getNumFound() - theSearch.getNumBlocked();
+	}
+}
@@ -37,6 +37,7 @@ import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
+import ca.uhn.fhir.util.TaskChunker;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -44,10 +45,16 @@ import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static ca.uhn.fhir.jpa.model.entity.PersistedResourceModifiedMessageEntityPK.with;
 
@@ -58,6 +65,8 @@ import static ca.uhn.fhir.jpa.model.entity.PersistedResourceModifiedMessageEntit
  */
 public class ResourceModifiedMessagePersistenceSvcImpl implements IResourceModifiedMessagePersistenceSvc {
 
+	private static final int DELETE_CHUNK_SIZE = 300;
+
 	private final FhirContext myFhirContext;
 
 	private final IResourceModifiedDao myResourceModifiedDao;
@@ -89,9 +98,38 @@ public class ResourceModifiedMessagePersistenceSvcImpl implements IResourceModif
 		});
 	}
 
+	/**
+	 * Only one message can be persisted for a given resource version. If a message is already persisted for
+	 * the same version, and both are limited to specific subscriptions, the message which is kept is limited
+	 * to the subscriptions of both, so neither retry is lost and no other subscription receives the resource
+	 * again. If either one isn't limited to any subscription, the message which is kept isn't either.
+	 */
 	@Override
 	public IPersistedResourceModifiedMessage persist(ResourceModifiedMessage theMsg) {
 		ResourceModifiedEntity resourceModifiedEntity = createEntityFrom(theMsg);
+
+		// A message which isn't limited to a subscription replaces any other message as is
+		if (!theMsg.getSubscriptionIds().isEmpty()) {
+			Optional<ResourceModifiedEntity> existing =
+					myResourceModifiedDao.findById(resourceModifiedEntity.getResourceModifiedEntityPK());
+			if (existing.isPresent()) {
+				Set<String> existingSubscriptionIds = getPayloadLessMessageFromString(
+								existing.get().getSummaryResourceModifiedMessage())
+						.getSubscriptionIds();
+				if (!existingSubscriptionIds.containsAll(theMsg.getSubscriptionIds())) {
+					ResourceModifiedMessage mergedMsg = new PayloadLessResourceModifiedMessage(theMsg);
+					if (existingSubscriptionIds.isEmpty()) {
+						mergedMsg.setSubscriptionIds(Set.of());
+					} else {
+						Set<String> subscriptionIds = new HashSet<>(existingSubscriptionIds);
+						subscriptionIds.addAll(theMsg.getSubscriptionIds());
+						mergedMsg.setSubscriptionIds(subscriptionIds);
+					}
+					resourceModifiedEntity = createEntityFrom(mergedMsg);
+				}
+			}
+		}
+
 		return myResourceModifiedDao.save(resourceModifiedEntity);
 	}
 
@@ -149,6 +187,21 @@ public class ResourceModifiedMessagePersistenceSvcImpl implements IResourceModif
 		return removedCount == 1;
 	}
 
+	@Override
+	public List<IPersistedResourceModifiedMessage> lockOldestForSubmission(int theMaxCount) {
+		return new ArrayList<>(myResourceModifiedDao.findOldestForUpdateSkipLocked(PageRequest.of(0, theMaxCount)));
+	}
+
+	@Override
+	public void deleteByPKs(Collection<IPersistedResourceModifiedMessagePK> theResourceModifiedPKs) {
+		List<PersistedResourceModifiedMessageEntityPK> pks = new ArrayList<>(theResourceModifiedPKs.size());
+		for (IPersistedResourceModifiedMessagePK next : theResourceModifiedPKs) {
+			pks.add((PersistedResourceModifiedMessageEntityPK) next);
+		}
+		// Each primary key is bound as three parameters, so keep the chunks well below the limits of some databases
+		TaskChunker.chunk(pks, DELETE_CHUNK_SIZE, myResourceModifiedDao::deleteAllByIdInBatch);
+	}
+
 	protected ResourceModifiedMessage inflateResourceModifiedMessageFromEntity(
 			ResourceModifiedEntity theResourceModifiedEntity) {
 		String resourceType = theResourceModifiedEntity.getResourceType();
@@ -214,7 +267,7 @@ public class ResourceModifiedMessagePersistenceSvcImpl implements IResourceModif
 		public PayloadLessResourceModifiedMessage(ResourceModifiedMessage theMsg) {
 			this.myPayloadId = theMsg.getPayloadId();
 			this.myPayloadVersion = theMsg.getPayloadVersion();
-			setSubscriptionId(theMsg.getSubscriptionId());
+			setSubscriptionIds(theMsg.getSubscriptionIds());
 			setMediaType(theMsg.getMediaType());
 			setOperationType(theMsg.getOperationType());
 			setPartitionId(theMsg.getPartitionId());
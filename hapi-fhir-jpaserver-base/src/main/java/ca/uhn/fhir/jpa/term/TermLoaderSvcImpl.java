@@ -1043,31 +1043,20 @@ public class TermLoaderSvcImpl implements ITermLoaderSvc {
 	private UploadStatistics processSnomedCtFiles(
 			LoadedFileDescriptors theDescriptors, RequestDetails theRequestDetails) {
 		final TermCodeSystemVersion codeSystemVersion = new TermCodeSystemVersion();
-		final Map<String, TermConcept> id2concept = new HashMap<>();
-		final Map<String, TermConcept> code2concept = new HashMap<>();
-		final Set<String> validConceptIds = new HashSet<>();
-
-		IZipContentsHandlerCsv handler = new SctHandlerConcept(validConceptIds);
-		iterateOverZipFileCsv(theDescriptors, SCT_FILE_CONCEPT, handler, '\t', null, true);
-
-		ourLog.info("Have {} valid concept IDs", validConceptIds.size());
+		final Map<String, TermConcept> code2concept = loadSnomedCtConcepts(theDescriptors, codeSystemVersion);
 
-		handler = new SctHandlerDescription(validConceptIds, code2concept, id2concept, codeSystemVersion);
-		iterateOverZipFileCsv(theDescriptors, SCT_FILE_DESCRIPTION, handler, '\t', null, true);
-
-		ourLog.info("Got {} concepts, cloning map", code2concept.size());
-		final HashMap<String, TermConcept> rootConcepts = new HashMap<>(code2concept);
-
-		handler = new SctHandlerRelationship(codeSystemVersion, rootConcepts, code2concept);
+		IZipContentsHandlerCsv handler = new SctHandlerRelationship(code2concept);
 		iterateOverZipFileCsv(theDescriptors, SCT_FILE_RELATIONSHIP, handler, '\t', null, true);
 
 		IOUtils.closeQuietly(theDescriptors);
 
 		ourLog.info("Looking for root codes");
-		rootConcepts
-				.entrySet()
-				.removeIf(theStringTermConceptEntry ->
-						!theStringTermConceptEntry.getValue().getParents().isEmpty());
+		final Map<String, TermConcept> rootConcepts = new HashMap<>();
+		for (Map.Entry<String, TermConcept> next : code2concept.entrySet()) {
+			if (next.getValue().getParents().isEmpty()) {
+				rootConcepts.put(next.getKey(), next.getValue());
+			}
+		}
 
 		ourLog.info(
 				"Done loading SNOMED CT files - {} root codes, {} total codes",
@@ -1086,6 +1075,12 @@ public class TermLoaderSvcImpl implements ITermLoaderSvc {
 
 		codeSystemVersion.getConcepts().addAll(rootConcepts.values());
 
+		// The concepts are only reachable through the code system version from here on, so the maps
+		// don't need to be kept while the code system is being stored
+		int conceptCount = code2concept.size();
+		code2concept.clear();
+		rootConcepts.clear();
+
 		CodeSystem cs = new org.hl7.fhir.r4.model.CodeSystem();
 		cs.setUrl(SCT_URI);
 		cs.setName("SNOMED CT");
@@ -1093,7 +1088,28 @@ public class TermLoaderSvcImpl implements ITermLoaderSvc {
 		cs.setStatus(Enumerations.PublicationStatus.ACTIVE);
 		IIdType target = storeCodeSystem(theRequestDetails, codeSystemVersion, cs, null, null);
 
-		return new UploadStatistics(code2concept.size(), target);
+		return new UploadStatistics(conceptCount, target);
+	}
+
+	/**
+	 * Loads the active SNOMED CT concepts, with one {@link TermConcept} per concept. The concept IDs
+	 * and dates which are only needed while reading the concept and description files can be
+	 * garbage collected once this returns, before the relationships are loaded.
+	 */
+	private Map<String, TermConcept> loadSnomedCtConcepts(
+			LoadedFileDescriptors theDescriptors, TermCodeSystemVersion theCodeSystemVersion) {
+		final Set<String> validConceptIds = new HashSet<>();
+		IZipContentsHandlerCsv handler = new SctHandlerConcept(validConceptIds);
+		iterateOverZipFileCsv(theDescriptors, SCT_FILE_CONCEPT, handler, '\t', null, true);
+
+		ourLog.info("Have {} valid concept IDs", validConceptIds.size());
+
+		final Map<String, TermConcept> retVal = new HashMap<>(validConceptIds.size() * 4 / 3 + 1);
+		handler = new SctHandlerDescription(validConceptIds, retVal, theCodeSystemVersion);
+		iterateOverZipFileCsv(theDescriptors, SCT_FILE_DESCRIPTION, handler, '\t', null, true);
+
+		ourLog.info("Got {} concepts", retVal.size());
+		return retVal;
 	}
 
 	private IIdType storeCodeSystem(
@@ -1190,11 +1206,8 @@ public class TermLoaderSvcImpl implements ITermLoaderSvc {
 				ourLog.info("Processing file {}", nextFilename);
 				foundMatch = true;
 
-				try {
-
-					Reader reader = new InputStreamReader(nextZipBytes.getInputStream(), Charsets.UTF_8);
+				try (Reader reader = new InputStreamReader(nextZipBytes.getInputStream(), Charsets.UTF_8)) {
 					theHandler.handle(reader, nextFilename);
-
 				} catch (IOException e) {
 					throw new InternalErrorException(Msg.code(877) + e);
 				}
@@ -43,6 +43,7 @@ import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptParentChildLinkDao;
 import ca.uhn.fhir.jpa.dao.data.ITermValueSetConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermValueSetConceptDesignationDao;
 import ca.uhn.fhir.jpa.dao.data.ITermValueSetConceptViewDao;
@@ -74,16 +75,20 @@ import ca.uhn.fhir.jpa.term.api.ITermDeferredStorageSvc;
 import ca.uhn.fhir.jpa.term.api.ITermReadSvc;
 import ca.uhn.fhir.jpa.term.api.ReindexTerminologyResult;
 import ca.uhn.fhir.jpa.term.ex.ExpansionTooCostlyException;
+import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
 import ca.uhn.fhir.util.CoverageIgnore;
 import ca.uhn.fhir.util.FhirVersionIndependentConcept;
 import ca.uhn.fhir.util.HapiExtensions;
 import ca.uhn.fhir.util.StopWatch;
+import ca.uhn.fhir.util.ThreadPoolUtil;
 import ca.uhn.fhir.util.UrlUtil;
 import ca.uhn.fhir.util.ValidateUtil;
 import ca.uhn.hapi.converters.canonical.VersionCanonicalizer;
@@ -146,7 +151,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
@@ -165,6 +170,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -172,7 +178,11 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -205,6 +215,7 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	private static final int INDEXED_ROOTS_LOGGING_COUNT = 50_000;
 	private static final String CS_USERDATA_CURRENT_VERSION = TermReadSvcImpl.class.getName() + "_CS_CURRENT_VERSION";
 	private static final String VS_USERDATA_CURRENT_VERSION = TermReadSvcImpl.class.getName() + "_VS_CURRENT_VERSION";
+	private static final int MAX_VALUESET_MEMBERSHIP_INDEXES = 100;
 	private static Runnable myInvokeOnNextCallForUnitTest;
 	private static boolean ourForceDisableHibernateSearchForUnitTest;
 
@@ -232,7 +243,9 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
 	protected EntityManager myEntityManager;
 
-	private boolean myPreExpandingValueSets = false;
+	private final AtomicInteger myPreExpandingValueSetCount = new AtomicInteger();
+	private final Cache<Long, TermValueSetMembershipIndex> myValueSetMembershipIndexes =
+			CacheFactory.buildEternal(10, MAX_VALUESET_MEMBERSHIP_INDEXES);
 
 	@Autowired
 	private ITermCodeSystemVersionDao myCodeSystemVersionDao;
@@ -254,6 +267,9 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	@Autowired
 	private ITermConceptDao myTermConceptDao;
 
+	@Autowired
+	private ITermConceptParentChildLinkDao myConceptParentChildLinkDao;
+
 	@Autowired
 	private ITermValueSetConceptViewDao myTermValueSetConceptViewDao;
 
@@ -433,18 +449,19 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		boolean retVal = theSetToPopulate.add(theConcept);
 		if (retVal) {
 			if (theSetToPopulate.size() >= myStorageSettings.getMaximumExpansionSize()) {
-				String msg = myContext
-						.getLocalizer()
-						.getMessage(
-								TermReadSvcImpl.class,
-								"expansionTooLarge",
-								myStorageSettings.getMaximumExpansionSize());
-				throw new ExpansionTooCostlyException(Msg.code(885) + msg);
+				throwExpansionTooLarge();
 			}
 		}
 		return retVal;
 	}
 
+	private void throwExpansionTooLarge() {
+		String msg = myContext
+				.getLocalizer()
+				.getMessage(TermReadSvcImpl.class, "expansionTooLarge", myStorageSettings.getMaximumExpansionSize());
+		throw new ExpansionTooCostlyException(Msg.code(885) + msg);
+	}
+
 	public Optional<TermValueSet> deleteValueSetForResource(ResourceTable theResourceTable) {
 		// Get existing entity so it can be deleted.
 		Optional<TermValueSet> optionalExistingTermValueSetById =
@@ -2102,6 +2119,39 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		return retVal;
 	}
 
+	/**
+	 * Returns the in-memory membership index for a pre-expanded ValueSet, loading it if needed,
+	 * or <code>null</code> if the ValueSet should not be indexed.
+	 *
+	 * @see JpaStorageSettings#setPreExpandedValueSetMembershipIndexMaxCodes(int)
+	 */
+	@Nullable
+	private TermValueSetMembershipIndex getValueSetMembershipIndex(TermValueSet theValueSet) {
+		int maxCodes = myStorageSettings.getPreExpandedValueSetMembershipIndexMaxCodes();
+		Long totalConcepts = theValueSet.getTotalConcepts();
+		if (maxCodes <= 0
+				|| totalConcepts == null
+				|| totalConcepts > maxCodes
+				|| theValueSet.getExpansionStatus() != TermValueSetPreExpansionStatusEnum.EXPANDED) {
+			return null;
+		}
+
+		TermValueSetMembershipIndex retVal = myValueSetMembershipIndexes.getIfPresent(theValueSet.getId());
+		if (retVal == null || !Objects.equals(retVal.getExpansionTimestamp(), theValueSet.getExpansionTimestamp())) {
+			StopWatch sw = new StopWatch();
+			retVal = new TermValueSetMembershipIndex(
+					theValueSet.getExpansionTimestamp(),
+					myValueSetConceptDao.findSystemVersionCodeAndDisplayByTermValueSetId(theValueSet.getId()));
+			myValueSetMembershipIndexes.put(theValueSet.getId(), retVal);
+			ourLog.debug(
+					"Loaded membership index for ValueSet {} with {} codes in {}",
+					theValueSet.getUrl(),
+					retVal.size(),
+					sw);
+		}
+		return retVal;
+	}
+
 	private JpaPid getValueSetResourcePersistentId(ValueSet theValueSet) {
 		return myIdHelperService.resolveResourceIdentityPid(
 				RequestPartitionId.allPartitions(),
@@ -2124,34 +2174,42 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		ValidateUtil.isNotNullOrThrowUnprocessableEntity(theValueSet.hasId(), "ValueSet.id is required");
 		JpaPid valueSetResourcePid = getValueSetResourcePersistentId(theValueSet);
 
+		if (isBlank(theCode) && theCoding == null && theCodeableConcept == null) {
+			return null;
+		}
+
+		TermValueSet valueSetEntity = fetchValueSetEntity(theValueSet).orElseThrow(IllegalStateException::new);
+		TermValueSetMembershipIndex index = getValueSetMembershipIndex(valueSetEntity);
+
 		List<TermValueSetConcept> concepts = new ArrayList<>();
 		if (isNotBlank(theCode)) {
 			if (theValidationOptions.isInferSystem()) {
-				concepts.addAll(
-						myValueSetConceptDao.findByValueSetResourcePidAndCode(valueSetResourcePid.getId(), theCode));
+				if (index != null) {
+					concepts.addAll(index.findByCode(theCode));
+				} else {
+					concepts.addAll(myValueSetConceptDao.findByValueSetResourcePidAndCode(
+							valueSetResourcePid.getId(), theCode));
+				}
 			} else if (isNotBlank(theSystem)) {
-				concepts.addAll(findByValueSetResourcePidSystemAndCode(valueSetResourcePid, theSystem, theCode));
+				concepts.addAll(findByValueSetResourcePidSystemAndCode(index, valueSetResourcePid, theSystem, theCode));
 			}
 		} else if (theCoding != null) {
 			if (theCoding.hasSystem() && theCoding.hasCode()) {
 				concepts.addAll(findByValueSetResourcePidSystemAndCode(
-						valueSetResourcePid, theCoding.getSystem(), theCoding.getCode()));
+						index, valueSetResourcePid, theCoding.getSystem(), theCoding.getCode()));
 			}
 		} else if (theCodeableConcept != null) {
 			for (Coding coding : theCodeableConcept.getCoding()) {
 				if (coding.hasSystem() && coding.hasCode()) {
 					concepts.addAll(findByValueSetResourcePidSystemAndCode(
-							valueSetResourcePid, coding.getSystem(), coding.getCode()));
+							index, valueSetResourcePid, coding.getSystem(), coding.getCode()));
 					if (!concepts.isEmpty()) {
 						break;
 					}
 				}
 			}
-		} else {
-			return null;
 		}
 
-		TermValueSet valueSetEntity = fetchValueSetEntity(theValueSet).orElseThrow(IllegalStateException::new);
 		String timingDescription = toHumanReadableExpansionTimestamp(valueSetEntity);
 		String preExpansionMessage = myContext
 				.getLocalizer()
@@ -2190,10 +2248,16 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		}
 
 		// Ok, we failed
-		List<TermValueSetConcept> outcome = myValueSetConceptDao.findByTermValueSetIdSystemOnly(
-				Pageable.ofSize(1), valueSetEntity.getId(), theSystem);
+		boolean valueSetHasSystem;
+		if (index != null) {
+			valueSetHasSystem = index.hasSystem(theSystem);
+		} else {
+			valueSetHasSystem = !myValueSetConceptDao
+					.findByTermValueSetIdSystemOnly(Pageable.ofSize(1), valueSetEntity.getId(), theSystem)
+					.isEmpty();
+		}
 		String append;
-		if (outcome.size() == 0) {
+		if (!valueSetHasSystem) {
 			append = " - No codes in ValueSet belong to CodeSystem with URL " + theSystem;
 		} else {
 			String unknownCodeMessage = myContext
@@ -2221,9 +2285,13 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	}
 
 	private List<TermValueSetConcept> findByValueSetResourcePidSystemAndCode(
-			JpaPid theResourcePid, String theSystem, String theCode) {
+			@Nullable TermValueSetMembershipIndex theIndex, JpaPid theResourcePid, String theSystem, String theCode) {
 		assert TransactionSynchronizationManager.isSynchronizationActive();
 
+		if (theIndex != null) {
+			return theIndex.findBySystemAndCode(theSystem, theCode);
+		}
+
 		List<TermValueSetConcept> retVal = new ArrayList<>();
 		Optional<TermValueSetConcept> optionalTermValueSetConcept;
 		int versionIndex = theSystem.indexOf(OUR_PIPE_CHARACTER);
@@ -2240,13 +2308,50 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		return retVal;
 	}
 
+	/**
+	 * Adds the descendants of a concept to the given set. The hierarchy is walked one level at a
+	 * time, fetching the children of every concept on a level with a single query, and the
+	 * descendants are then loaded in batches instead of one concept at a time.
+	 */
 	private void fetchChildren(TermConcept theConcept, Set<TermConcept> theSetToPopulate) {
-		for (TermConceptParentChildLink nextChildLink : theConcept.getChildren()) {
-			TermConcept nextChild = nextChildLink.getChild();
-			if (addToSet(theSetToPopulate, nextChild)) {
-				fetchChildren(nextChild, theSetToPopulate);
+		Set<Long> descendantPids = new LinkedHashSet<>();
+		descendantPids.add(theConcept.getId());
+		int maximumExpansionSize = myStorageSettings.getMaximumExpansionSize();
+
+		Collection<Long> level = List.of(theConcept.getId());
+		while (!level.isEmpty()) {
+			List<Long> nextLevel = new ArrayList<>();
+			QueryChunker.chunk(level, chunk -> {
+				for (Long nextChildPid : myConceptParentChildLinkDao.findChildPidsWithParents(chunk)) {
+					if (descendantPids.add(nextChildPid)) {
+						nextLevel.add(nextChildPid);
+					}
+				}
+			});
+			if (theSetToPopulate.size() + descendantPids.size() > maximumExpansionSize) {
+				throwExpansionTooLarge();
 			}
+			level = nextLevel;
 		}
+
+		descendantPids.remove(theConcept.getId());
+		fetchConcepts(theConcept, descendantPids, theSetToPopulate);
+	}
+
+	/**
+	 * Loads the given concepts, which must be in the same partition as theConcept, and adds them to the given set
+	 */
+	private void fetchConcepts(
+			TermConcept theConcept, Collection<Long> theConceptPids, Set<TermConcept> theSetToPopulate) {
+		Integer partitionId = theConcept.getPartitionId().getPartitionId();
+		List<TermConcept.TermConceptPk> conceptPks = theConceptPids.stream()
+				.map(t -> new TermConcept.TermConceptPk(t, partitionId))
+				.collect(Collectors.toList());
+		QueryChunker.chunk(conceptPks, chunk -> {
+			for (TermConcept next : myConceptDao.findByPids(chunk)) {
+				addToSet(theSetToPopulate, next);
+			}
+		});
 	}
 
 	private Optional<TermConcept> fetchLoadedCode(Long theCodeSystemResourcePid, String theCode) {
@@ -2255,11 +2360,25 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		return myConceptDao.findByCodeSystemAndCode(codeSystem.getPid(), theCode);
 	}
 
+	/**
+	 * Adds the ancestors of a concept to the given set. The PIDs of all of the ancestors of a
+	 * concept are computed when it is stored, so these are loaded in batches instead of walking
+	 * the hierarchy one concept at a time.
+	 */
 	private void fetchParents(TermConcept theConcept, Set<TermConcept> theSetToPopulate) {
+		Set<Long> ancestorPids = getAncestorPids(theConcept);
+		if (ancestorPids == null) {
+			fetchParentsUsingLinks(theConcept, theSetToPopulate);
+		} else {
+			fetchConcepts(theConcept, ancestorPids, theSetToPopulate);
+		}
+	}
+
+	private void fetchParentsUsingLinks(TermConcept theConcept, Set<TermConcept> theSetToPopulate) {
 		for (TermConceptParentChildLink nextChildLink : theConcept.getParents()) {
 			TermConcept nextChild = nextChildLink.getParent();
 			if (addToSet(theSetToPopulate, nextChild)) {
-				fetchParents(nextChild, theSetToPopulate);
+				fetchParentsUsingLinks(nextChild, theSetToPopulate);
 			}
 		}
 	}
@@ -2464,30 +2583,63 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 			ourLog.info("Skipping scheduled pre-expansion of ValueSets while deferred entities are being loaded.");
 			return;
 		}
+
+		StopWatch sw = new StopWatch();
+		AtomicInteger valueSetCount = new AtomicInteger();
+		AtomicLong conceptCount = new AtomicLong();
+		int threadCount = myStorageSettings.getPreExpandValueSetsThreadCount();
+		if (threadCount <= 1) {
+			preExpandValueSetsUntilNoneRemain(valueSetCount, conceptCount);
+		} else {
+			ThreadPoolTaskExecutor executor =
+					ThreadPoolUtil.newThreadPool(threadCount, threadCount, "valueset-pre-expansion-");
+			try {
+				List<Future<?>> futures = new ArrayList<>(threadCount);
+				for (int i = 0; i < threadCount; i++) {
+					futures.add(executor.submit(() -> preExpandValueSetsUntilNoneRemain(valueSetCount, conceptCount)));
+				}
+				for (Future<?> next : futures) {
+					next.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InternalErrorException(Msg.code(2862) + e.getMessage(), e);
+			} catch (ExecutionException e) {
+				throw new InternalErrorException(Msg.code(2863) + e.getCause().getMessage(), e.getCause());
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		if (valueSetCount.get() > 0) {
+			ourLog.info(
+					"Pre-expanded {} ValueSet(s) with {} concepts using {} thread(s) in {} - {} ValueSets/sec, {} concepts/sec",
+					valueSetCount.get(),
+					conceptCount.get(),
+					threadCount,
+					sw,
+					sw.formatThroughput(valueSetCount.get(), TimeUnit.SECONDS),
+					sw.formatThroughput(conceptCount.get(), TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * Claims and pre-expands ValueSets one at a time until none are left to expand. This may be called
+	 * by several threads and on several servers at the same time, since each ValueSet is claimed with a
+	 * conditional update of its expansion status.
+	 */
+	private void preExpandValueSetsUntilNoneRemain(AtomicInteger theValueSetCount, AtomicLong theConceptCount) {
 		TransactionTemplate txTemplate = new TransactionTemplate(myTxManager);
 
 		while (true) {
 			StopWatch sw = new StopWatch();
-			TermValueSet valueSetToExpand = txTemplate.execute(t -> {
-				Optional<TermValueSet> optionalTermValueSet = getNextTermValueSetNotExpanded();
-				if (optionalTermValueSet.isEmpty()) {
-					return null;
-				}
-
-				TermValueSet termValueSet = optionalTermValueSet.get();
-				termValueSet.setTotalConcepts(0L);
-				termValueSet.setTotalConceptDesignations(0L);
-				termValueSet.setExpansionStatus(TermValueSetPreExpansionStatusEnum.EXPANSION_IN_PROGRESS);
-				TermValueSet retVal = myEntityManager.merge(termValueSet);
-				myEntityManager.flush();
-				return retVal;
-			});
+			TermValueSet valueSetToExpand = claimNextTermValueSetNotExpanded(txTemplate);
 			if (valueSetToExpand == null) {
 				return;
 			}
 
 			// We have a ValueSet to pre-expand.
-			setPreExpandingValueSets(true);
+			myPreExpandingValueSetCount.incrementAndGet();
 			try {
 				ValueSet valueSet = txTemplate.execute(t -> {
 					TermValueSet refreshedValueSetToExpand = myTermValueSetDao
@@ -2512,6 +2664,8 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 
 				afterValueSetExpansionStatusChange();
 
+				theValueSetCount.incrementAndGet();
+				theConceptCount.addAndGet(valueSetConceptAccumulator.getConceptsSaved());
 				ourLog.info(
 						"Pre-expanded ValueSet[{}] with URL[{}] - Saved {} concepts in {}",
 						valueSet.getId(),
@@ -2528,7 +2682,7 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 				});
 
 			} finally {
-				setPreExpandingValueSets(false);
+				myPreExpandingValueSetCount.decrementAndGet();
 			}
 		}
 	}
@@ -2563,30 +2717,51 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 				}
 			}
 		}
-	}
 
-	private synchronized boolean isPreExpandingValueSets() {
-		return myPreExpandingValueSets;
+		myValueSetMembershipIndexes.invalidateAll();
 	}
 
-	private synchronized void setPreExpandingValueSets(boolean thePreExpandingValueSets) {
-		myPreExpandingValueSets = thePreExpandingValueSets;
+	private boolean isPreExpandingValueSets() {
+		return myPreExpandingValueSetCount.get() > 0;
 	}
 
 	private boolean isNotSafeToPreExpandValueSets() {
 		return myDeferredStorageSvc != null && !myDeferredStorageSvc.isStorageQueueEmpty(true);
 	}
 
-	private Optional<TermValueSet> getNextTermValueSetNotExpanded() {
-		Optional<TermValueSet> retVal = Optional.empty();
-		Slice<TermValueSet> page = myTermValueSetDao.findByExpansionStatus(
-				PageRequest.of(0, 1), TermValueSetPreExpansionStatusEnum.NOT_EXPANDED);
+	/**
+	 * Claims a ValueSet which has not been expanded yet by moving it to
+	 * {@link TermValueSetPreExpansionStatusEnum#EXPANSION_IN_PROGRESS}. Candidates are
+	 * tried in random order so that concurrent callers mostly claim different ValueSets.
+	 *
+	 * @return The claimed ValueSet, or <code>null</code> if there are none left to expand
+	 */
+	@Nullable
+	private TermValueSet claimNextTermValueSetNotExpanded(TransactionTemplate theTxTemplate) {
+		int candidateCount = myStorageSettings.getPreExpandValueSetsThreadCount() * 2;
+		while (true) {
+			List<TermValueSet> candidates = theTxTemplate.execute(t -> new ArrayList<>(myTermValueSetDao
+					.findByExpansionStatus(
+							PageRequest.of(0, candidateCount), TermValueSetPreExpansionStatusEnum.NOT_EXPANDED)
+					.getContent()));
+			if (candidates == null || candidates.isEmpty()) {
+				return null;
+			}
 
-		if (!page.getContent().isEmpty()) {
-			retVal = Optional.of(page.getContent().get(0));
+			Collections.shuffle(candidates);
+			for (TermValueSet next : candidates) {
+				Integer updated = theTxTemplate.execute(t -> myTermValueSetDao.updateExpansionStatusAndResetTotals(
+						next.getId(),
+						TermValueSetPreExpansionStatusEnum.NOT_EXPANDED,
+						TermValueSetPreExpansionStatusEnum.EXPANSION_IN_PROGRESS));
+				if (updated != null && updated > 0) {
+					next.setTotalConcepts(0L);
+					next.setTotalConceptDesignations(0L);
+					next.setExpansionStatus(TermValueSetPreExpansionStatusEnum.EXPANSION_IN_PROGRESS);
+					return next;
+				}
+			}
 		}
-
-		return retVal;
 	}
 
 	@Override
@@ -2729,12 +2904,10 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		TermConcept codeB = findCode(codeBSystemIdentifier, conceptB.getCode())
 				.orElseThrow(() -> new InvalidRequestException("Unknown code: " + conceptB));
 
-		SearchSession searchSession = Search.session(myEntityManager);
-
 		ConceptSubsumptionOutcome subsumes;
-		subsumes = testForSubsumption(searchSession, codeA, codeB, ConceptSubsumptionOutcome.SUBSUMES);
+		subsumes = testForSubsumption(codeA, codeB, ConceptSubsumptionOutcome.SUBSUMES);
 		if (subsumes == null) {
-			subsumes = testForSubsumption(searchSession, codeB, codeA, ConceptSubsumptionOutcome.SUBSUMEDBY);
+			subsumes = testForSubsumption(codeB, codeA, ConceptSubsumptionOutcome.SUBSUMEDBY);
 		}
 		if (subsumes == null) {
 			subsumes = ConceptSubsumptionOutcome.NOTSUBSUMED;
@@ -2803,12 +2976,19 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	}
 
 	@Nullable
+	/**
+	 * Returns theOutput if theLeft is an ancestor of theRight. This is checked against the ancestor
+	 * PIDs which were computed when theRight was stored, falling back to the full text index only if
+	 * they have not been computed yet.
+	 */
 	private ConceptSubsumptionOutcome testForSubsumption(
-			SearchSession theSearchSession,
-			TermConcept theLeft,
-			TermConcept theRight,
-			ConceptSubsumptionOutcome theOutput) {
-		List<TermConcept> fetch = theSearchSession
+			TermConcept theLeft, TermConcept theRight, ConceptSubsumptionOutcome theOutput) {
+		Set<Long> ancestorPids = getAncestorPids(theRight);
+		if (ancestorPids != null) {
+			return ancestorPids.contains(theLeft.getId()) ? theOutput : null;
+		}
+
+		List<TermConcept> fetch = Search.session(myEntityManager)
 				.search(TermConcept.class)
 				.where(f -> f.bool()
 						.must(f.match().field("myId").matching(theRight.getPid()))
@@ -2822,6 +3002,26 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		}
 	}
 
+	/**
+	 * Returns the PIDs of all of the ancestors of a concept, or <code>null</code> if these have
+	 * not been computed for the concept yet
+	 */
+	@Nullable
+	private static Set<Long> getAncestorPids(TermConcept theConcept) {
+		String parentPids = theConcept.getParentPidsAsString();
+		if (isBlank(parentPids)) {
+			return null;
+		}
+
+		Set<Long> retVal = new HashSet<>();
+		for (String next : parentPids.split(" ")) {
+			if (isNotBlank(next) && !"NONE".equals(next)) {
+				retVal.add(Long.parseLong(next));
+			}
+		}
+		return retVal;
+	}
+
 	private ArrayList<FhirVersionIndependentConcept> toVersionIndependentConcepts(
 			String theSystem, Set<TermConcept> codes) {
 		ArrayList<FhirVersionIndependentConcept> retVal = new ArrayList<>(codes.size());
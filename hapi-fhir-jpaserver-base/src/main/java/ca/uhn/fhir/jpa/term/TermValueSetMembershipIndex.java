@@ -0,0 +1,156 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.term;
+
+import ca.uhn.fhir.jpa.entity.TermValueSetConcept;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory index of the codes in a pre-expanded ValueSet, used to validate codes against
+ * the expansion without querying the {@literal TRM_VALUESET_CONCEPT} table.
+ * <p>
+ * Codes are hashed, and a code which appears in more than one CodeSystem is chained, so a
+ * lookup is a single hash probe. System URLs and versions are shared between all of the
+ * codes which use them.
+ * </p>
+ */
+class TermValueSetMembershipIndex {
+
+	private final Date myExpansionTimestamp;
+	private final Map<String, Member> myCodeToMembers;
+	private final Map<String, String> mySystems;
+	private final int mySize;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theExpansionTimestamp The time that the ValueSet was expanded
+	 * @param theRows               The system, system version, code and display of every concept in the expansion
+	 */
+	TermValueSetMembershipIndex(@Nullable Date theExpansionTimestamp, Collection<Object[]> theRows) {
+		myExpansionTimestamp = theExpansionTimestamp;
+		myCodeToMembers = new HashMap<>(theRows.size() * 4 / 3 + 1);
+		mySystems = new HashMap<>();
+		Map<String, String> versions = new HashMap<>();
+
+		for (Object[] next : theRows) {
+			String system = mySystems.computeIfAbsent((String) next[0], t -> t);
+			String systemVersion = next[1] != null ? versions.computeIfAbsent((String) next[1], t -> t) : null;
+			String code = (String) next[2];
+			String display = (String) next[3];
+			myCodeToMembers.compute(code, (k, existing) -> new Member(system, systemVersion, code, display, existing));
+		}
+		mySize = theRows.size();
+	}
+
+	/**
+	 * Returns the concepts with the given code in any CodeSystem
+	 */
+	@Nonnull
+	List<TermValueSetConcept> findByCode(@Nonnull String theCode) {
+		List<TermValueSetConcept> retVal = new ArrayList<>(1);
+		for (Member next = myCodeToMembers.get(theCode); next != null; next = next.myNext) {
+			retVal.add(next.toConcept());
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the concepts with the given system and code
+	 *
+	 * @param theSystem The system URL, optionally followed by a pipe and the system version
+	 */
+	@Nonnull
+	List<TermValueSetConcept> findBySystemAndCode(@Nonnull String theSystem, @Nonnull String theCode) {
+		String system = theSystem;
+		String systemVersion = null;
+		int versionIndex = theSystem.indexOf('|');
+		if (versionIndex >= 0) {
+			system = theSystem.substring(0, versionIndex);
+			systemVersion = theSystem.substring(versionIndex + 1);
+		}
+
+		List<TermValueSetConcept> retVal = new ArrayList<>(1);
+		for (Member next = myCodeToMembers.get(theCode); next != null; next = next.myNext) {
+			if (next.mySystem.equals(system)
+					&& (versionIndex < 0 || Objects.equals(systemVersion, next.mySystemVersion))) {
+				retVal.add(next.toConcept());
+				break;
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns <code>true</code> if any of the codes in the expansion belong to the given system
+	 */
+	boolean hasSystem(@Nullable String theSystem) {
+		return theSystem != null && mySystems.containsKey(theSystem);
+	}
+
+	@Nullable
+	Date getExpansionTimestamp() {
+		return myExpansionTimestamp;
+	}
+
+	/**
+	 * Returns the number of concepts in the index
+	 */
+	int size() {
+		return mySize;
+	}
+
+	private static class Member {
+
+		private final String mySystem;
+		private final String mySystemVersion;
+		private final String myCode;
+		private final String myDisplay;
+		private final Member myNext;
+
+		private Member(String theSystem, String theSystemVersion, String theCode, String theDisplay, Member theNext) {
+			mySystem = theSystem;
+			mySystemVersion = theSystemVersion;
+			myCode = theCode;
+			myDisplay = theDisplay;
+			myNext = theNext;
+		}
+
+		/**
+		 * Creates a detached concept, which is all that code validation needs
+		 */
+		private TermValueSetConcept toConcept() {
+			return new TermValueSetConcept()
+					.setSystem(mySystem)
+					.setSystemVersion(mySystemVersion)
+					.setCode(myCode)
+					.setDisplay(myDisplay);
+		}
+	}
+}
@@ -30,6 +30,7 @@ public final class SctHandlerConcept implements IZipContentsHandlerCsv {
 
 	private Set<String> myValidConceptIds;
 	private Map<String, String> myConceptIdToMostRecentDate = new HashMap<String, String>();
+	private Map<String, String> myDates = new HashMap<String, String>();
 
 	public SctHandlerConcept(Set<String> theValidConceptIds) {
 		myValidConceptIds = theValidConceptIds;
@@ -48,7 +49,8 @@ public final class SctHandlerConcept implements IZipContentsHandlerCsv {
 			} else {
 				myValidConceptIds.remove(id);
 			}
-			myConceptIdToMostRecentDate.put(id, date);
+			// There are only a few distinct dates, so share them instead of keeping one per concept
+			myConceptIdToMostRecentDate.put(id, myDates.computeIfAbsent(date, t -> t));
 		}
 	}
 }
@@ -22,7 +22,6 @@ package ca.uhn.fhir.jpa.term.snomedct;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
 import ca.uhn.fhir.jpa.entity.TermConcept;
 import ca.uhn.fhir.jpa.term.IZipContentsHandlerCsv;
-import ca.uhn.fhir.jpa.term.TermLoaderSvcImpl;
 import org.apache.commons.csv.CSVRecord;
 
 import java.util.Map;
@@ -31,23 +30,19 @@ import java.util.Set;
 public final class SctHandlerDescription implements IZipContentsHandlerCsv {
 	private final Map<String, TermConcept> myCode2concept;
 	private final TermCodeSystemVersion myCodeSystemVersion;
-	private final Map<String, TermConcept> myId2concept;
 	private Set<String> myValidConceptIds;
 
 	public SctHandlerDescription(
 			Set<String> theValidConceptIds,
 			Map<String, TermConcept> theCode2concept,
-			Map<String, TermConcept> theId2concept,
 			TermCodeSystemVersion theCodeSystemVersion) {
 		myCode2concept = theCode2concept;
-		myId2concept = theId2concept;
 		myCodeSystemVersion = theCodeSystemVersion;
 		myValidConceptIds = theValidConceptIds;
 	}
 
 	@Override
 	public void accept(CSVRecord theRecord) {
-		String id = theRecord.get("id");
 		boolean active = "1".equals(theRecord.get("active"));
 		if (!active) {
 			return;
@@ -59,10 +54,14 @@ public final class SctHandlerDescription implements IZipContentsHandlerCsv {
 
 		String term = theRecord.get("term");
 
-		TermConcept concept = TermLoaderSvcImpl.getOrCreateConcept(myId2concept, id);
-		concept.setCode(conceptId);
+		// A concept has several descriptions, and the last active one is used as the display
+		TermConcept concept = myCode2concept.get(conceptId);
+		if (concept == null) {
+			concept = new TermConcept();
+			concept.setCode(conceptId);
+			concept.setCodeSystemVersion(myCodeSystemVersion);
+			myCode2concept.put(conceptId, concept);
+		}
 		concept.setDisplay(term);
-		concept.setCodeSystemVersion(myCodeSystemVersion);
-		myCode2concept.put(conceptId, concept);
 	}
 }
@@ -19,45 +19,23 @@
  */
 package ca.uhn.fhir.jpa.term.snomedct;
 
-import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
 import ca.uhn.fhir.jpa.entity.TermConcept;
 import ca.uhn.fhir.jpa.entity.TermConceptParentChildLink;
 import ca.uhn.fhir.jpa.term.IZipContentsHandlerCsv;
 import org.apache.commons.csv.CSVRecord;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 public final class SctHandlerRelationship implements IZipContentsHandlerCsv {
 	private final Map<String, TermConcept> myCode2concept;
-	private final TermCodeSystemVersion myCodeSystemVersion;
-	private final Map<String, TermConcept> myRootConcepts;
 
-	public SctHandlerRelationship(
-			TermCodeSystemVersion theCodeSystemVersion,
-			HashMap<String, TermConcept> theRootConcepts,
-			Map<String, TermConcept> theCode2concept) {
-		myCodeSystemVersion = theCodeSystemVersion;
-		myRootConcepts = theRootConcepts;
+	public SctHandlerRelationship(Map<String, TermConcept> theCode2concept) {
 		myCode2concept = theCode2concept;
 	}
 
 	@Override
 	public void accept(CSVRecord theRecord) {
-		Set<String> ignoredTypes = new HashSet<String>();
-		ignoredTypes.add("Method (attribute)");
-		ignoredTypes.add("Direct device (attribute)");
-		ignoredTypes.add("Has focus (attribute)");
-		ignoredTypes.add("Access instrument");
-		ignoredTypes.add("Procedure site (attribute)");
-		ignoredTypes.add("Causative agent (attribute)");
-		ignoredTypes.add("Course (attribute)");
-		ignoredTypes.add("Finding site (attribute)");
-		ignoredTypes.add("Has definitional manifestation (attribute)");
-
 		String sourceId = theRecord.get("sourceId");
 		String destinationId = theRecord.get("destinationId");
 		String typeId = theRecord.get("typeId");
@@ -72,12 +50,6 @@ public final class SctHandlerRelationship implements IZipContentsHandlerCsv {
 						TermConceptParentChildLink.RelationshipTypeEnum.ISA;
 				if (!sourceId.equals(destinationId)) {
 					if (active) {
-						TermConceptParentChildLink link = new TermConceptParentChildLink();
-						link.setChild(sourceConcept);
-						link.setParent(targetConcept);
-						link.setRelationshipType(relationshipType);
-						link.setCodeSystem(myCodeSystemVersion);
-
 						targetConcept.addChild(sourceConcept, relationshipType);
 					} else {
 						// not active, so we're removing any existing links
@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.ThreadPoolFactory;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the bounded thread pool used by {@link QueryChunker#chunkInParallel} to run
+ * query chunks concurrently. The pool is created the first time it is needed and is
+ * sized (and resized) according to {@link JpaStorageSettings#getQueryChunkParallelism()}.
+ * Because the pool has no queue, a caller submitting more chunks than there are threads
+ * blocks until a thread is free, so the number of database connections used for
+ * chunks never exceeds the configured parallelism.
+ *
+ * @since 8.8.0
+ */
+public class QueryChunkExecutor {
+
+	private final JpaStorageSettings myStorageSettings;
+	private final ThreadPoolFactory myThreadPoolFactory;
+	private AsyncTaskExecutor myExecutor;
+
+	/**
+	 * Constructor
+	 */
+	public QueryChunkExecutor(JpaStorageSettings theStorageSettings, ThreadPoolFactory theThreadPoolFactory) {
+		myStorageSettings = theStorageSettings;
+		myThreadPoolFactory = theThreadPoolFactory;
+	}
+
+	/**
+	 * Returns the executor to run query chunks on, or <code>null</code> if parallel
+	 * chunk execution is disabled
+	 */
+	@Nullable
+	public synchronized Executor getExecutor() {
+		int parallelism = myStorageSettings.getQueryChunkParallelism();
+		if (parallelism <= 1) {
+			return null;
+		}
+
+		if (myExecutor == null) {
+			myExecutor = myThreadPoolFactory.newThreadPool(parallelism, parallelism, "query-chunk-");
+		} else if (myExecutor instanceof ThreadPoolTaskExecutor pool && pool.getMaxPoolSize() != parallelism) {
+			if (parallelism > pool.getMaxPoolSize()) {
+				pool.setMaxPoolSize(parallelism);
+				pool.setCorePoolSize(parallelism);
+			} else {
+				pool.setCorePoolSize(parallelism);
+				pool.setMaxPoolSize(parallelism);
+			}
+		}
+		return myExecutor;
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if (myExecutor instanceof ThreadPoolTaskExecutor pool) {
+			pool.shutdown();
+		}
+		myExecutor = null;
+	}
+}
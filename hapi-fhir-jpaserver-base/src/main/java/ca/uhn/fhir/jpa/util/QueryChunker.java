@@ -19,12 +19,21 @@
  */
 package ca.uhn.fhir.jpa.util;
 
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
 import ca.uhn.fhir.util.TaskChunker;
+import jakarta.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
@@ -42,4 +51,80 @@ public class QueryChunker<T> extends TaskChunker<T> {
 	public static <T> Stream<List<T>> chunk(Stream<T> theStream) {
 		return chunk(theStream, SearchBuilder.getMaximumPageSize());
 	}
+
+	/**
+	 * Breaks the input up into chunks and processes each chunk using the given function. If an
+	 * executor is supplied and there is more than one chunk, the chunks are processed concurrently
+	 * on the executor, so the function must be safe to call from multiple threads and must not rely
+	 * on state bound to the calling thread (such as its transaction). Otherwise the chunks are
+	 * processed one after another on the calling thread.
+	 * <p>
+	 * The results are always passed to the result consumer on the calling thread. If
+	 * <code>theOrdered</code> is <code>true</code> they are passed in the order of the chunks,
+	 * otherwise in the order in which the chunks complete. If any chunk fails, the first failure
+	 * is rethrown once all chunks have completed.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public static <T, R> void chunkInParallel(
+			Collection<T> theInput,
+			int theChunkSize,
+			@Nullable Executor theExecutor,
+			boolean theOrdered,
+			Function<List<T>, R> theChunkFunction,
+			Consumer<R> theResultConsumer) {
+		List<List<T>> chunks = new ArrayList<>();
+		chunk(theInput, theChunkSize, chunks::add);
+
+		if (theExecutor == null || chunks.size() < 2) {
+			for (List<T> next : chunks) {
+				theResultConsumer.accept(theChunkFunction.apply(next));
+			}
+			return;
+		}
+
+		List<CompletableFuture<R>> futures = new ArrayList<>(chunks.size());
+		BlockingQueue<CompletableFuture<R>> completed = new LinkedBlockingQueue<>();
+		for (List<T> next : chunks) {
+			CompletableFuture<R> future =
+					CompletableFuture.supplyAsync(() -> theChunkFunction.apply(next), theExecutor);
+			future.whenComplete((r, t) -> completed.add(future));
+			futures.add(future);
+		}
+
+		RuntimeException failure = null;
+		for (int i = 0; i < futures.size(); i++) {
+			CompletableFuture<R> next;
+			if (theOrdered) {
+				next = futures.get(i);
+			} else {
+				try {
+					next = completed.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					futures.forEach(t -> t.cancel(false));
+					throw new IllegalStateException(Msg.code(2849) + "Interrupted while waiting for query chunks", e);
+				}
+			}
+
+			try {
+				R result = next.join();
+				if (failure == null) {
+					theResultConsumer.accept(result);
+				}
+			} catch (CompletionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof RuntimeException
+							? (RuntimeException) e.getCause()
+							: new IllegalStateException(
+									Msg.code(2850) + e.getCause().getMessage(), e.getCause());
+				}
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
 }
@@ -0,0 +1,83 @@
+package ca.uhn.fhir.jpa.batch2;
+
+import ca.uhn.fhir.batch2.jobs.chunk.ResourceIdListWorkChunkJson;
+import ca.uhn.fhir.batch2.jobs.chunk.TypedPidJson;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.model.api.IModelJson;
+import ca.uhn.fhir.util.JsonUtil;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WorkChunkDataCodecTest {
+
+	@Test
+	void testEncodeTypedPidList() {
+		List<TypedPidJson> pids = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			pids.add(new TypedPidJson(i % 3 == 0 ? "Observation" : "Patient", null, Long.toString(10000L + i * 3L)));
+		}
+		pids.add(new TypedPidJson("Patient", 7, "5"));
+		pids.add(new TypedPidJson("Patient", -1, Long.toString(Long.MAX_VALUE)));
+		pids.add(new TypedPidJson("Patient", null, Long.toString(Long.MIN_VALUE)));
+		ResourceIdListWorkChunkJson chunk =
+				new ResourceIdListWorkChunkJson(pids, RequestPartitionId.fromPartitionIds(1, 2));
+		String json = JsonUtil.serialize(chunk, false);
+
+		String encoded = WorkChunkDataCodec.encode(json);
+		assertThat(encoded).startsWith(WorkChunkDataCodec.PREFIX);
+		assertThat(encoded.length()).isLessThan(json.length() / 10);
+
+		ResourceIdListWorkChunkJson decoded =
+				JsonUtil.deserialize(WorkChunkDataCodec.decode(encoded), ResourceIdListWorkChunkJson.class);
+		assertEquals(pids, decoded.getTypedPids());
+		assertThat(decoded.getTypedPids().get(1000).getPartitionId()).isEqualTo(7);
+		assertThat(decoded.getTypedPids().get(1001).getPartitionId()).isEqualTo(-1);
+		assertNull(decoded.getTypedPids().get(0).getPartitionId());
+		assertEquals(chunk.getRequestPartitionId(), decoded.getRequestPartitionId());
+	}
+
+	@Test
+	void testEncodeOtherJson() {
+		StringListJson model = new StringListJson();
+		for (int i = 0; i < 100; i++) {
+			model.myValues.add("Patient?identifier=http://example.com|" + i);
+		}
+		String json = JsonUtil.serialize(model, false);
+
+		String encoded = WorkChunkDataCodec.encode(json);
+		assertThat(encoded).startsWith(WorkChunkDataCodec.PREFIX);
+		assertThat(encoded.length()).isLessThan(json.length());
+		assertEquals(json, WorkChunkDataCodec.decode(encoded));
+	}
+
+	@Test
+	void testEncodeNonNumericIds() {
+		String json = "{\"ids\":[" + "{\"type\":\"Patient\",\"id\":\"ABC\"},".repeat(50)
+				+ "{\"type\":\"Patient\",\"id\":\"0123\"}]}";
+
+		String encoded = WorkChunkDataCodec.encode(json);
+		assertThat(encoded).startsWith(WorkChunkDataCodec.PREFIX);
+		assertEquals(json, WorkChunkDataCodec.decode(encoded));
+	}
+
+	@Test
+	void testSmallDataIsNotEncoded() {
+		String json = "{\"a\":\"b\"}";
+		assertEquals(json, WorkChunkDataCodec.encode(json));
+		assertEquals(json, WorkChunkDataCodec.decode(json));
+		assertNull(WorkChunkDataCodec.encode(null));
+		assertNull(WorkChunkDataCodec.decode(null));
+	}
+
+	private static class StringListJson implements IModelJson {
+		@JsonProperty("values")
+		private List<String> myValues = new ArrayList<>();
+	}
+}
@@ -64,7 +64,9 @@ class ResourceHistoryCalculatorTest {
 			Arguments.of(FhirContext.forR4Cached(), true, ResourceEncodingEnum.ESR, EXCLUDED_ELEMENTS_1),
 			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.ESR, EXCLUDED_ELEMENTS_2),
 			Arguments.of(FhirContext.forR4Cached(), true, ResourceEncodingEnum.JSON, EXCLUDED_ELEMENTS_2),
-			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.JSON, EXCLUDED_ELEMENTS_1)
+			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.JSON, EXCLUDED_ELEMENTS_1),
+			Arguments.of(FhirContext.forR4Cached(), true, ResourceEncodingEnum.JSOND, EXCLUDED_ELEMENTS_1),
+			Arguments.of(FhirContext.forR4Cached(), false, ResourceEncodingEnum.JSOND, EXCLUDED_ELEMENTS_2)
 		);
 	}
 
@@ -190,7 +192,9 @@ class ResourceHistoryCalculatorTest {
 			Arguments.of(ResourceEncodingEnum.ESR, ENCODED_RESOURCE_1),
 			Arguments.of(ResourceEncodingEnum.ESR, ENCODED_RESOURCE_2),
 			Arguments.of(ResourceEncodingEnum.JSON, ENCODED_RESOURCE_1),
-			Arguments.of(ResourceEncodingEnum.JSON, ENCODED_RESOURCE_2)
+			Arguments.of(ResourceEncodingEnum.JSON, ENCODED_RESOURCE_2),
+			Arguments.of(ResourceEncodingEnum.JSOND, ENCODED_RESOURCE_1),
+			Arguments.of(ResourceEncodingEnum.JSOND, ENCODED_RESOURCE_2)
 		);
 	}
 
@@ -206,6 +210,10 @@ class ResourceHistoryCalculatorTest {
 			case JSONC:
 				assertArrayEquals(GZipUtil.compress(theEncodedResource), resourceBinary);
 				break;
+			case JSOND:
+				assertArrayEquals(DeflateDictionaryUtil.compress(theEncodedResource), resourceBinary);
+				assertEquals(theEncodedResource, BaseHapiFhirDao.decodeResource(resourceBinary, theResourceEncoding));
+				break;
 			case DEL :
 			case ESR :
 			default:
@@ -0,0 +1,154 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemorySearchResultCacheSvcImplTest {
+
+	@Mock
+	private ISearchResultCacheSvc myDelegate;
+
+	private JpaStorageSettings myStorageSettings;
+	private InMemorySearchResultCacheSvcImpl mySvc;
+
+	@BeforeEach
+	void beforeEach() {
+		myStorageSettings = new JpaStorageSettings();
+		myStorageSettings.setInMemorySearchResultCacheMaxPids(100);
+		mySvc = new InMemorySearchResultCacheSvcImpl(myDelegate, myStorageSettings);
+	}
+
+	@Test
+	void testFetchPagesFromMemory() {
+		Search search = newSearch();
+		store(search, pids(0, 10), pids(10, 20));
+
+		assertEquals(pids(0, 10), mySvc.fetchResultPids(search, 0, 10, null, null));
+		assertEquals(pids(5, 20), mySvc.fetchResultPids(search, 5, 20, null, null));
+
+		verify(myDelegate, times(2)).storeResults(eq(search), any(), any(), any(), any());
+		verify(myDelegate, never()).fetchResultPids(any(), anyInt(), anyInt(), any(), any());
+	}
+
+	@Test
+	void testFetchLastPartialPage_Complete() {
+		Search search = newSearch();
+		store(search, pids(0, 15));
+		search.setNumFound(17);
+		search.setNumBlocked(2);
+
+		assertEquals(pids(10, 15), mySvc.fetchResultPids(search, 10, 20, null, null));
+		assertEquals(pids(0, 15), mySvc.fetchAllResultPids(search, null, null));
+
+		verify(myDelegate, never()).fetchResultPids(any(), anyInt(), anyInt(), any(), any());
+		verify(myDelegate, never()).fetchAllResultPids(any(), any(), any());
+	}
+
+	@Test
+	void testFetchBeyondMemory_Incomplete_UsesDelegate() {
+		Search search = newSearch();
+		store(search, pids(0, 15));
+		search.setNumFound(30);
+		when(myDelegate.fetchResultPids(search, 10, 20, null, null)).thenReturn(pids(10, 20));
+		when(myDelegate.fetchAllResultPids(search, null, null)).thenReturn(pids(0, 30));
+
+		assertEquals(pids(10, 20), mySvc.fetchResultPids(search, 10, 20, null, null));
+		assertEquals(pids(0, 30), mySvc.fetchAllResultPids(search, null, null));
+	}
+
+	@Test
+	void testStoreNotContiguous_EntryDiscarded() {
+		Search search = newSearch();
+		store(search, pids(0, 10));
+
+		// Results 10-20 were stored by another node
+		mySvc.storeResults(search, pids(0, 20), pids(20, 30), null, null);
+
+		assertEquals(0, mySvc.getPidCountForUnitTest());
+		mySvc.fetchResultPids(search, 0, 10, null, null);
+		verify(myDelegate).fetchResultPids(search, 0, 10, null, null);
+	}
+
+	@Test
+	void testStoreContinuationOfUnknownSearch_NotHeld() {
+		Search search = newSearch();
+
+		mySvc.storeResults(search, pids(0, 20), pids(20, 30), null, null);
+
+		assertEquals(0, mySvc.getPidCountForUnitTest());
+	}
+
+	@Test
+	void testLeastRecentlyUsedEvicted() {
+		Search search0 = newSearch();
+		Search search1 = newSearch();
+		Search search2 = newSearch();
+		store(search0, pids(0, 40));
+		store(search1, pids(0, 40));
+		mySvc.fetchResultPids(search0, 0, 10, null, null);
+
+		store(search2, pids(0, 40));
+
+		assertEquals(80, mySvc.getPidCountForUnitTest());
+		assertEquals(pids(0, 10), mySvc.fetchResultPids(search0, 0, 10, null, null));
+		assertEquals(pids(0, 10), mySvc.fetchResultPids(search2, 0, 10, null, null));
+		mySvc.fetchResultPids(search1, 0, 10, null, null);
+		verify(myDelegate).fetchResultPids(search1, 0, 10, null, null);
+	}
+
+	@Test
+	void testDisabled() {
+		myStorageSettings.setInMemorySearchResultCacheMaxPids(0);
+		Search search = newSearch();
+		store(search, pids(0, 10));
+
+		mySvc.fetchResultPids(search, 0, 10, null, null);
+
+		assertEquals(0, mySvc.getPidCountForUnitTest());
+		verify(myDelegate).fetchResultPids(search, 0, 10, null, null);
+	}
+
+	/**
+	 * Stores the given batches in order, as a search task would
+	 */
+	@SafeVarargs
+	private void store(Search theSearch, List<JpaPid>... theBatches) {
+		List<JpaPid> stored = new ArrayList<>();
+		for (List<JpaPid> next : theBatches) {
+			mySvc.storeResults(theSearch, stored, next, null, null);
+			stored.addAll(next);
+		}
+		theSearch.setNumFound(stored.size());
+	}
+
+	private static Search newSearch() {
+		Search retVal = new Search();
+		retVal.setUuid(UUID.randomUUID().toString());
+		return retVal;
+	}
+
+	private static List<JpaPid> pids(long theFrom, long theTo) {
+		return LongStream.range(theFrom, theTo).mapToObj(JpaPid::fromId).toList();
+	}
+}
@@ -0,0 +1,101 @@
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryChunkerTest {
+
+	private final ExecutorService myExecutor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void afterEach() {
+		myExecutor.shutdownNow();
+	}
+
+	@Test
+	void testChunkInParallel_Ordered() {
+		List<Integer> input = IntStream.range(0, 1000).boxed().toList();
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+		List<List<Integer>> output = new ArrayList<>();
+		QueryChunker.chunkInParallel(input, 100, myExecutor, true, t -> {
+			threadNames.add(Thread.currentThread().getName());
+			// Make the earlier chunks finish last
+			sleep(1000 - t.get(0));
+			return t;
+		}, output::add);
+
+		assertEquals(10, output.size());
+		assertEquals(input, output.stream().flatMap(List::stream).toList());
+		assertThat(threadNames).doesNotContain(Thread.currentThread().getName());
+	}
+
+	@Test
+	void testChunkInParallel_Unordered() {
+		List<Integer> input = IntStream.range(0, 1000).boxed().toList();
+
+		List<Integer> output = new ArrayList<>();
+		QueryChunker.chunkInParallel(input, 100, myExecutor, false, List::size, output::add);
+
+		assertThat(output).hasSize(10).allMatch(t -> t == 100);
+	}
+
+	@Test
+	void testChunkInParallel_NoExecutor_RunsInline() {
+		List<Integer> input = IntStream.range(0, 250).boxed().toList();
+		String callingThread = Thread.currentThread().getName();
+
+		List<Integer> output = new ArrayList<>();
+		QueryChunker.chunkInParallel(
+				input,
+				100,
+				null,
+				false,
+				t -> {
+					assertEquals(callingThread, Thread.currentThread().getName());
+					return t.size();
+				},
+				output::add);
+
+		assertEquals(List.of(100, 100, 50), output);
+	}
+
+	@Test
+	void testChunkInParallel_FailureIsRethrown() {
+		List<Integer> input = IntStream.range(0, 1000).boxed().toList();
+
+		List<Integer> output = new ArrayList<>();
+		InvalidRequestException e = assertThrows(
+				InvalidRequestException.class,
+				() -> QueryChunker.chunkInParallel(input, 100, myExecutor, true, t -> {
+					if (t.get(0) == 500) {
+						throw new InvalidRequestException("chunk failed");
+					}
+					return t.size();
+				}, output::add));
+
+		assertEquals("chunk failed", e.getMessage());
+		assertEquals(List.of(100, 100, 100, 100, 100), output);
+	}
+
+	private static void sleep(int theMillis) {
+		try {
+			Thread.sleep(theMillis / 20);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -429,6 +429,46 @@ public class JpaStorageSettings extends StorageSettings {
 	 */
 	private boolean myAllowDatabaseValidationOverride = false;
 
+	/**
+	 * @since 8.8.0
+	 */
+	private boolean myStoredResourcePassthroughEnabled = false;
+
+	/**
+	 * @since 8.8.0
+	 */
+	private int myInMemorySearchResultCacheMaxPids = 0;
+
+	/**
+	 * @since 8.8.0
+	 */
+	private boolean mySearchQueryPlanCacheEnabled = false;
+
+	/**
+	 * @since 8.8.0
+	 */
+	private int myQueryChunkParallelism = 1;
+
+	/**
+	 * @since 8.8.0
+	 */
+	private int myJobWorkChunkNotificationBatchSize = 1;
+
+	/**
+	 * @since 8.8.0
+	 */
+	private boolean myJobWorkChunkDataCompressionEnabled = false;
+
+	/**
+	 * @since 8.8.0
+	 */
+	private int myPreExpandValueSetsThreadCount = 1;
+
+	/**
+	 * @since 8.8.0
+	 */
+	private int myPreExpandedValueSetMembershipIndexMaxCodes = 0;
+
 	/**
 	 * Constructor
 	 */
@@ -1061,10 +1101,26 @@ public class JpaStorageSettings extends StorageSettings {
 		myExpungeThreadCount = Math.max(myExpungeThreadCount, 1); // Minimum of 1
 	}
 
+	/**
+	 * Returns the encoding used when storing resource bodies (default is {@link ResourceEncodingEnum#JSONC})
+	 *
+	 * @see #setResourceEncoding(ResourceEncodingEnum)
+	 */
 	public ResourceEncodingEnum getResourceEncoding() {
 		return myResourceEncoding;
 	}
 
+	/**
+	 * Sets the encoding used when storing resource bodies in binary form (default is
+	 * {@link ResourceEncodingEnum#JSONC}). Currently binary storage is only used on Oracle,
+	 * other databases always store resource bodies as uncompressed JSON text.
+	 * <p>
+	 * {@link ResourceEncodingEnum#JSOND} compresses using a preset dictionary of common FHIR
+	 * JSON fragments, and typically produces noticeably smaller payloads than the
+	 * gzip-based {@link ResourceEncodingEnum#JSONC}. Changing this setting only affects newly
+	 * written resource versions, existing versions remain readable in their original encoding.
+	 * </p>
+	 */
 	public void setResourceEncoding(ResourceEncodingEnum theResourceEncoding) {
 		myResourceEncoding = theResourceEncoding;
 	}
@@ -2755,6 +2811,263 @@ public class JpaStorageSettings extends StorageSettings {
 		return myAllowDatabaseValidationOverride;
 	}
 
+	/**
+	 * If enabled (default is {@code false}), resources returned by HTTP read, vread and search
+	 * requests are written to the response using the JSON stored in the database, with only the
+	 * resource ID and metadata (version, last updated, tags, source) being added to it, instead of the
+	 * stored JSON being parsed into a resource object and then encoded again.
+	 * <p>
+	 * Stored resources are only passed through when the response will be compact JSON with no
+	 * <code>_summary</code> or <code>_elements</code> filtering, and when no interceptors are registered
+	 * for the {@link ca.uhn.fhir.interceptor.api.Pointcut#STORAGE_PREACCESS_RESOURCES},
+	 * {@link ca.uhn.fhir.interceptor.api.Pointcut#STORAGE_PRESHOW_RESOURCES} or
+	 * {@link ca.uhn.fhir.interceptor.api.Pointcut#SERVER_OUTGOING_RESPONSE} pointcuts. In all other
+	 * cases resources are parsed as usual.
+	 * </p>
+	 * <p>
+	 * The passthrough only applies to requests handled by the built-in JPA resource providers and
+	 * the JPA paging provider, which return the loaded resources to the client without handing them
+	 * to any other code. Resources loaded for custom resource providers, operations, or subclasses
+	 * of the built-in providers are always parsed.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public boolean isStoredResourcePassthroughEnabled() {
+		return myStoredResourcePassthroughEnabled;
+	}
+
+	/**
+	 * If enabled (default is {@code false}), resources returned by HTTP read, vread and search
+	 * requests are written to the response using the JSON stored in the database, with only the
+	 * resource ID and metadata (version, last updated, tags, source) being added to it, instead of the
+	 * stored JSON being parsed into a resource object and then encoded again.
+	 * <p>
+	 * Stored resources are only passed through when the response will be compact JSON with no
+	 * <code>_summary</code> or <code>_elements</code> filtering, and when no interceptors are registered
+	 * for the {@link ca.uhn.fhir.interceptor.api.Pointcut#STORAGE_PREACCESS_RESOURCES},
+	 * {@link ca.uhn.fhir.interceptor.api.Pointcut#STORAGE_PRESHOW_RESOURCES} or
+	 * {@link ca.uhn.fhir.interceptor.api.Pointcut#SERVER_OUTGOING_RESPONSE} pointcuts. In all other
+	 * cases resources are parsed as usual.
+	 * </p>
+	 * <p>
+	 * The passthrough only applies to requests handled by the built-in JPA resource providers and
+	 * the JPA paging provider, which return the loaded resources to the client without handing them
+	 * to any other code. Resources loaded for custom resource providers, operations, or subclasses
+	 * of the built-in providers are always parsed.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setStoredResourcePassthroughEnabled(boolean theStoredResourcePassthroughEnabled) {
+		myStoredResourcePassthroughEnabled = theStoredResourcePassthroughEnabled;
+	}
+
+	/**
+	 * Returns the maximum number of search result resource PIDs that will be held in the node-local
+	 * in-memory search result cache (default is {@code 0}, meaning that the in-memory cache is disabled).
+	 *
+	 * @see #setInMemorySearchResultCacheMaxPids(int)
+	 * @since 8.8.0
+	 */
+	public int getInMemorySearchResultCacheMaxPids() {
+		return myInMemorySearchResultCacheMaxPids;
+	}
+
+	/**
+	 * If set to a value greater than {@code 0} (default is {@code 0}), the resource PIDs of searches
+	 * performed on this node are kept in memory as well as being stored in the database, and requests
+	 * for subsequent pages of those searches are served from memory instead of re-reading the
+	 * <code>HFJ_SEARCH_RESULT</code> table. Searches are evicted in least recently used order once
+	 * the total number of PIDs held exceeds this value.
+	 * <p>
+	 * Results are still always written to the database, so that pages can be served by any node
+	 * in a cluster. Pages which are not (or no longer) held in memory on the node serving the
+	 * request are read from the database as usual.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setInMemorySearchResultCacheMaxPids(int theInMemorySearchResultCacheMaxPids) {
+		myInMemorySearchResultCacheMaxPids = theInMemorySearchResultCacheMaxPids;
+	}
+
+	/**
+	 * Returns <code>true</code> if the SQL generated for searches is cached by search shape
+	 * (default is <code>false</code>).
+	 *
+	 * @see #setSearchQueryPlanCacheEnabled(boolean)
+	 * @since 8.8.0
+	 */
+	public boolean isSearchQueryPlanCacheEnabled() {
+		return mySearchQueryPlanCacheEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the SQL generated for a search is cached and
+	 * reused by later searches with the same shape, meaning the same resource type, partition,
+	 * parameter names, modifiers, prefixes, number of values and sort. Only the parameter values
+	 * are bound for each search, which saves rendering the SQL on every request.
+	 * <p>
+	 * Only plain token, string, date, number and URI parameters, <code>_lastUpdated</code> and
+	 * sorts on those are eligible. Other searches always render their SQL. If settings which
+	 * affect SQL generation are changed while the server is running, the
+	 * <code>SearchQueryPlanCache</code> bean must be invalidated.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setSearchQueryPlanCacheEnabled(boolean theSearchQueryPlanCacheEnabled) {
+		mySearchQueryPlanCacheEnabled = theSearchQueryPlanCacheEnabled;
+	}
+
+	/**
+	 * Returns the maximum number of chunks of a large query which may be executed concurrently
+	 * (default is <code>1</code>, meaning chunks are executed one after another).
+	 *
+	 * @see #setQueryChunkParallelism(int)
+	 * @since 8.8.0
+	 */
+	public int getQueryChunkParallelism() {
+		return myQueryChunkParallelism;
+	}
+
+	/**
+	 * Queries involving large numbers of resource IDs are broken up into chunks, since many
+	 * databases limit the number of bind variables in a single statement. If this setting is
+	 * greater than <code>1</code> (default is <code>1</code>), the chunks used to load the
+	 * resources for a page of search results (including <code>_include</code>d resources) are
+	 * executed concurrently on a dedicated thread pool of this size, each in its own read-only
+	 * database transaction. Chunks are only executed concurrently when the calling thread has no
+	 * active read-write transaction, since the other threads would not see its uncommitted changes.
+	 * <p>
+	 * Each concurrent chunk holds its own database connection, so the connection pool should be
+	 * sized accordingly.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setQueryChunkParallelism(int theQueryChunkParallelism) {
+		Validate.isTrue(theQueryChunkParallelism >= 1, "theQueryChunkParallelism must be at least 1");
+		myQueryChunkParallelism = theQueryChunkParallelism;
+	}
+
+	/**
+	 * Returns the maximum number of work chunks of a batch job which are sent to the work channel in
+	 * a single notification (default is <code>1</code>).
+	 *
+	 * @see #setJobWorkChunkNotificationBatchSize(int)
+	 * @since 8.8.0
+	 */
+	public int getJobWorkChunkNotificationBatchSize() {
+		return myJobWorkChunkNotificationBatchSize;
+	}
+
+	/**
+	 * The batch job maintenance pass normally sends one notification to the work channel for each
+	 * work chunk which is ready to be processed, and the worker receiving it claims the chunk in its
+	 * own database transaction. If this setting is greater than <code>1</code> (default is
+	 * <code>1</code>), up to this many ready chunks of the same job instance and step are sent in a
+	 * single notification instead, and the worker receiving it claims them all with a single query
+	 * and then processes them one after another. This greatly reduces the number of messages and
+	 * database round trips for jobs with many small chunks, at the cost of spreading the chunks
+	 * across fewer workers.
+	 * <p>
+	 * Only enable this once every server processing batch jobs supports it, since older servers
+	 * only process the first chunk of such a notification.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setJobWorkChunkNotificationBatchSize(int theJobWorkChunkNotificationBatchSize) {
+		Validate.isTrue(
+				theJobWorkChunkNotificationBatchSize >= 1, "theJobWorkChunkNotificationBatchSize must be at least 1");
+		myJobWorkChunkNotificationBatchSize = theJobWorkChunkNotificationBatchSize;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the data of new batch job work chunks is stored
+	 * in a compact compressed encoding instead of as JSON text.
+	 *
+	 * @see #setJobWorkChunkDataCompressionEnabled(boolean)
+	 * @since 8.8.0
+	 */
+	public boolean isJobWorkChunkDataCompressionEnabled() {
+		return myJobWorkChunkDataCompressionEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the data of new batch job work chunks is stored
+	 * in a compact compressed encoding instead of as JSON text. Chunks holding lists of resource
+	 * PIDs, such as those created by bulk export and reindex jobs, are stored as delta encoded
+	 * numbers, which makes them a small fraction of their JSON size. Chunk data is readable
+	 * whichever way it was stored, so this setting can be changed at any time.
+	 * <p>
+	 * Only enable this once every server processing batch jobs supports it, since older servers
+	 * can not read chunks stored this way.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setJobWorkChunkDataCompressionEnabled(boolean theJobWorkChunkDataCompressionEnabled) {
+		myJobWorkChunkDataCompressionEnabled = theJobWorkChunkDataCompressionEnabled;
+	}
+
+	/**
+	 * The number of threads each server uses to pre-expand ValueSets (default is <code>1</code>).
+	 *
+	 * @see #setPreExpandValueSetsThreadCount(int)
+	 * @since 8.8.0
+	 */
+	public int getPreExpandValueSetsThreadCount() {
+		return myPreExpandValueSetsThreadCount;
+	}
+
+	/**
+	 * The number of threads each server uses to pre-expand ValueSets (default is <code>1</code>).
+	 * Each thread claims and expands one ValueSet at a time, so a value greater than <code>1</code>
+	 * lets several ValueSets be expanded at once, e.g. after installing a package containing many
+	 * ValueSets. Each thread uses its own database connection while it is expanding a ValueSet.
+	 *
+	 * @see #setEnableTaskPreExpandValueSets(boolean)
+	 * @since 8.8.0
+	 */
+	public void setPreExpandValueSetsThreadCount(int thePreExpandValueSetsThreadCount) {
+		Validate.isTrue(thePreExpandValueSetsThreadCount >= 1, "thePreExpandValueSetsThreadCount must be at least 1");
+		myPreExpandValueSetsThreadCount = thePreExpandValueSetsThreadCount;
+	}
+
+	/**
+	 * The largest pre-expanded ValueSet, in number of codes, for which an in-memory membership index
+	 * is kept for code validation (default is <code>0</code>, meaning that no index is kept).
+	 *
+	 * @see #setPreExpandedValueSetMembershipIndexMaxCodes(int)
+	 * @since 8.8.0
+	 */
+	public int getPreExpandedValueSetMembershipIndexMaxCodes() {
+		return myPreExpandedValueSetMembershipIndexMaxCodes;
+	}
+
+	/**
+	 * The largest pre-expanded ValueSet, in number of codes, for which an in-memory membership index
+	 * is kept for code validation (default is <code>0</code>, meaning that no index is kept).
+	 * <p>
+	 * When a code is validated against a pre-expanded ValueSet with no more than this many codes, all
+	 * of the codes in the expansion are loaded into a node-local index the first time, and subsequent
+	 * validations against that ValueSet do not need to query the database. The index is discarded
+	 * whenever the validation caches are invalidated, e.g. when a ValueSet is expanded again. Each
+	 * indexed code uses roughly 100 bytes of heap plus the size of its code and display.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setPreExpandedValueSetMembershipIndexMaxCodes(int thePreExpandedValueSetMembershipIndexMaxCodes) {
+		Validate.isTrue(
+				thePreExpandedValueSetMembershipIndexMaxCodes >= 0,
+				"thePreExpandedValueSetMembershipIndexMaxCodes must not be negative");
+		myPreExpandedValueSetMembershipIndexMaxCodes = thePreExpandedValueSetMembershipIndexMaxCodes;
+	}
+
 	public enum StoreMetaSourceInformationEnum {
 		NONE(false, false),
 		SOURCE_URI(true, false),
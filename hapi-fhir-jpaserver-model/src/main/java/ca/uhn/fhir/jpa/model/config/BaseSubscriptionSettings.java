@@ -35,6 +35,7 @@ public abstract class BaseSubscriptionSettings {
 	public static final String DEFAULT_RESTHOOK_ENDPOINTURL_VALIDATION_REGEX =
 			"((((http?|https?)://))([-%()_.!~*';/?:@&=+$,A-Za-z0-9])+)";
 	public static final long DEFAULT_SUBMISSION_INTERVAL_IN_MS = 5000;
+	public static final long DEFAULT_DELIVERY_CIRCUIT_BREAKER_OPEN_MILLIS = 30000;
 
 	private final Set<Subscription.SubscriptionChannelType> mySupportedSubscriptionTypes = new HashSet<>();
 	private String myEmailFromAddress = DEFAULT_EMAIL_FROM_ADDRESS;
@@ -44,6 +45,10 @@ public abstract class BaseSubscriptionSettings {
 	private boolean myEnableInMemorySubscriptionMatching = true;
 	private boolean myTriggerSubscriptionsForNonVersioningChanges;
 	private long mySubmissionIntervalInMs = DEFAULT_SUBMISSION_INTERVAL_IN_MS;
+	private int myMaxPendingDeliveriesPerSubscription = 0;
+	private int myMaxConcurrentDeliveriesPerSubscription = 0;
+	private int myDeliveryCircuitBreakerFailureThreshold = 0;
+	private long myDeliveryCircuitBreakerOpenMillis = DEFAULT_DELIVERY_CIRCUIT_BREAKER_OPEN_MILLIS;
 
 	/**
 	 * @since 6.8.0
@@ -322,4 +327,106 @@ public abstract class BaseSubscriptionSettings {
 	public void setSubscriptionIntervalInMs(long theSubscriptionIntervalInMs) {
 		mySubmissionIntervalInMs = theSubscriptionIntervalInMs;
 	}
+
+	/**
+	 * The maximum number of deliveries which may be waiting to be delivered for a single subscription.
+	 * Once this many are waiting, newly matched resources for that subscription are persisted and retried
+	 * later instead of being queued, so that a slow endpoint can't block the matching of resources for every
+	 * other subscription. Defaults to {@literal 0}, which means there is no limit.
+	 * <p>
+	 * Pending deliveries are counted in the process which matched them, so this setting should only be
+	 * used when deliveries are consumed by the same process, as is the case with the in-memory broker.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public int getMaxPendingDeliveriesPerSubscription() {
+		return myMaxPendingDeliveriesPerSubscription;
+	}
+
+	/**
+	 * The maximum number of deliveries which may be waiting to be delivered for a single subscription.
+	 * Once this many are waiting, newly matched resources for that subscription are persisted and retried
+	 * later instead of being queued, so that a slow endpoint can't block the matching of resources for every
+	 * other subscription. Defaults to {@literal 0}, which means there is no limit.
+	 * <p>
+	 * Pending deliveries are counted in the process which matched them, so this setting should only be
+	 * used when deliveries are consumed by the same process, as is the case with the in-memory broker.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setMaxPendingDeliveriesPerSubscription(int theMaxPendingDeliveriesPerSubscription) {
+		myMaxPendingDeliveriesPerSubscription = theMaxPendingDeliveriesPerSubscription;
+	}
+
+	/**
+	 * The maximum number of deliveries which may be in progress at the same time for a single subscription.
+	 * Deliveries beyond this limit wait until one of the deliveries in progress has completed. Defaults to
+	 * {@literal 0}, which means there is no limit.
+	 *
+	 * @since 8.8.0
+	 */
+	public int getMaxConcurrentDeliveriesPerSubscription() {
+		return myMaxConcurrentDeliveriesPerSubscription;
+	}
+
+	/**
+	 * The maximum number of deliveries which may be in progress at the same time for a single subscription.
+	 * Deliveries beyond this limit wait until one of the deliveries in progress has completed. Defaults to
+	 * {@literal 0}, which means there is no limit.
+	 *
+	 * @since 8.8.0
+	 */
+	public void setMaxConcurrentDeliveriesPerSubscription(int theMaxConcurrentDeliveriesPerSubscription) {
+		myMaxConcurrentDeliveriesPerSubscription = theMaxConcurrentDeliveriesPerSubscription;
+	}
+
+	/**
+	 * The number of consecutive failed deliveries after which deliveries for a subscription are suspended
+	 * (the circuit is opened) for {@link #getDeliveryCircuitBreakerOpenMillis()}. While suspended, newly
+	 * matched resources for the subscription are persisted and retried later, and deliveries which are
+	 * already queued wait without contacting the endpoint. Defaults to {@literal 0}, which means deliveries
+	 * are never suspended.
+	 *
+	 * @since 8.8.0
+	 */
+	public int getDeliveryCircuitBreakerFailureThreshold() {
+		return myDeliveryCircuitBreakerFailureThreshold;
+	}
+
+	/**
+	 * The number of consecutive failed deliveries after which deliveries for a subscription are suspended
+	 * (the circuit is opened) for {@link #getDeliveryCircuitBreakerOpenMillis()}. While suspended, newly
+	 * matched resources for the subscription are persisted and retried later, and deliveries which are
+	 * already queued wait without contacting the endpoint. Defaults to {@literal 0}, which means deliveries
+	 * are never suspended.
+	 *
+	 * @since 8.8.0
+	 */
+	public void setDeliveryCircuitBreakerFailureThreshold(int theDeliveryCircuitBreakerFailureThreshold) {
+		myDeliveryCircuitBreakerFailureThreshold = theDeliveryCircuitBreakerFailureThreshold;
+	}
+
+	/**
+	 * How long deliveries for a subscription are suspended once its circuit has been opened. After this
+	 * period a single trial delivery is allowed through, and the circuit is closed again if it succeeds.
+	 * Defaults to {@link #DEFAULT_DELIVERY_CIRCUIT_BREAKER_OPEN_MILLIS}.
+	 *
+	 * @since 8.8.0
+	 */
+	public long getDeliveryCircuitBreakerOpenMillis() {
+		return myDeliveryCircuitBreakerOpenMillis;
+	}
+
+	/**
+	 * How long deliveries for a subscription are suspended once its circuit has been opened. After this
+	 * period a single trial delivery is allowed through, and the circuit is closed again if it succeeds.
+	 * Defaults to {@link #DEFAULT_DELIVERY_CIRCUIT_BREAKER_OPEN_MILLIS}.
+	 *
+	 * @since 8.8.0
+	 */
+	public void setDeliveryCircuitBreakerOpenMillis(long theDeliveryCircuitBreakerOpenMillis) {
+		myDeliveryCircuitBreakerOpenMillis = theDeliveryCircuitBreakerOpenMillis;
+	}
 }
@@ -0,0 +1,304 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.dao;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A set of {@link JpaPid} which stores the resource IDs and partition IDs in primitive
+ * arrays instead of holding on to the {@link JpaPid} instances themselves. This uses a small
+ * fraction of the memory of a {@link java.util.HashSet} and creates no garbage per entry,
+ * which matters for searches that need to track hundreds of thousands of PIDs.
+ * <p>
+ * Like {@link JpaPid#equals(Object)}, membership is determined by the resource ID only.
+ * Only the resource ID and partition ID of each PID are retained, so the {@link JpaPid}
+ * instances returned when iterating over the set are new instances which do not carry
+ * the resource type or version of the instances that were added.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public class JpaPidSet extends AbstractSet<JpaPid> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int NULL_PARTITION_ID = Integer.MIN_VALUE;
+	private static final byte SLOT_EMPTY = 0;
+	private static final byte SLOT_FULL = 1;
+	private static final byte SLOT_REMOVED = 2;
+
+	private long[] myIds;
+	private int[] myPartitionIds;
+	private byte[] mySlotStates;
+	private int mySize;
+	private int myUsedSlots;
+	private int myModCount;
+
+	/**
+	 * Constructor
+	 */
+	public JpaPidSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theExpectedSize The number of PIDs the set is expected to hold
+	 */
+	public JpaPidSet(int theExpectedSize) {
+		allocate(tableSizeFor(theExpectedSize));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param thePids The PIDs to populate the set with
+	 */
+	public JpaPidSet(@Nonnull Collection<JpaPid> thePids) {
+		this(thePids.size());
+		addAll(thePids);
+	}
+
+	@Override
+	public boolean add(@Nonnull JpaPid thePid) {
+		Objects.requireNonNull(thePid.getId(), "thePid must have an ID");
+		return addId(thePid.getId(), thePid.getPartitionId());
+	}
+
+	/**
+	 * Adds a PID to the set without requiring a {@link JpaPid} instance
+	 *
+	 * @return Returns <code>true</code> if the set did not already contain the resource ID
+	 */
+	public boolean addId(long theId, @Nullable Integer thePartitionId) {
+		int slot = findSlot(theId);
+		if (slot >= 0) {
+			return false;
+		}
+
+		slot = -slot - 1;
+		if (mySlotStates[slot] == SLOT_EMPTY) {
+			myUsedSlots++;
+		}
+		myIds[slot] = theId;
+		myPartitionIds[slot] = thePartitionId != null ? thePartitionId : NULL_PARTITION_ID;
+		mySlotStates[slot] = SLOT_FULL;
+		mySize++;
+		myModCount++;
+
+		if (myUsedSlots * 2 > myIds.length) {
+			rehash(mySize * 2 > myIds.length / 2 ? myIds.length * 2 : myIds.length);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object theObject) {
+		if (!(theObject instanceof JpaPid)) {
+			return false;
+		}
+		Long id = ((JpaPid) theObject).getId();
+		return id != null && containsId(id);
+	}
+
+	public boolean containsId(long theId) {
+		return findSlot(theId) >= 0;
+	}
+
+	@Override
+	public boolean remove(Object theObject) {
+		if (!(theObject instanceof JpaPid)) {
+			return false;
+		}
+		Long id = ((JpaPid) theObject).getId();
+		return id != null && removeId(id);
+	}
+
+	public boolean removeId(long theId) {
+		int slot = findSlot(theId);
+		if (slot < 0) {
+			return false;
+		}
+		removeSlot(slot);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return mySize;
+	}
+
+	@Override
+	public void clear() {
+		allocate(DEFAULT_CAPACITY);
+		mySize = 0;
+		myUsedSlots = 0;
+		myModCount++;
+	}
+
+	/**
+	 * Returns the resource IDs in this set, in no particular order
+	 */
+	@Nonnull
+	public List<Long> toLongList() {
+		List<Long> retVal = new ArrayList<>(mySize);
+		for (int i = 0; i < myIds.length; i++) {
+			if (mySlotStates[i] == SLOT_FULL) {
+				retVal.add(myIds[i]);
+			}
+		}
+		return retVal;
+	}
+
+	@Nonnull
+	@Override
+	public Iterator<JpaPid> iterator() {
+		return new PidIterator();
+	}
+
+	/**
+	 * @return The slot containing the ID if it is present, or <code>-(slot + 1)</code> where
+	 * 	slot is the slot the ID should be inserted into if it is not
+	 */
+	private int findSlot(long theId) {
+		int mask = myIds.length - 1;
+		int firstRemoved = -1;
+		int slot = hash(theId) & mask;
+		while (true) {
+			byte state = mySlotStates[slot];
+			if (state == SLOT_EMPTY) {
+				return -(firstRemoved != -1 ? firstRemoved : slot) - 1;
+			}
+			if (state == SLOT_FULL) {
+				if (myIds[slot] == theId) {
+					return slot;
+				}
+			} else if (firstRemoved == -1) {
+				firstRemoved = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private void removeSlot(int theSlot) {
+		mySlotStates[theSlot] = SLOT_REMOVED;
+		mySize--;
+		myModCount++;
+	}
+
+	private void rehash(int theNewCapacity) {
+		long[] oldIds = myIds;
+		int[] oldPartitionIds = myPartitionIds;
+		byte[] oldSlotStates = mySlotStates;
+
+		allocate(theNewCapacity);
+		int mask = theNewCapacity - 1;
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldSlotStates[i] == SLOT_FULL) {
+				int slot = hash(oldIds[i]) & mask;
+				while (mySlotStates[slot] != SLOT_EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				myIds[slot] = oldIds[i];
+				myPartitionIds[slot] = oldPartitionIds[i];
+				mySlotStates[slot] = SLOT_FULL;
+			}
+		}
+		myUsedSlots = mySize;
+	}
+
+	private void allocate(int theCapacity) {
+		myIds = new long[theCapacity];
+		myPartitionIds = new int[theCapacity];
+		mySlotStates = new byte[theCapacity];
+	}
+
+	private static int hash(long theId) {
+		long hash = theId * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private static int tableSizeFor(int theExpectedSize) {
+		int wanted = Math.max(DEFAULT_CAPACITY, theExpectedSize * 2 + 1);
+		return Integer.highestOneBit(wanted - 1) << 1;
+	}
+
+	private class PidIterator implements Iterator<JpaPid> {
+
+		private int myNextSlot = -1;
+		private int myLastSlot = -1;
+		private int myExpectedModCount = myModCount;
+
+		PidIterator() {
+			advance();
+		}
+
+		private void advance() {
+			do {
+				myNextSlot++;
+			} while (myNextSlot < myIds.length && mySlotStates[myNextSlot] != SLOT_FULL);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return myNextSlot < myIds.length;
+		}
+
+		@Override
+		public JpaPid next() {
+			if (myExpectedModCount != myModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			myLastSlot = myNextSlot;
+			advance();
+			int partitionId = myPartitionIds[myLastSlot];
+			return JpaPid.fromId(myIds[myLastSlot], partitionId != NULL_PARTITION_ID ? partitionId : null);
+		}
+
+		@Override
+		public void remove() {
+			if (myLastSlot == -1) {
+				throw new IllegalStateException();
+			}
+			if (myExpectedModCount != myModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeSlot(myLastSlot);
+			myLastSlot = -1;
+			myExpectedModCount = myModCount;
+		}
+	}
+}
@@ -40,6 +40,14 @@ public enum ResourceEncodingEnum {
 	 */
 	JSONC,
 
+	/**
+	 * Json Compressed using a preset dictionary of common FHIR JSON fragments, which
+	 * typically produces smaller payloads than {@link #JSONC}
+	 *
+	 * @since 8.8.0
+	 */
+	JSOND,
+
 	/**
 	 * Resource was deleted - No contents expected
 	 */
@@ -0,0 +1,128 @@
+package ca.uhn.fhir.jpa.model.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static ca.uhn.fhir.jpa.model.dao.JpaPid.fromId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JpaPidSetTest {
+
+	@Test
+	void testAddAndContains() {
+		JpaPidSet set = new JpaPidSet();
+
+		assertTrue(set.add(fromId(1L)));
+		assertTrue(set.add(fromId(2L, 5)));
+		assertFalse(set.add(fromId(1L, 3)));
+
+		assertEquals(2, set.size());
+		assertTrue(set.contains(fromId(1L)));
+		assertTrue(set.contains(fromId(2L)));
+		assertFalse(set.contains(fromId(3L)));
+		assertFalse(set.contains("1"));
+		assertTrue(set.containsId(2L));
+	}
+
+	@Test
+	void testIterateRetainsPartitionId() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(1L), fromId(2L, 5), fromId(3L, -1)));
+
+		List<JpaPid> pids = set.stream().sorted().toList();
+
+		assertThat(pids).containsExactlyInAnyOrder(fromId(1L), fromId(2L), fromId(3L));
+		for (JpaPid next : pids) {
+			if (next.getId() == 1L) {
+				assertNull(next.getPartitionId());
+			} else if (next.getId() == 2L) {
+				assertEquals(5, next.getPartitionId());
+			} else {
+				assertEquals(-1, next.getPartitionId());
+			}
+		}
+	}
+
+	@Test
+	void testRemove() {
+		JpaPidSet set = new JpaPidSet();
+		for (long i = 0; i < 100; i++) {
+			set.add(fromId(i));
+		}
+
+		for (long i = 0; i < 100; i += 2) {
+			assertTrue(set.remove(fromId(i)));
+		}
+		assertFalse(set.remove(fromId(0L)));
+
+		assertEquals(50, set.size());
+		for (long i = 0; i < 100; i++) {
+			assertEquals(i % 2 == 1, set.containsId(i));
+		}
+
+		// Re-adding into removed slots
+		assertTrue(set.add(fromId(0L)));
+		assertEquals(51, set.size());
+	}
+
+	@Test
+	void testIteratorRemove() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(1L), fromId(2L), fromId(3L)));
+
+		for (Iterator<JpaPid> iter = set.iterator(); iter.hasNext(); ) {
+			if (iter.next().getId() != 2L) {
+				iter.remove();
+			}
+		}
+
+		assertEquals(Set.of(fromId(2L)), set);
+	}
+
+	@Test
+	void testRemoveAllAndToLongList() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(1L), fromId(2L), fromId(3L)));
+
+		set.removeAll(List.of(fromId(1L), fromId(3L)));
+
+		assertEquals(List.of(2L), set.toLongList());
+	}
+
+	@Test
+	void testClear() {
+		JpaPidSet set = new JpaPidSet(List.of(fromId(1L), fromId(2L)));
+
+		set.clear();
+
+		assertTrue(set.isEmpty());
+		assertFalse(set.containsId(1L));
+		assertTrue(set.add(fromId(1L)));
+	}
+
+	@Test
+	void testBehavesLikeHashSet() {
+		Random random = new Random(123);
+		JpaPidSet set = new JpaPidSet();
+		Set<JpaPid> expected = new HashSet<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			JpaPid pid = fromId((long) random.nextInt(20_000) - 1000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(pid), set.remove(pid));
+			} else {
+				assertEquals(expected.add(pid), set.add(pid));
+			}
+		}
+
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected, set);
+		assertEquals(set, expected);
+	}
+}
@@ -144,6 +144,28 @@ public final class ResourceIndexedSearchParams {
 		}
 	}
 
+	/**
+	 * Adds all of the indexes held by another instance to this one
+	 *
+	 * @since 8.8.0
+	 */
+	public void addAll(ResourceIndexedSearchParams theOther) {
+		myStringParams.addAll(theOther.myStringParams);
+		myTokenParams.addAll(theOther.myTokenParams);
+		myNumberParams.addAll(theOther.myNumberParams);
+		myQuantityParams.addAll(theOther.myQuantityParams);
+		myQuantityNormalizedParams.addAll(theOther.myQuantityNormalizedParams);
+		myDateParams.addAll(theOther.myDateParams);
+		myUriParams.addAll(theOther.myUriParams);
+		myCoordsParams.addAll(theOther.myCoordsParams);
+		myComboStringUniques.addAll(theOther.myComboStringUniques);
+		myComboTokenNonUnique.addAll(theOther.myComboTokenNonUnique);
+		myLinks.addAll(theOther.myLinks);
+		mySearchParamPresentEntities.addAll(theOther.mySearchParamPresentEntities);
+		myCompositeParams.addAll(theOther.myCompositeParams);
+		myPopulatedResourceLinkParameters.addAll(theOther.myPopulatedResourceLinkParameters);
+	}
+
 	public Collection<ResourceLink> getResourceLinks() {
 		return myLinks;
 	}
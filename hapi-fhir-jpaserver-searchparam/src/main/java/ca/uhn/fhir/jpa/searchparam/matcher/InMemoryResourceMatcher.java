@@ -158,6 +158,34 @@ public class InMemoryResourceMatcher {
 			IBaseResource theResource,
 			@Nullable ResourceIndexedSearchParams theIndexedSearchParams,
 			RequestDetails theRequestDetails) {
+		return match(theCriteria, theResource, theIndexedSearchParams, null, theRequestDetails);
+	}
+
+	/**
+	 * Tries to match the resource held by <code>theLazyIndexedSearchParams</code> in-memory. The search
+	 * parameters needed by the criteria are extracted through (and cached in) <code>theLazyIndexedSearchParams</code>,
+	 * so when several criteria are matched against the same resource each parameter is only extracted once.
+	 *
+	 * @since 8.8.0
+	 */
+	public InMemoryMatchResult matchUsingCachedIndexes(
+			String theCriteria,
+			LazyResourceIndexedSearchParams theLazyIndexedSearchParams,
+			RequestDetails theRequestDetails) {
+		return match(
+				theCriteria,
+				theLazyIndexedSearchParams.getResource(),
+				null,
+				theLazyIndexedSearchParams,
+				theRequestDetails);
+	}
+
+	private InMemoryMatchResult match(
+			String theCriteria,
+			IBaseResource theResource,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams,
+			@Nullable LazyResourceIndexedSearchParams theLazyIndexedSearchParams,
+			RequestDetails theRequestDetails) {
 		RuntimeResourceDefinition resourceDefinition;
 		if (theResource == null) {
 			Validate.isTrue(
@@ -179,6 +207,9 @@ public class InMemoryResourceMatcher {
 		ResourceIndexedSearchParams relevantSearchParams = null;
 		if (theIndexedSearchParams != null) {
 			relevantSearchParams = theIndexedSearchParams;
+		} else if (theLazyIndexedSearchParams != null && theResource != null) {
+			relevantSearchParams = theLazyIndexedSearchParams.getIndexedSearchParams(
+					searchParameterMap.keySet(), myIndexedSearchParamExtractor, theRequestDetails);
 		} else if (theResource != null) {
 			// Don't index search params we don't actually need for the given criteria
 			ISearchParamExtractor.ISearchParamFilter filter = theSearchParams -> theSearchParams.stream()
@@ -0,0 +1,104 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA - Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.searchparam.matcher;
+
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the search parameter indexes extracted from a single resource so that they can be shared by
+ * every matcher which evaluates criteria against that resource, e.g. all of the subscriptions and
+ * subscription topics being checked for a single resource modification. Indexes are only extracted
+ * for the search parameters a caller actually asks for, and each parameter is only extracted once.
+ * <p>
+ * Thread-safety: This class is thread-safe. Each call to {@link #getIndexedSearchParams(Collection, IndexedSearchParamExtractor, RequestDetails)}
+ * returns a snapshot which is never modified afterwards, so callers can read it without locking.
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public class LazyResourceIndexedSearchParams {
+
+	private final IBaseResource myResource;
+	private final Set<String> myExtractedParamNames = new HashSet<>();
+	private ResourceIndexedSearchParams myIndexedSearchParams = ResourceIndexedSearchParams.withSets();
+
+	/**
+	 * Constructor
+	 *
+	 * @param theResource The resource to extract indexes from (may be <code>null</code>, e.g. for a deleted resource)
+	 */
+	public LazyResourceIndexedSearchParams(@Nullable IBaseResource theResource) {
+		myResource = theResource;
+	}
+
+	@Nullable
+	public IBaseResource getResource() {
+		return myResource;
+	}
+
+	/**
+	 * Returns the indexes for (at least) the given search parameters, extracting any which have not
+	 * already been extracted for this resource. The returned object may also contain indexes for other
+	 * search parameters which were requested earlier.
+	 */
+	@Nonnull
+	public ResourceIndexedSearchParams getIndexedSearchParams(
+			Collection<String> theParamNames,
+			IndexedSearchParamExtractor theIndexedSearchParamExtractor,
+			@Nullable RequestDetails theRequestDetails) {
+		Validate.notNull(myResource, "No resource to extract search parameters from");
+
+		synchronized (myExtractedParamNames) {
+			if (myExtractedParamNames.containsAll(theParamNames)) {
+				return myIndexedSearchParams;
+			}
+
+			Set<String> paramNamesToExtract = new HashSet<>(theParamNames);
+			paramNamesToExtract.removeAll(myExtractedParamNames);
+			ISearchParamExtractor.ISearchParamFilter filter = theSearchParams -> theSearchParams.stream()
+					.filter(t -> paramNamesToExtract.contains(t.getName()))
+					.collect(Collectors.toList());
+			ResourceIndexedSearchParams extracted =
+					theIndexedSearchParamExtractor.extractIndexedSearchParams(myResource, theRequestDetails, filter);
+
+			/*
+			 * Callers may still be reading the previous instance, so rather than adding to it we
+			 * replace it with a new one.
+			 */
+			ResourceIndexedSearchParams retVal = ResourceIndexedSearchParams.withSets();
+			retVal.addAll(myIndexedSearchParams);
+			retVal.addAll(extracted);
+			myIndexedSearchParams = retVal;
+			myExtractedParamNames.addAll(paramNamesToExtract);
+			return retVal;
+		}
+	}
+}
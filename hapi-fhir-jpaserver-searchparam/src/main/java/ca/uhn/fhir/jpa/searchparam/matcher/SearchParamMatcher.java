@@ -46,6 +46,17 @@ public class SearchParamMatcher {
 		return myInMemoryResourceMatcher.match(theCriteria, theResource, null, theRequest);
 	}
 
+	/**
+	 * Matches the resource held by <code>theLazyIndexedSearchParams</code>, reusing (and adding to) the
+	 * search parameter indexes already extracted for it.
+	 *
+	 * @since 8.8.0
+	 */
+	public InMemoryMatchResult matchUsingCachedIndexes(
+			String theCriteria, LazyResourceIndexedSearchParams theLazyIndexedSearchParams, RequestDetails theRequest) {
+		return myInMemoryResourceMatcher.matchUsingCachedIndexes(theCriteria, theLazyIndexedSearchParams, theRequest);
+	}
+
 	public InMemoryMatchResult match(SearchParameterMap theSearchParameterMap, IBaseResource theResource) {
 		if (theSearchParameterMap.isEmpty()) {
 			return InMemoryMatchResult.successfulMatch();
@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.jpa.searchparam.util;
 
+import ca.uhn.fhir.context.ComboSearchParamType;
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.RuntimeSearchParam;
@@ -34,6 +35,7 @@ import ca.uhn.fhir.rest.param.HasAndListParam;
 import ca.uhn.fhir.rest.param.HasParam;
 import ca.uhn.fhir.rest.param.NumberAndListParam;
 import ca.uhn.fhir.rest.param.NumberParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
 import ca.uhn.fhir.rest.param.QuantityAndListParam;
 import ca.uhn.fhir.rest.param.QuantityParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
@@ -49,6 +51,8 @@ import ca.uhn.fhir.rest.param.UriParam;
 import ca.uhn.fhir.rest.param.binder.QueryParameterAndBinder;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.util.StringUtil;
+import ca.uhn.fhir.util.UrlUtil;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
@@ -56,6 +60,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static org.apache.commons.lang3.StringUtils.stripStart;
+
 public enum JpaParamUtil {
 	;
 
@@ -224,6 +230,58 @@ public enum JpaParamUtil {
 		}
 	}
 
+	/**
+	 * Creates the <code>name=value</code> part of a combo SearchParameter index string for a single
+	 * component value, in the same form as the one stored in the index rows
+	 *
+	 * @param theComboParamType The type of the combo SearchParameter
+	 * @param theParamType      The type of the component (see {@link #getParameterTypeForComposite(ISearchParamRegistry, ComponentAndCorrespondingParam)})
+	 * @param theComponent      The component
+	 * @param theValue          The value being searched for. The only prefix accepted when combo searching is
+	 *                          <code>eq</code>, so it is stripped if present.
+	 * @since 8.8.0
+	 */
+	public static String createComboIndexStringParameter(
+			ComboSearchParamType theComboParamType,
+			RestSearchParameterTypeEnum theParamType,
+			ComponentAndCorrespondingParam theComponent,
+			IQueryParameterType theValue) {
+		String value = stripStart(theValue.getValueAsQueryToken(), ParamPrefixEnum.EQUAL.getValue());
+
+		if (theComboParamType == ComboSearchParamType.NON_UNIQUE
+				&& theParamType == RestSearchParameterTypeEnum.STRING) {
+			value = StringUtil.normalizeStringForSearchIndexing(value);
+		}
+
+		if (theParamType == RestSearchParameterTypeEnum.TOKEN) {
+			/*
+			 * The gender SP indexes a fixed binding ValueSet with a single CodeSystem, so we
+			 * infer the codesystem just to be friendly to clients who don't provide it
+			 * in the search.
+			 */
+			if ("gender".equals(theComponent.getParamName()) || "gender".equals(theComponent.getChain())) {
+				if (!value.contains("|")) {
+					value = "http://hl7.org/fhir/administrative-gender|" + value;
+				}
+			}
+		}
+
+		return UrlUtil.escapeUrlParam(theComponent.getCombinedParamName()) + "=" + UrlUtil.escapeUrlParam(value);
+	}
+
+	/**
+	 * Creates a combo SearchParameter index string from the parameters created by
+	 * {@link #createComboIndexStringParameter(ComboSearchParamType, RestSearchParameterTypeEnum, ComponentAndCorrespondingParam, IQueryParameterType)}.
+	 * The parameters are sorted alphabetically, since that is the order they are indexed in.
+	 *
+	 * @since 8.8.0
+	 */
+	public static String createComboIndexString(String theResourceType, List<String> theParameters) {
+		List<String> parameters = new ArrayList<>(theParameters);
+		Collections.sort(parameters);
+		return theResourceType + "?" + String.join("&", parameters);
+	}
+
 	/**
 	 * Return type for {@link #resolveCompositeComponents(ISearchParamRegistry, RuntimeSearchParam)}
 	 *
@@ -0,0 +1,80 @@
+package ca.uhn.fhir.jpa.searchparam.matcher;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import org.hl7.fhir.r5.model.Observation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LazyResourceIndexedSearchParamsTest {
+
+	private static final FhirContext ourFhirContext = FhirContext.forR5Cached();
+
+	@Mock
+	private IndexedSearchParamExtractor myIndexedSearchParamExtractor;
+
+	@Test
+	public void testEachParameterIsOnlyExtractedOnce() {
+		Observation observation = new Observation();
+		LazyResourceIndexedSearchParams lazy = new LazyResourceIndexedSearchParams(observation);
+
+		ResourceIndexedSearchParams codeParams = ResourceIndexedSearchParams.withSets();
+		codeParams.myTokenParams.add(new ResourceIndexedSearchParamToken(new PartitionSettings(), "Observation", "code", "http://loinc.org", "1234-5"));
+		ResourceIndexedSearchParams statusParams = ResourceIndexedSearchParams.withSets();
+		statusParams.myStringParams.add(new ResourceIndexedSearchParamString(new PartitionSettings(), new StorageSettings(), "Observation", "status", "final", "final"));
+		ArgumentCaptor<ISearchParamExtractor.ISearchParamFilter> filterCaptor = ArgumentCaptor.forClass(ISearchParamExtractor.ISearchParamFilter.class);
+		when(myIndexedSearchParamExtractor.extractIndexedSearchParams(eq(observation), any(), filterCaptor.capture()))
+			.thenReturn(codeParams)
+			.thenReturn(statusParams);
+
+		ResourceIndexedSearchParams first = lazy.getIndexedSearchParams(Set.of("code"), myIndexedSearchParamExtractor, null);
+		assertThat(first.myTokenParams).hasSize(1);
+		assertThat(filteredNames(filterCaptor.getValue())).containsExactly("code");
+
+		// Already extracted
+		ResourceIndexedSearchParams second = lazy.getIndexedSearchParams(Set.of("code"), myIndexedSearchParamExtractor, null);
+		assertSame(first, second);
+
+		// Only the missing parameter is extracted, and the previous indexes are kept
+		ResourceIndexedSearchParams third = lazy.getIndexedSearchParams(Set.of("code", "status"), myIndexedSearchParamExtractor, null);
+		assertThat(filteredNames(filterCaptor.getValue())).containsExactly("status");
+		assertThat(third.myTokenParams).hasSize(1);
+		assertThat(third.myStringParams).hasSize(1);
+
+		// Earlier snapshots aren't modified
+		assertThat(first.myStringParams).isEmpty();
+
+		verify(myIndexedSearchParamExtractor, times(2)).extractIndexedSearchParams(any(), any(), any());
+		verifyNoMoreInteractions(myIndexedSearchParamExtractor);
+	}
+
+	private static List<String> filteredNames(ISearchParamExtractor.ISearchParamFilter theFilter) {
+		RuntimeResourceDefinition def = ourFhirContext.getResourceDefinition("Observation");
+		Collection<RuntimeSearchParam> searchParams = List.of(def.getSearchParam("code"), def.getSearchParam("status"), def.getSearchParam("subject"));
+		return theFilter.filterSearchParams(searchParams).stream().map(RuntimeSearchParam::getName).toList();
+	}
+}
@@ -49,7 +49,28 @@ public class AsyncResourceModifiedSubmitterSvc {
 		myResourceModifiedConsumer = theResourceModifiedConsumer;
 	}
 
+	/**
+	 * Submits persisted messages in batches of {@link #getLimit()}, oldest first. If the consumer supports batch
+	 * submission, each batch is claimed, submitted and deleted in its own transaction. The pass ends once a batch
+	 * comes back short, either because there are no more messages to claim or because submission failed.
+	 */
 	public void runDeliveryPass() {
+		if (!myResourceModifiedConsumer.isBatchSubmissionSupported()) {
+			runDeliveryPassOneAtATime();
+			return;
+		}
+
+		int limit = getLimit();
+		int submittedCount;
+		do {
+			submittedCount = myResourceModifiedConsumer.submitPersistedResourceModifiedMessages(limit);
+			if (submittedCount > 0) {
+				ourLog.debug("Submitted {} persisted resources to consumer channel.", submittedCount);
+			}
+		} while (submittedCount >= limit);
+	}
+
+	private void runDeliveryPassOneAtATime() {
 		boolean hasMoreToFetch = false;
 		int limit = getLimit();
 		do {
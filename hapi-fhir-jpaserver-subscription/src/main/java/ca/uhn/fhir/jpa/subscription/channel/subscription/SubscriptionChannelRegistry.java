@@ -28,6 +28,7 @@ import ca.uhn.fhir.broker.impl.MultiplexingListener;
 import ca.uhn.fhir.jpa.subscription.api.ISubscriptionDeliveryValidator;
 import ca.uhn.fhir.jpa.subscription.channel.models.ProducingChannelParameters;
 import ca.uhn.fhir.jpa.subscription.channel.models.ReceivingChannelParameters;
+import ca.uhn.fhir.jpa.subscription.match.deliver.SubscriptionDeliveryBulkhead;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.ChannelRetryConfiguration;
@@ -63,6 +64,9 @@ public class SubscriptionChannelRegistry {
 	@Autowired
 	private ISubscriptionDeliveryValidator mySubscriptionDeliveryValidator;
 
+	@Autowired(required = false)
+	private SubscriptionDeliveryBulkhead mySubscriptionDeliveryBulkhead;
+
 	public SubscriptionChannelRegistry() {}
 
 	public synchronized void add(ActiveSubscription theActiveSubscription) {
@@ -157,6 +161,10 @@ public class SubscriptionChannelRegistry {
 			ourLog.warn("Failed to remove subscription {} from channel {}", theActiveSubscription.getId(), channelName);
 		}
 
+		if (mySubscriptionDeliveryBulkhead != null) {
+			mySubscriptionDeliveryBulkhead.remove(theActiveSubscription.getId());
+		}
+
 		// This was the last one.  Close and remove the channel
 		if (!myActiveSubscriptionByChannelName.containsKey(channelName)) {
 			myDeliveryConsumerCache.closeAndRemove(channelName);
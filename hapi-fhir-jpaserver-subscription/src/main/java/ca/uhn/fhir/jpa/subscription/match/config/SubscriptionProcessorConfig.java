@@ -24,15 +24,18 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.model.IDefaultPartitionSettings;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.model.config.SubscriptionSettings;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelRegistry;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionDeliveryChannelNamer;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionDeliveryListenerFactory;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionDeliveryValidator;
+import ca.uhn.fhir.jpa.subscription.match.deliver.SubscriptionDeliveryBulkhead;
 import ca.uhn.fhir.jpa.subscription.match.deliver.email.IEmailSender;
 import ca.uhn.fhir.jpa.subscription.match.deliver.email.SubscriptionDeliveringEmailListener;
 import ca.uhn.fhir.jpa.subscription.match.deliver.message.SubscriptionDeliveringMessageListener;
+import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.RestHookDeliveryBatcher;
 import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.SubscriptionDeliveringRestHookListener;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.CompositeInMemoryDaoSubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.DaoSubscriptionMatcher;
@@ -51,6 +54,7 @@ import ca.uhn.fhir.jpa.topic.SubscriptionTopicDispatcher;
 import ca.uhn.fhir.jpa.topic.SubscriptionTopicPayloadBuilder;
 import ca.uhn.fhir.jpa.topic.SubscriptionTopicRegistry;
 import ca.uhn.fhir.jpa.topic.filter.InMemoryTopicFilterMatcher;
+import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
@@ -126,12 +130,26 @@ public class SubscriptionProcessorConfig {
 				theFhirContext, theInterceptorBroadcaster, theSubscriptionChannelRegistry);
 	}
 
+	@Bean
+	public SubscriptionDeliveryBulkhead subscriptionDeliveryBulkhead(SubscriptionSettings theSubscriptionSettings) {
+		return new SubscriptionDeliveryBulkhead(theSubscriptionSettings);
+	}
+
 	@Bean
 	@Scope("prototype")
 	public SubscriptionDeliveringRestHookListener SubscriptionDeliveringRestHookListener() {
 		return new SubscriptionDeliveringRestHookListener();
 	}
 
+	@Bean
+	public RestHookDeliveryBatcher restHookDeliveryBatcher(
+			FhirContext theFhirContext,
+			IInterceptorBroadcaster theInterceptorBroadcaster,
+			IResourceModifiedMessagePersistenceSvc theResourceModifiedMessagePersistenceSvc) {
+		return new RestHookDeliveryBatcher(
+				theFhirContext, theInterceptorBroadcaster, theResourceModifiedMessagePersistenceSvc);
+	}
+
 	@Bean
 	@Scope("prototype")
 	public SubscriptionDeliveringMessageListener subscriptionDeliveringMessageSubscriber(
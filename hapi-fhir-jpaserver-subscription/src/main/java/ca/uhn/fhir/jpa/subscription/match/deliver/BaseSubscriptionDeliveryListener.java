@@ -39,6 +39,7 @@ import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.server.messaging.IMessage;
 import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
 import ca.uhn.fhir.util.BundleBuilder;
+import ca.uhn.fhir.util.StopWatch;
 import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.Nonnull;
 import org.apache.commons.text.StringSubstitutor;
@@ -76,6 +77,9 @@ public abstract class BaseSubscriptionDeliveryListener implements IMessageListen
 	@Autowired
 	private MatchUrlService myMatchUrlService;
 
+	@Autowired(required = false)
+	private SubscriptionDeliveryBulkhead mySubscriptionDeliveryBulkhead;
+
 	@Override
 	public void handleMessage(@Nonnull IMessage<ResourceDeliveryMessage> theMessage) {
 		ResourceDeliveryMessage msg = theMessage.getPayload();
@@ -91,8 +95,19 @@ public abstract class BaseSubscriptionDeliveryListener implements IMessageListen
 			msg.setSubscription(updatedSubscription.getSubscription());
 		}
 
+		String subscriptionIdPart =
+				msg.getSubscription().getIdElement(myFhirContext).getIdPart();
+		boolean deliveryStarted = false;
+		boolean deliveryFailed = false;
+		StopWatch sw = new StopWatch();
 		try {
 
+			if (mySubscriptionDeliveryBulkhead != null) {
+				// Waits while deliveries for this subscription are suspended or at their concurrency limit
+				mySubscriptionDeliveryBulkhead.beginDelivery(subscriptionIdPart);
+				deliveryStarted = true;
+			}
+
 			// Interceptor call: SUBSCRIPTION_BEFORE_DELIVERY
 			HookParams params = new HookParams()
 					.add(ResourceDeliveryMessage.class, msg)
@@ -107,6 +122,10 @@ public abstract class BaseSubscriptionDeliveryListener implements IMessageListen
 			myInterceptorBroadcaster.callHooks(Pointcut.SUBSCRIPTION_AFTER_DELIVERY, params);
 
 		} catch (Exception e) {
+			deliveryFailed = true;
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
 
 			String errorMsg = "Failure handling subscription payload for subscription: " + subscriptionId;
 			ourLog.error(errorMsg, e);
@@ -119,6 +138,10 @@ public abstract class BaseSubscriptionDeliveryListener implements IMessageListen
 			}
 
 			throw new MessagingException(Msg.code(2) + errorMsg, e);
+		} finally {
+			if (deliveryStarted) {
+				mySubscriptionDeliveryBulkhead.endDelivery(subscriptionIdPart, !deliveryFailed, sw.getMillis());
+			}
 		}
 	}
 
@@ -178,6 +201,12 @@ public abstract class BaseSubscriptionDeliveryListener implements IMessageListen
 		myDaoRegistry = theDaoRegistry;
 	}
 
+	@VisibleForTesting
+	public void setSubscriptionDeliveryBulkheadForUnitTest(
+			SubscriptionDeliveryBulkhead theSubscriptionDeliveryBulkhead) {
+		mySubscriptionDeliveryBulkhead = theSubscriptionDeliveryBulkhead;
+	}
+
 	@VisibleForTesting
 	public void setMatchUrlServiceForUnitTest(MatchUrlService theMatchUrlService) {
 		myMatchUrlService = theMatchUrlService;
@@ -0,0 +1,328 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.deliver;
+
+import ca.uhn.fhir.jpa.model.config.SubscriptionSettings;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the deliveries for each subscription isolated from those of every other subscription, so that a
+ * single slow or failing endpoint can't hold up delivery to the others. For each subscription this class
+ * tracks:
+ * <ul>
+ *    <li>The number of deliveries waiting to be delivered, which can be capped using
+ *    {@link SubscriptionSettings#setMaxPendingDeliveriesPerSubscription(int)}. Without a cap, a backed up
+ *    subscription eventually fills its delivery queue, and the thread matching resources then blocks
+ *    until there is room, which delays every subscription. Matches beyond the cap are persisted and
+ *    retried later instead of being queued.</li>
+ *    <li>The number of deliveries in progress, which can be capped using
+ *    {@link SubscriptionSettings#setMaxConcurrentDeliveriesPerSubscription(int)}. Deliveries beyond the cap
+ *    wait until one of the deliveries in progress has completed.</li>
+ *    <li>A circuit breaker, which suspends deliveries after
+ *    {@link SubscriptionSettings#setDeliveryCircuitBreakerFailureThreshold(int) a number of consecutive failures}
+ *    rather than letting each one wait for the endpoint to time out. While the circuit is open, new matches
+ *    are persisted and retried later, and deliveries which are already queued wait for it to close.</li>
+ *    <li>Delivery counts and latencies, available through {@link #getMetrics(String)}.</li>
+ * </ul>
+ * All limits are disabled by default, in which case this class only collects metrics.
+ *
+ * @since 8.8.0
+ */
+public class SubscriptionDeliveryBulkhead {
+	private static final Logger ourLog = LoggerFactory.getLogger(SubscriptionDeliveryBulkhead.class);
+	private static final long MAX_WAIT_MILLIS = 1000;
+
+	private final SubscriptionSettings mySubscriptionSettings;
+	private final Map<String, SubscriptionState> mySubscriptionStates = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor
+	 */
+	public SubscriptionDeliveryBulkhead(SubscriptionSettings theSubscriptionSettings) {
+		mySubscriptionSettings = theSubscriptionSettings;
+	}
+
+	/**
+	 * Called before a matched resource is queued for delivery to the given subscription.
+	 *
+	 * @return Returns <code>false</code> if the delivery should be rejected because the subscription already
+	 * 	has too many deliveries waiting, or because its circuit is open
+	 */
+	public boolean tryEnqueue(String theSubscriptionId) {
+		SubscriptionState state = getState(theSubscriptionId);
+		int maxPending = mySubscriptionSettings.getMaxPendingDeliveriesPerSubscription();
+		synchronized (state) {
+			if (state.isOpen(System.currentTimeMillis())) {
+				state.myRejectedCount++;
+				return false;
+			}
+			if (maxPending > 0 && state.myPendingCount >= maxPending) {
+				state.myRejectedCount++;
+				return false;
+			}
+			state.myPendingCount++;
+			return true;
+		}
+	}
+
+	/**
+	 * Called if a delivery which was accepted by {@link #tryEnqueue(String)} could not actually be queued
+	 */
+	public void enqueueFailed(String theSubscriptionId) {
+		SubscriptionState state = getState(theSubscriptionId);
+		synchronized (state) {
+			state.decrementPending();
+		}
+	}
+
+	/**
+	 * Called when a delivery is taken off the queue, before it is delivered. If the subscription's circuit is
+	 * open, or the subscription already has too many deliveries in progress, this method waits until the
+	 * delivery can go ahead. Each subscription has its own delivery channel, so only deliveries to the same
+	 * subscription are held up. {@link #endDelivery(String, boolean, long)} must be called once the delivery
+	 * is complete.
+	 */
+	public void beginDelivery(String theSubscriptionId) throws InterruptedException {
+		SubscriptionState state = getState(theSubscriptionId);
+		synchronized (state) {
+			/*
+			 * A delivery which is retried by the channel is dequeued more than once, and deliveries
+			 * may also have been queued by another process, so this count is a best effort.
+			 */
+			state.decrementPending();
+
+			long waitMillis;
+			while ((waitMillis = state.getMillisUntilDeliveryAllowed(
+							System.currentTimeMillis(),
+							mySubscriptionSettings.getMaxConcurrentDeliveriesPerSubscription()))
+					> 0) {
+				state.myWaitingCount++;
+				try {
+					// Wake up regularly anyway in case the settings have changed
+					state.wait(Math.min(waitMillis, MAX_WAIT_MILLIS));
+				} finally {
+					state.myWaitingCount--;
+				}
+			}
+
+			if (state.myCircuitState == CircuitStateEnum.HALF_OPEN) {
+				state.myTrialInProgress = true;
+			}
+			state.myInFlightCount++;
+		}
+	}
+
+	/**
+	 * Called when a delivery which was started by {@link #beginDelivery(String)} is complete
+	 */
+	public void endDelivery(String theSubscriptionId, boolean theSuccess, long theLatencyMillis) {
+		SubscriptionState state = getState(theSubscriptionId);
+		int failureThreshold = mySubscriptionSettings.getDeliveryCircuitBreakerFailureThreshold();
+		synchronized (state) {
+			state.myInFlightCount = Math.max(0, state.myInFlightCount - 1);
+			state.myLastLatencyMillis = theLatencyMillis;
+			state.myTotalLatencyMillis += theLatencyMillis;
+			state.myTrialInProgress = false;
+
+			// Let a waiting delivery go ahead (or wait for the circuit to close again)
+			state.notifyAll();
+
+			if (theSuccess) {
+				state.myDeliveredCount++;
+				state.myConsecutiveFailureCount = 0;
+				if (state.myCircuitState != CircuitStateEnum.CLOSED) {
+					ourLog.info("Resuming deliveries for subscription {}", theSubscriptionId);
+					state.myCircuitState = CircuitStateEnum.CLOSED;
+				}
+				return;
+			}
+
+			state.myFailedCount++;
+			state.myConsecutiveFailureCount++;
+			boolean reopen = state.myCircuitState == CircuitStateEnum.HALF_OPEN;
+			boolean open = failureThreshold > 0 && state.myConsecutiveFailureCount >= failureThreshold;
+			if (reopen || (open && state.myCircuitState == CircuitStateEnum.CLOSED)) {
+				ourLog.warn(
+						"Suspending deliveries for subscription {} for {}ms after {} consecutive failure(s)",
+						theSubscriptionId,
+						mySubscriptionSettings.getDeliveryCircuitBreakerOpenMillis(),
+						state.myConsecutiveFailureCount);
+				state.myCircuitState = CircuitStateEnum.OPEN;
+				state.myOpenedAtMillis = System.currentTimeMillis();
+			}
+		}
+	}
+
+	/**
+	 * Discards everything known about the given subscription, e.g. because it has been deleted
+	 */
+	public void remove(String theSubscriptionId) {
+		mySubscriptionStates.remove(theSubscriptionId);
+	}
+
+	/**
+	 * Returns the current metrics for the given subscription, or <code>null</code> if nothing has
+	 * been delivered to it yet
+	 */
+	@Nullable
+	public SubscriptionDeliveryMetrics getMetrics(String theSubscriptionId) {
+		SubscriptionState state = mySubscriptionStates.get(theSubscriptionId);
+		if (state == null) {
+			return null;
+		}
+		synchronized (state) {
+			return state.toMetrics(System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Returns the current metrics for every subscription, keyed by subscription ID
+	 */
+	@Nonnull
+	public Map<String, SubscriptionDeliveryMetrics> getAllMetrics() {
+		Map<String, SubscriptionDeliveryMetrics> retVal = new TreeMap<>();
+		for (String next : mySubscriptionStates.keySet()) {
+			SubscriptionDeliveryMetrics metrics = getMetrics(next);
+			if (metrics != null) {
+				retVal.put(next, metrics);
+			}
+		}
+		return retVal;
+	}
+
+	private SubscriptionState getState(String theSubscriptionId) {
+		return mySubscriptionStates.computeIfAbsent(theSubscriptionId, t -> new SubscriptionState());
+	}
+
+	public enum CircuitStateEnum {
+		/**
+		 * Deliveries are proceeding normally
+		 */
+		CLOSED,
+		/**
+		 * Deliveries are suspended because of repeated failures
+		 */
+		OPEN,
+		/**
+		 * Deliveries have been suspended, and a trial delivery is allowed through to find out
+		 * whether the endpoint has recovered
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * A snapshot of the delivery metrics for a single subscription
+	 *
+	 * @param pendingCount         The number of deliveries waiting to be delivered
+	 * @param waitingCount         The number of dequeued deliveries waiting for the circuit to close or for
+	 *                             a delivery in progress to complete
+	 * @param inFlightCount        The number of deliveries currently in progress
+	 * @param deliveredCount       The total number of successful deliveries
+	 * @param failedCount          The total number of failed deliveries
+	 * @param rejectedCount        The total number of matches rejected because too many deliveries were
+	 *                             pending or the circuit was open
+	 * @param lastLatencyMillis    The time taken by the most recent delivery
+	 * @param averageLatencyMillis The average time taken by a delivery
+	 * @param circuitState         The state of the subscription's circuit breaker
+	 */
+	public record SubscriptionDeliveryMetrics(
+			int pendingCount,
+			int waitingCount,
+			int inFlightCount,
+			long deliveredCount,
+			long failedCount,
+			long rejectedCount,
+			long lastLatencyMillis,
+			long averageLatencyMillis,
+			CircuitStateEnum circuitState) {}
+
+	private class SubscriptionState {
+		private int myPendingCount;
+		private int myWaitingCount;
+		private int myInFlightCount;
+		private long myDeliveredCount;
+		private long myFailedCount;
+		private long myRejectedCount;
+		private long myLastLatencyMillis;
+		private long myTotalLatencyMillis;
+		private int myConsecutiveFailureCount;
+		private CircuitStateEnum myCircuitState = CircuitStateEnum.CLOSED;
+		private long myOpenedAtMillis;
+		private boolean myTrialInProgress;
+
+		private void decrementPending() {
+			myPendingCount = Math.max(0, myPendingCount - 1);
+		}
+
+		/**
+		 * Returns <code>true</code> if the circuit is open, moving it to half-open first if it
+		 * has been open for long enough
+		 */
+		private boolean isOpen(long theNow) {
+			if (myCircuitState == CircuitStateEnum.OPEN
+					&& theNow - myOpenedAtMillis >= mySubscriptionSettings.getDeliveryCircuitBreakerOpenMillis()) {
+				myCircuitState = CircuitStateEnum.HALF_OPEN;
+			}
+			return myCircuitState == CircuitStateEnum.OPEN;
+		}
+
+		/**
+		 * Returns <code>0</code> if a delivery can start now, or otherwise roughly how long to wait before
+		 * checking again
+		 */
+		private long getMillisUntilDeliveryAllowed(long theNow, int theMaxConcurrent) {
+			if (isOpen(theNow)) {
+				return Math.max(
+						1, myOpenedAtMillis + mySubscriptionSettings.getDeliveryCircuitBreakerOpenMillis() - theNow);
+			}
+			if (theMaxConcurrent > 0 && myInFlightCount >= theMaxConcurrent) {
+				return MAX_WAIT_MILLIS;
+			}
+			if (myCircuitState == CircuitStateEnum.HALF_OPEN && myTrialInProgress) {
+				// Only one trial delivery at a time
+				return MAX_WAIT_MILLIS;
+			}
+			return 0;
+		}
+
+		private SubscriptionDeliveryMetrics toMetrics(long theNow) {
+			isOpen(theNow);
+			long completedCount = myDeliveredCount + myFailedCount;
+			long averageLatencyMillis = completedCount > 0 ? myTotalLatencyMillis / completedCount : 0;
+			return new SubscriptionDeliveryMetrics(
+					myPendingCount,
+					myWaitingCount,
+					myInFlightCount,
+					myDeliveredCount,
+					myFailedCount,
+					myRejectedCount,
+					myLastLatencyMillis,
+					averageLatencyMillis,
+					myCircuitState);
+		}
+	}
+}
@@ -0,0 +1,486 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.deliver.resthook;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
+import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryMessage;
+import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
+import ca.uhn.fhir.util.BundleBuilder;
+import ca.uhn.fhir.util.Logs;
+import ca.uhn.fhir.util.StopWatch;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Coalesces REST HOOK notifications for subscriptions which have opted in to batch delivery (see
+ * {@link CanonicalSubscription.RestHookDetails#getBatchMaxSize()}). Notifications going to the same
+ * endpoint with the same headers and encoding are collected into a single <code>history</code> Bundle,
+ * which is sent once it reaches the maximum batch size, or once the oldest notification in it has
+ * waited for the batch window, whichever comes first.
+ * <p>
+ * Submitting a notification only adds it to a batch, so the delivery thread (and the delivery message)
+ * is released straight away rather than being held until the batch is sent. Once a batch has been sent,
+ * the {@link Pointcut#SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY} hooks are called for each notification in
+ * it. If it can not be sent, the {@link Pointcut#SUBSCRIPTION_AFTER_DELIVERY_FAILED} hooks are called
+ * for each notification instead, and the modified resource is persisted, limited to the notification's
+ * subscription, so that it is matched and delivered again later on (see
+ * {@link IResourceModifiedMessagePersistenceSvc}).
+ * </p>
+ * <p>
+ * Batches are sent by a small pool of sender threads owned by this class. The batches for any one
+ * endpoint are sent one at a time, in the order they were filled. Clients are reused for each endpoint,
+ * which means the connections held by the restful client factory's pool are kept alive between batches.
+ * On shutdown, any pending batches are sent before the sender threads are stopped, and anything which
+ * still hasn't been sent is persisted to be retried.
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public class RestHookDeliveryBatcher {
+	public static final long DEFAULT_BATCH_WINDOW_MILLIS = 1000;
+	public static final int DEFAULT_SENDER_THREAD_COUNT = 4;
+	private static final Logger ourLog = LoggerFactory.getLogger(RestHookDeliveryBatcher.class);
+	private static final long CLIENT_CACHE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	private static final long CLIENT_CACHE_MAXIMUM_SIZE = 1000;
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+	private final FhirContext myFhirContext;
+	private final IInterceptorBroadcaster myInterceptorBroadcaster;
+	private final IResourceModifiedMessagePersistenceSvc myResourceModifiedMessagePersistenceSvc;
+	private final ScheduledThreadPoolExecutor mySenderExecutor;
+	private final Map<BatchKey, EndpointQueue> myEndpointQueues = new HashMap<>();
+	private final Cache<BatchKey, IGenericClient> myClients =
+			CacheFactory.build(CLIENT_CACHE_TIMEOUT_MILLIS, CLIENT_CACHE_MAXIMUM_SIZE);
+	private boolean myStopped;
+
+	/**
+	 * Constructor
+	 */
+	public RestHookDeliveryBatcher(
+			FhirContext theFhirContext,
+			IInterceptorBroadcaster theInterceptorBroadcaster,
+			IResourceModifiedMessagePersistenceSvc theResourceModifiedMessagePersistenceSvc) {
+		this(
+				theFhirContext,
+				theInterceptorBroadcaster,
+				theResourceModifiedMessagePersistenceSvc,
+				DEFAULT_SENDER_THREAD_COUNT);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSenderThreadCount The number of threads used to send batches
+	 */
+	public RestHookDeliveryBatcher(
+			FhirContext theFhirContext,
+			IInterceptorBroadcaster theInterceptorBroadcaster,
+			IResourceModifiedMessagePersistenceSvc theResourceModifiedMessagePersistenceSvc,
+			int theSenderThreadCount) {
+		myFhirContext = theFhirContext;
+		myInterceptorBroadcaster = theInterceptorBroadcaster;
+		myResourceModifiedMessagePersistenceSvc = theResourceModifiedMessagePersistenceSvc;
+		BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+				.namingPattern("subscription-resthook-batch-%d")
+				.daemon(true)
+				.build();
+		mySenderExecutor = new ScheduledThreadPoolExecutor(theSenderThreadCount, threadFactory);
+		mySenderExecutor.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Returns <code>true</code> if deliveries for the given subscription should be passed to
+	 * {@link #submit(ResourceDeliveryMessage, CanonicalSubscription, EncodingEnum, IBaseResource)}
+	 * instead of being sent directly. Only plain resource deliveries are coalesced; topic
+	 * subscriptions, subscriptions with payload search criteria and subscriptions without a
+	 * payload already have their own delivery format.
+	 */
+	public static boolean isBatchDelivery(
+			CanonicalSubscription theSubscription, @Nullable EncodingEnum thePayloadType) {
+		return theSubscription.getRestHookDetails().isBatchDelivery()
+				&& !theSubscription.isTopicSubscription()
+				&& !isNotBlank(theSubscription.getPayloadSearchCriteria())
+				&& thePayloadType != null
+				&& isNotBlank(theSubscription.getEndpointUrl());
+	}
+
+	/**
+	 * Adds a notification to the pending batch for the subscription's endpoint. This method does not
+	 * wait for the batch to be sent.
+	 *
+	 * @param thePayloadResource The (already massaged) resource to deliver. May be <code>null</code> for a delete.
+	 * @throws InternalErrorException If this batcher has been stopped
+	 */
+	public void submit(
+			ResourceDeliveryMessage theMsg,
+			CanonicalSubscription theSubscription,
+			EncodingEnum thePayloadType,
+			@Nullable IBaseResource thePayloadResource) {
+		BatchEntry entry;
+		switch (theMsg.getOperationType()) {
+			case CREATE:
+			case UPDATE:
+				if (thePayloadResource == null) {
+					return;
+				}
+				entry = new BatchEntry(theMsg, theSubscription, thePayloadResource, null);
+				break;
+			case DELETE:
+				entry = new BatchEntry(theMsg, theSubscription, null, theMsg.getPayloadId(myFhirContext));
+				break;
+			default:
+				ourLog.warn("Ignoring delivery message of type: {}", theMsg.getOperationType());
+				return;
+		}
+
+		BatchKey key = new BatchKey(
+				theSubscription.getEndpointUrl(), new ArrayList<>(theSubscription.getHeaders()), thePayloadType);
+		int maxSize = theSubscription.getRestHookDetails().getBatchMaxSize();
+		long windowMillis = theSubscription.getRestHookDetails().getBatchWindowMillis();
+		if (windowMillis <= 0) {
+			windowMillis = DEFAULT_BATCH_WINDOW_MILLIS;
+		}
+
+		PendingBatch batch;
+		synchronized (myEndpointQueues) {
+			if (myStopped) {
+				throw newStoppedException();
+			}
+			EndpointQueue queue = myEndpointQueues.computeIfAbsent(key, EndpointQueue::new);
+			batch = queue.myOpenBatch;
+			if (batch == null) {
+				batch = new PendingBatch();
+				queue.myOpenBatch = batch;
+				PendingBatch newBatch = batch;
+				batch.myWindowFlush = mySenderExecutor.schedule(
+						() -> closeBatchIfOpen(queue, newBatch), windowMillis, TimeUnit.MILLISECONDS);
+			}
+			batch.myEntries.add(entry);
+			if (batch.myEntries.size() >= maxSize) {
+				closeBatch(queue);
+			}
+		}
+	}
+
+	/**
+	 * Sends all pending batches, regardless of their size or age, and waits until they have been sent
+	 */
+	@VisibleForTesting
+	public void flushAll() {
+		List<PendingBatch> batches = new ArrayList<>();
+		synchronized (myEndpointQueues) {
+			for (EndpointQueue next : myEndpointQueues.values()) {
+				if (next.myOpenBatch != null) {
+					batches.add(next.myOpenBatch);
+					closeBatch(next);
+				}
+				batches.addAll(next.myReadyBatches);
+			}
+		}
+		for (PendingBatch next : batches) {
+			// Failures have already been handled by the sender thread
+			next.mySent.exceptionally(t -> null).join();
+		}
+	}
+
+	/**
+	 * Returns the number of notifications in batches which have not been sent yet
+	 */
+	@VisibleForTesting
+	public int getPendingNotificationCount() {
+		synchronized (myEndpointQueues) {
+			int retVal = 0;
+			for (EndpointQueue next : myEndpointQueues.values()) {
+				if (next.myOpenBatch != null) {
+					retVal += next.myOpenBatch.myEntries.size();
+				}
+				for (PendingBatch nextReady : next.myReadyBatches) {
+					retVal += nextReady.myEntries.size();
+				}
+			}
+			return retVal;
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		synchronized (myEndpointQueues) {
+			myStopped = true;
+			for (EndpointQueue next : myEndpointQueues.values()) {
+				if (next.myOpenBatch != null) {
+					closeBatch(next);
+				}
+			}
+		}
+
+		// Let the sender threads finish sending everything which is pending
+		mySenderExecutor.shutdown();
+		try {
+			if (!mySenderExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				ourLog.warn("Timed out waiting for pending rest-hook batches to be sent");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		mySenderExecutor.shutdownNow();
+
+		// Anything which still has not been sent is persisted to be retried later
+		List<PendingBatch> unsent = new ArrayList<>();
+		synchronized (myEndpointQueues) {
+			for (EndpointQueue next : myEndpointQueues.values()) {
+				unsent.addAll(next.myReadyBatches);
+				next.myReadyBatches.clear();
+			}
+		}
+		unsent.forEach(t -> handleFailedBatch(t, newStoppedException()));
+	}
+
+	/**
+	 * Called by the window timer. The batch may already have been closed because it filled up.
+	 */
+	private void closeBatchIfOpen(EndpointQueue theQueue, PendingBatch theBatch) {
+		synchronized (myEndpointQueues) {
+			if (theQueue.myOpenBatch == theBatch) {
+				closeBatch(theQueue);
+			}
+		}
+	}
+
+	/**
+	 * Moves the open batch for an endpoint onto its queue of batches to send, and starts sending
+	 * that queue if it is not already being sent. Must be called while holding the lock on
+	 * {@link #myEndpointQueues}.
+	 */
+	private void closeBatch(EndpointQueue theQueue) {
+		PendingBatch batch = theQueue.myOpenBatch;
+		theQueue.myOpenBatch = null;
+		batch.myWindowFlush.cancel(false);
+		theQueue.myReadyBatches.add(batch);
+		if (!theQueue.mySending) {
+			theQueue.mySending = true;
+			mySenderExecutor.execute(() -> sendReadyBatches(theQueue));
+		}
+	}
+
+	/**
+	 * Sends the batches queued for an endpoint one at a time, until there are none left
+	 */
+	private void sendReadyBatches(EndpointQueue theQueue) {
+		while (true) {
+			PendingBatch next;
+			synchronized (myEndpointQueues) {
+				next = theQueue.myReadyBatches.poll();
+				if (next == null) {
+					theQueue.mySending = false;
+					if (theQueue.myOpenBatch == null) {
+						myEndpointQueues.remove(theQueue.myKey, theQueue);
+					}
+					return;
+				}
+			}
+			send(theQueue.myKey, next);
+		}
+	}
+
+	private void send(BatchKey theKey, PendingBatch theBatch) {
+		BundleBuilder bundleBuilder = new BundleBuilder(myFhirContext);
+		bundleBuilder.setType("history");
+		for (BatchEntry next : theBatch.myEntries) {
+			if (next.resource() != null) {
+				bundleBuilder.addTransactionUpdateEntry(next.resource());
+			} else {
+				bundleBuilder.addTransactionDeleteEntry(next.deletedId());
+			}
+		}
+		IBaseBundle bundle = bundleBuilder.getBundle();
+
+		StopWatch sw = new StopWatch();
+		try {
+			IGenericClient client = myClients.get(theKey, this::newClient);
+			client.transaction().withBundle(bundle).encoded(theKey.encoding()).execute();
+		} catch (Exception e) {
+			ourLog.warn(
+					"Failed to deliver batch of {} rest-hook notification(s) to {}: {}",
+					theBatch.myEntries.size(),
+					theKey.endpointUrl(),
+					e.toString());
+			handleFailedBatch(
+					theBatch,
+					new InternalErrorException(
+							Msg.code(2871) + "Failed to deliver rest-hook batch to " + theKey.endpointUrl() + ": "
+									+ e.getMessage(),
+							e));
+			return;
+		}
+
+		Logs.getSubscriptionTroubleshootingLog()
+				.debug(
+						"Delivered batch of {} rest-hook notification(s) to {} in {}",
+						theBatch.myEntries.size(),
+						theKey.endpointUrl(),
+						sw);
+
+		for (BatchEntry next : theBatch.myEntries) {
+			// Interceptor call: SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY
+			HookParams params = new HookParams()
+					.add(CanonicalSubscription.class, next.subscription())
+					.add(ResourceDeliveryMessage.class, next.message());
+			myInterceptorBroadcaster.callHooks(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY, params);
+		}
+		theBatch.mySent.complete(null);
+	}
+
+	private void handleFailedBatch(PendingBatch theBatch, InternalErrorException theException) {
+		for (BatchEntry next : theBatch.myEntries) {
+			// Interceptor call: SUBSCRIPTION_AFTER_DELIVERY_FAILED
+			HookParams hookParams = new HookParams()
+					.add(ResourceDeliveryMessage.class, next.message())
+					.add(Exception.class, theException);
+			if (myInterceptorBroadcaster.callHooks(Pointcut.SUBSCRIPTION_AFTER_DELIVERY_FAILED, hookParams)) {
+				persistForRetry(next);
+			}
+		}
+		theBatch.mySent.completeExceptionally(theException);
+	}
+
+	/**
+	 * Persists the modified resource, limited to the notification's subscription, so that the
+	 * {@link ca.uhn.fhir.jpa.subscription.async.AsyncResourceModifiedSubmitterSvc} submits it for
+	 * matching again later on
+	 */
+	private void persistForRetry(BatchEntry theEntry) {
+		ResourceDeliveryMessage msg = theEntry.message();
+		String subscriptionId =
+				theEntry.subscription().getIdElement(myFhirContext).getIdPart();
+		IIdType payloadId = getVersionedPayloadId(msg);
+		if (payloadId == null || !payloadId.hasVersionIdPart() || subscriptionId == null) {
+			ourLog.error(
+					"Rest-hook notification of {} for subscription {} could not be delivered, and can not be retried",
+					msg.getPayloadId(),
+					subscriptionId);
+			return;
+		}
+
+		ResourceModifiedMessage retryMsg =
+				new ResourceModifiedMessage(payloadId, msg.getOperationType(), msg.getPartitionId());
+		retryMsg.setSubscriptionId(subscriptionId);
+		retryMsg.setTransactionId(msg.getTransactionId());
+		retryMsg.copyAdditionalPropertiesFrom(msg);
+		try {
+			myResourceModifiedMessagePersistenceSvc.persist(retryMsg);
+			ourLog.info(
+					"Rest-hook notification of {} for subscription {} could not be delivered, it will be retried later",
+					payloadId.getValue(),
+					subscriptionId);
+		} catch (RuntimeException e) {
+			ourLog.error(
+					"Rest-hook notification of {} for subscription {} could not be delivered, and could not be persisted for a retry",
+					payloadId.getValue(),
+					subscriptionId,
+					e);
+		}
+	}
+
+	/**
+	 * Delivery messages which carry a payload only keep the versionless ID of the resource, but the
+	 * encoded payload itself still has the version
+	 */
+	@Nullable
+	private IIdType getVersionedPayloadId(ResourceDeliveryMessage theMsg) {
+		IIdType retVal = theMsg.getPayloadId(myFhirContext);
+		String payload = theMsg.getPayloadString();
+		if ((retVal == null || !retVal.hasVersionIdPart()) && isNotBlank(payload)) {
+			IParser parser = EncodingEnum.detectEncoding(payload).newParser(myFhirContext);
+			retVal = parser.parseResource(payload).getIdElement();
+		}
+		return retVal;
+	}
+
+	@Nonnull
+	private static InternalErrorException newStoppedException() {
+		return new InternalErrorException(Msg.code(2869) + "Rest-hook batch delivery has been stopped");
+	}
+
+	@Nonnull
+	private IGenericClient newClient(BatchKey theKey) {
+		return SubscriptionDeliveringRestHookListener.newClient(myFhirContext, theKey.endpointUrl(), theKey.headers());
+	}
+
+	private record BatchKey(String endpointUrl, List<String> headers, EncodingEnum encoding) {}
+
+	private record BatchEntry(
+			ResourceDeliveryMessage message,
+			CanonicalSubscription subscription,
+			@Nullable IBaseResource resource,
+			@Nullable IIdType deletedId) {}
+
+	/**
+	 * The batches for a single endpoint. All fields are guarded by the lock on {@link #myEndpointQueues}.
+	 */
+	private static class EndpointQueue {
+		private final BatchKey myKey;
+		private final Deque<PendingBatch> myReadyBatches = new ArrayDeque<>();
+		private PendingBatch myOpenBatch;
+		private boolean mySending;
+
+		private EndpointQueue(BatchKey theKey) {
+			myKey = theKey;
+		}
+	}
+
+	private static class PendingBatch {
+		private final List<BatchEntry> myEntries = new ArrayList<>();
+		private final CompletableFuture<Void> mySent = new CompletableFuture<>();
+		private ScheduledFuture<?> myWindowFlush;
+	}
+}
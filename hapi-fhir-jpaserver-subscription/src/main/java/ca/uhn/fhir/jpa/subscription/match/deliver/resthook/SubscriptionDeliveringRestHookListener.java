@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.jpa.subscription.match.deliver.resthook;
 
+import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.api.HookParams;
@@ -72,6 +73,9 @@ public class SubscriptionDeliveringRestHookListener extends BaseSubscriptionDeli
 	@Autowired
 	private DaoRegistry myDaoRegistry;
 
+	@Autowired(required = false)
+	private RestHookDeliveryBatcher myRestHookDeliveryBatcher;
+
 	/**
 	 * Constructor
 	 */
@@ -102,6 +106,12 @@ public class SubscriptionDeliveringRestHookListener extends BaseSubscriptionDeli
 			IBaseResource thePayloadResource) {
 		IClientExecutable<?, ?> operation;
 
+		if (isBatchDelivery(theSubscription, thePayloadType)) {
+			// Returns as soon as the notification has been added to a batch
+			myRestHookDeliveryBatcher.submit(theMsg, theSubscription, thePayloadType, thePayloadResource);
+			return;
+		}
+
 		if (theSubscription.isTopicSubscription()) {
 			operation = createDeliveryRequestTopic((IBaseBundle) thePayloadResource, theClient);
 		} else if (isNotBlank(theSubscription.getPayloadSearchCriteria())) {
@@ -271,23 +281,20 @@ public class SubscriptionDeliveringRestHookListener extends BaseSubscriptionDeli
 			payloadType = EncodingEnum.forContentType(payloadString);
 		}
 
-		// Create the client request
-		myFhirContext.getRestfulClientFactory().setServerValidationMode(ServerValidationModeEnum.NEVER);
+		// Create the client request (batched deliveries use a client belonging to the batcher)
+		boolean batchDelivery = isBatchDelivery(subscription, payloadType);
 		IGenericClient client = null;
-		if (isNotBlank(endpointUrl)) {
-			client = myFhirContext.newRestfulGenericClient(endpointUrl);
-
-			// Additional headers specified in the subscription
-			List<String> headers = subscription.getHeaders();
-			for (String next : headers) {
-				if (isNotBlank(next)) {
-					client.registerInterceptor(new SimpleRequestHeaderInterceptor(next));
-				}
-			}
+		if (isNotBlank(endpointUrl) && !batchDelivery) {
+			client = newClient(myFhirContext, endpointUrl, subscription.getHeaders());
 		}
 
 		deliverPayload(theMessage, subscription, payloadType, client);
 
+		// The batcher calls SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY itself once the batch has been sent
+		if (batchDelivery) {
+			return;
+		}
+
 		// Interceptor call: SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY
 		params = new HookParams()
 				.add(CanonicalSubscription.class, subscription)
@@ -298,6 +305,27 @@ public class SubscriptionDeliveringRestHookListener extends BaseSubscriptionDeli
 		}
 	}
 
+	private boolean isBatchDelivery(CanonicalSubscription theSubscription, EncodingEnum thePayloadType) {
+		return myRestHookDeliveryBatcher != null
+				&& RestHookDeliveryBatcher.isBatchDelivery(theSubscription, thePayloadType);
+	}
+
+	/**
+	 * Creates a client for delivering to the given endpoint
+	 *
+	 * @param theHeaders Additional headers specified in the subscription
+	 */
+	static IGenericClient newClient(FhirContext theFhirContext, String theEndpointUrl, List<String> theHeaders) {
+		theFhirContext.getRestfulClientFactory().setServerValidationMode(ServerValidationModeEnum.NEVER);
+		IGenericClient retVal = theFhirContext.newRestfulGenericClient(theEndpointUrl);
+		for (String next : theHeaders) {
+			if (isNotBlank(next)) {
+				retVal.registerInterceptor(new SimpleRequestHeaderInterceptor(next));
+			}
+		}
+		return retVal;
+	}
+
 	/**
 	 * Sends a POST notification without a payload
 	 */
@@ -42,8 +42,8 @@ public class InMemorySubscriptionMatcher implements ISubscriptionMatcher {
 	@Override
 	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg) {
 		try {
-			return mySearchParamMatcher.match(
-					theSubscription.getCriteriaString(), theMsg.getNewResource(myContext), null);
+			return mySearchParamMatcher.matchUsingCachedIndexes(
+					theSubscription.getCriteriaString(), theMsg.getNewResourceIndexedSearchParams(myContext), null);
 		} catch (Exception e) {
 			ourLog.error("Failure in in-memory matcher", e);
 			throw new InternalErrorException(
@@ -29,26 +29,37 @@ import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelRegistry;
+import ca.uhn.fhir.jpa.subscription.match.deliver.SubscriptionDeliveryBulkhead;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryJsonMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 
 public class SubscriptionMatchDeliverer {
 	private static final Logger ourLog = LoggerFactory.getLogger(SubscriptionMatchDeliverer.class);
+	private static final int MAX_PERSIST_ATTEMPTS = 3;
 	private final FhirContext myFhirContext;
 	private final IInterceptorBroadcaster myInterceptorBroadcaster;
 	private final SubscriptionChannelRegistry mySubscriptionChannelRegistry;
 
+	@Autowired(required = false)
+	private SubscriptionDeliveryBulkhead mySubscriptionDeliveryBulkhead;
+
+	@Autowired(required = false)
+	private IResourceModifiedMessagePersistenceSvc myResourceModifiedMessagePersistenceSvc;
+
 	public SubscriptionMatchDeliverer(
 			FhirContext theFhirContext,
 			IInterceptorBroadcaster theInterceptorBroadcaster,
@@ -73,7 +84,7 @@ public class SubscriptionMatchDeliverer {
 		ResourceDeliveryMessage deliveryMsg = buildResourceDeliveryMessage(subscriptionDeliveryRequest);
 		deliveryMsg.copyAdditionalPropertiesFrom(theMsg);
 
-		return sendToDeliveryChannel(theActiveSubscription, theInMemoryMatchResult, deliveryMsg);
+		return sendToDeliveryChannel(theActiveSubscription, theInMemoryMatchResult, deliveryMsg, theMsg);
 	}
 
 	public ISendResult deliverPayload(
@@ -82,13 +93,18 @@ public class SubscriptionMatchDeliverer {
 		ResourceDeliveryMessage deliveryMsg = buildResourceDeliveryMessage(subscriptionDeliveryRequest);
 
 		return sendToDeliveryChannel(
-				subscriptionDeliveryRequest.getActiveSubscription(), theInMemoryMatchResult, deliveryMsg);
+				subscriptionDeliveryRequest.getActiveSubscription(), theInMemoryMatchResult, deliveryMsg, null);
 	}
 
+	/**
+	 * @param theResourceModifiedMsg The message which was matched, if the delivery can be retried by submitting
+	 *                               it again
+	 */
 	private ISendResult sendToDeliveryChannel(
 			@Nonnull ActiveSubscription theActiveSubscription,
 			@Nullable InMemoryMatchResult theInMemoryMatchResult,
-			@Nonnull ResourceDeliveryMessage deliveryMsg) {
+			@Nonnull ResourceDeliveryMessage deliveryMsg,
+			@Nullable ResourceModifiedMessage theResourceModifiedMsg) {
 		if (!callHooks(theActiveSubscription, theInMemoryMatchResult, deliveryMsg)) {
 			return ISendResult.FAILURE;
 		}
@@ -96,12 +112,88 @@ public class SubscriptionMatchDeliverer {
 		ResourceDeliveryJsonMessage wrappedMsg = new ResourceDeliveryJsonMessage(deliveryMsg);
 		IChannelProducer<ResourceDeliveryMessage> deliveryProducer =
 				mySubscriptionChannelRegistry.getDeliveryChannelProducer(theActiveSubscription.getChannelName());
-		if (deliveryProducer != null) {
-			return trySendToDeliveryChannel(wrappedMsg, deliveryProducer);
-		} else {
+		if (deliveryProducer == null) {
 			ourLog.warn("Do not have delivery channel for subscription {}", theActiveSubscription.getId());
+			return ISendResult.FAILURE;
+		}
+
+		/*
+		 * Rather than queueing more deliveries for a subscription which is already backed up (and
+		 * eventually blocking this thread, and therefore every other subscription, until its queue
+		 * has room), we set them aside to be retried later.
+		 */
+		String subscriptionId = theActiveSubscription.getId();
+		if (mySubscriptionDeliveryBulkhead != null && !mySubscriptionDeliveryBulkhead.tryEnqueue(subscriptionId)) {
+			handleRejectedDelivery(subscriptionId, deliveryMsg, theResourceModifiedMsg);
+			return ISendResult.FAILURE;
+		}
+
+		boolean sent = false;
+		try {
+			ISendResult retVal = trySendToDeliveryChannel(wrappedMsg, deliveryProducer);
+			sent = retVal.isSuccessful();
+			return retVal;
+		} finally {
+			if (!sent && mySubscriptionDeliveryBulkhead != null) {
+				mySubscriptionDeliveryBulkhead.enqueueFailed(subscriptionId);
+			}
+		}
+	}
+
+	/**
+	 * Persists the matched message again, limited to the given subscription, so that the
+	 * {@link ca.uhn.fhir.jpa.subscription.async.AsyncResourceModifiedSubmitterSvc} submits it for
+	 * matching again later on. Deliveries of Subscription Topic notifications have no such message
+	 * and are not retried.
+	 */
+	private void handleRejectedDelivery(
+			String theSubscriptionId,
+			ResourceDeliveryMessage theDeliveryMsg,
+			@Nullable ResourceModifiedMessage theResourceModifiedMsg) {
+		InternalErrorException exception = new InternalErrorException(Msg.code(2868) + "Delivery to subscription "
+				+ theSubscriptionId + " was rejected because its deliveries are suspended or backed up");
+
+		// Interceptor call: SUBSCRIPTION_AFTER_DELIVERY_FAILED
+		HookParams hookParams = new HookParams()
+				.add(ResourceDeliveryMessage.class, theDeliveryMsg)
+				.add(Exception.class, exception);
+		if (!myInterceptorBroadcaster.callHooks(Pointcut.SUBSCRIPTION_AFTER_DELIVERY_FAILED, hookParams)) {
+			return;
+		}
+
+		if (theResourceModifiedMsg == null || myResourceModifiedMessagePersistenceSvc == null) {
+			ourLog.warn("{}, and it can not be retried", exception.getMessage());
+			return;
+		}
+
+		ResourceModifiedMessage retryMsg = new ResourceModifiedMessage(
+				theResourceModifiedMsg.getPayloadId(myFhirContext),
+				theResourceModifiedMsg.getOperationType(),
+				theResourceModifiedMsg.getPartitionId());
+		retryMsg.setSubscriptionId(theSubscriptionId);
+		retryMsg.setTransactionId(theResourceModifiedMsg.getTransactionId());
+		retryMsg.setMediaType(theResourceModifiedMsg.getMediaType());
+		retryMsg.setPayloadMessageKey(theResourceModifiedMsg.getPayloadMessageKey());
+		retryMsg.copyAdditionalPropertiesFrom(theResourceModifiedMsg);
+
+		/*
+		 * The message we are retrying may still be persisted, locked by the transaction which submitted
+		 * it, in which case persisting it again fails once that transaction has deleted it. Trying again
+		 * then succeeds.
+		 */
+		for (int attempt = 1; ; attempt++) {
+			try {
+				myResourceModifiedMessagePersistenceSvc.persist(retryMsg);
+				ourLog.info("{}, it will be retried later", exception.getMessage());
+				return;
+			} catch (RuntimeException e) {
+				if (attempt >= MAX_PERSIST_ATTEMPTS) {
+					ourLog.error("{}, and it could not be persisted for a retry", exception.getMessage(), e);
+					return;
+				}
+				ourLog.debug("Failed to persist rejected delivery, trying again", e);
+			}
 		}
-		return ISendResult.FAILURE;
 	}
 
 	private ResourceDeliveryMessage buildResourceDeliveryMessage(@Nonnull SubscriptionDeliveryRequest theRequest) {
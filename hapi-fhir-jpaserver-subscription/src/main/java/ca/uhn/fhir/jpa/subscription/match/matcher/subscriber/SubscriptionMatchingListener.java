@@ -22,29 +22,41 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.subscriber;
 import ca.uhn.fhir.broker.api.IMessageListener;
 import ca.uhn.fhir.broker.api.ISendResult;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.ISubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
+import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
 import ca.uhn.fhir.util.Logs;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.rest.server.messaging.BaseResourceMessage.OperationTypeEnum.DELETE;
-import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 public class SubscriptionMatchingListener implements IMessageListener<ResourceModifiedMessage> {
 	private static final Logger ourLog = Logs.getSubscriptionTroubleshootingLog();
@@ -69,6 +81,12 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 	@Autowired
 	private IResourceModifiedMessagePersistenceSvc myResourceModifiedMessagePersistenceSvc;
 
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
+	@Autowired(required = false)
+	private ISearchParamExtractor mySearchParamExtractor;
+
 	/**
 	 * Constructor
 	 */
@@ -128,7 +146,7 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 	private void doMatchActiveSubscriptionsAndDeliver(ResourceModifiedMessage theMsg) {
 		IIdType resourceId = theMsg.getPayloadId(myFhirContext);
 
-		Collection<ActiveSubscription> subscriptions = mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		Collection<ActiveSubscription> subscriptions = getCandidateSubscriptions(theMsg, resourceId);
 
 		ourLog.trace("Testing {} subscriptions for applicability", subscriptions.size());
 		boolean anySubscriptionsMatchedResource = false;
@@ -145,6 +163,83 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 		}
 	}
 
+	/**
+	 * Returns the subscriptions which need to be evaluated against the modified resource. Rather than
+	 * testing every registered subscription, we ask the registry for the ones whose resource type and
+	 * indexed equality criteria the resource could satisfy.
+	 */
+	private Collection<ActiveSubscription> getCandidateSubscriptions(
+			ResourceModifiedMessage theMsg, IIdType theResourceId) {
+		if (!theMsg.getSubscriptionIds().isEmpty()) {
+			List<ActiveSubscription> retVal = new ArrayList<>();
+			for (String nextSubscriptionId : theMsg.getSubscriptionIds()) {
+				ActiveSubscription activeSubscription = mySubscriptionRegistry.get(nextSubscriptionId);
+				if (activeSubscription != null
+						&& !activeSubscription.getSubscription().isTopicSubscription()) {
+					retVal.add(activeSubscription);
+				}
+			}
+			return retVal;
+		}
+
+		String resourceType = theResourceId != null ? theResourceId.getResourceType() : null;
+		if (isBlank(resourceType)) {
+			return mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		}
+
+		Map<String, Collection<String>> resourceValues = new HashMap<>();
+		return mySubscriptionRegistry.getNonTopicSubscriptionCandidates(
+				resourceType,
+				theParamName -> resourceValues.computeIfAbsent(
+						theParamName, t -> extractIndexedValues(theMsg, theResourceId, resourceType, t)));
+	}
+
+	/**
+	 * Returns the values the modified resource has for the given search parameter, in the form used by
+	 * the subscription criteria index, or <code>null</code> if they can't be determined (in which case
+	 * every subscription indexed on the parameter is evaluated).
+	 */
+	@Nullable
+	private Collection<String> extractIndexedValues(
+			ResourceModifiedMessage theMsg, IIdType theResourceId, String theResourceType, String theParamName) {
+		if (Constants.PARAM_ID.equals(theParamName)) {
+			return theResourceId.hasIdPart() ? List.of(theResourceId.getIdPart()) : null;
+		}
+
+		IBaseResource resource = theMsg.getNewResource(myFhirContext);
+		if (resource == null || mySearchParamExtractor == null) {
+			return null;
+		}
+
+		RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
+				theResourceType, theParamName, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+		if (searchParam == null) {
+			return null;
+		}
+
+		try {
+			switch (searchParam.getParamType()) {
+				case TOKEN:
+					return mySearchParamExtractor.extractSearchParamTokens(resource, searchParam).stream()
+							.filter(ResourceIndexedSearchParamToken.class::isInstance)
+							.map(t -> ((ResourceIndexedSearchParamToken) t).getValue())
+							.filter(Objects::nonNull)
+							.collect(Collectors.toList());
+				case REFERENCE:
+					return mySearchParamExtractor.extractParamValuesAsStrings(searchParam, resource);
+				default:
+					return null;
+			}
+		} catch (RuntimeException e) {
+			ourLog.debug(
+					"Failed to extract {} values from resource {}, evaluating all subscriptions indexed on it",
+					theParamName,
+					theResourceId.toUnqualifiedVersionless().getValue(),
+					e);
+			return null;
+		}
+	}
+
 	/**
 	 * Returns ISendResult.isSuccessful() if subscription matched, and processing completed successfully, and the message was sent to the delivery channel. False otherwise.
 	 */
@@ -163,13 +258,12 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 
 		String nextSubscriptionId = theActiveSubscription.getId();
 
-		if (isNotBlank(theMsg.getSubscriptionId())) {
-			if (!theMsg.getSubscriptionId().equals(nextSubscriptionId)) {
-				// TODO KHS we should use a hash to look it up instead of this full table scan
+		if (!theMsg.getSubscriptionIds().isEmpty()) {
+			if (!theMsg.getSubscriptionIds().contains(nextSubscriptionId)) {
 				ourLog.debug(
-						"Ignoring subscription {} because it is not {}",
+						"Ignoring subscription {} because it is not one of {}",
 						nextSubscriptionId,
-						theMsg.getSubscriptionId());
+						theMsg.getSubscriptionIds());
 				return ISendResult.FAILURE;
 			}
 		}
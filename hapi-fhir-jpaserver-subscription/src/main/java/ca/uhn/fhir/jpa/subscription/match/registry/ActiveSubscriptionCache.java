@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -40,6 +41,7 @@ class ActiveSubscriptionCache {
 	private static final Logger ourLog = LoggerFactory.getLogger(ActiveSubscriptionCache.class);
 
 	private final Map<String, ActiveSubscription> myCache = new HashMap<>();
+	private final ActiveSubscriptionCriteriaIndex myCriteriaIndex = new ActiveSubscriptionCriteriaIndex();
 
 	public synchronized ActiveSubscription get(String theIdPart) {
 		return myCache.get(theIdPart);
@@ -55,6 +57,7 @@ class ActiveSubscriptionCache {
 
 	public synchronized void put(String theSubscriptionId, ActiveSubscription theActiveSubscription) {
 		myCache.put(theSubscriptionId, theActiveSubscription);
+		myCriteriaIndex.put(theSubscriptionId, theActiveSubscription);
 	}
 
 	public synchronized ActiveSubscription remove(String theSubscriptionId) {
@@ -66,6 +69,7 @@ class ActiveSubscriptionCache {
 		}
 
 		myCache.remove(theSubscriptionId);
+		myCriteriaIndex.remove(theSubscriptionId);
 		return activeSubscription;
 	}
 
@@ -107,4 +111,21 @@ class ActiveSubscriptionCache {
 				.filter(as -> !as.getSubscription().isTopicSubscription())
 				.collect(Collectors.toList());
 	}
+
+	/**
+	 * Returns the non-topic subscriptions which could match a resource of the given type, using the
+	 * criteria index rather than scanning every subscription. The returned subscriptions still need
+	 * to be evaluated against the resource, this method only filters out the ones which can't match.
+	 *
+	 * @param theResourceType          The type of the modified resource
+	 * @param theResourceValueFunction Supplies the values the modified resource has for a given search
+	 *                                 parameter name, or <code>null</code> if they can't be determined
+	 * @since 8.8.0
+	 */
+	public synchronized List<ActiveSubscription> getNonTopicSubscriptionCandidates(
+			String theResourceType, Function<String, Collection<String>> theResourceValueFunction) {
+		return myCriteriaIndex.getCandidateSubscriptionIds(theResourceType, theResourceValueFunction).stream()
+				.map(myCache::get)
+				.collect(Collectors.toList());
+	}
 }
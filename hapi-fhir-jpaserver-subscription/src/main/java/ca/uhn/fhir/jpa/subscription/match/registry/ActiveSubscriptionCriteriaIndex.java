@@ -0,0 +1,325 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.registry;
+
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.util.UrlUtil;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.substringAfterLast;
+
+/**
+ * Inverted index over the criteria of the non-topic subscriptions held in an {@link ActiveSubscriptionCache}.
+ * Each subscription is filed under the resource type(s) it applies to and, if its criteria test a parameter
+ * for equality with one or more plain values (e.g. <code>Observation?subject=Patient/123</code> or
+ * <code>Observation?code=http://loinc.org|1234-5</code>), under those values. A modified resource then
+ * only needs to be evaluated against the subscriptions filed under its type whose indexed values the
+ * resource actually has, rather than against every registered subscription.
+ * <p>
+ * The index never decides whether a subscription matches, it only narrows down the subscriptions that
+ * need to be evaluated. Values are reduced to coarse keys (the code, or the last path segment of a
+ * reference) so that any resource value that could match a criteria value always produces the same key.
+ * </p>
+ * Thread-safety: This class is not thread-safe, callers are expected to synchronize access.
+ */
+class ActiveSubscriptionCriteriaIndex {
+
+	private final Map<String, IndexEntry> myEntries = new HashMap<>();
+	private final Set<String> myAllTypesSubscriptionIds = new LinkedHashSet<>();
+	private final Map<String, Set<String>> myUnindexedSubscriptionIdsByResourceType = new HashMap<>();
+	private final Map<String, Map<String, Map<String, Set<String>>>> myIndexedSubscriptionIdsByResourceType =
+			new HashMap<>();
+
+	/**
+	 * Adds (or replaces) the index entries for the given subscription
+	 */
+	void put(String theSubscriptionId, ActiveSubscription theActiveSubscription) {
+		remove(theSubscriptionId);
+
+		if (theActiveSubscription.getSubscription().isTopicSubscription()) {
+			return;
+		}
+
+		IndexEntry entry = toIndexEntry(theActiveSubscription.getCriteria());
+		if (entry == null) {
+			// No (valid) criteria, so this subscription can never match anything
+			return;
+		}
+		myEntries.put(theSubscriptionId, entry);
+
+		if (entry.resourceTypes() == null) {
+			myAllTypesSubscriptionIds.add(theSubscriptionId);
+			return;
+		}
+
+		for (String nextResourceType : entry.resourceTypes()) {
+			if (entry.paramName() == null) {
+				myUnindexedSubscriptionIdsByResourceType
+						.computeIfAbsent(nextResourceType, t -> new LinkedHashSet<>())
+						.add(theSubscriptionId);
+			} else {
+				Map<String, Set<String>> idsByKey = myIndexedSubscriptionIdsByResourceType
+						.computeIfAbsent(nextResourceType, t -> new HashMap<>())
+						.computeIfAbsent(entry.paramName(), t -> new HashMap<>());
+				for (String nextKey : entry.keys()) {
+					idsByKey.computeIfAbsent(nextKey, t -> new LinkedHashSet<>())
+							.add(theSubscriptionId);
+				}
+			}
+		}
+	}
+
+	void remove(String theSubscriptionId) {
+		IndexEntry entry = myEntries.remove(theSubscriptionId);
+		if (entry == null) {
+			return;
+		}
+
+		if (entry.resourceTypes() == null) {
+			myAllTypesSubscriptionIds.remove(theSubscriptionId);
+			return;
+		}
+
+		for (String nextResourceType : entry.resourceTypes()) {
+			if (entry.paramName() == null) {
+				Set<String> ids = myUnindexedSubscriptionIdsByResourceType.get(nextResourceType);
+				ids.remove(theSubscriptionId);
+				if (ids.isEmpty()) {
+					myUnindexedSubscriptionIdsByResourceType.remove(nextResourceType);
+				}
+			} else {
+				Map<String, Map<String, Set<String>>> idsByParam =
+						myIndexedSubscriptionIdsByResourceType.get(nextResourceType);
+				Map<String, Set<String>> idsByKey = idsByParam.get(entry.paramName());
+				for (String nextKey : entry.keys()) {
+					Set<String> ids = idsByKey.get(nextKey);
+					ids.remove(theSubscriptionId);
+					if (ids.isEmpty()) {
+						idsByKey.remove(nextKey);
+					}
+				}
+				if (idsByKey.isEmpty()) {
+					idsByParam.remove(entry.paramName());
+				}
+				if (idsByParam.isEmpty()) {
+					myIndexedSubscriptionIdsByResourceType.remove(nextResourceType);
+				}
+			}
+		}
+	}
+
+	void clear() {
+		myEntries.clear();
+		myAllTypesSubscriptionIds.clear();
+		myUnindexedSubscriptionIdsByResourceType.clear();
+		myIndexedSubscriptionIdsByResourceType.clear();
+	}
+
+	/**
+	 * Returns the IDs of the subscriptions which could match a resource of the given type.
+	 *
+	 * @param theResourceType          The resource type
+	 * @param theResourceValueFunction Supplies the values the resource has for a given search parameter name
+	 *                                 (token codes, reference targets, or the resource ID for <code>_id</code>).
+	 *                                 May return <code>null</code> if the values can not be determined, in which
+	 *                                 case every subscription indexed on that parameter is a candidate.
+	 */
+	@Nonnull
+	Set<String> getCandidateSubscriptionIds(
+			String theResourceType, Function<String, Collection<String>> theResourceValueFunction) {
+		Set<String> retVal = new LinkedHashSet<>(myAllTypesSubscriptionIds);
+		retVal.addAll(myUnindexedSubscriptionIdsByResourceType.getOrDefault(theResourceType, Set.of()));
+
+		Map<String, Map<String, Set<String>>> idsByParam =
+				myIndexedSubscriptionIdsByResourceType.getOrDefault(theResourceType, Map.of());
+		for (Map.Entry<String, Map<String, Set<String>>> nextParamEntry : idsByParam.entrySet()) {
+			Map<String, Set<String>> idsByKey = nextParamEntry.getValue();
+			Collection<String> resourceValues = theResourceValueFunction.apply(nextParamEntry.getKey());
+			if (resourceValues == null) {
+				idsByKey.values().forEach(retVal::addAll);
+				continue;
+			}
+			for (String nextValue : resourceValues) {
+				Set<String> ids = idsByKey.get(toResourceValueKey(nextValue));
+				if (ids != null) {
+					retVal.addAll(ids);
+				}
+			}
+		}
+
+		return retVal;
+	}
+
+	@Nullable
+	private static IndexEntry toIndexEntry(@Nullable SubscriptionCriteriaParser.SubscriptionCriteria theCriteria) {
+		if (theCriteria == null) {
+			return null;
+		}
+
+		switch (theCriteria.getType()) {
+			case STARTYPE_EXPRESSION:
+				return new IndexEntry(null, null, null);
+			case MULTITYPE_EXPRESSION:
+				return new IndexEntry(theCriteria.getApplicableResourceTypes(), null, null);
+			case SEARCH_EXPRESSION:
+			default:
+				break;
+		}
+
+		Set<String> resourceTypes = theCriteria.getApplicableResourceTypes();
+		String criteria = theCriteria.getCriteria();
+		int questionMarkIdx = criteria.indexOf('?');
+		if (questionMarkIdx == -1) {
+			return new IndexEntry(resourceTypes, null, null);
+		}
+
+		/*
+		 * Any equality test in the criteria is enough to narrow down the candidates, since
+		 * all of them need to be satisfied. We prefer _id, then values which look like a
+		 * reference or a system-qualified token since those are the most selective, and we
+		 * sort by name so that the choice is stable.
+		 */
+		Map<String, String[]> params = new TreeMap<>(UrlUtil.parseQueryString(criteria.substring(questionMarkIdx)));
+		String bestParamName = null;
+		Set<String> bestKeys = null;
+		int bestScore = 0;
+		for (Map.Entry<String, String[]> nextParam : params.entrySet()) {
+			String paramName = nextParam.getKey();
+			if (!isIndexableParamName(paramName)) {
+				continue;
+			}
+			String value = nextParam.getValue()[0];
+			Set<String> keys = toCriteriaValueKeys(value);
+			if (keys == null) {
+				continue;
+			}
+
+			int score;
+			if (Constants.PARAM_ID.equals(paramName)) {
+				score = 3;
+			} else if (value.indexOf('|') != -1 || value.indexOf('/') != -1) {
+				score = 2;
+			} else {
+				score = 1;
+			}
+			if (score > bestScore) {
+				bestParamName = paramName;
+				bestKeys = keys;
+				bestScore = score;
+			}
+		}
+
+		if (bestParamName == null) {
+			return new IndexEntry(resourceTypes, null, null);
+		}
+		return new IndexEntry(resourceTypes, bestParamName, bestKeys);
+	}
+
+	/**
+	 * Chains, modifiers and special parameters (other than <code>_id</code>) don't test a
+	 * value of the resource itself for equality, so we can't index them.
+	 */
+	private static boolean isIndexableParamName(String theParamName) {
+		if (isBlank(theParamName)) {
+			return false;
+		}
+		if (theParamName.startsWith("_")) {
+			return Constants.PARAM_ID.equals(theParamName);
+		}
+		return theParamName.indexOf(':') == -1 && theParamName.indexOf('.') == -1;
+	}
+
+	/**
+	 * Returns the keys a single criteria value (which may be a comma separated list of
+	 * alternatives) is filed under, or <code>null</code> if the value can't be indexed.
+	 */
+	@Nullable
+	private static Set<String> toCriteriaValueKeys(String theValue) {
+		if (isBlank(theValue) || theValue.indexOf('\\') != -1) {
+			return null;
+		}
+
+		Set<String> retVal = new HashSet<>();
+		for (String nextValue : theValue.split(",")) {
+			if (isBlank(nextValue) || nextValue.contains("/_history/")) {
+				return null;
+			}
+
+			int pipeIdx = nextValue.indexOf('|');
+			if (pipeIdx == -1) {
+				retVal.add(lastPathSegment(nextValue));
+				continue;
+			}
+
+			/*
+			 * Either system|code for a token, or url|version for a canonical reference. We
+			 * can't tell which without knowing the parameter type, so we file the value under
+			 * both possibilities.
+			 */
+			String code = nextValue.substring(pipeIdx + 1);
+			if (isBlank(code) || code.indexOf('|') != -1) {
+				// Any code in a system, or not something we understand
+				return null;
+			}
+			retVal.add(lastPathSegment(code));
+			String system = nextValue.substring(0, pipeIdx);
+			if (!isBlank(system)) {
+				retVal.add(lastPathSegment(system));
+			}
+		}
+		return retVal;
+	}
+
+	private static String toResourceValueKey(String theValue) {
+		String value = theValue;
+		int pipeIdx = value.indexOf('|');
+		if (pipeIdx != -1) {
+			value = value.substring(0, pipeIdx);
+		}
+		return lastPathSegment(value);
+	}
+
+	private static String lastPathSegment(String theValue) {
+		if (theValue.indexOf('/') == -1) {
+			return theValue;
+		}
+		return substringAfterLast(theValue, "/");
+	}
+
+	/**
+	 * @param resourceTypes The resource types the subscription applies to, or <code>null</code> for all types
+	 * @param paramName     The indexed parameter, or <code>null</code> if the subscription applies to every resource of its types
+	 * @param keys          The keys the subscription is filed under for the indexed parameter
+	 */
+	private record IndexEntry(
+			@Nullable Set<String> resourceTypes, @Nullable String paramName, @Nullable Set<String> keys) {}
+}
@@ -40,6 +40,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Cache of active subscriptions.  When a new subscription is added to the cache, a new Spring Channel is created
@@ -213,6 +214,8 @@ public class SubscriptionRegistry {
 		Validate.notNull(activeSubscription, "Subscription with ID %s not found in cache", theId.getIdPart());
 		CanonicalSubscription canonicalized = mySubscriptionCanonicalizer.canonicalize(theSubscription);
 		activeSubscription.setSubscription(canonicalized);
+		// Re-index the subscription since its criteria may have changed
+		myActiveSubscriptionCache.put(theId.getIdPart(), activeSubscription);
 
 		// Interceptor call: SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED
 		HookParams params = new HookParams().add(CanonicalSubscription.class, canonicalized);
@@ -231,4 +234,22 @@ public class SubscriptionRegistry {
 	public List<ActiveSubscription> getAllNonTopicSubscriptions() {
 		return myActiveSubscriptionCache.getAllNonTopicSubscriptions();
 	}
+
+	/**
+	 * Returns the non-topic subscriptions which could possibly match a modified resource of the given
+	 * type. Subscriptions whose criteria test a parameter for equality (e.g. <code>Observation?subject=Patient/123</code>)
+	 * are only returned if the resource has a matching value for that parameter, so the cost of matching
+	 * a resource doesn't grow with the number of such subscriptions. Each returned subscription still
+	 * needs to be matched against the resource.
+	 *
+	 * @param theResourceType          The type of the modified resource
+	 * @param theResourceValueFunction Supplies the values the modified resource has for a given search
+	 *                                 parameter name (token codes, reference targets, or the resource ID
+	 *                                 for <code>_id</code>), or <code>null</code> if they can't be determined
+	 * @since 8.8.0
+	 */
+	public List<ActiveSubscription> getNonTopicSubscriptionCandidates(
+			String theResourceType, Function<String, Collection<String>> theResourceValueFunction) {
+		return myActiveSubscriptionCache.getNonTopicSubscriptionCandidates(theResourceType, theResourceValueFunction);
+	}
 }
@@ -47,6 +47,9 @@ import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.support.TransactionCallback;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionMatchingListener.SUBSCRIPTION_MATCHING_CHANNEL_NAME;
 
 /**
@@ -184,6 +187,77 @@ public class ResourceModifiedSubmitterSvc implements IResourceModifiedConsumer,
 		};
 	}
 
+	/**
+	 * This method claims a batch of the oldest IPersistedResourceModifiedMessage and submits them to the subscription
+	 * processing pipeline, deleting the ones which were submitted in a single statement. Claimed messages are locked
+	 * until the transaction ends, and messages locked by another node are skipped, so several nodes can submit
+	 * persisted messages concurrently without submitting the same message twice.
+	 *
+	 * @param theMaxCount The maximum number of messages to submit.
+	 * @return The number of messages which were submitted.
+	 */
+	@Override
+	public boolean isBatchSubmissionSupported() {
+		return true;
+	}
+
+	@Override
+	public int submitPersistedResourceModifiedMessages(int theMaxCount) {
+		return myHapiTransactionService
+				.withSystemRequest()
+				.withPropagation(Propagation.REQUIRES_NEW)
+				.execute(doProcessResourceModifiedBatchInTransaction(theMaxCount));
+	}
+
+	/**
+	 * Batch counterpart of {@link #doProcessResourceModifiedInTransaction(IPersistedResourceModifiedMessage)}. Rather
+	 * than deleting each message to lock it, the batch is locked up front and only the messages which were actually
+	 * submitted are deleted. If submission fails, the messages submitted so far are still deleted and the remaining
+	 * ones are left for a later attempt, so no message is submitted twice.
+	 *
+	 * @param theMaxCount The maximum number of messages to submit.
+	 * @return The number of messages which were submitted.
+	 */
+	protected TransactionCallback<Integer> doProcessResourceModifiedBatchInTransaction(int theMaxCount) {
+		return theStatus -> {
+			List<IPersistedResourceModifiedMessage> lockedMessages =
+					myResourceModifiedMessagePersistenceSvc.lockOldestForSubmission(theMaxCount);
+			List<IPersistedResourceModifiedMessagePK> processedPks = new ArrayList<>(lockedMessages.size());
+
+			for (IPersistedResourceModifiedMessage next : lockedMessages) {
+				ResourceModifiedMessage resourceModifiedMessage = null;
+				try {
+					// submit the resource modified message with empty payload, actual inflation is done by the matcher.
+					resourceModifiedMessage = createResourceModifiedMessageWithoutInflation(next);
+					submitResourceModified(resourceModifiedMessage);
+				} catch (MessageDeliveryException exception) {
+					String payloadId =
+							resourceModifiedMessage != null ? resourceModifiedMessage.getPayloadId() : "[unknown]";
+					ourLog.error(
+							"Channel submission failed for resource with id {}.  Further attempts will be performed at later time.",
+							payloadId,
+							exception);
+					break;
+				} catch (Exception ex) {
+					ourLog.error(
+							"Unexpected error encountered while processing resource modified message. Marking as processed to prevent further errors.",
+							ex);
+				}
+				processedPks.add(next.getPersistedResourceModifiedMessagePk());
+			}
+
+			if (!processedPks.isEmpty()) {
+				myResourceModifiedMessagePersistenceSvc.deleteByPKs(processedPks);
+			}
+
+			ourLog.debug(
+					"Submitted {} of {} persisted resource modified messages",
+					processedPks.size(),
+					lockedMessages.size());
+			return processedPks.size();
+		};
+	}
+
 	private ResourceModifiedMessage createResourceModifiedMessageWithoutInflation(
 			IPersistedResourceModifiedMessage thePersistedResourceModifiedMessage) {
 		return myResourceModifiedMessagePersistenceSvc.createResourceModifiedMessageFromEntityWithoutInflation(
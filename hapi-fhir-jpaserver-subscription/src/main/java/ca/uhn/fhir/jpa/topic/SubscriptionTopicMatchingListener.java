@@ -135,7 +135,8 @@ public class SubscriptionTopicMatchingListener implements IMessageListener<Resou
 		return mySubscriptionTopicDispatcher.dispatch(new SubscriptionTopicDispatchRequest(
 				topicUrl,
 				matchedResourceList,
-				myInMemoryTopicFilterMatcher,
+				myInMemoryTopicFilterMatcher.withCachedIndexes(
+						thePayload.getNewResourceIndexedSearchParams(myFhirContext)),
 				restOperationType,
 				theInMemoryMatchResult,
 				thePayload.getPartitionId(),
@@ -24,6 +24,8 @@ import ca.uhn.fhir.fhirpath.IFhirPathEvaluationContext;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.LazyResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
@@ -51,6 +53,7 @@ public class SubscriptionTriggerMatcher {
 	private final SubscriptionTopic.SubscriptionTopicResourceTriggerComponent myTrigger;
 	private final String myResourceName;
 	private final IBaseResource myResource;
+	private final LazyResourceIndexedSearchParams myResourceIndexedSearchParams;
 	private final IFhirResourceDao myDao;
 	private final PreviousVersionReader myPreviousVersionReader;
 	private final SystemRequestDetails mySrd;
@@ -64,6 +67,8 @@ public class SubscriptionTriggerMatcher {
 		mySubscriptionTopicSupport = theSubscriptionTopicSupport;
 		myOperation = theMsg.getOperationType();
 		myResource = theMsg.getResource(theSubscriptionTopicSupport.getFhirContext());
+		myResourceIndexedSearchParams =
+				theMsg.getNewResourceIndexedSearchParams(theSubscriptionTopicSupport.getFhirContext());
 		myResourceName = myResource.fhirType();
 		myDao = mySubscriptionTopicSupport.getDaoRegistry().getResourceDao(myResourceName);
 		myTrigger = theTrigger;
@@ -205,8 +210,13 @@ public class SubscriptionTriggerMatcher {
 	}
 
 	private InMemoryMatchResult matchResource(IBaseResource theResource, String theCriteria) {
-		InMemoryMatchResult result =
-				mySubscriptionTopicSupport.getSearchParamMatcher().match(theCriteria, theResource, mySrd);
+		SearchParamMatcher searchParamMatcher = mySubscriptionTopicSupport.getSearchParamMatcher();
+		InMemoryMatchResult result;
+		if (theResource == myResourceIndexedSearchParams.getResource()) {
+			result = searchParamMatcher.matchUsingCachedIndexes(theCriteria, myResourceIndexedSearchParams, mySrd);
+		} else {
+			result = searchParamMatcher.match(theCriteria, theResource, mySrd);
+		}
 		if (!result.supported()) {
 			ourLog.warn(
 					"Subscription topic {} has a query criteria that is not supported in-memory: {}",
@@ -20,6 +20,7 @@
 package ca.uhn.fhir.jpa.topic.filter;
 
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.LazyResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalTopicSubscriptionFilter;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
@@ -38,4 +39,22 @@ public class InMemoryTopicFilterMatcher implements ISubscriptionTopicFilterMatch
 		return mySearchParamMatcher.match(
 				theCanonicalTopicSubscriptionFilter.asCriteriaString(), theResource, new SystemRequestDetails());
 	}
+
+	/**
+	 * Returns a matcher which matches filters against the resource held by <code>theIndexedSearchParams</code>
+	 * using (and adding to) the search parameter indexes already extracted for it, e.g. by the subscription
+	 * topic triggers that were evaluated for the same resource modification. Other resources are matched
+	 * normally.
+	 *
+	 * @since 8.8.0
+	 */
+	public ISubscriptionTopicFilterMatcher withCachedIndexes(LazyResourceIndexedSearchParams theIndexedSearchParams) {
+		return (theFilter, theResource) -> {
+			if (theResource != null && theResource == theIndexedSearchParams.getResource()) {
+				return mySearchParamMatcher.matchUsingCachedIndexes(
+						theFilter.asCriteriaString(), theIndexedSearchParams, new SystemRequestDetails());
+			}
+			return match(theFilter, theResource);
+		};
+	}
 }
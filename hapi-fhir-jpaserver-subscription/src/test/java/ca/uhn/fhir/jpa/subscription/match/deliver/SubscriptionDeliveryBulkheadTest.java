@@ -0,0 +1,195 @@
+package ca.uhn.fhir.jpa.subscription.match.deliver;
+
+import ca.uhn.fhir.jpa.model.config.SubscriptionSettings;
+import ca.uhn.fhir.jpa.subscription.match.deliver.SubscriptionDeliveryBulkhead.CircuitStateEnum;
+import ca.uhn.fhir.jpa.subscription.match.deliver.SubscriptionDeliveryBulkhead.SubscriptionDeliveryMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SubscriptionDeliveryBulkheadTest {
+	private static final String SLOW_ID = "slow";
+	private static final String OTHER_ID = "other";
+
+	private final SubscriptionSettings mySubscriptionSettings = new SubscriptionSettings();
+	private final ExecutorService myExecutor = Executors.newCachedThreadPool();
+	private SubscriptionDeliveryBulkhead mySvc;
+
+	@BeforeEach
+	public void before() {
+		mySvc = new SubscriptionDeliveryBulkhead(mySubscriptionSettings);
+	}
+
+	@AfterEach
+	public void after() {
+		myExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testNoLimitsByDefault() throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			assertTrue(mySvc.tryEnqueue(SLOW_ID));
+		}
+		for (int i = 0; i < 100; i++) {
+			mySvc.beginDelivery(SLOW_ID);
+		}
+		for (int i = 0; i < 100; i++) {
+			mySvc.endDelivery(SLOW_ID, false, 10);
+		}
+
+		SubscriptionDeliveryMetrics metrics = mySvc.getMetrics(SLOW_ID);
+		assertEquals(0, metrics.pendingCount());
+		assertEquals(0, metrics.inFlightCount());
+		assertEquals(100, metrics.failedCount());
+		assertEquals(0, metrics.rejectedCount());
+		assertEquals(CircuitStateEnum.CLOSED, metrics.circuitState());
+	}
+
+	@Test
+	public void testMaxPendingOnlyAffectsBackedUpSubscription() throws InterruptedException {
+		mySubscriptionSettings.setMaxPendingDeliveriesPerSubscription(2);
+
+		assertTrue(mySvc.tryEnqueue(SLOW_ID));
+		assertTrue(mySvc.tryEnqueue(SLOW_ID));
+		assertFalse(mySvc.tryEnqueue(SLOW_ID));
+		assertTrue(mySvc.tryEnqueue(OTHER_ID));
+
+		// Once a delivery is dequeued there is room again
+		mySvc.beginDelivery(SLOW_ID);
+		assertTrue(mySvc.tryEnqueue(SLOW_ID));
+
+		// A failed send gives the slot back
+		assertFalse(mySvc.tryEnqueue(SLOW_ID));
+		mySvc.enqueueFailed(SLOW_ID);
+		assertTrue(mySvc.tryEnqueue(SLOW_ID));
+
+		assertEquals(2, mySvc.getMetrics(SLOW_ID).pendingCount());
+		assertEquals(2, mySvc.getMetrics(SLOW_ID).rejectedCount());
+		assertEquals(0, mySvc.getMetrics(OTHER_ID).rejectedCount());
+	}
+
+	@Test
+	public void testMaxConcurrentWaitsForDeliveryInProgress() throws Exception {
+		mySubscriptionSettings.setMaxConcurrentDeliveriesPerSubscription(1);
+
+		mySvc.beginDelivery(SLOW_ID);
+		CompletableFuture<Void> second = beginDeliveryInBackground(SLOW_ID);
+		await().until(() -> mySvc.getMetrics(SLOW_ID).waitingCount() == 1);
+		assertFalse(second.isDone());
+
+		// Other subscriptions are not held up
+		mySvc.beginDelivery(OTHER_ID);
+
+		mySvc.endDelivery(SLOW_ID, true, 5);
+		second.get(10, TimeUnit.SECONDS);
+		assertEquals(1, mySvc.getMetrics(SLOW_ID).inFlightCount());
+		assertEquals(0, mySvc.getMetrics(SLOW_ID).waitingCount());
+	}
+
+	@Test
+	public void testCircuitOpensAfterConsecutiveFailures() throws Exception {
+		mySubscriptionSettings.setDeliveryCircuitBreakerFailureThreshold(3);
+		mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(60000);
+
+		failDelivery(SLOW_ID);
+		failDelivery(SLOW_ID);
+		mySvc.beginDelivery(SLOW_ID);
+		mySvc.endDelivery(SLOW_ID, true, 10);
+
+		// A success resets the count
+		failDelivery(SLOW_ID);
+		failDelivery(SLOW_ID);
+		assertEquals(CircuitStateEnum.CLOSED, mySvc.getMetrics(SLOW_ID).circuitState());
+		failDelivery(SLOW_ID);
+		assertEquals(CircuitStateEnum.OPEN, mySvc.getMetrics(SLOW_ID).circuitState());
+
+		// Open circuit rejects new matches and holds back queued deliveries, but only for this subscription
+		assertFalse(mySvc.tryEnqueue(SLOW_ID));
+		CompletableFuture<Void> queued = beginDeliveryInBackground(SLOW_ID);
+		await().until(() -> mySvc.getMetrics(SLOW_ID).waitingCount() == 1);
+		assertTrue(mySvc.tryEnqueue(OTHER_ID));
+		mySvc.beginDelivery(OTHER_ID);
+		assertEquals(1, mySvc.getMetrics(SLOW_ID).rejectedCount());
+
+		// Once the circuit half-opens the queued delivery goes ahead as the trial
+		mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(0);
+		queued.get(10, TimeUnit.SECONDS);
+		assertEquals(CircuitStateEnum.HALF_OPEN, mySvc.getMetrics(SLOW_ID).circuitState());
+		assertEquals(1, mySvc.getMetrics(SLOW_ID).inFlightCount());
+	}
+
+	@Test
+	public void testHalfOpenAllowsSingleTrial() throws Exception {
+		mySubscriptionSettings.setDeliveryCircuitBreakerFailureThreshold(1);
+		mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(0);
+
+		failDelivery(SLOW_ID);
+		assertEquals(CircuitStateEnum.HALF_OPEN, mySvc.getMetrics(SLOW_ID).circuitState());
+
+		mySvc.beginDelivery(SLOW_ID);
+		CompletableFuture<Void> second = beginDeliveryInBackground(SLOW_ID);
+		await().until(() -> mySvc.getMetrics(SLOW_ID).waitingCount() == 1);
+
+		// A failed trial opens the circuit again, and the waiting delivery becomes the next trial
+		mySvc.endDelivery(SLOW_ID, false, 10);
+		second.get(10, TimeUnit.SECONDS);
+
+		// A successful trial closes it
+		mySvc.endDelivery(SLOW_ID, true, 10);
+		assertEquals(CircuitStateEnum.CLOSED, mySvc.getMetrics(SLOW_ID).circuitState());
+		mySvc.beginDelivery(SLOW_ID);
+		mySvc.beginDelivery(SLOW_ID);
+		assertEquals(2, mySvc.getMetrics(SLOW_ID).inFlightCount());
+	}
+
+	@Test
+	public void testMetrics() throws InterruptedException {
+		assertNull(mySvc.getMetrics(SLOW_ID));
+
+		mySvc.beginDelivery(SLOW_ID);
+		mySvc.endDelivery(SLOW_ID, true, 10);
+		mySvc.beginDelivery(SLOW_ID);
+		mySvc.endDelivery(SLOW_ID, true, 30);
+		mySvc.beginDelivery(OTHER_ID);
+
+		SubscriptionDeliveryMetrics metrics = mySvc.getMetrics(SLOW_ID);
+		assertEquals(2, metrics.deliveredCount());
+		assertEquals(30, metrics.lastLatencyMillis());
+		assertEquals(20, metrics.averageLatencyMillis());
+		assertEquals(1, mySvc.getMetrics(OTHER_ID).inFlightCount());
+		assertThat(mySvc.getAllMetrics()).containsOnlyKeys(OTHER_ID, SLOW_ID);
+
+		mySvc.remove(SLOW_ID);
+		assertThat(mySvc.getAllMetrics()).containsOnlyKeys(OTHER_ID);
+	}
+
+	private CompletableFuture<Void> beginDeliveryInBackground(String theSubscriptionId) {
+		return CompletableFuture.runAsync(
+				() -> {
+					try {
+						mySvc.beginDelivery(theSubscriptionId);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException(e);
+					}
+				},
+				myExecutor);
+	}
+
+	private void failDelivery(String theSubscriptionId) throws InterruptedException {
+		mySvc.beginDelivery(theSubscriptionId);
+		mySvc.endDelivery(theSubscriptionId, false, 10);
+	}
+}
@@ -6,7 +6,10 @@ import jakarta.annotation.Nonnull;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -138,4 +141,72 @@ public class ActiveSubscriptionCacheTest {
 		return activeSub2;
 	}
 
+	@Test
+	public void getNonTopicSubscriptionCandidates_ByResourceType() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		activeSubscriptionCache.put(ID1, buildActiveSubscription(ID1, "Observation?status=final"));
+		activeSubscriptionCache.put(ID2, buildActiveSubscription(ID2, "[Observation,Patient]"));
+		activeSubscriptionCache.put(ID3, buildActiveSubscription(ID3, "[*]"));
+		activeSubscriptionCache.put("id4", buildActiveSubscription("id4", "Patient?"));
+		activeSubscriptionCache.put("id5", buildTopicSubscription("id5", TEST_TOPIC_URL));
+
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", t -> null)).containsExactlyInAnyOrder(ID1, ID2, ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", t -> null)).containsExactlyInAnyOrder(ID2, ID3, "id4");
+		assertThat(getCandidateIds(activeSubscriptionCache, "Encounter", t -> null)).containsExactlyInAnyOrder(ID3);
+	}
+
+	@Test
+	public void getNonTopicSubscriptionCandidates_ByIndexedValue() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		for (int i = 0; i < 100; i++) {
+			String id = "subject" + i;
+			activeSubscriptionCache.put(id, buildActiveSubscription(id, "Observation?subject=Patient/" + i + "&status=final"));
+		}
+		activeSubscriptionCache.put("code", buildActiveSubscription("code", "Observation?code=http://loinc.org|1234-5,http://loinc.org|5678-9"));
+		activeSubscriptionCache.put("id", buildActiveSubscription("id", "Observation?_id=OBS1&subject=Patient/1"));
+		activeSubscriptionCache.put("chain", buildActiveSubscription("chain", "Observation?subject.name=smith"));
+
+		Map<String, Collection<String>> values = Map.of(
+			"subject", List.of("Patient/5"),
+			"code", List.of("5678-9"),
+			"_id", List.of("OBS2"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", values::get)).containsExactlyInAnyOrder("subject5", "code", "chain");
+
+		// Unknown values make every subscription indexed on the parameter a candidate
+		Map<String, Collection<String>> unknownSubject = Map.of("code", List.of(), "_id", List.of("OBS1"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", unknownSubject::get)).hasSize(102).contains("id", "chain").doesNotContain("code");
+
+		activeSubscriptionCache.remove("subject5");
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", values::get)).containsExactlyInAnyOrder("code", "chain");
+	}
+
+	@Test
+	public void getNonTopicSubscriptionCandidates_CriteriaUpdated() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		ActiveSubscription activeSub1 = buildActiveSubscription(ID1, "Observation?subject=Patient/1");
+		activeSubscriptionCache.put(ID1, activeSub1);
+		Map<String, Collection<String>> values = Map.of("subject", List.of("Patient/2"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", values::get)).isEmpty();
+
+		CanonicalSubscription updated = activeSub1.getSubscription();
+		updated.setCriteriaString("Observation?subject=Patient/2");
+		activeSub1.setSubscription(updated);
+		activeSubscriptionCache.put(ID1, activeSub1);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", values::get)).containsExactly(ID1);
+	}
+
+	private static List<String> getCandidateIds(
+			ActiveSubscriptionCache theCache, String theResourceType, Function<String, Collection<String>> theValues) {
+		return theCache.getNonTopicSubscriptionCandidates(theResourceType, theValues).stream()
+			.map(ActiveSubscription::getId)
+			.toList();
+	}
+
+	private ActiveSubscription buildActiveSubscription(String theId, String theCriteria) {
+		CanonicalSubscription canonicalSubscription = new CanonicalSubscription();
+		canonicalSubscription.setIdElement(new IdDt(theId));
+		canonicalSubscription.setCriteriaString(theCriteria);
+		return new ActiveSubscription(canonicalSubscription, null);
+	}
+
 }
@@ -25,7 +25,9 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -402,7 +404,7 @@ class SubscriptionTriggerMatcherTest {
 		query.setCurrent("status=in-progress");
 		trigger.setQueryCriteria(query);
 
-		when(mySearchParamMatcher.match(any(), any(), any())).thenReturn(InMemoryMatchResult.successfulMatch());
+		when(mySearchParamMatcher.matchUsingCachedIndexes(any(), any(), any())).thenReturn(InMemoryMatchResult.successfulMatch());
 
 		// run
 		SubscriptionTriggerMatcher svc = new SubscriptionTriggerMatcher(mySubscriptionTopicSupport, msg, trigger, myMemoryCacheService);
@@ -410,6 +412,8 @@ class SubscriptionTriggerMatcherTest {
 
 		// verify
 		assertTrue(result.matched());
+		// The current resource is matched using the indexes shared by every matcher for the message
+		verify(mySearchParamMatcher).matchUsingCachedIndexes(eq("status=in-progress"), same(msg.getNewResourceIndexedSearchParams(FhirContext.forR4BCached())), any());
 	}
 
 	@Test
@@ -8,6 +8,7 @@ import ca.uhn.fhir.batch2.api.JobOperationResultJson;
 import ca.uhn.fhir.batch2.api.RunOutcome;
 import ca.uhn.fhir.batch2.channel.BatchJobSender;
 import ca.uhn.fhir.batch2.coordinator.JobDefinitionRegistry;
+import ca.uhn.fhir.batch2.jobs.chunk.ResourceIdListWorkChunkJson;
 import ca.uhn.fhir.batch2.jobs.imprt.NdJsonFileJson;
 import ca.uhn.fhir.batch2.model.JobDefinition;
 import ca.uhn.fhir.batch2.model.JobInstance;
@@ -17,10 +18,13 @@ import ca.uhn.fhir.batch2.model.WorkChunk;
 import ca.uhn.fhir.batch2.model.WorkChunkCompletionEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkCreateEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkErrorEvent;
+import ca.uhn.fhir.batch2.model.WorkChunkStatistics;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
+import ca.uhn.fhir.batch2.progress.InstanceProgress;
 import ca.uhn.fhir.batch2.models.JobInstanceFetchRequest;
 import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.IBatch2JobInstanceRepository;
 import ca.uhn.fhir.jpa.dao.data.IBatch2WorkChunkRepository;
 import ca.uhn.fhir.jpa.entity.Batch2JobInstanceEntity;
@@ -37,6 +41,7 @@ import ca.uhn.test.concurrency.PointcutLatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.time.DateUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Nested;
@@ -65,6 +70,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -123,6 +129,7 @@ public class JpaJobPersistenceImplTest extends BaseJpaR4Test {
 	public void after() {
 		myJobDefinitionRegistry.removeJobDefinition(JOB_DEFINITION_ID, JOB_DEF_VER);
 		myMaintenanceService.enableMaintenancePass(true);
+		myStorageSettings.setJobWorkChunkDataCompressionEnabled(new JpaStorageSettings().isJobWorkChunkDataCompressionEnabled());
 	}
 
 	@Test
@@ -716,6 +723,214 @@ public class JpaJobPersistenceImplTest extends BaseJpaR4Test {
 		clearInvocations(myBatchSender);
 	}
 
+	@Test
+	void testStoreAndFetchChunk_CompressedData() {
+		// given
+		myStorageSettings.setJobWorkChunkDataCompressionEnabled(true);
+		JobInstance instance = createInstance();
+		String instanceId = mySvc.storeNewInstance(newSrd(), instance);
+		ResourceIdListWorkChunkJson data = new ResourceIdListWorkChunkJson();
+		for (long i = 0; i < 500; i++) {
+			data.addTypedPidWithNullPartitionForUnitTest("Patient", 1000 + i);
+		}
+		String serializedData = JsonUtil.serialize(data, false);
+
+		// when
+		String chunkId = storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 0, serializedData, false);
+
+		// then
+		runInTransaction(() -> {
+			String storedData = findChunkByIdOrThrow(chunkId).getSerializedData();
+			assertThat(storedData).startsWith(WorkChunkDataCodec.PREFIX);
+			assertThat(storedData.length()).isLessThan(serializedData.length() / 10);
+		});
+		WorkChunk chunk = runInTransaction(() -> mySvc.fetchAllWorkChunksIterator(instanceId, true).next());
+		ResourceIdListWorkChunkJson fetched = chunk.getData(ResourceIdListWorkChunkJson.class);
+		assertEquals(data.getTypedPids(), fetched.getTypedPids());
+	}
+
+	@Test
+	void testDequeueMultipleChunks() {
+		// given
+		JobInstance instance = createInstance();
+		String instanceId = mySvc.storeNewInstance(newSrd(), instance);
+
+		String queuedId1 = storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 0, "data 1", false);
+		String queuedId2 = storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 1, "data 2", false);
+		String completedId = storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 2, "data 3", false);
+		runInTransaction(() -> {
+			myWorkChunkRepository.updateChunkStatus(queuedId1, WorkChunkStatusEnum.READY, WorkChunkStatusEnum.QUEUED);
+			myWorkChunkRepository.updateChunkStatus(queuedId2, WorkChunkStatusEnum.READY, WorkChunkStatusEnum.QUEUED);
+			myWorkChunkRepository.updateChunkStatus(completedId, WorkChunkStatusEnum.READY, WorkChunkStatusEnum.COMPLETED);
+		});
+
+		// when
+		myCaptureQueriesListener.clear();
+		List<WorkChunk> chunks = runInTransaction(() -> mySvc.onWorkChunksDequeue(List.of(queuedId1, queuedId2, completedId, "FOO")));
+
+		// then
+		assertThat(chunks).extracting(WorkChunk::getId).containsExactlyInAnyOrder(queuedId1, queuedId2);
+		assertThat(chunks).extracting(WorkChunk::getData).containsExactlyInAnyOrder("data 1", "data 2");
+		assertThat(chunks).allSatisfy(t -> {
+			assertEquals(WorkChunkStatusEnum.IN_PROGRESS, t.getStatus());
+			assertNotNull(t.getStartTime());
+		});
+		assertEquals(1, myCaptureQueriesListener.countSelectQueries());
+		assertEquals(1, myCaptureQueriesListener.countUpdateQueries());
+
+		runInTransaction(() -> {
+			assertEquals(WorkChunkStatusEnum.IN_PROGRESS, findChunkByIdOrThrow(queuedId1).getStatus());
+			assertEquals(WorkChunkStatusEnum.IN_PROGRESS, findChunkByIdOrThrow(queuedId2).getStatus());
+			assertEquals(WorkChunkStatusEnum.COMPLETED, findChunkByIdOrThrow(completedId).getStatus());
+		});
+	}
+
+	@Test
+	void testFetchWorkChunkStatistics() {
+		// given
+		JobInstance instance = createInstance();
+		String instanceId = mySvc.storeNewInstance(newSrd(), instance);
+
+		storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 0, "some data", false);
+		String erroredId = storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 1, "some more data", false);
+		String completedId1 = storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 2, "some more data", false);
+		String completedId2 = storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, 3, "some more data", false);
+		runInTransaction(() -> {
+			for (String next : List.of(erroredId, completedId1, completedId2)) {
+				myWorkChunkRepository.updateChunkStatus(next, WorkChunkStatusEnum.READY, WorkChunkStatusEnum.QUEUED);
+				mySvc.onWorkChunkDequeue(next);
+			}
+		});
+		mySvc.onWorkChunkError(new WorkChunkErrorEvent(erroredId, "Our error message"));
+		mySvc.onWorkChunkCompletion(new WorkChunkCompletionEvent(completedId1, 11, 0));
+		mySvc.onWorkChunkCompletion(new WorkChunkCompletionEvent(completedId2, 5, 2));
+
+		// when
+		WorkChunkStatistics statistics = mySvc.fetchWorkChunkStatistics(instanceId);
+
+		// then
+		assertThat(statistics.getStepStatusStatistics()).hasSize(3);
+		Map<WorkChunkStatusEnum, WorkChunkStatistics.StepStatusStatistics> statusToStatistics = statistics.getStepStatusStatistics().stream()
+			.collect(Collectors.toMap(WorkChunkStatistics.StepStatusStatistics::getStatus, t -> t));
+		assertEquals(1, statusToStatistics.get(WorkChunkStatusEnum.READY).getChunkCount());
+		assertEquals(1, statusToStatistics.get(WorkChunkStatusEnum.ERRORED).getChunkCount());
+		assertEquals(1, statusToStatistics.get(WorkChunkStatusEnum.ERRORED).getErrorCount());
+		assertEquals("Our error message", statusToStatistics.get(WorkChunkStatusEnum.ERRORED).getErrorMessage());
+		WorkChunkStatistics.StepStatusStatistics completed = statusToStatistics.get(WorkChunkStatusEnum.COMPLETED);
+		assertEquals(FIRST_STEP_ID, completed.getStepId());
+		assertEquals(2, completed.getChunkCount());
+		assertEquals(16, completed.getRecordsProcessed());
+		assertNotNull(completed.getEarliestStartTime());
+		assertNotNull(completed.getLatestEndTime());
+
+		// the same as aggregating every chunk
+		InstanceProgress fromStatistics = new InstanceProgress();
+		fromStatistics.addStatistics(statistics);
+		InstanceProgress fromChunks = new InstanceProgress();
+		mySvc.fetchAllWorkChunksIterator(instanceId, false).forEachRemaining(fromChunks::addChunk);
+		assertEquals(fromChunks.toString(), fromStatistics.toString());
+	}
+
+	@Test
+	void testFetchWorkChunkStatistics_OnlyLoadsRecentlyFinishedChunks() {
+		// given
+		JobInstance instance = createInstance();
+		String instanceId = mySvc.storeNewInstance(newSrd(), instance);
+		List<String> chunkIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			chunkIds.add(storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, i, "some data", false));
+		}
+		runInTransaction(() -> {
+			for (String next : chunkIds) {
+				myWorkChunkRepository.updateChunkStatus(next, WorkChunkStatusEnum.READY, WorkChunkStatusEnum.QUEUED);
+				mySvc.onWorkChunkDequeue(next);
+			}
+		});
+		mySvc.onWorkChunkCompletion(new WorkChunkCompletionEvent(chunkIds.get(0), 10, 0));
+		mySvc.onWorkChunkCompletion(new WorkChunkCompletionEvent(chunkIds.get(1), 20, 0));
+		setChunkEndTime(chunkIds.get(0), DateUtils.addMinutes(new Date(), -30));
+		setChunkEndTime(chunkIds.get(1), DateUtils.addMinutes(new Date(), -30));
+
+		// when
+		WorkChunkStatistics statistics = mySvc.fetchWorkChunkStatistics(instanceId);
+
+		// then
+		assertEquals(2, getStatistics(statistics, WorkChunkStatusEnum.COMPLETED).getChunkCount());
+		assertEquals(3, getStatistics(statistics, WorkChunkStatusEnum.IN_PROGRESS).getChunkCount());
+
+		// when
+		mySvc.onWorkChunkCompletion(new WorkChunkCompletionEvent(chunkIds.get(2), 5, 0));
+		myCaptureQueriesListener.clear();
+		statistics = mySvc.fetchWorkChunkStatistics(instanceId);
+
+		// then
+		assertEquals(3, getStatistics(statistics, WorkChunkStatusEnum.COMPLETED).getChunkCount());
+		assertEquals(35, getStatistics(statistics, WorkChunkStatusEnum.COMPLETED).getRecordsProcessed());
+		assertEquals(2, getStatistics(statistics, WorkChunkStatusEnum.IN_PROGRESS).getChunkCount());
+		// one aggregate query for the unfinished chunks and one for the chunks finished since the last pass
+		assertEquals(2, myCaptureQueriesListener.countSelectQueries());
+		String finishedSql = myCaptureQueriesListener.getSelectQueries().get(1).getSql(true, false);
+		assertThat(finishedSql).contains("END_TIME>=");
+
+		// when - the recently finished chunk is loaded again, but only counted once
+		statistics = mySvc.fetchWorkChunkStatistics(instanceId);
+
+		// then
+		assertEquals(3, getStatistics(statistics, WorkChunkStatusEnum.COMPLETED).getChunkCount());
+		assertEquals(35, getStatistics(statistics, WorkChunkStatusEnum.COMPLETED).getRecordsProcessed());
+	}
+
+	@Test
+	void testFetchWorkChunkStatistics_ErrorMessageIsFromLatestFailedChunk() {
+		// given
+		JobInstance instance = createInstance();
+		String instanceId = mySvc.storeNewInstance(newSrd(), instance);
+		List<String> chunkIds = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			chunkIds.add(storeWorkChunk(JOB_DEFINITION_ID, FIRST_STEP_ID, instanceId, i, "some data", false));
+		}
+		runInTransaction(() -> {
+			for (String next : chunkIds) {
+				myWorkChunkRepository.updateChunkStatus(next, WorkChunkStatusEnum.READY, WorkChunkStatusEnum.QUEUED);
+				mySvc.onWorkChunkDequeue(next);
+			}
+		});
+		mySvc.onWorkChunkFailed(chunkIds.get(0), "Z older failure");
+		mySvc.onWorkChunkFailed(chunkIds.get(1), "A newer failure");
+		setChunkEndTime(chunkIds.get(0), DateUtils.addMinutes(new Date(), -20));
+		setChunkEndTime(chunkIds.get(1), DateUtils.addMinutes(new Date(), -10));
+
+		// when
+		WorkChunkStatistics statistics = mySvc.fetchWorkChunkStatistics(instanceId);
+
+		// then
+		assertEquals(2, getStatistics(statistics, WorkChunkStatusEnum.FAILED).getChunkCount());
+		assertEquals("A newer failure", getStatistics(statistics, WorkChunkStatusEnum.FAILED).getErrorMessage());
+
+		// when - a chunk fails after the previous pass
+		mySvc.onWorkChunkFailed(chunkIds.get(2), "B newest failure");
+		statistics = mySvc.fetchWorkChunkStatistics(instanceId);
+
+		// then
+		assertEquals(3, getStatistics(statistics, WorkChunkStatusEnum.FAILED).getChunkCount());
+		assertEquals("B newest failure", getStatistics(statistics, WorkChunkStatusEnum.FAILED).getErrorMessage());
+	}
+
+	private void setChunkEndTime(String theChunkId, Date theEndTime) {
+		runInTransaction(() -> myEntityManager
+			.createQuery("UPDATE Batch2WorkChunkEntity e SET e.myEndTime = :endTime WHERE e.myId = :id")
+			.setParameter("endTime", theEndTime)
+			.setParameter("id", theChunkId)
+			.executeUpdate());
+	}
+
+	private static WorkChunkStatistics.StepStatusStatistics getStatistics(WorkChunkStatistics theStatistics, WorkChunkStatusEnum theStatus) {
+		return theStatistics.getStepStatusStatistics().stream()
+			.filter(t -> t.getStatus() == theStatus)
+			.findFirst()
+			.orElseThrow();
+	}
+
 	@Test
 	void testStoreAndFetchChunksForInstance_NoData() {
 	    // given
@@ -84,6 +84,7 @@ import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Coverage;
 import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.DateType;
 import org.hl7.fhir.r4.model.Encounter;
 import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.ExplanationOfBenefit;
@@ -2452,18 +2453,20 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 
 	/**
 	 * See {@link ca.uhn.fhir.jpa.dao.TransactionProcessor#preFetchSearchParameterMapsToken(String, Set, TransactionDetails, RequestPartitionId, List, Set, Set)}
-	 * for an explanation of why only SINGLE_TOKEN has a small number of SELECTS.
-	 * Others could potentially be optimized in the future so that they have a small number
-	 * of selects too, but this is tricky and may not be worth the effort.
+	 * for how SINGLE_TOKEN URLs are resolved, and {@link ca.uhn.fhir.jpa.dao.MatchUrlIndexPreFetcher}
+	 * for the other modes, which need one extra SELECT to check the secondary parameters
+	 * once the URLs have candidate resources.
 	 */
 	@ParameterizedTest
 	@CsvSource({
 		"SINGLE_TOKEN   , false, 1  2  1",
 		"SINGLE_TOKEN   , true,  1  0  0",
-		"MULTIPLE_TOKEN , false, 10 31 30",
-		"MULTIPLE_TOKEN , true,  10 0  0",
-		"STRING         , false, 10 31 30",
-		"STRING         , true,  10 0  0",
+		"MULTIPLE_TOKEN , false, 1  3  2",
+		"MULTIPLE_TOKEN , true,  1  0  0",
+		"TOKEN_AND_DATE , false, 1  3  2",
+		"TOKEN_AND_DATE , true,  1  0  0",
+		"STRING         , false, 1  2  1",
+		"STRING         , true,  1  0  0",
 	})
 	public void testTransactionWithMultipleConditionalCreateUrls(String theMatchMode, boolean theMatchUrlCacheEnabled, String theExpectedCounts) {
 		registerNoOpAuthorizationAndConsentInterceptors();
@@ -2483,10 +2486,14 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 				p.addName().setFamily("FAM" + identifier);
 				p.addIdentifier().setSystem("http://foo").setValue(identifier);
 				p.addIdentifier().setSystem("http://bar").setValue(identifier);
+				if (theMatchMode.equals("TOKEN_AND_DATE")) {
+					p.setBirthDateElement(new DateType("2020-01-1" + identifier));
+				}
 
 				String conditionalUrl = switch(theMatchMode) {
 					case "SINGLE_TOKEN" -> "Patient?identifier=http://foo|" + identifier;
 					case "MULTIPLE_TOKEN" -> "Patient?identifier=http://bar|" + identifier + "&active=true";
+					case "TOKEN_AND_DATE" -> "Patient?identifier=http://bar|" + identifier + "&birthdate=2020-01-1" + identifier;
 					case "STRING" -> "Patient?name=FAM" + identifier;
 					default -> throw new IllegalStateException("Unexpected value: " + theMatchMode);
 				};
@@ -2521,18 +2528,18 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 
 	/**
 	 * See {@link ca.uhn.fhir.jpa.dao.TransactionProcessor#preFetchSearchParameterMaps(RequestDetails, TransactionDetails, RequestPartitionId, List, Set, Set)}
-	 * for an explanation of why only SINGLE_TOKEN has a small number of SELECTS.
-	 * Others could potentially be optimized in the future so that they have a small number
-	 * of selects too, but this is tricky and may not be worth the effort.
+	 * for an explanation of how the conditional URLs are resolved in a small number of SELECTS.
 	 */
 	@ParameterizedTest
 	@CsvSource({
 		"SINGLE_TOKEN   , false, 1  4  4",
 		"SINGLE_TOKEN   , true,  1  3  3",
-		"MULTIPLE_TOKEN , false, 10 13 13",
-		"MULTIPLE_TOKEN , true,  10 3  3",
-		"STRING         , false, 10 13 13",
-		"STRING         , true,  10 3  3",
+		"MULTIPLE_TOKEN , false, 1  5  5",
+		"MULTIPLE_TOKEN , true,  1  3  3",
+		"TOKEN_AND_DATE , false, 1  6  6",
+		"TOKEN_AND_DATE , true,  1  4  4",
+		"STRING         , false, 1  4  4",
+		"STRING         , true,  1  3  3",
 	})
 	public void testTransactionWithMultipleConditionalUpdateUrls(String theMatchMode, boolean theMatchUrlCacheEnabled, String theExpectedCounts) {
 		myStorageSettings.setMatchUrlCacheEnabled(theMatchUrlCacheEnabled);
@@ -2548,10 +2555,14 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 				p.addName().setFamily("FAM" + identifier);
 				p.addIdentifier().setSystem("http://foo").setValue(identifier);
 				p.addIdentifier().setSystem("http://bar").setValue(identifier);
+				if (theMatchMode.equals("TOKEN_AND_DATE")) {
+					p.setBirthDateElement(new DateType("2020-01-1" + identifier));
+				}
 
 				String conditionalUrl = switch(theMatchMode) {
 					case "SINGLE_TOKEN" -> "Patient?identifier=http://foo|" + identifier;
 					case "MULTIPLE_TOKEN" -> "Patient?identifier=http://bar|" + identifier + "&active=true";
+					case "TOKEN_AND_DATE" -> "Patient?identifier=http://bar|" + identifier + "&birthdate=2020-01-1" + identifier;
 					case "STRING" -> "Patient?name=FAM" + identifier;
 					default -> throw new IllegalStateException("Unexpected value: " + theMatchMode);
 				};
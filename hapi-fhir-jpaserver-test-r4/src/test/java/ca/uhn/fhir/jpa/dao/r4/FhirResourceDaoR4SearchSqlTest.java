@@ -4,13 +4,17 @@ import ca.uhn.fhir.interceptor.api.Hook;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryPlanCache;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.model.dstu2.resource.Encounter;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.TokenParamModifier;
 import ca.uhn.fhir.rest.param.UriParam;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -23,9 +27,11 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -38,6 +44,9 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 
 	private static final Logger ourLog = LoggerFactory.getLogger(FhirResourceDaoR4SearchSqlTest.class);
 
+	@Autowired
+	private SearchQueryPlanCache mySearchQueryPlanCache;
+
 	@Override
 	@BeforeEach
 	public void before() throws Exception {
@@ -49,6 +58,9 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 
 	@AfterEach
 	public void after() {
+		myStorageSettings.setSearchQueryPlanCacheEnabled(new JpaStorageSettings().isSearchQueryPlanCacheEnabled());
+		myStorageSettings.setQueryChunkParallelism(new JpaStorageSettings().getQueryChunkParallelism());
+		SearchBuilder.setMaxPageSizeForTest(null);
 		myStorageSettings.setTagStorageMode(JpaStorageSettings.DEFAULT_TAG_STORAGE_MODE);
 		myPartitionSettings.setDefaultPartitionId(new PartitionSettings().getDefaultPartitionId());
 		myPartitionSettings.setDatabasePartitionMode(new PartitionSettings().isDatabasePartitionMode());
@@ -176,6 +188,68 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 		assertEquals("SELECT t1.RES_ID FROM HFJ_RESOURCE t1 INNER JOIN HFJ_SPIDX_STRING t0 ON (t1.RES_ID = t0.RES_ID) INNER JOIN HFJ_SPIDX_TOKEN t2 ON (t1.RES_ID = t2.RES_ID) WHERE (((t0.HASH_NORM_PREFIX = ?) AND (t0.SP_VALUE_NORMALIZED LIKE ?)) AND (t2.HASH_SYS_AND_VALUE = ?)) fetch first ? rows only", sql);
 	}
 
+	@Test
+	public void testLoadResourcesInParallelChunks() {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			ids.add(createPatient(withFamily("Chunk"), withActiveTrue()).toUnqualifiedVersionless().getValue());
+		}
+		SearchBuilder.setMaxPageSizeForTest(10);
+		myStorageSettings.setQueryChunkParallelism(3);
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add(Patient.SP_FAMILY, new StringParam("Chunk"))
+			.setSort(new SortSpec(Constants.PARAM_PID));
+		IBundleProvider outcome = myPatientDao.search(map, mySrd);
+
+		assertEquals(ids, toUnqualifiedVersionlessIdValues(outcome));
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+			.anyMatch(t -> t.getThreadName().startsWith("query-chunk-"));
+
+		// Sequential loading gives the same results
+		myStorageSettings.setQueryChunkParallelism(1);
+		myCaptureQueriesListener.clear();
+		outcome = myPatientDao.search(map, mySrd);
+
+		assertEquals(ids, toUnqualifiedVersionlessIdValues(outcome));
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+			.noneMatch(t -> t.getThreadName().startsWith("query-chunk-"));
+	}
+
+	@Test
+	public void testSearchQueryPlanCache() {
+		myStorageSettings.setSearchQueryPlanCacheEnabled(true);
+		mySearchQueryPlanCache.invalidateAll();
+		IIdType smithId = createPatient(withFamily("Smith"), withGender("male")).toUnqualifiedVersionless();
+		IIdType jonesId = createPatient(withFamily("Jones"), withGender("female")).toUnqualifiedVersionless();
+
+		List<String> sqls = new ArrayList<>();
+		List<List<String>> results = new ArrayList<>();
+		for (String[] next : new String[][]{{"Smith", "male"}, {"Jones", "female"}, {"Jones", "male"}}) {
+			myCaptureQueriesListener.clear();
+			SearchParameterMap map = SearchParameterMap.newSynchronous()
+				.add(Patient.SP_FAMILY, new StringParam(next[0]))
+				.add(Patient.SP_GENDER, new TokenParam(next[1]));
+			results.add(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd)));
+			sqls.add(myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false));
+		}
+
+		assertThat(results.get(0)).containsExactly(smithId.getValue());
+		assertThat(results.get(1)).containsExactly(jonesId.getValue());
+		assertThat(results.get(2)).isEmpty();
+		assertThat(sqls).containsOnly(sqls.get(0));
+		assertEquals(1, mySearchQueryPlanCache.getMissCount());
+		assertEquals(2, mySearchQueryPlanCache.getHitCount());
+
+		// Searches whose SQL depends on their values are never cached
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add(Patient.SP_GENDER, new TokenParam("male").setModifier(TokenParamModifier.NOT));
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd))).containsExactly(jonesId.getValue());
+		assertEquals(1, mySearchQueryPlanCache.getMissCount());
+		assertEquals(2, mySearchQueryPlanCache.getHitCount());
+	}
+
 	@ParameterizedTest
 	@EnumSource(value = JpaStorageSettings.TagStorageModeEnum.class, names = {"NON_VERSIONED", "VERSIONED"})
 	public void testSearchByProfile_VersionedAndNonVersionedMode(JpaStorageSettings.TagStorageModeEnum theTagStorageModeEnum) {
@@ -69,6 +69,7 @@ import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Communication;
 import org.hl7.fhir.r4.model.Condition;
 import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.DateType;
 import org.hl7.fhir.r4.model.DiagnosticReport;
 import org.hl7.fhir.r4.model.Encounter;
 import org.hl7.fhir.r4.model.EpisodeOfCare;
@@ -5287,5 +5288,58 @@ public class FhirSystemDaoR4Test extends BaseJpaR4SystemTest {
 		assertEquals(location2, response.getEntry().get(2).getResponse().getLocation());
 	}
 
+	/**
+	 * Multi-parameter conditional URLs are resolved from the search indexes in
+	 * bulk, and must match exactly the same resources a regular search would.
+	 */
+	@Test
+	public void testTransactionWithConditionalMultiParameterUrls() {
+		Patient patient0 = new Patient();
+		patient0.addIdentifier().setSystem("http://foo").setValue("A");
+		patient0.addName().setFamily("Smith");
+		patient0.setBirthDateElement(new DateType("2020-01-01"));
+		IIdType patientId0 = myPatientDao.create(patient0, mySrd).getId().toUnqualifiedVersionless();
+
+		Patient patient1 = new Patient();
+		patient1.addIdentifier().setSystem("http://foo").setValue("A");
+		patient1.addName().setFamily("Smithson");
+		patient1.setBirthDateElement(new DateType("2020-01-02"));
+		IIdType patientId1 = myPatientDao.create(patient1, mySrd).getId().toUnqualifiedVersionless();
+
+		Observation obs = new Observation();
+		obs.getCode().addCoding().setSystem("http://loinc").setCode("1");
+		obs.setValue(new Quantity().setValue(5.4).setSystem("http://unitsofmeasure.org").setCode("mg"));
+		IIdType obsId = myObservationDao.create(obs, mySrd).getId().toUnqualifiedVersionless();
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		Patient update0 = new Patient();
+		update0.addIdentifier().setSystem("http://foo").setValue("A");
+		update0.addName().setFamily("Smith").addGiven("Updated");
+		update0.setBirthDateElement(new DateType("2020-01-01"));
+		bb.addTransactionUpdateEntry(update0).conditional("Patient?identifier=http://foo|A&birthdate=2020-01-01");
+		Patient update1 = new Patient();
+		update1.addName().setFamily("Smithson").addGiven("Updated");
+		update1.setBirthDateElement(new DateType("2020-01-02"));
+		bb.addTransactionUpdateEntry(update1).conditional("Patient?name=smithson&birthdate=2020-01-02");
+		Observation create = new Observation();
+		create.setStatus(Observation.ObservationStatus.FINAL);
+		bb.addTransactionCreateEntry(create).conditional("Observation?code=http://loinc|1&value-quantity=5.4|http://unitsofmeasure.org|mg");
+		Patient create1 = new Patient();
+		create1.addIdentifier().setSystem("http://foo").setValue("A");
+		create1.setBirthDateElement(new DateType("2020-01-03"));
+		bb.addTransactionCreateEntry(create1).conditional("Patient?identifier=http://foo|A&birthdate=2020-01-03");
+
+		Bundle response = mySystemDao.transaction(mySrd, bb.getBundleTyped());
+
+		assertThat(response.getEntry().get(0).getResponse().getLocation()).startsWith(patientId0.getValue() + "/_history/2");
+		assertThat(response.getEntry().get(1).getResponse().getLocation()).startsWith(patientId1.getValue() + "/_history/2");
+		assertThat(response.getEntry().get(2).getResponse().getLocation()).startsWith(obsId.getValue() + "/_history/1");
+		assertEquals("201 Created", response.getEntry().get(3).getResponse().getStatus());
+
+		// A URL matching both patients is still rejected
+		BundleBuilder ambiguous = new BundleBuilder(myFhirContext);
+		ambiguous.addTransactionUpdateEntry(new Patient()).conditional("Patient?identifier=http://foo|A&name=smith");
+		assertThrows(PreconditionFailedException.class, () -> mySystemDao.transaction(mySrd, ambiguous.getBundleTyped()));
+	}
 
 }
@@ -0,0 +1,240 @@
+package ca.uhn.fhir.jpa.provider.r4;
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.dao.JpaPidFk;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
+import ca.uhn.fhir.jpa.provider.BaseResourceProviderR4Test;
+import ca.uhn.fhir.narrative.DefaultThymeleafNarrativeGenerator;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.annotation.Search;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.util.PreEncodedResourceUtil;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceProviderStoredResourcePassthroughR4Test extends BaseResourceProviderR4Test {
+
+	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(ResourceProviderStoredResourcePassthroughR4Test.class);
+
+	/**
+	 * The stored JSON is rewritten with the elements in non-canonical order, so that
+	 * it is possible to tell whether a response was passed through or parsed and re-encoded
+	 */
+	private static final String PASSTHROUGH_MARKER = "\"gender\":\"male\",\"active\":true";
+	private static final String ENCODED_MARKER = "\"active\":true,\"gender\":\"male\"";
+
+	private Long myPatientId;
+	private final NamedQueryProvider myNamedQueryProvider = new NamedQueryProvider();
+
+	@Override
+	@BeforeEach
+	public void before() throws Exception {
+		super.before();
+		myStorageSettings.setStoredResourcePassthroughEnabled(true);
+		myFhirContext.setNarrativeGenerator(null);
+
+		myPatientId = createPatientWithReorderedStoredJson();
+	}
+
+	private Long createPatientWithReorderedStoredJson() {
+		Patient patient = new Patient();
+		patient.getMeta().addTag("http://tags", "tag0", null);
+		patient.getMeta().setSource("http://source");
+		patient.setActive(true);
+		patient.setGender(Enumerations.AdministrativeGender.MALE);
+		Long patientId = myPatientDao.create(patient, mySrd).getId().getIdPartAsLong();
+
+		runInTransaction(() -> {
+			ResourceHistoryTable resVer = myResourceHistoryTableDao.findForIdAndVersion(JpaPidFk.fromId(patientId), 1);
+			String resourceText = resVer.getResourceTextVc();
+			assertThat(resourceText).contains(ENCODED_MARKER);
+			resVer.setResourceTextVc(resourceText.replace(ENCODED_MARKER, PASSTHROUGH_MARKER));
+			myResourceHistoryTableDao.save(resVer);
+		});
+		return patientId;
+	}
+
+	@Override
+	@AfterEach
+	public void after() throws Exception {
+		super.after();
+		myStorageSettings.setStoredResourcePassthroughEnabled(new JpaStorageSettings().isStoredResourcePassthroughEnabled());
+		myFhirContext.setNarrativeGenerator(new DefaultThymeleafNarrativeGenerator());
+		myInterceptorRegistry.unregisterInterceptorsIf(t -> t instanceof PreShowInterceptor);
+		myServer.getRestfulServer().unregisterProvider(myNamedQueryProvider);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"/Patient/{id}", "/Patient/{id}/_history/1"})
+	public void testRead(String thePath) throws IOException {
+		String response = executeGet(thePath);
+
+		assertThat(response).contains(PASSTHROUGH_MARKER);
+		Patient patient = myFhirContext.newJsonParser().parseResource(Patient.class, response);
+		assertEquals(Long.toString(myPatientId), patient.getIdElement().getIdPart());
+		assertEquals("1", patient.getMeta().getVersionId());
+		assertTrue(patient.getMeta().hasLastUpdated());
+		assertEquals("http://source", patient.getMeta().getSource());
+		assertEquals("tag0", patient.getMeta().getTagFirstRep().getCode());
+		assertTrue(patient.getActive());
+	}
+
+	@Test
+	public void testSearch() throws IOException {
+		String response = executeGet("/Patient?_id={id}");
+
+		assertThat(response).contains(PASSTHROUGH_MARKER);
+		Bundle bundle = myFhirContext.newJsonParser().parseResource(Bundle.class, response);
+		assertThat(bundle.getEntry()).hasSize(1);
+		Patient patient = (Patient) bundle.getEntryFirstRep().getResource();
+		assertEquals("1", patient.getMeta().getVersionId());
+		assertEquals("tag0", patient.getMeta().getTagFirstRep().getCode());
+		assertEquals(Bundle.SearchEntryMode.MATCH, bundle.getEntryFirstRep().getSearch().getMode());
+		assertThat(bundle.getEntryFirstRep().getFullUrl()).endsWith("/Patient/" + myPatientId);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/Patient/{id}?_pretty=true",
+		"/Patient/{id}?_summary=data",
+		"/Patient/{id}?_elements=active",
+		"/Patient?_id={id}&_elements=active",
+		"/Patient?_id={id}&_summary=true"
+	})
+	public void testResponseIsTransformed_ResourceIsParsed(String thePath) throws IOException {
+		String response = executeGet(thePath);
+
+		assertThat(response).doesNotContain(PASSTHROUGH_MARKER);
+		assertThat(response.replaceAll("\\s", "")).contains("\"active\":true");
+	}
+
+	@Test
+	public void testXmlResponse_ResourceIsParsed() throws IOException {
+		HttpGet httpGet = new HttpGet(myServerBase + "/Patient/" + myPatientId);
+		httpGet.addHeader(Constants.HEADER_ACCEPT, Constants.CT_FHIR_XML_NEW);
+		try (CloseableHttpResponse status = ourHttpClient.execute(httpGet)) {
+			String response = IOUtils.toString(status.getEntity().getContent(), StandardCharsets.UTF_8);
+			Patient patient = myFhirContext.newXmlParser().parseResource(Patient.class, response);
+			assertTrue(patient.getActive());
+			assertEquals(Enumerations.AdministrativeGender.MALE, patient.getGender());
+		}
+	}
+
+	@Test
+	public void testPreShowInterceptorRegistered_ResourceIsParsed() throws IOException {
+		myInterceptorRegistry.registerInterceptor(new PreShowInterceptor());
+
+		String response = executeGet("/Patient/{id}");
+
+		assertThat(response).doesNotContain(PASSTHROUGH_MARKER);
+		assertThat(response).contains(ENCODED_MARKER);
+	}
+
+	@Test
+	public void testPassthroughDisabled_ResourceIsParsed() throws IOException {
+		myStorageSettings.setStoredResourcePassthroughEnabled(false);
+
+		String response = executeGet("/Patient/{id}");
+
+		assertThat(response).contains(ENCODED_MARKER);
+	}
+
+	@Test
+	public void testGetPage() throws IOException {
+		Long secondPatientId = createPatientWithReorderedStoredJson();
+
+		Bundle firstPage = myFhirContext.newJsonParser().parseResource(Bundle.class, executeGet("/Patient?_count=1&_sort=_id"));
+		assertThat(firstPage.getLink(Constants.LINK_NEXT)).isNotNull();
+		String nextUrl = firstPage.getLink(Constants.LINK_NEXT).getUrl();
+
+		String response = executeGet(nextUrl.substring(myServerBase.length()));
+
+		assertThat(response).contains(PASSTHROUGH_MARKER);
+		Bundle bundle = myFhirContext.newJsonParser().parseResource(Bundle.class, response);
+		assertEquals(Long.toString(secondPatientId), bundle.getEntryFirstRep().getResource().getIdElement().getIdPart());
+	}
+
+	/**
+	 * Custom providers may look at the resources they get from the DAO, so they must always
+	 * see fully populated resources
+	 */
+	@Test
+	public void testCustomProvider_ResourceIsParsed() throws IOException {
+		myServer.getRestfulServer().registerProvider(myNamedQueryProvider);
+
+		String response = executeGet("/Patient?_query=passthroughTest");
+
+		assertThat(myNamedQueryProvider.mySeenResources).hasSize(1);
+		Patient seen = (Patient) myNamedQueryProvider.mySeenResources.get(0);
+		assertFalse(PreEncodedResourceUtil.hasPreEncodedJson(seen));
+		assertEquals("1", seen.getMeta().getVersionId());
+		assertTrue(seen.getActive());
+		assertEquals(Enumerations.AdministrativeGender.MALE, seen.getGender());
+
+		assertThat(response).doesNotContain(PASSTHROUGH_MARKER);
+		assertThat(response).contains(ENCODED_MARKER);
+	}
+
+	@Test
+	public void testDaoRead_ResourceIsParsed() {
+		Patient patient = myPatientDao.read(new org.hl7.fhir.r4.model.IdType("Patient/" + myPatientId), mySrd);
+		assertTrue(patient.getActive());
+		assertEquals(Enumerations.AdministrativeGender.MALE, patient.getGender());
+	}
+
+	private String executeGet(String thePath) throws IOException {
+		HttpGet httpGet = new HttpGet(myServerBase + thePath.replace("{id}", Long.toString(myPatientId)));
+		httpGet.addHeader(Constants.HEADER_ACCEPT, Constants.CT_FHIR_JSON_NEW);
+		try (CloseableHttpResponse status = ourHttpClient.execute(httpGet)) {
+			String response = IOUtils.toString(status.getEntity().getContent(), StandardCharsets.UTF_8);
+			ourLog.info("Response: {}", response);
+			assertEquals(200, status.getStatusLine().getStatusCode());
+			return response;
+		}
+	}
+
+	public class NamedQueryProvider {
+
+		private final List<IBaseResource> mySeenResources = new ArrayList<>();
+
+		@Search(queryName = "passthroughTest", type = Patient.class)
+		public List<IBaseResource> search(RequestDetails theRequestDetails) {
+			IBundleProvider results = myPatientDao.search(SearchParameterMap.newSynchronous(), theRequestDetails);
+			List<IBaseResource> resources = results.getResources(0, results.sizeOrThrowNpe());
+			mySeenResources.addAll(resources);
+			return resources;
+		}
+	}
+
+	public static class PreShowInterceptor {
+
+		@Hook(Pointcut.STORAGE_PRESHOW_RESOURCES)
+		public void preShow() {
+			// nothing
+		}
+	}
+}
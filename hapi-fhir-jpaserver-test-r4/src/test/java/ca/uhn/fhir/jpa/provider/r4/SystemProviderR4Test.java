@@ -31,6 +31,7 @@ import ca.uhn.fhir.rest.client.apache.ResourceEntity;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.interceptor.SimpleRequestHeaderInterceptor;
 import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.server.FifoMemoryPagingProvider;
 import ca.uhn.fhir.rest.server.RestfulServer;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
@@ -92,6 +93,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -127,6 +129,8 @@ public class SystemProviderR4Test extends BaseJpaR4Test {
 		myStorageSettings.setDeleteExpungeEnabled(new JpaStorageSettings().isDeleteExpungeEnabled());
 		myStorageSettings.setAutoCreatePlaceholderReferenceTargets(new JpaStorageSettings().isAutoCreatePlaceholderReferenceTargets());
 		myStorageSettings.setPopulateIdentifierInAutoCreatedPlaceholderReferenceTargets(new JpaStorageSettings().isPopulateIdentifierInAutoCreatedPlaceholderReferenceTargets());
+		ourCtx.getParserOptions().setStreamingJsonParsing(false);
+		myFhirContext.getParserOptions().setStreamingJsonParsing(false);
 	}
 
 	@BeforeEach
@@ -361,6 +365,97 @@ public class SystemProviderR4Test extends BaseJpaR4Test {
 		assertThat(respSub.getEntry()).isEmpty();
 	}
 
+	@Test
+	public void testBatchWithStreamingJsonParsing() {
+		ourCtx.getParserOptions().setStreamingJsonParsing(true);
+		myFhirContext.getParserOptions().setStreamingJsonParsing(true);
+		myClient.setEncoding(EncodingEnum.JSON);
+
+		// Capture the request so that the request Bundle can be inspected once it has been processed
+		List<RequestDetails> requests = new ArrayList<>();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) -> requests.add(theArgs.get(RequestDetails.class));
+		ourRestServer.getInterceptorService().registerAnonymousInterceptor(Pointcut.SERVER_INCOMING_REQUEST_POST_PROCESSED, interceptor);
+		try {
+			Bundle resp = myClient.transaction().withBundle(createStreamingBatchBundle()).execute();
+
+			assertThat(resp.getEntry()).hasSize(4);
+			for (int i = 0; i < 3; i++) {
+				assertThat(resp.getEntry().get(i).getResponse().getStatus()).startsWith("201");
+			}
+			assertThat(resp.getEntry().get(3).getResponse().getStatus()).startsWith("404");
+			assertEquals(3, myPatientDao.search(SearchParameterMap.newSynchronous("family", new StringParam("STREAMED_")), mySrd).size());
+
+			// The entries were handed to the DAO as they were parsed and never collected into the Bundle
+			assertThat(requests).hasSize(1);
+			assertThat(((Bundle) requests.get(0).getResource()).getEntry()).isEmpty();
+		} finally {
+			ourRestServer.getInterceptorService().unregisterInterceptor(interceptor);
+		}
+	}
+
+	/**
+	 * Interceptors on the server pointcuts may inspect the request Bundle, so they must see all of its
+	 * entries even when streaming JSON parsing is enabled
+	 */
+	@Test
+	public void testBatchWithStreamingJsonParsing_ServerInterceptorSeesEntries() {
+		ourCtx.getParserOptions().setStreamingJsonParsing(true);
+		myFhirContext.getParserOptions().setStreamingJsonParsing(true);
+		myClient.setEncoding(EncodingEnum.JSON);
+
+		List<Integer> requestBundleEntryCounts = new ArrayList<>();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) -> {
+			Bundle requestBundle = (Bundle) theArgs.get(RequestDetails.class).getResource();
+			requestBundleEntryCounts.add(requestBundle.getEntry().size());
+		};
+		ourRestServer.getInterceptorService().registerAnonymousInterceptor(Pointcut.SERVER_OUTGOING_RESPONSE, interceptor);
+		try {
+			Bundle resp = myClient.transaction().withBundle(createStreamingBatchBundle()).execute();
+
+			assertThat(resp.getEntry()).hasSize(4);
+			assertThat(requestBundleEntryCounts).containsExactly(4);
+		} finally {
+			ourRestServer.getInterceptorService().unregisterInterceptor(interceptor);
+		}
+	}
+
+	private Bundle createStreamingBatchBundle() {
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		bb.setType("batch");
+		for (int i = 0; i < 3; i++) {
+			Patient p = new Patient();
+			p.addName().setFamily("STREAMED_" + i);
+			bb.addTransactionCreateEntry(p);
+		}
+		Bundle input = (Bundle) bb.getBundle();
+		input.addEntry().getRequest().setMethod(HTTPVerb.GET).setUrl("Patient/DOES-NOT-EXIST");
+		return input;
+	}
+
+	@Test
+	public void testTransactionWithStreamingJsonParsing() {
+		ourCtx.getParserOptions().setStreamingJsonParsing(true);
+		myFhirContext.getParserOptions().setStreamingJsonParsing(true);
+		myClient.setEncoding(EncodingEnum.JSON);
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		Patient patient = new Patient();
+		patient.setId(IdType.newRandomUuid());
+		patient.addName().setFamily("STREAMED_TX");
+		bb.addTransactionCreateEntry(patient);
+		Observation observation = new Observation();
+		observation.setSubject(new Reference(patient.getIdElement()));
+		bb.addTransactionCreateEntry(observation);
+
+		Bundle resp = myClient.transaction().withBundle((Bundle) bb.getBundle()).execute();
+
+		assertThat(resp.getEntry()).hasSize(2);
+		IdType patientId = new IdType(resp.getEntry().get(0).getResponse().getLocation()).toUnqualifiedVersionless();
+		IdType observationId = new IdType(resp.getEntry().get(1).getResponse().getLocation());
+		Observation storedObservation = myObservationDao.read(observationId, mySrd);
+		assertEquals(patientId.getValue(), storedObservation.getSubject().getReference());
+	}
+
 	@Test
 	public void testCountCache() {
 		Patient patient = new Patient();
@@ -572,7 +667,9 @@ public class SystemProviderR4Test extends BaseJpaR4Test {
 			assertEquals(1, counter2.get());
 
 		} finally {
+			ourRestServer.getInterceptorService().unregisterInterceptor(interceptor0);
 			ourRestServer.getInterceptorService().unregisterInterceptor(interceptor1);
+			ourRestServer.getInterceptorService().unregisterInterceptor(interceptor2);
 		}
 	}
 
@@ -249,6 +249,7 @@ public class GiantTransactionPerfTest {
 		mySearchParamRegistry.setPartitionSettingsForUnitTest(myPartitionSettings);
 		mySearchParamRegistry.registerListener();
 		mySearchParamRegistry.start();
+		myTransactionProcessor.setSearchParamRegistryForUnitTest(mySearchParamRegistry);
 
 		mySearchParamExtractor = new SearchParamExtractorR4();
 		mySearchParamExtractor.setContext(ourFhirContext);
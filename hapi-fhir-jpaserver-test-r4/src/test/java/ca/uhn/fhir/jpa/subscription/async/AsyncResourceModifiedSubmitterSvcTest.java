@@ -0,0 +1,57 @@
+package ca.uhn.fhir.jpa.subscription.async;
+
+import ca.uhn.fhir.jpa.model.entity.IPersistedResourceModifiedMessage;
+import ca.uhn.fhir.subscription.api.IResourceModifiedConsumerWithRetries;
+import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncResourceModifiedSubmitterSvcTest {
+
+	@Mock
+	private IResourceModifiedMessagePersistenceSvc myResourceModifiedMessagePersistenceSvc;
+	@Mock
+	private IResourceModifiedConsumerWithRetries myResourceModifiedConsumer;
+
+	@Test
+	public void testRunDeliveryPass_withBatchSubmission() {
+		when(myResourceModifiedConsumer.isBatchSubmissionSupported()).thenReturn(true);
+		when(myResourceModifiedConsumer.submitPersistedResourceModifiedMessages(anyInt()))
+			.thenReturn(AsyncResourceModifiedSubmitterSvc.getLimit(), 3);
+
+		new AsyncResourceModifiedSubmitterSvc(myResourceModifiedMessagePersistenceSvc, myResourceModifiedConsumer).runDeliveryPass();
+
+		verify(myResourceModifiedConsumer, times(2)).submitPersistedResourceModifiedMessages(AsyncResourceModifiedSubmitterSvc.getLimit());
+		verify(myResourceModifiedConsumer, never()).submitPersisedResourceModifiedMessage(any());
+		verify(myResourceModifiedMessagePersistenceSvc, never()).findAllOrderedByCreatedTime(any());
+	}
+
+	@Test
+	public void testRunDeliveryPass_withoutBatchSubmission_submitsOneAtATime() {
+		IPersistedResourceModifiedMessage message0 = mock(IPersistedResourceModifiedMessage.class);
+		IPersistedResourceModifiedMessage message1 = mock(IPersistedResourceModifiedMessage.class);
+		when(myResourceModifiedMessagePersistenceSvc.findAllOrderedByCreatedTime(any()))
+			.thenReturn(new PageImpl<>(List.of(message0, message1)));
+		when(myResourceModifiedConsumer.submitPersisedResourceModifiedMessage(any())).thenReturn(true);
+
+		new AsyncResourceModifiedSubmitterSvc(myResourceModifiedMessagePersistenceSvc, myResourceModifiedConsumer).runDeliveryPass();
+
+		verify(myResourceModifiedConsumer).submitPersisedResourceModifiedMessage(message0);
+		verify(myResourceModifiedConsumer).submitPersisedResourceModifiedMessage(message1);
+		verify(myResourceModifiedConsumer, never()).submitPersistedResourceModifiedMessages(anyInt());
+	}
+}
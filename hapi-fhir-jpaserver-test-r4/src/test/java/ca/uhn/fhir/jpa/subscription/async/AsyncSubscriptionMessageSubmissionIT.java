@@ -132,7 +132,7 @@ public class AsyncSubscriptionMessageSubmissionIT extends BaseSubscriptionsR4Tes
 		waitForQueueToDrain();
 		assertCountOfResourcesNeedingSubmission(0);
 
-		List<ILoggingEvent> events = myLogbackTestExtension.getLogEvents(e -> e.getLevel() == Level.DEBUG && e.getFormattedMessage().contains("Attempting to submit"));
+		List<ILoggingEvent> events = myLogbackTestExtension.getLogEvents(e -> e.getLevel() == Level.DEBUG && e.getFormattedMessage().contains("persisted resources to consumer channel"));
 		assertEquals(factor, events.size());
 	}
 
@@ -1,17 +1,27 @@
 package ca.uhn.fhir.jpa.subscription.resthook;
 
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.model.config.SubscriptionSettings;
+import ca.uhn.fhir.jpa.model.entity.IPersistedResourceModifiedMessage;
 import ca.uhn.fhir.jpa.subscription.BaseSubscriptionsR4Test;
+import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.RestHookDeliveryBatcher;
+import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
+import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryMessage;
+import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.jpa.test.util.StoppableSubscriptionDeliveringRestHookListener;
 import ca.uhn.fhir.jpa.topic.SubscriptionTopicDispatcher;
 import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
+import ca.uhn.fhir.rest.server.messaging.BaseResourceModifiedMessage;
 import ca.uhn.fhir.subscription.SubscriptionTestDataHelper;
 import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.HapiExtensions;
@@ -24,6 +34,7 @@ import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.Extension;
 import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.IntegerType;
 import org.hl7.fhir.r4.model.Meta;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Parameters;
@@ -41,12 +52,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static ca.uhn.fhir.rest.api.Constants.CT_FHIR_JSON_NEW;
 import static ca.uhn.fhir.util.HapiExtensions.EX_SEND_DELETE_MESSAGES;
@@ -1292,6 +1306,178 @@ public class RestHookTestR4Test extends BaseSubscriptionsR4Test {
 
 	}
 
+	@Test
+	public void testDeliverBatched() throws Exception {
+		Subscription subscription = newSubscription("Observation?", "application/json");
+		subscription.getChannel().addExtension(HapiExtensions.EXT_SUBSCRIPTION_RESTHOOK_BATCH_MAX_SIZE, new IntegerType(2));
+		subscription.getChannel().addExtension(HapiExtensions.EXT_SUBSCRIPTION_RESTHOOK_BATCH_WINDOW_MILLIS, new IntegerType(60000));
+		MethodOutcome methodOutcome = myClient.create().resource(subscription).execute();
+		mySubscriptionIds.add(methodOutcome.getId());
+		waitForActivatedSubscriptionCount(1);
+
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		IAnonymousInterceptor afterRestHookDelivery = (thePointcut, theArgs) -> events.add("delivered");
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY, afterRestHookDelivery);
+		try {
+			// The two notifications are collected by the batcher until the batch is full
+			sendObservation("OBS-0", "SNOMED-CT");
+			sendObservation("OBS-1", "SNOMED-CT");
+
+			// Both notifications are delivered together in a single history Bundle
+			ourTransactionProvider.waitForTransactionCount(1);
+			Bundle batch = ourTransactionProvider.getTransactions().get(0);
+			assertEquals(Bundle.BundleType.HISTORY, batch.getType());
+			assertThat(batch.getEntry()).hasSize(2);
+			assertThat(batch.getEntry()).allMatch(t -> t.getRequest().getMethod() == Bundle.HTTPVerb.PUT);
+			assertThat(batch.getEntry()).allMatch(t -> t.getResource() instanceof Observation);
+			assertEquals(0, ourObservationProvider.getCountUpdate());
+			await().until(() -> events.size() == 2);
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(afterRestHookDelivery);
+		}
+	}
+
+	@Test
+	public void testDeliverBatched_FailedBatchIsRetried() throws Exception {
+		Subscription subscription = newSubscription("Observation?", "application/json");
+		subscription.getChannel().addExtension(HapiExtensions.EXT_SUBSCRIPTION_RESTHOOK_BATCH_MAX_SIZE, new IntegerType(2));
+		subscription.getChannel().addExtension(HapiExtensions.EXT_SUBSCRIPTION_RESTHOOK_BATCH_WINDOW_MILLIS, new IntegerType(60000));
+		MethodOutcome methodOutcome = myClient.create().resource(subscription).execute();
+		mySubscriptionIds.add(methodOutcome.getId());
+		waitForActivatedSubscriptionCount(1);
+
+		// The endpoint rejects the first batch
+		AtomicInteger failuresRemaining = new AtomicInteger(1);
+		IAnonymousInterceptor failingEndpoint = (thePointcut, theArgs) -> {
+			if (theArgs.get(RestOperationTypeEnum.class) == RestOperationTypeEnum.TRANSACTION
+					&& failuresRemaining.getAndDecrement() > 0) {
+				throw new InternalErrorException("Endpoint unavailable");
+			}
+		};
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		IAnonymousInterceptor deliveryFailed = (thePointcut, theArgs) -> events.add("failed");
+		IAnonymousInterceptor afterRestHookDelivery = (thePointcut, theArgs) -> events.add("delivered");
+		ourRestfulServer.getRestfulServer().getInterceptorService().registerAnonymousInterceptor(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED, failingEndpoint);
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.SUBSCRIPTION_AFTER_DELIVERY_FAILED, deliveryFailed);
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY, afterRestHookDelivery);
+		try {
+			sendObservation("OBS-0", "SNOMED-CT");
+			sendObservation("OBS-1", "SNOMED-CT");
+
+			// Each delivery in the failed batch fails, and is persisted for a retry limited to the subscription
+			await().until(() -> events.size() == 2);
+			assertThat(events).containsExactly("failed", "failed");
+			await().until(() -> myResourceModifiedDao.count() == 2);
+			for (IPersistedResourceModifiedMessage next : myResourceModifiedDao.findAll()) {
+				ResourceModifiedMessage parked =
+					myResourceModifiedMessagePersistenceSvc.createResourceModifiedMessageFromEntityWithoutInflation(next);
+				assertEquals(methodOutcome.getId().getIdPart(), parked.getSubscriptionId());
+				assertEquals("1", parked.getPayloadVersion());
+			}
+
+			// The retries are delivered together once they are submitted again
+			myResourceModifiedSubmitterSvc.submitPersistedResourceModifiedMessages(10);
+			ourTransactionProvider.waitForTransactionCount(1);
+			assertThat(ourTransactionProvider.getTransactions().get(0).getEntry()).hasSize(2);
+			await().until(() -> events.size() == 4);
+			assertThat(events).containsExactly("failed", "failed", "delivered", "delivered");
+			assertEquals(0, myResourceModifiedDao.count());
+		} finally {
+			ourRestfulServer.getRestfulServer().getInterceptorService().unregisterInterceptor(failingEndpoint);
+			myInterceptorRegistry.unregisterInterceptor(deliveryFailed);
+			myInterceptorRegistry.unregisterInterceptor(afterRestHookDelivery);
+		}
+	}
+
+	@Test
+	public void testDeliveryBatcher_SendsBatchesForEndpointOneAtATime() throws Exception {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		IAnonymousInterceptor slowEndpoint = (thePointcut, theArgs) -> {
+			if (theArgs.get(RestOperationTypeEnum.class) == RestOperationTypeEnum.TRANSACTION) {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					inFlight.decrementAndGet();
+				}
+			}
+		};
+		ourRestfulServer.getRestfulServer().getInterceptorService().registerAnonymousInterceptor(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED, slowEndpoint);
+		RestHookDeliveryBatcher batcher = newDeliveryBatcher(4);
+		try {
+			CanonicalSubscription subscription = newBatchedCanonicalSubscription(1, 60000);
+			for (int i = 0; i < 4; i++) {
+				Observation observation = newBatchedObservation("OBS-" + i);
+				batcher.submit(newDeliveryMessage(observation), subscription, EncodingEnum.JSON, observation);
+			}
+
+			ourTransactionProvider.waitForTransactionCount(4);
+			assertEquals(1, maxInFlight.get());
+		} finally {
+			batcher.stop();
+			ourRestfulServer.getRestfulServer().getInterceptorService().unregisterInterceptor(slowEndpoint);
+		}
+	}
+
+	@Test
+	public void testDeliveryBatcher_SendsPendingBatchesOnStop() throws Exception {
+		RestHookDeliveryBatcher batcher = newDeliveryBatcher(RestHookDeliveryBatcher.DEFAULT_SENDER_THREAD_COUNT);
+		try {
+			CanonicalSubscription subscription = newBatchedCanonicalSubscription(10, 60000);
+			for (int i = 0; i < 2; i++) {
+				Observation observation = newBatchedObservation("OBS-" + i);
+				// Returns without waiting for the batch to be sent
+				batcher.submit(newDeliveryMessage(observation), subscription, EncodingEnum.JSON, observation);
+			}
+			assertEquals(2, batcher.getPendingNotificationCount());
+			assertThat(ourTransactionProvider.getTransactions()).isEmpty();
+
+			batcher.stop();
+
+			// The pending batch is sent on stop
+			ourTransactionProvider.waitForTransactionCount(1);
+			assertThat(ourTransactionProvider.getTransactions().get(0).getEntry()).hasSize(2);
+
+			// Nothing more is accepted once stopped
+			Observation observation = newBatchedObservation("OBS-2");
+			assertThatExceptionOfType(InternalErrorException.class)
+				.isThrownBy(() -> batcher.submit(newDeliveryMessage(observation), subscription, EncodingEnum.JSON, observation))
+				.withMessageContaining(Msg.code(2869));
+		} finally {
+			batcher.stop();
+		}
+	}
+
+	private RestHookDeliveryBatcher newDeliveryBatcher(int theSenderThreadCount) {
+		return new RestHookDeliveryBatcher(
+			myFhirContext, myInterceptorRegistry, myResourceModifiedMessagePersistenceSvc, theSenderThreadCount);
+	}
+
+	private CanonicalSubscription newBatchedCanonicalSubscription(int theMaxSize, long theWindowMillis) {
+		CanonicalSubscription retVal = new CanonicalSubscription();
+		retVal.setEndpointUrl(ourRestfulServer.getBaseUrl());
+		retVal.getRestHookDetails().setBatchMaxSize(theMaxSize);
+		retVal.getRestHookDetails().setBatchWindowMillis(theWindowMillis);
+		return retVal;
+	}
+
+	private Observation newBatchedObservation(String theId) {
+		Observation retVal = new Observation();
+		retVal.setId("Observation/" + theId);
+		retVal.setStatus(Observation.ObservationStatus.FINAL);
+		return retVal;
+	}
+
+	private ResourceDeliveryMessage newDeliveryMessage(Observation theObservation) {
+		ResourceDeliveryMessage retVal = new ResourceDeliveryMessage();
+		retVal.setOperationType(BaseResourceModifiedMessage.OperationTypeEnum.CREATE);
+		retVal.setPayload(myFhirContext, theObservation, EncodingEnum.JSON);
+		return retVal;
+	}
+
 	@Test
 	public void testRestHoodTopicSubscription_withEmptyPayloadContent_generateCorrectPayload() throws Exception {
 		String payloadContent = "empty";
@@ -6,7 +6,10 @@ import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
 import ca.uhn.fhir.interceptor.api.IInterceptorService;
 import ca.uhn.fhir.interceptor.api.Interceptor;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.model.config.SubscriptionSettings;
 import ca.uhn.fhir.jpa.subscription.BaseSubscriptionsR4Test;
+import ca.uhn.fhir.jpa.subscription.match.deliver.SubscriptionDeliveryBulkhead;
+import ca.uhn.fhir.jpa.subscription.match.deliver.SubscriptionDeliveryBulkhead.CircuitStateEnum;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
@@ -15,6 +18,7 @@ import ca.uhn.fhir.jpa.test.util.StoppableSubscriptionDeliveringRestHookListener
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Subscription;
@@ -40,6 +44,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -68,6 +73,8 @@ public class RestHookWithInterceptorR4Test extends BaseSubscriptionsR4Test {
     StoppableSubscriptionDeliveringRestHookListener myStoppableSubscriptionDeliveringRestHookListener;
 	@Autowired
 	private IInterceptorService myInterceptorRegistry;
+	@Autowired
+	private SubscriptionDeliveryBulkhead mySubscriptionDeliveryBulkhead;
 	private MyTestInterceptor myTestInterceptor = new MyTestInterceptor();
 
 	@AfterEach
@@ -215,6 +222,95 @@ public class RestHookWithInterceptorR4Test extends BaseSubscriptionsR4Test {
 		}
 	}
 
+	@Test
+	public void testDeliveryRejectedWhileCircuitIsOpenIsDeliveredLater() throws Exception {
+		mySubscriptionSettings.setDeliveryCircuitBreakerFailureThreshold(1);
+		mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(DateUtils.MILLIS_PER_HOUR);
+		String subscriptionId = null;
+		try {
+			// Create a subscription
+			CountDownLatch registerLatch = registerLatchHookInterceptor(1, Pointcut.SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED);
+			Subscription subscription = createSubscription("Observation?status=final", "application/fhir+json");
+			registerLatch.await(10, TimeUnit.SECONDS);
+			subscriptionId = subscription.getIdElement().getIdPart();
+
+			// Open the circuit, as though a delivery had just failed
+			mySubscriptionDeliveryBulkhead.beginDelivery(subscriptionId);
+			mySubscriptionDeliveryBulkhead.endDelivery(subscriptionId, false, 0);
+
+			// The matched resource is rejected and persisted for a retry
+			CountDownLatch failedLatch = registerLatchHookInterceptor(1, Pointcut.SUBSCRIPTION_AFTER_DELIVERY_FAILED);
+			sendObservation();
+			assertTrue(failedLatch.await(10, TimeUnit.SECONDS));
+			await().until(() -> myResourceModifiedDao.count() == 1);
+			ResourceModifiedMessage parked = myResourceModifiedMessagePersistenceSvc
+				.createResourceModifiedMessageFromEntityWithoutInflation(myResourceModifiedDao.findAll().get(0));
+			assertEquals(subscriptionId, parked.getSubscriptionId());
+			assertEquals(0, ourObservationProvider.getCountUpdate());
+
+			// Once the circuit half-opens, the retry is delivered
+			mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(0);
+			myResourceModifiedSubmitterSvc.submitPersistedResourceModifiedMessages(10);
+
+			ourObservationProvider.waitForUpdateCount(1);
+			await().until(() -> mySubscriptionDeliveryBulkhead.getMetrics(subscription.getIdElement().getIdPart()).circuitState() == CircuitStateEnum.CLOSED);
+			assertEquals(0, myResourceModifiedDao.count());
+		} finally {
+			mySubscriptionSettings.setDeliveryCircuitBreakerFailureThreshold(new SubscriptionSettings().getDeliveryCircuitBreakerFailureThreshold());
+			mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(new SubscriptionSettings().getDeliveryCircuitBreakerOpenMillis());
+			if (subscriptionId != null) {
+				mySubscriptionDeliveryBulkhead.remove(subscriptionId);
+			}
+		}
+	}
+
+	@Test
+	public void testDeliveriesRejectedForSeveralSubscriptionsAreOnlyRetriedForThoseSubscriptions() throws Exception {
+		mySubscriptionSettings.setDeliveryCircuitBreakerFailureThreshold(1);
+		mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(DateUtils.MILLIS_PER_HOUR);
+		List<String> openSubscriptionIds = new ArrayList<>();
+		try {
+			// Create three subscriptions, and open the circuit of two of them
+			CountDownLatch registerLatch = registerLatchHookInterceptor(3, Pointcut.SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED);
+			for (int i = 0; i < 3; i++) {
+				Subscription subscription = createSubscription("Observation?status=final", "application/fhir+json");
+				if (i < 2) {
+					openSubscriptionIds.add(subscription.getIdElement().getIdPart());
+				}
+			}
+			assertTrue(registerLatch.await(10, TimeUnit.SECONDS));
+			for (String next : openSubscriptionIds) {
+				mySubscriptionDeliveryBulkhead.beginDelivery(next);
+				mySubscriptionDeliveryBulkhead.endDelivery(next, false, 0);
+			}
+
+			// The resource is delivered to the third subscription, and persisted once for the other two
+			CountDownLatch failedLatch = registerLatchHookInterceptor(2, Pointcut.SUBSCRIPTION_AFTER_DELIVERY_FAILED);
+			sendObservation();
+			assertTrue(failedLatch.await(10, TimeUnit.SECONDS));
+			ourObservationProvider.waitForUpdateCount(1);
+			await().until(() -> myResourceModifiedDao.count() == 1);
+			ResourceModifiedMessage parked = myResourceModifiedMessagePersistenceSvc
+				.createResourceModifiedMessageFromEntityWithoutInflation(myResourceModifiedDao.findAll().get(0));
+			assertThat(parked.getSubscriptionIds()).containsExactlyInAnyOrderElementsOf(openSubscriptionIds);
+
+			// Once the circuits half-open, the retry is delivered to those two subscriptions only
+			mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(0);
+			myResourceModifiedSubmitterSvc.submitPersistedResourceModifiedMessages(10);
+
+			ourObservationProvider.waitForUpdateCount(3);
+			for (String next : openSubscriptionIds) {
+				await().until(() -> mySubscriptionDeliveryBulkhead.getMetrics(next).circuitState() == CircuitStateEnum.CLOSED);
+			}
+			assertEquals(3, ourObservationProvider.getCountUpdate());
+			assertEquals(0, myResourceModifiedDao.count());
+		} finally {
+			mySubscriptionSettings.setDeliveryCircuitBreakerFailureThreshold(new SubscriptionSettings().getDeliveryCircuitBreakerFailureThreshold());
+			mySubscriptionSettings.setDeliveryCircuitBreakerOpenMillis(new SubscriptionSettings().getDeliveryCircuitBreakerOpenMillis());
+			openSubscriptionIds.forEach(mySubscriptionDeliveryBulkhead::remove);
+		}
+	}
+
 	protected Observation sendObservation() {
 		Observation observation = new Observation();
 		observation.setStatus(Observation.ObservationStatus.FINAL);
@@ -4,6 +4,8 @@ import ca.uhn.fhir.broker.api.ChannelProducerSettings;
 import ca.uhn.fhir.broker.api.IChannelProducer;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.model.config.SubscriptionSettings;
+import ca.uhn.fhir.jpa.model.entity.IPersistedResourceModifiedMessage;
+import ca.uhn.fhir.jpa.model.entity.IPersistedResourceModifiedMessagePK;
 import ca.uhn.fhir.jpa.model.entity.PersistedResourceModifiedMessageEntityPK;
 import ca.uhn.fhir.jpa.model.entity.ResourceModifiedEntity;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelFactory;
@@ -29,6 +31,7 @@ import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.SimpleTransactionStatus;
 
+import java.util.Collection;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -39,6 +42,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -58,6 +62,8 @@ public class ResourceModifiedSubmitterSvcTest {
 	ArgumentCaptor<ChannelProducerSettings> myArgumentCaptor;
 	@Mock
 	IChannelProducer<ResourceModifiedMessage> myChannelProducer;
+	@Captor
+	ArgumentCaptor<Collection<IPersistedResourceModifiedMessagePK>> myPkCaptor;
 
 	@Mock
 	ListAppender<ILoggingEvent> myListAppender;
@@ -233,6 +239,66 @@ public class ResourceModifiedSubmitterSvcTest {
 
 	}
 
+	@Test
+	public void testSubmitPersistedResourceModifiedMessages_deletesSubmittedMessagesInOneCall(){
+		// given
+		List<IPersistedResourceModifiedMessage> lockedMessages = List.of(newEntity("1"), newEntity("2"), newEntity("3"));
+		when(myResourceModifiedMessagePersistenceSvc.lockOldestForSubmission(5)).thenReturn(lockedMessages);
+		when(myResourceModifiedMessagePersistenceSvc.createResourceModifiedMessageFromEntityWithoutInflation(any())).thenReturn(new ResourceModifiedMessage());
+
+		// when
+		int submittedCount = myResourceModifiedSubmitterSvc.submitPersistedResourceModifiedMessages(5);
+
+		// then
+		assertEquals(3, submittedCount);
+		assertEquals(Boolean.FALSE, myCapturingTransactionStatus.isRollbackOnly());
+		verify(myChannelProducer, times(3)).send(any());
+		verify(myResourceModifiedMessagePersistenceSvc, times(1)).deleteByPKs(myPkCaptor.capture());
+		assertThat(myPkCaptor.getValue()).hasSize(3);
+		verify(myResourceModifiedMessagePersistenceSvc, never()).deleteByPK(any());
+	}
+
+	@Test
+	public void testSubmitPersistedResourceModifiedMessages_whitErrorOnSending_onlyDeletesSubmittedMessages(){
+		// given
+		List<IPersistedResourceModifiedMessage> lockedMessages = List.of(newEntity("1"), newEntity("2"), newEntity("3"));
+		when(myResourceModifiedMessagePersistenceSvc.lockOldestForSubmission(3)).thenReturn(lockedMessages);
+		when(myResourceModifiedMessagePersistenceSvc.createResourceModifiedMessageFromEntityWithoutInflation(any())).thenReturn(new ResourceModifiedMessage());
+
+		// simulate failure writing the second message to the channel
+		when(myChannelProducer.send(any()))
+			.thenReturn(null)
+			.thenThrow(new MessageDeliveryException("sendingError"));
+
+		// when
+		int submittedCount = myResourceModifiedSubmitterSvc.submitPersistedResourceModifiedMessages(3);
+
+		// then
+		assertEquals(1, submittedCount);
+		verify(myChannelProducer, times(2)).send(any());
+		verify(myResourceModifiedMessagePersistenceSvc).deleteByPKs(myPkCaptor.capture());
+		assertThat(myPkCaptor.getValue()).containsExactly(lockedMessages.get(0).getPersistedResourceModifiedMessagePk());
+	}
+
+	@Test
+	public void testSubmitPersistedResourceModifiedMessages_withNothingToSubmit(){
+		// given
+		when(myResourceModifiedMessagePersistenceSvc.lockOldestForSubmission(5)).thenReturn(List.of());
+
+		// when
+		int submittedCount = myResourceModifiedSubmitterSvc.submitPersistedResourceModifiedMessages(5);
+
+		// then
+		assertEquals(0, submittedCount);
+		verify(myResourceModifiedMessagePersistenceSvc, never()).deleteByPKs(any());
+		verify(myChannelProducer, never()).send(any());
+	}
+
+	private static ResourceModifiedEntity newEntity(String theResourcePid) {
+		PersistedResourceModifiedMessageEntityPK pk = PersistedResourceModifiedMessageEntityPK.with(theResourcePid, "1", "Patient");
+		return new ResourceModifiedEntity().setResourceModifiedEntityPK(pk);
+	}
+
 	private ChannelProducerSettings getCapturedChannelProducerSettings(){
 		verify(mySubscriptionChannelFactory).newMatchingProducer(anyString(), myArgumentCaptor.capture());
 		return myArgumentCaptor.getValue();
@@ -22,10 +22,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
 import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -116,6 +120,56 @@ public class TerminologyLoaderSvcSnomedCtTest extends BaseLoaderTest {
 		assertThat(allCodes).contains("126816002");
 	}
 
+	@Test
+	public void testLoadSnomedCt_DisplaysAndParentLinks() throws Exception {
+		myFiles.addFileZip("/sct/", "sct2_Concept_Full_INT_20160131.txt");
+		myFiles.addFileZip("/sct/", "sct2_Description_Full-en_INT_20160131.txt");
+		myFiles.addFileZip("/sct/", "sct2_Relationship_Full_INT_20160131.txt");
+
+		Map<String, TermConcept> concepts = loadAndCaptureAllConcepts();
+
+		// Only active concepts with an active description are loaded
+		assertThat(concepts.keySet()).containsExactlyInAnyOrder(
+			"116680003", "126813005", "126815003", "126816002", "126817006");
+		assertEquals("Is a (attribute)", concepts.get("116680003").getDisplay());
+		assertEquals("ROOT1", concepts.get("126813005").getDisplay());
+		assertEquals("ROOT1_1", concepts.get("126815003").getDisplay());
+		assertEquals("ROOT1_2", concepts.get("126816002").getDisplay());
+		assertEquals("ROOT1_1_1", concepts.get("126817006").getDisplay());
+
+		assertThat(toParentCodes(concepts.get("126813005"))).isEmpty();
+		assertThat(toParentCodes(concepts.get("126815003"))).containsExactly("126813005");
+		// The relationship to 126813005 was made inactive in a later row
+		assertThat(toParentCodes(concepts.get("126816002"))).isEmpty();
+		// 126815003 is also recorded as a child of 126817006, but the circular reference is dropped
+		assertThat(toParentCodes(concepts.get("126817006"))).containsExactly("126815003");
+		assertThat(toChildCodes(concepts.get("126813005"))).containsExactly("126815003");
+		assertThat(toChildCodes(concepts.get("126817006"))).isEmpty();
+	}
+
+	@Test
+	public void testLoadSnomedCt_DisplayIsLastActiveDescription() throws Exception {
+		myFiles.addFileZip("/sct/", "sct2_Concept_Full_INT_20160131.txt");
+		myFiles.addFileZip("/sct/", "sct2_Relationship_Full_INT_20160131.txt");
+		myFiles.addFileText("""
+			id	effectiveTime	active	moduleId	conceptId	languageCode	typeId	term	caseSignificanceId
+			181114011	20020131	1	900000000000207008	116680003	en	900000000000013009	Is a (attribute)	900000000000020002
+			101013	20020131	1	900000000000207008	126813005	en	900000000000003001	Root one (finding)	900000000000020002
+			101014	20020131	1	900000000000207008	126813005	en	900000000000013009	Root one	900000000000020002
+			101015	20020131	0	900000000000207008	126813005	en	900000000000013009	Retired root name	900000000000020002
+			103011	20020131	1	900000000000207008	126815003	en	900000000000013009	Root one child	900000000000020002
+			103012	20020131	0	900000000000207008	126815003	en	900000000000013009	Retired child name	900000000000020002
+			105016	20020131	0	900000000000207008	126817006	en	900000000000013009	Grandchild with inactive description only	900000000000020002
+			""", ZipCollectionBuilder.ZIP_ENTRY_PREFIX + "sct2_Description_Full-en_INT_20160131.txt");
+
+		Map<String, TermConcept> concepts = loadAndCaptureAllConcepts();
+
+		assertThat(concepts.keySet()).containsExactlyInAnyOrder("116680003", "126813005", "126815003");
+		assertEquals("Root one", concepts.get("126813005").getDisplay());
+		assertEquals("Root one child", concepts.get("126815003").getDisplay());
+		assertThat(toParentCodes(concepts.get("126815003"))).containsExactly("126813005");
+	}
+
 	/**
 	 * This is just for trying stuff, it won't run without
 	 * local files external to the git repo
@@ -145,6 +199,33 @@ public class TerminologyLoaderSvcSnomedCtTest extends BaseLoaderTest {
 		}
 	}
 
+	private Map<String, TermConcept> loadAndCaptureAllConcepts() {
+		mySvc.loadSnomedCt(myFiles.getFiles(), mySrd);
+
+		verify(myTermCodeSystemStorageSvc).storeNewCodeSystemVersion(any(CodeSystem.class), myCsvCaptor.capture(), any(RequestDetails.class), anyList(), anyList());
+
+		Map<String, TermConcept> retVal = new HashMap<>();
+		for (TermConcept next : myCsvCaptor.getValue().getConcepts()) {
+			addWithDescendants(retVal, next);
+		}
+		return retVal;
+	}
+
+	private void addWithDescendants(Map<String, TermConcept> theConcepts, TermConcept theConcept) {
+		theConcepts.put(theConcept.getCode(), theConcept);
+		for (TermConceptParentChildLink next : theConcept.getChildren()) {
+			addWithDescendants(theConcepts, next.getChild());
+		}
+	}
+
+	private static List<String> toParentCodes(TermConcept theConcept) {
+		return theConcept.getParents().stream().map(t -> t.getParent().getCode()).toList();
+	}
+
+	private static List<String> toChildCodes(TermConcept theConcept) {
+		return theConcept.getChildren().stream().map(t -> t.getChild().getCode()).toList();
+	}
+
 	private TreeSet<String> toCodes(TermCodeSystemVersion theCsv, boolean theAddChildren) {
 		TreeSet<String> retVal = new TreeSet<>();
 		for (TermConcept next : theCsv.getConcepts()) {
@@ -17,10 +17,13 @@ import ca.uhn.fhir.jpa.test.Batch2JobHelper;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.CodeType;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.ConceptMap;
+import org.hl7.fhir.r4.model.UriType;
 import org.hl7.fhir.r4.model.ValueSet;
+import org.hl7.fhir.r4.model.codesystems.ConceptSubsumptionOutcome;
 import org.hl7.fhir.r4.model.codesystems.HttpVerb;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -63,6 +66,7 @@ public class TerminologySvcImplR4Test extends BaseTermR4Test {
 	public void after() {
 		super.after();
 		myStorageSettings.setDeferIndexingForCodesystemsOfSize(new JpaStorageSettings().getDeferIndexingForCodesystemsOfSize());
+		myStorageSettings.setPreExpandedValueSetMembershipIndexMaxCodes(new JpaStorageSettings().getPreExpandedValueSetMembershipIndexMaxCodes());
 		TermCodeSystemDeleteJobSvcWithUniTestFailures.setFailNextDeleteCodeSystemVersion(false);
 	}
 
@@ -308,6 +312,64 @@ public class TerminologySvcImplR4Test extends BaseTermR4Test {
 		assertEquals("Systolic blood pressure at First encounter", result.getDisplay());
 	}
 
+	@Test
+	public void testValidateCodeIsInPreExpandedValueSet_MembershipIndex() throws Exception {
+		myStorageSettings.setPreExpandValueSets(true);
+		myStorageSettings.setPreExpandedValueSetMembershipIndexMaxCodes(1000);
+
+		loadAndPersistCodeSystemAndValueSetWithDesignations(HttpVerb.POST);
+		ValueSet valueSet = myValueSetDao.read(myExtensionalVsId);
+
+		myTermSvc.preExpandDeferredValueSetsToTerminologyTables();
+		ValidationSupportContext valCtx = new ValidationSupportContext(myValidationSupport);
+
+		// The first validation loads the index
+		IValidationSupport.CodeValidationResult result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsNoGuess, valueSet, "http://acme.org", "11378-7", null, null, null);
+		assertTrue(result.isOk());
+
+		myCaptureQueriesListener.clear();
+
+		result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsNoGuess, valueSet, "http://acme.org", "11378-7", null, null, null);
+		assertTrue(result.isOk());
+		assertEquals("11378-7", result.getCode());
+		assertEquals("Systolic blood pressure at First encounter", result.getDisplay());
+
+		result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsGuess, valueSet, null, "11378-7", "Systolic blood pressure at First encounter", null, null);
+		assertTrue(result.isOk());
+		assertEquals("Systolic blood pressure at First encounter", result.getDisplay());
+
+		result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsNoGuess, valueSet, null, "11378-7", null, null, null);
+		assertFalse(result.isOk());
+
+		result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsNoGuess, valueSet, "http://acme.org", "BOGUS", null, null, null);
+		assertFalse(result.isOk());
+		assertThat(result.getMessage()).contains("Unknown code \"http://acme.org#BOGUS\"");
+
+		result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsNoGuess, valueSet, "http://foo", "11378-7", null, null, null);
+		assertFalse(result.isOk());
+		assertThat(result.getMessage()).contains("No codes in ValueSet belong to CodeSystem with URL http://foo");
+
+		Coding coding = new Coding("http://acme.org", "11378-7", "Systolic blood pressure at First encounter");
+		CodeableConcept codeableConcept = new CodeableConcept();
+		codeableConcept.addCoding(new Coding("BOGUS", "BOGUS", "BOGUS"));
+		codeableConcept.addCoding(coding);
+		result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsNoGuess, valueSet, null, null, null, null, codeableConcept);
+		assertTrue(result.isOk());
+		assertEquals("Systolic blood pressure at First encounter", result.getDisplay());
+
+		myCaptureQueriesListener.logSelectQueries();
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+			.noneMatch(t -> t.getSql(false, false).contains("TRM_VALUESET_CONCEPT"));
+
+		// Invalidating the caches discards the index
+		myTermSvc.invalidateCaches();
+		myCaptureQueriesListener.clear();
+		result = myTermSvc.validateCodeIsInPreExpandedValueSet(valCtx, optsNoGuess, valueSet, "http://acme.org", "11378-7", null, null, null);
+		assertTrue(result.isOk());
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+			.anyMatch(t -> t.getSql(false, false).contains("TRM_VALUESET_CONCEPT"));
+	}
+
 	@Test
 	public void testValidateCodeIsInPreExpandedValueSetWithClientAssignedId() throws Exception {
 		myStorageSettings.setPreExpandValueSets(true);
@@ -412,6 +474,51 @@ public class TerminologySvcImplR4Test extends BaseTermR4Test {
 		});
 	}
 
+	@Test
+	public void testFindCodesAboveAndBelowAndSubsumes() {
+		CodeSystem codeSystem = new CodeSystem();
+		codeSystem.setUrl(CS_URL);
+		codeSystem.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		CodeSystem.ConceptDefinitionComponent a = codeSystem.addConcept().setCode("A");
+		CodeSystem.ConceptDefinitionComponent aa = a.addConcept().setCode("AA");
+		aa.addConcept().setCode("AAA");
+		aa.addConcept().setCode("AAB");
+		a.addConcept().setCode("AB");
+		codeSystem.addConcept().setCode("B");
+		IIdType id = myCodeSystemDao.create(codeSystem, mySrd).getId().toUnqualified();
+
+		// Descendants are fetched one level at a time
+		myCaptureQueriesListener.clear();
+		Set<TermConcept> codes = myTermSvc.findCodesBelow(id.getIdPartAsLong(), id.getVersionIdPartAsLong(), "A");
+		assertThat(toCodes(codes)).containsExactlyInAnyOrder("A", "AA", "AAA", "AAB", "AB");
+		myCaptureQueriesListener.logSelectQueries();
+		assertEquals(6, myCaptureQueriesListener.countSelectQueries());
+
+		codes = myTermSvc.findCodesBelow(id.getIdPartAsLong(), id.getVersionIdPartAsLong(), "AAB");
+		assertThat(toCodes(codes)).containsExactlyInAnyOrder("AAB");
+
+		// Ancestors are loaded all at once
+		myCaptureQueriesListener.clear();
+		codes = myTermSvc.findCodesAbove(id.getIdPartAsLong(), id.getVersionIdPartAsLong(), "AAB");
+		assertThat(toCodes(codes)).containsExactlyInAnyOrder("AAB", "AA", "A");
+		myCaptureQueriesListener.logSelectQueries();
+		assertEquals(3, myCaptureQueriesListener.countSelectQueries());
+
+		codes = myTermSvc.findCodesAbove(id.getIdPartAsLong(), id.getVersionIdPartAsLong(), "B");
+		assertThat(toCodes(codes)).containsExactlyInAnyOrder("B");
+
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMES, subsumes("A", "AAB"));
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMEDBY, subsumes("AAB", "A"));
+		assertEquals(ConceptSubsumptionOutcome.NOTSUBSUMED, subsumes("AB", "AAB"));
+		assertEquals(ConceptSubsumptionOutcome.NOTSUBSUMED, subsumes("B", "AAA"));
+	}
+
+	private ConceptSubsumptionOutcome subsumes(String theCodeA, String theCodeB) {
+		return myTermSvc
+			.subsumes(new CodeType(theCodeA), new CodeType(theCodeB), new UriType(CS_URL), null, null)
+			.getOutcome();
+	}
+
 	@Test
 	public void testUpdateCodeSystemUrlAndVersion() {
 		// create code system
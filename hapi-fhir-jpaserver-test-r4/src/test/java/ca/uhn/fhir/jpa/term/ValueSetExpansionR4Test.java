@@ -91,6 +91,7 @@ public class ValueSetExpansionR4Test extends BaseTermR4Test implements IValueSet
 	public void afterEach() {
 		SearchBuilder.setMaxPageSizeForTest(null);
 		TermReadSvcImpl.setForceDisableHibernateSearchForUnitTest(false);
+		myStorageSettings.setPreExpandValueSetsThreadCount(new JpaStorageSettings().getPreExpandValueSetsThreadCount());
 	}
 
 	@Override
@@ -154,6 +155,40 @@ public class ValueSetExpansionR4Test extends BaseTermR4Test implements IValueSet
 	}
 
 
+	@Test
+	public void testPreExpandValueSets_MultipleThreads() {
+		myStorageSettings.setPreExpandValueSets(true);
+		myStorageSettings.setPreExpandValueSetsThreadCount(4);
+
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://acme.org/cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		for (int i = 0; i < 10; i++) {
+			cs.addConcept().setCode("code" + i).setDisplay("Code " + i);
+		}
+		myCodeSystemDao.create(cs, mySrd);
+
+		for (int i = 0; i < 10; i++) {
+			ValueSet vs = new ValueSet();
+			vs.setUrl("http://acme.org/vs" + i);
+			vs.getCompose().addInclude().setSystem("http://acme.org/cs");
+			myValueSetDao.create(vs, mySrd);
+		}
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+
+		myTermSvc.preExpandDeferredValueSetsToTerminologyTables();
+
+		runInTransaction(() -> {
+			List<TermValueSet> valueSets = myTermValueSetDao.findAll();
+			assertThat(valueSets).hasSize(10);
+			assertThat(valueSets).allSatisfy(t -> {
+				assertEquals(TermValueSetPreExpansionStatusEnum.EXPANDED, t.getExpansionStatus());
+				assertEquals(10, t.getTotalConcepts());
+			});
+			assertEquals(100, myTermValueSetConceptDao.count());
+		});
+	}
+
 	@Test
 	public void testExpandInline_IncludeCodeSystem_FilterOnDisplay_NoFilter() throws Exception {
 		loadAndPersistCodeSystemWithDesignations(HttpVerb.PUT);
@@ -10,6 +10,8 @@ import ca.uhn.fhir.jpa.model.dialect.HapiFhirOracleDialect;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.search.builder.predicate.ResourceTablePredicateBuilder;
 import ca.uhn.fhir.rest.api.SearchIncludeDeletedEnum;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.DateRangeParam;
 import com.google.common.collect.Lists;
 import org.hibernate.dialect.DerbyDialect;
 import org.hibernate.dialect.MySQL8Dialect;
@@ -19,6 +21,8 @@ import org.hibernate.dialect.SQLServerDialect;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +39,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 @ContextConfiguration(classes = {SearchQueryBuilderTest.MyConfig.class})
 public class SearchQueryBuilderTest {
 
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchQueryBuilderTest.class);
+
 	private FhirContext myFhirContext;
 	private StorageSettings myStorageSettings;
 	private PartitionSettings myPartitionSettings;
@@ -430,7 +436,81 @@ public class SearchQueryBuilderTest {
 		assertThat(generated.getBindVariables()).as(generated.getBindVariables().toString()).containsExactly("Patient", 500L, 501L, 10, 5);
 
 	}
-	
+
+	@Test
+	public void testGenerate_QueryPlanCache() {
+		HibernatePropertiesProvider dialectProvider = new HibernatePropertiesProvider();
+		dialectProvider.setDialectForUnitTest(new PostgreSQLDialect());
+		SearchQueryPlanCache cache = new SearchQueryPlanCache();
+		SearchQueryPlanCache.Key key = new SearchQueryPlanCache.Key("Patient", myRequestPartitionId, "shape");
+
+		GeneratedSql first = newBuilderForQueryPlanCache(dialectProvider, 500L, 501L, "2020-01-01").generate(0, 10, cache, key);
+		GeneratedSql second = newBuilderForQueryPlanCache(dialectProvider, 600L, 601L, "2021-02-03").generate(0, 10, cache, key);
+
+		assertEquals(first.getSql(), second.getSql());
+		assertThat(first.getBindVariables()).contains(500L, 501L, 10);
+		assertThat(second.getBindVariables()).contains(600L, 601L, 10);
+		assertThat(second.getBindVariables()).doesNotContain(500L, 501L);
+		assertEquals(first.getBindVariables().size(), second.getBindVariables().size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// A different number of bind variables is never served from the cache
+		SearchQueryBuilder builder = newBuilderForQueryPlanCache(dialectProvider, 700L, 701L, "2022-01-01");
+		builder.addResourceIdsPredicate(Lists.newArrayList(JpaPid.fromId(702L)));
+		GeneratedSql third = builder.generate(0, 10, cache, key);
+		assertThat(third.getBindVariables()).contains(700L, 701L, 702L);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	/**
+	 * Compares the cost of generating SQL with and without the query plan cache. Timings are
+	 * only logged, since they are too noisy to assert on.
+	 */
+	@Test
+	public void testGenerate_QueryPlanCache_PlanningCost() {
+		HibernatePropertiesProvider dialectProvider = new HibernatePropertiesProvider();
+		dialectProvider.setDialectForUnitTest(new PostgreSQLDialect());
+		SearchQueryPlanCache cache = new SearchQueryPlanCache();
+		cache.setVerifyHitsForUnitTest(false);
+		SearchQueryPlanCache.Key key = new SearchQueryPlanCache.Key("Patient", myRequestPartitionId, "shape");
+
+		int iterations = 5000;
+		long uncachedNanos = 0;
+		long cachedNanos = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			uncachedNanos = 0;
+			cachedNanos = 0;
+			for (int i = 0; i < iterations; i++) {
+				SearchQueryBuilder builder = newBuilderForQueryPlanCache(dialectProvider, i, i + 1, "2020-01-01");
+				long start = System.nanoTime();
+				builder.generate(0, 10);
+				uncachedNanos += System.nanoTime() - start;
+
+				builder = newBuilderForQueryPlanCache(dialectProvider, i, i + 1, "2020-01-01");
+				start = System.nanoTime();
+				builder.generate(0, 10, cache, key);
+				cachedNanos += System.nanoTime() - start;
+			}
+		}
+
+		ourLog.info(
+				"Generating SQL took {}ns/query without the query plan cache and {}ns/query with it",
+				uncachedNanos / iterations,
+				cachedNanos / iterations);
+		assertEquals(2L * iterations - 1, cache.getHitCount());
+	}
+
+	private SearchQueryBuilder newBuilderForQueryPlanCache(
+			HibernatePropertiesProvider theDialectProvider, long thePid0, long thePid1, String theLastUpdated) {
+		SearchQueryBuilder builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, theDialectProvider, false, false);
+		builder.addResourceIdsPredicate(Lists.newArrayList(JpaPid.fromId(thePid0), JpaPid.fromId(thePid1)));
+		builder.addPredicate(builder.addPredicateLastUpdated(new DateRangeParam(new DateParam("ge" + theLastUpdated), null)));
+		builder.addSortDate(builder.getOrCreateResourceTablePredicateBuilder().getColumnLastUpdated(), true);
+		return builder;
+	}
+
 	@Configuration
 	public static class MyConfig {
 
@@ -99,6 +99,20 @@ public interface IRestfulServerDefaults {
 	 */
 	boolean isDefaultPrettyPrint();
 
+	/**
+	 * Should search and history result Bundles be encoded by writing each entry to the response as soon
+	 * as the parser reaches it, releasing it once written, instead of encoding a fully populated Bundle?
+	 * See {@link RestfulServer#setBundleEntryStreamingEnabled(boolean)} for details.
+	 * <p>
+	 * The default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	default boolean isBundleEntryStreamingEnabled() {
+		return false;
+	}
+
 	/**
 	 * Returns the interceptor service for this server
 	 */
@@ -30,6 +30,7 @@ import ca.uhn.fhir.interceptor.api.IInterceptorService;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.executor.InterceptorService;
 import ca.uhn.fhir.model.primitive.InstantDt;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.annotation.Destroy;
 import ca.uhn.fhir.rest.annotation.IdParam;
@@ -143,6 +144,7 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 	private IInterceptorService myInterceptorService;
 	private BundleInclusionRule myBundleInclusionRule = BundleInclusionRule.BASED_ON_INCLUDES;
 	private boolean myDefaultPrettyPrint = false;
+	private boolean myBundleEntryStreamingEnabled = false;
 	private EncodingEnum myDefaultResponseEncoding = EncodingEnum.JSON;
 	private ETagSupportEnum myETagSupport = DEFAULT_ETAG_SUPPORT;
 	private FhirContext myFhirContext;
@@ -1570,6 +1572,29 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 		myDefaultPrettyPrint = theDefaultPrettyPrint;
 	}
 
+	@Override
+	public boolean isBundleEntryStreamingEnabled() {
+		return myBundleEntryStreamingEnabled;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), the Bundles this server builds for search,
+	 * history and paging responses are encoded using {@link IParser#encodeBundleToWriter(IBundleEntryIterator, Writer)}.
+	 * Each entry is removed from the Bundle and released as soon as it has been written to the response, so that
+	 * a large page of results does not need to be held in memory both as a Bundle and as the resources returned by
+	 * the {@link ca.uhn.fhir.rest.api.server.IBundleProvider} until the response is complete.
+	 * <p>
+	 * Streaming only applies to JSON responses, and is skipped for any request where an interceptor is registered
+	 * against {@link Pointcut#SERVER_OUTGOING_RESPONSE}, since such an interceptor may retain the response Bundle.
+	 * Bundles returned directly by a server method are never modified.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public void setBundleEntryStreamingEnabled(boolean theBundleEntryStreamingEnabled) {
+		myBundleEntryStreamingEnabled = theBundleEntryStreamingEnabled;
+	}
+
 	/**
 	 * If set to <code>true</code> (the default is <code>true</code>) this server will not
 	 * use the parsed request parameters (URL parameters and HTTP POST form contents) but
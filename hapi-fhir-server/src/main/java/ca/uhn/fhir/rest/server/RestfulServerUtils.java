@@ -28,6 +28,7 @@ import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
 import ca.uhn.fhir.model.primitive.InstantDt;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.BundleLinks;
 import ca.uhn.fhir.rest.api.Constants;
@@ -49,6 +50,7 @@ import ca.uhn.fhir.rest.server.method.SummaryEnumParameter;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.util.BinaryUtil;
 import ca.uhn.fhir.util.DateUtils;
+import ca.uhn.fhir.util.PreEncodedResourceUtil;
 import ca.uhn.fhir.util.UrlUtil;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -60,6 +62,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseReference;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IDomainResource;
@@ -95,6 +98,17 @@ public class RestfulServerUtils {
 	static final Pattern ACCEPT_HEADER_PATTERN =
 			Pattern.compile("\\s*([a-zA-Z0-9+.*/-]+)\\s*(;\\s*([a-zA-Z]+)\\s*=\\s*([a-zA-Z0-9.]+)\\s*)?(,?)");
 
+	/**
+	 * User data key set to {@link Boolean#TRUE} on response Bundles which were built by the server itself
+	 * (as opposed to being returned by a server method), meaning that their entries may be released as
+	 * they are written to the response
+	 *
+	 * @see IRestfulServerDefaults#isBundleEntryStreamingEnabled()
+	 * @since 8.8.0
+	 */
+	public static final String USER_DATA_SERVER_BUILT_BUNDLE =
+			RestfulServerUtils.class.getName() + "_SERVER_BUILT_BUNDLE";
+
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(RestfulServerUtils.class);
 
 	private static final HashSet<String> TEXT_ENCODE_ELEMENTS =
@@ -1090,12 +1104,67 @@ public class RestfulServerUtils {
 		} else {
 			FhirVersionEnum forVersion = theResource.getStructureFhirVersionEnum();
 			IParser parser = getNewParser(theServer.getFhirContext(), forVersion, theRequestDetails);
-			parser.encodeResourceToWriter(theResource, writer);
+			if (isStreamBundleEntries(theServer, theResource, parser, theRequestDetails)) {
+				FhirContext context = getContextForVersion(theServer.getFhirContext(), forVersion);
+				IBundleEntryIterator entries =
+						IBundleEntryIterator.detachFromBundle(context, (IBaseBundle) theResource);
+				parser.encodeBundleToWriter(entries, writer);
+			} else {
+				parser.encodeResourceToWriter(theResource, writer);
+			}
 		}
 
 		return response.commitResponse(writer);
 	}
 
+	private static boolean isStreamBundleEntries(
+			IRestfulServerDefaults theServer,
+			IBaseResource theResource,
+			IParser theParser,
+			RequestDetails theRequestDetails) {
+		if (!theServer.isBundleEntryStreamingEnabled()
+				|| !(theResource instanceof IBaseBundle)
+				|| theParser.getEncoding() != EncodingEnum.JSON
+				|| !Boolean.TRUE.equals(theResource.getUserData(USER_DATA_SERVER_BUILT_BUNDLE))) {
+			return false;
+		}
+		// An interceptor may have kept a reference to the response Bundle
+		return theRequestDetails.getInterceptorBroadcaster() == null
+				|| !theRequestDetails.getInterceptorBroadcaster().hasHooks(Pointcut.SERVER_OUTGOING_RESPONSE);
+	}
+
+	/**
+	 * Returns <code>true</code> if the resources in the response to the given request will be encoded
+	 * as compact JSON, without any filtering (e.g. <code>_summary</code> or <code>_elements</code>) and
+	 * without any interceptor being given the opportunity to inspect the response. Storage modules may
+	 * use this to decide whether to supply pre-encoded resources (see {@link PreEncodedResourceUtil})
+	 * instead of fully parsed ones.
+	 *
+	 * @since 8.8.0
+	 */
+	public static boolean isResponseEncodedAsUnfilteredJson(RequestDetails theRequestDetails) {
+		if (!(theRequestDetails instanceof ServletRequestDetails)
+				|| theRequestDetails.isSubRequest()
+				|| theRequestDetails.getServer() == null) {
+			return false;
+		}
+		if (determineResponseEncodingWithDefault(theRequestDetails).getEncoding() != EncodingEnum.JSON) {
+			return false;
+		}
+		if (prettyPrintResponse(theRequestDetails.getServer(), theRequestDetails)) {
+			return false;
+		}
+		if (!determineSummaryMode(theRequestDetails).equals(Collections.singleton(SummaryEnum.FALSE))) {
+			return false;
+		}
+		if (ElementsParameter.getElementsValueOrNull(theRequestDetails, false) != null
+				|| ElementsParameter.getElementsValueOrNull(theRequestDetails, true) != null) {
+			return false;
+		}
+		return theRequestDetails.getInterceptorBroadcaster() == null
+				|| !theRequestDetails.getInterceptorBroadcaster().hasHooks(Pointcut.SERVER_OUTGOING_RESPONSE);
+	}
+
 	private static String getBinaryContentTypeOrDefault(IBaseBinary theBinary) {
 		String contentType;
 		if (isNotBlank(theBinary.getContentType())) {
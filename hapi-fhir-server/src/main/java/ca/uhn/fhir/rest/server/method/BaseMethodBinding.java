@@ -248,6 +248,16 @@ public abstract class BaseMethodBinding {
 			throws BaseServerResponseException, IOException;
 
 	protected final Object invokeServerMethod(RequestDetails theRequest, Object[] theMethodParams) {
+		return invokeServerMethod(theRequest, theMethodParams, getMethod());
+	}
+
+	/**
+	 * Invokes the given method on the provider in place of the bound method. The method must accept
+	 * the same parameters, in the same order, as the bound method.
+	 *
+	 * @since 8.8.0
+	 */
+	protected final Object invokeServerMethod(RequestDetails theRequest, Object[] theMethodParams, Method theMethod) {
 		// Handle server action interceptors
 		RestOperationTypeEnum operationType = getRestOperationType(theRequest);
 		if (operationType != null) {
@@ -260,8 +270,7 @@ public abstract class BaseMethodBinding {
 
 		// Actually invoke the method
 		try {
-			Method method = getMethod();
-			return method.invoke(getProvider(), theMethodParams);
+			return theMethod.invoke(getProvider(), theMethodParams);
 		} catch (InvocationTargetException e) {
 			if (e.getCause() instanceof BaseServerResponseException) {
 				throw (BaseServerResponseException) e.getCause();
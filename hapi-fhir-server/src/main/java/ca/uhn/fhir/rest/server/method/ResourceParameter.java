@@ -23,6 +23,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.EncodingEnum;
@@ -37,7 +38,9 @@ import ca.uhn.fhir.util.BinaryUtil;
 import jakarta.annotation.Nonnull;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.io.ByteArrayInputStream;
@@ -154,10 +157,77 @@ public class ResourceParameter implements IParameter {
 	@SuppressWarnings("unchecked")
 	static <T extends IBaseResource> T loadResourceFromRequest(
 			RequestDetails theRequest, @Nonnull BaseMethodBinding theMethodBinding, Class<T> theResourceType) {
+		Reader requestReader = createRequestReader(theRequest);
+		IParser parser = newRequestParser(theRequest, theMethodBinding, requestReader);
+		if (parser == null) {
+			return null;
+		}
+
+		T retVal;
+		try {
+			if (theResourceType != null) {
+				retVal = parser.parseResource(theResourceType, requestReader);
+			} else {
+				retVal = (T) parser.parseResource(requestReader);
+			}
+		} catch (DataFormatException e) {
+			throw newFailedToParseRequestException(theRequest, parser, e);
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Parses the request body as a Bundle, returning an iterator which yields the entries one at a time
+	 * as they are parsed (if the request encoding supports this) instead of materializing the complete
+	 * Bundle up front. If the request resource has already been parsed, the iterator wraps it instead.
+	 *
+	 * @return Returns <code>null</code> if the request has no body
+	 * @since 8.8.0
+	 */
+	static IBundleEntryIterator parseBundleEntriesFromRequest(
+			RequestDetails theRequest, @Nonnull BaseMethodBinding theMethodBinding) {
+		if (theRequest.getResource() instanceof IBaseBundle) {
+			FhirContext ctx = theRequest.getServer().getFhirContext();
+			return IBundleEntryIterator.fromBundle(ctx, (IBaseBundle) theRequest.getResource());
+		}
+
+		Reader requestReader = createRequestReader(theRequest);
+		IParser parser = newRequestParser(theRequest, theMethodBinding, requestReader);
+		if (parser == null) {
+			return null;
+		}
+
+		IBundleEntryIterator retVal;
+		try {
+			retVal = parser.parseBundleEntries(requestReader);
+		} catch (DataFormatException e) {
+			throw newFailedToParseRequestException(theRequest, parser, e);
+		}
+
+		return new FailedToParseRequestTranslatingIterator(theRequest, parser, retVal);
+	}
+
+	private static InvalidRequestException newFailedToParseRequestException(
+			RequestDetails theRequest, IParser theParser, DataFormatException theCause) {
 		FhirContext ctx = theRequest.getServer().getFhirContext();
+		String msg = ctx.getLocalizer()
+				.getMessage(
+						ResourceParameter.class,
+						"failedToParseRequest",
+						theParser.getEncoding().name(),
+						theCause.getMessage());
+		return new InvalidRequestException(Msg.code(450) + msg);
+	}
 
-		final Charset charset = determineRequestCharset(theRequest);
-		Reader requestReader = createRequestReader(theRequest, charset);
+	/**
+	 * Creates a parser for the request body, validating the request content type
+	 *
+	 * @return Returns <code>null</code> if the request has no body and no content type
+	 */
+	private static IParser newRequestParser(
+			RequestDetails theRequest, BaseMethodBinding theMethodBinding, Reader theRequestReader) {
+		FhirContext ctx = theRequest.getServer().getFhirContext();
 
 		RestOperationTypeEnum restOperationType =
 				theMethodBinding != null ? theMethodBinding.getRestOperationType() : null;
@@ -182,7 +252,7 @@ public class ResourceParameter implements IParameter {
 			if (isBlank(ctValue)) {
 				String body;
 				try {
-					body = IOUtils.toString(requestReader);
+					body = IOUtils.toString(theRequestReader);
 				} catch (IOException e) {
 					// This shouldn't happen since we're reading from a byte array..
 					throw new InternalErrorException(Msg.code(447) + e);
@@ -203,20 +273,7 @@ public class ResourceParameter implements IParameter {
 
 		IParser parser = encoding.newParser(ctx);
 		parser.setServerBaseUrl(theRequest.getFhirServerBase());
-		T retVal;
-		try {
-			if (theResourceType != null) {
-				retVal = parser.parseResource(theResourceType, requestReader);
-			} else {
-				retVal = (T) parser.parseResource(requestReader);
-			}
-		} catch (DataFormatException e) {
-			String msg = ctx.getLocalizer()
-					.getMessage(ResourceParameter.class, "failedToParseRequest", encoding.name(), e.getMessage());
-			throw new InvalidRequestException(Msg.code(450) + msg);
-		}
-
-		return retVal;
+		return parser;
 	}
 
 	static IBaseResource parseResourceFromRequest(
@@ -268,4 +325,49 @@ public class ResourceParameter implements IParameter {
 
 		return retVal;
 	}
+
+	/**
+	 * Entries are parsed lazily, so parse failures can surface while the iterator is being consumed. This
+	 * wrapper reports them to the client the same way a failure to parse the complete request would be.
+	 */
+	private static class FailedToParseRequestTranslatingIterator implements IBundleEntryIterator {
+		private final RequestDetails myRequest;
+		private final IParser myParser;
+		private final IBundleEntryIterator myDelegate;
+
+		FailedToParseRequestTranslatingIterator(
+				RequestDetails theRequest, IParser theParser, IBundleEntryIterator theDelegate) {
+			myRequest = theRequest;
+			myParser = theParser;
+			myDelegate = theDelegate;
+		}
+
+		@Override
+		public IBaseBundle getBundle() {
+			return myDelegate.getBundle();
+		}
+
+		@Override
+		public boolean hasNext() {
+			try {
+				return myDelegate.hasNext();
+			} catch (DataFormatException e) {
+				throw newFailedToParseRequestException(myRequest, myParser, e);
+			}
+		}
+
+		@Override
+		public IBase next() {
+			try {
+				return myDelegate.next();
+			} catch (DataFormatException e) {
+				throw newFailedToParseRequestException(myRequest, myParser, e);
+			}
+		}
+
+		@Override
+		public void close() {
+			myDelegate.close();
+		}
+	}
 }
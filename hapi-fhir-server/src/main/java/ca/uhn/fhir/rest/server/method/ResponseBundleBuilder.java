@@ -82,6 +82,7 @@ public class ResponseBundleBuilder {
 				theResponseBundleRequest.includes);
 
 		IBaseBundle baseBundle = (IBaseBundle) bundleFactory.getResourceBundle();
+		baseBundle.setUserData(RestfulServerUtils.USER_DATA_SERVER_BUILT_BUNDLE, Boolean.TRUE);
 
 		return baseBundle;
 	}
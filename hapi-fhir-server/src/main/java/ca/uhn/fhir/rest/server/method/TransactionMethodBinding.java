@@ -22,19 +22,25 @@ package ca.uhn.fhir.rest.server.method;
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.model.base.resource.BaseOperationOutcome;
 import ca.uhn.fhir.model.valueset.BundleTypeEnum;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.rest.annotation.Transaction;
 import ca.uhn.fhir.rest.annotation.TransactionParam;
+import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.RequestTypeEnum;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.IRestfulServer;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.server.RestfulServerUtils;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.method.TransactionParameter.ParamStyle;
 import jakarta.annotation.Nonnull;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.lang.reflect.Method;
@@ -44,8 +50,20 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class TransactionMethodBinding extends BaseResourceReturningMethodBinding {
 
+	/**
+	 * Server pointcuts whose hooks may inspect the request Bundle, which only holds its entries
+	 * if they were all parsed before the method was invoked
+	 */
+	private static final List<Pointcut> ourPointcutsSeeingRequestBundle = List.of(
+			Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED,
+			Pointcut.SERVER_OUTGOING_RESPONSE,
+			Pointcut.SERVER_PROCESSING_COMPLETED_NORMALLY,
+			Pointcut.SERVER_PROCESSING_COMPLETED,
+			Pointcut.SERVER_HANDLE_EXCEPTION);
+
 	private int myTransactionParamIndex;
 	private ParamStyle myTransactionParamStyle;
+	private Method myEntryIteratorMethod;
 
 	public TransactionMethodBinding(Method theMethod, FhirContext theContext, Object theProvider) {
 		super(null, theMethod, theContext, theProvider);
@@ -72,6 +90,45 @@ public class TransactionMethodBinding extends BaseResourceReturningMethodBinding
 					+ theMethod.getDeclaringClass().getCanonicalName()
 					+ " does not have a parameter annotated with the @" + TransactionParam.class + " annotation");
 		}
+
+		if (myTransactionParamStyle == ParamStyle.RESOURCE_BUNDLE) {
+			myEntryIteratorMethod = findEntryIteratorMethod(theMethod, theProvider);
+		}
+	}
+
+	/**
+	 * Looks for a public overload of the given method which accepts an {@link IBundleEntryIterator} in
+	 * place of the Bundle, and which can therefore process the entries as they are parsed
+	 */
+	private Method findEntryIteratorMethod(Method theMethod, Object theProvider) {
+		Class<?>[] parameterTypes = theMethod.getParameterTypes().clone();
+		parameterTypes[myTransactionParamIndex] = IBundleEntryIterator.class;
+		try {
+			Method retVal = theProvider.getClass().getMethod(theMethod.getName(), parameterTypes);
+			if (!theMethod.getReturnType().isAssignableFrom(retVal.getReturnType())) {
+				return null;
+			}
+			retVal.setAccessible(true);
+			return retVal;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Should the entries of the given request be handed to the
+	 * {@link Transaction entry iterator overload} of the method as they are parsed, rather than
+	 * parsing the complete Bundle first?
+	 */
+	boolean isStreamRequestEntries(RequestDetails theRequest) {
+		if (myEntryIteratorMethod == null
+				|| !getContext().getParserOptions().isStreamingJsonParsing()
+				|| theRequest.getResource() != null
+				|| RestfulServerUtils.determineRequestEncodingNoDefault(theRequest) != EncodingEnum.JSON) {
+			return false;
+		}
+		IInterceptorBroadcaster broadcaster = theRequest.getInterceptorBroadcaster();
+		return broadcaster == null || ourPointcutsSeeingRequestBundle.stream().noneMatch(broadcaster::hasHooks);
 	}
 
 	@Nonnull
@@ -114,6 +171,15 @@ public class TransactionMethodBinding extends BaseResourceReturningMethodBinding
 		 * bunch of resources (because that's what it was), but in DSTU2 transaction has become much more broad, so we
 		 * no longer hold the user's hand much here.
 		 */
+		if (theMethodParams[myTransactionParamIndex] instanceof IBundleEntryIterator) {
+			Method method =
+					myTransactionParamStyle == ParamStyle.BUNDLE_ENTRY_ITERATOR ? getMethod() : myEntryIteratorMethod;
+			try {
+				return invokeServerMethod(theRequest, theMethodParams, method);
+			} finally {
+				((IBundleEntryIterator) theMethodParams[myTransactionParamIndex]).close();
+			}
+		}
 		if (myTransactionParamStyle == ParamStyle.RESOURCE_BUNDLE) {
 			// This is the DSTU2 style
 			Object response = invokeServerMethod(theRequest, theMethodParams);
@@ -153,7 +219,12 @@ public class TransactionMethodBinding extends BaseResourceReturningMethodBinding
 		 * If the method has no parsed resource parameter, we parse here in order to have something for the interceptor.
 		 */
 		IBaseResource resource;
-		if (myTransactionParamIndex != -1) {
+		if (myTransactionParamStyle == ParamStyle.BUNDLE_ENTRY_ITERATOR) {
+			resource = populateRequestDetailsForEntryIterator(theRequestDetails, theMethodParams);
+		} else if (theMethodParams[myTransactionParamIndex] instanceof IBundleEntryIterator) {
+			// Only chosen when no interceptor will look at the request Bundle
+			resource = ((IBundleEntryIterator) theMethodParams[myTransactionParamIndex]).getBundle();
+		} else if (myTransactionParamIndex != -1) {
 			resource = (IBaseResource) theMethodParams[myTransactionParamIndex];
 		} else {
 			Class<? extends IBaseResource> resourceType =
@@ -163,4 +234,31 @@ public class TransactionMethodBinding extends BaseResourceReturningMethodBinding
 
 		theRequestDetails.setResource(resource);
 	}
+
+	/**
+	 * Interceptors registered against {@link Pointcut#SERVER_INCOMING_REQUEST_PRE_HANDLED} (e.g. the
+	 * AuthorizationInterceptor) expect to be able to inspect every entry in the Bundle before the
+	 * method is invoked, so if any are registered we read the remaining entries into the Bundle and
+	 * replace the method parameter with an iterator over them. Otherwise only the Bundle without its
+	 * entries is exposed to interceptors.
+	 */
+	private IBaseResource populateRequestDetailsForEntryIterator(
+			RequestDetails theRequestDetails, Object[] theMethodParams) {
+		IBundleEntryIterator entryIterator = (IBundleEntryIterator) theMethodParams[myTransactionParamIndex];
+		if (entryIterator == null) {
+			return null;
+		}
+
+		IBaseBundle bundle = entryIterator.getBundle();
+		IInterceptorBroadcaster broadcaster = theRequestDetails.getInterceptorBroadcaster();
+		if (broadcaster != null
+				&& broadcaster.hasHooks(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED)
+				&& theRequestDetails.getResource() != bundle) {
+			entryIterator.readRemainingEntriesIntoBundle(getContext());
+			entryIterator.close();
+			theMethodParams[myTransactionParamIndex] = IBundleEntryIterator.fromBundle(getContext(), bundle);
+		}
+
+		return bundle;
+	}
 }
@@ -24,6 +24,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.model.api.IResource;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.rest.annotation.TransactionParam;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
@@ -51,7 +52,8 @@ public class TransactionParameter implements IParameter {
 	private String createParameterTypeError(Method theMethod) {
 		return "Method '" + theMethod.getName() + "' in type '"
 				+ theMethod.getDeclaringClass().getCanonicalName() + "' is annotated with @"
-				+ TransactionParam.class.getName() + " but is not of type Bundle, IBaseResource, IBaseBundle, or List<"
+				+ TransactionParam.class.getName()
+				+ " but is not of type Bundle, IBaseResource, IBaseBundle, IBundleEntryIterator, or List<"
 				+ IResource.class.getCanonicalName() + ">";
 	}
 
@@ -80,6 +82,9 @@ public class TransactionParameter implements IParameter {
 			myParamStyle = ParamStyle.RESOURCE_BUNDLE;
 			myResourceBundleType = myContext.getResourceDefinition("Bundle").getImplementingClass();
 			return;
+		} else if (theParameterType.equals(IBundleEntryIterator.class)) {
+			myParamStyle = ParamStyle.BUNDLE_ENTRY_ITERATOR;
+			return;
 		} else if (theInnerCollectionType != null) {
 			if (theInnerCollectionType.equals(List.class) == false) {
 				throw new ConfigurationException(Msg.code(430) + createParameterTypeError(theMethod));
@@ -98,6 +103,12 @@ public class TransactionParameter implements IParameter {
 	public Object translateQueryParametersIntoServerArgument(
 			RequestDetails theRequest, BaseMethodBinding theMethodBinding)
 			throws InternalErrorException, InvalidRequestException {
+		if (myParamStyle == ParamStyle.BUNDLE_ENTRY_ITERATOR
+				|| (theMethodBinding instanceof TransactionMethodBinding
+						&& ((TransactionMethodBinding) theMethodBinding).isStreamRequestEntries(theRequest))) {
+			return ResourceParameter.parseBundleEntriesFromRequest(theRequest, theMethodBinding);
+		}
+
 		IBaseResource parsedBundle =
 				ResourceParameter.parseResourceFromRequest(theRequest, theMethodBinding, myResourceBundleType);
 
@@ -125,6 +136,12 @@ public class TransactionParameter implements IParameter {
 		/**
 		 * List of resources
 		 */
-		RESOURCE_LIST
+		RESOURCE_LIST,
+		/**
+		 * Bundle entries yielded one at a time as they are parsed
+		 *
+		 * @since 8.8.0
+		 */
+		BUNDLE_ENTRY_ITERATOR
 	}
 }
@@ -28,6 +28,7 @@ import ca.uhn.fhir.batch2.model.StatusEnum;
 import ca.uhn.fhir.batch2.model.WorkChunk;
 import ca.uhn.fhir.batch2.model.WorkChunkCreateEvent;
 import ca.uhn.fhir.batch2.model.WorkChunkMetadata;
+import ca.uhn.fhir.batch2.model.WorkChunkStatistics;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
 import ca.uhn.fhir.batch2.models.JobInstanceFetchRequest;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
@@ -153,6 +154,20 @@ public interface IJobPersistence extends IWorkChunkPersistence {
 	 */
 	Iterator<WorkChunk> fetchAllWorkChunksIterator(String theInstanceId, boolean theWithData);
 
+	/**
+	 * Fetch the aggregated statistics for all chunks of a given instance, used to calculate the
+	 * progress of the instance. Implementations should calculate these in the database where
+	 * possible, instead of loading every chunk.
+	 *
+	 * @param theInstanceId - instance id
+	 * @since 8.8.0
+	 */
+	default WorkChunkStatistics fetchWorkChunkStatistics(String theInstanceId) {
+		WorkChunkStatistics retVal = new WorkChunkStatistics();
+		fetchAllWorkChunksIterator(theInstanceId, false).forEachRemaining(retVal::addChunk);
+		return retVal;
+	}
+
 	/**
 	 * Fetch all chunks with data for a given instance for a given step id - read-only.
 	 *
@@ -27,6 +27,7 @@ import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -75,6 +76,24 @@ public interface IWorkChunkPersistence {
 	@Transactional(propagation = Propagation.MANDATORY)
 	Optional<WorkChunk> onWorkChunkDequeue(String theChunkId);
 
+	/**
+	 * On arrival at a worker of a notification for several chunks.
+	 * Equivalent to calling {@link #onWorkChunkDequeue(String)} for each chunk, but implementations
+	 * may claim all of the chunks at once.
+	 *
+	 * @param theChunkIds The IDs from {@link #onWorkChunkCreate}
+	 * @return The WorkChunks which exist and were in a runnable state, in no particular order
+	 * @since 8.8.0
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	default List<WorkChunk> onWorkChunksDequeue(List<String> theChunkIds) {
+		List<WorkChunk> retVal = new ArrayList<>(theChunkIds.size());
+		for (String next : theChunkIds) {
+			onWorkChunkDequeue(next).ifPresent(retVal::add);
+		}
+		return retVal;
+	}
+
 	/**
 	 * A retryable error.
 	 * Transition to {@link WorkChunkStatusEnum#ERRORED} unless max-retries passed, then
@@ -39,11 +39,15 @@ import jakarta.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
 
 /**
- * This handler receives batch work request messages and performs the batch work requested by the message
+ * This handler receives batch work request messages and performs the batch work requested by the message.
+ * A message is normally for a single work chunk, but may be for several chunks of the same instance and
+ * step, in which case they are all claimed in the same transaction and then processed one after another.
  */
 public class WorkChannelMessageListener implements IMessageListener<JobWorkNotification> {
 	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
@@ -90,11 +94,12 @@ public class WorkChannelMessageListener implements IMessageListener<JobWorkNotif
 	class MessageProcess {
 		final JobWorkNotification myWorkNotification;
 		String myChunkId;
-		WorkChunk myWorkChunk;
+		List<String> myChunkIds;
+		List<WorkChunk> myWorkChunks;
 		JobWorkCursor<?, ?, ?> myCursor;
 		JobInstance myJobInstance;
 		JobDefinition<?> myJobDefinition;
-		JobStepExecutor<?, ?, ?> myStepExector;
+		List<JobStepExecutor<?, ?, ?>> myStepExecutors;
 
 		MessageProcess(JobWorkNotification theWorkNotification) {
 			myWorkNotification = theWorkNotification;
@@ -109,6 +114,7 @@ public class WorkChannelMessageListener implements IMessageListener<JobWorkNotif
 				ourLog.error("Received work notification with null chunkId: {}", myWorkNotification);
 				return Optional.empty();
 			}
+			myChunkIds = myWorkNotification.getChunkIds();
 			return Optional.of(this);
 		}
 
@@ -148,6 +154,9 @@ public class WorkChannelMessageListener implements IMessageListener<JobWorkNotif
 		 * Load the chunk, and mark it as dequeued.
 		 */
 		Optional<MessageProcess> updateChunkStatusAndValidate() {
+			if (myChunkIds.size() > 1) {
+				return updateChunksStatusAndValidate();
+			}
 			return myJobPersistence
 					.onWorkChunkDequeue(myChunkId)
 					.or(() -> {
@@ -155,16 +164,35 @@ public class WorkChannelMessageListener implements IMessageListener<JobWorkNotif
 						return Optional.empty();
 					})
 					.map(chunk -> {
-						myWorkChunk = chunk;
+						myWorkChunks = List.of(chunk);
 						ourLog.debug(
 								"Worker picked up chunk. [chunkId={}, stepId={}, startTime={}]",
 								myChunkId,
-								myWorkChunk.getTargetStepId(),
-								myWorkChunk.getStartTime());
+								chunk.getTargetStepId(),
+								chunk.getStartTime());
 						return this;
 					});
 		}
 
+		/**
+		 * Load all the chunks of a notification for several chunks, and mark them as dequeued.
+		 * Chunks which can't be found or have already been started are skipped.
+		 */
+		private Optional<MessageProcess> updateChunksStatusAndValidate() {
+			myWorkChunks = myJobPersistence.onWorkChunksDequeue(myChunkIds);
+			if (myWorkChunks.isEmpty()) {
+				ourLog.error(
+						"Unable to find any of the {} chunks - Aborting.  {}", myChunkIds.size(), myWorkNotification);
+				return Optional.empty();
+			}
+			ourLog.debug(
+					"Worker picked up {} of {} chunks. [stepId={}]",
+					myWorkChunks.size(),
+					myChunkIds.size(),
+					myWorkNotification.getTargetStepId());
+			return Optional.of(this);
+		}
+
 		/**
 		 * Move QUEUED jobs to IN_PROGRESS, and make sure we are not already in final state.
 		 */
@@ -210,20 +238,24 @@ public class WorkChannelMessageListener implements IMessageListener<JobWorkNotif
 			myCursor = JobWorkCursor.fromJobDefinitionAndRequestedStepId(
 					myJobDefinition, myWorkNotification.getTargetStepId());
 
-			if (!myWorkChunk.getTargetStepId().equals(myCursor.getCurrentStepId())) {
-				ourLog.error(
-						"Chunk {} has target step {} but expected {}",
-						myChunkId,
-						myWorkChunk.getTargetStepId(),
-						myCursor.getCurrentStepId());
-				return Optional.empty();
+			for (WorkChunk next : myWorkChunks) {
+				if (!next.getTargetStepId().equals(myCursor.getCurrentStepId())) {
+					ourLog.error(
+							"Chunk {} has target step {} but expected {}",
+							next.getId(),
+							next.getTargetStepId(),
+							myCursor.getCurrentStepId());
+					return Optional.empty();
+				}
 			}
 			return Optional.of(this);
 		}
 
 		public Optional<MessageProcess> buildStepExecutor() {
-			this.myStepExector =
-					myJobStepExecutorFactory.newJobStepExecutor(this.myJobInstance, this.myWorkChunk, this.myCursor);
+			this.myStepExecutors = new ArrayList<>(myWorkChunks.size());
+			for (WorkChunk next : myWorkChunks) {
+				myStepExecutors.add(myJobStepExecutorFactory.newJobStepExecutor(myJobInstance, next, myCursor));
+			}
 
 			return Optional.of(this);
 		}
@@ -266,18 +298,25 @@ public class WorkChannelMessageListener implements IMessageListener<JobWorkNotif
 			processingPreparation.ifPresentOrElse(
 					// all the setup is happy and committed.  Do the work.
 					process -> {
-						HookParams params = new HookParams()
-								.add(JobInstance.class, process.myJobInstance)
-								.add(WorkChunk.class, process.myWorkChunk);
-
-						/*
-						 * The executeStep() method actually performs the processing of a given work chunk, but
-						 * this execution can optionally be wrapped by interceptors wanting to influence the processing.
-						 */
-						Runnable runnable = () -> process.myStepExector.executeStep();
-
-						myInterceptorBroadcaster.runWithFilterHooks(
-								Pointcut.BATCH2_CHUNK_PROCESS_FILTER, params, runnable);
+						for (int i = 0; i < process.myWorkChunks.size(); i++) {
+							WorkChunk workChunk = process.myWorkChunks.get(i);
+							JobStepExecutor<?, ?, ?> stepExecutor = process.myStepExecutors.get(i);
+							BatchJobTracingContext.setBatchJobIds(
+									theWorkNotification.getInstanceId(), workChunk.getId());
+
+							HookParams params = new HookParams()
+									.add(JobInstance.class, process.myJobInstance)
+									.add(WorkChunk.class, workChunk);
+
+							/*
+							 * The executeStep() method actually performs the processing of a given work chunk, but
+							 * this execution can optionally be wrapped by interceptors wanting to influence the processing.
+							 */
+							Runnable runnable = stepExecutor::executeStep;
+
+							myInterceptorBroadcaster.runWithFilterHooks(
+									Pointcut.BATCH2_CHUNK_PROCESS_FILTER, params, runnable);
+						}
 					},
 					() -> {
 						// discard the chunk
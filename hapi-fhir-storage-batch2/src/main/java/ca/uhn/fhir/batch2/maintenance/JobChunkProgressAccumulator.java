@@ -20,6 +20,7 @@
 package ca.uhn.fhir.batch2.maintenance;
 
 import ca.uhn.fhir.batch2.model.WorkChunk;
+import ca.uhn.fhir.batch2.model.WorkChunkStatistics;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
 import ca.uhn.fhir.util.Logs;
 import com.google.common.collect.ArrayListMultimap;
@@ -48,12 +49,27 @@ public class JobChunkProgressAccumulator {
 
 	private final Set<String> myConsumedInstanceAndChunkIds = new HashSet<>();
 	private final Multimap<String, ChunkStatusCountValue> myInstanceIdToChunkStatuses = ArrayListMultimap.create();
+	private final Multimap<String, WorkChunkStatistics.StepStatusStatistics> myInstanceIdToStepStatusStatistics =
+			ArrayListMultimap.create();
 
 	int getTotalChunkCountForInstanceAndStep(String theInstanceId, String theStepId) {
-		return myInstanceIdToChunkStatuses.get(theInstanceId).stream()
-				.filter(chunkCount -> chunkCount.myStepId.equals(theStepId))
-				.collect(Collectors.toList())
-				.size();
+		return getChunkCountWithStatus(theInstanceId, theStepId, WorkChunkStatusEnum.values());
+	}
+
+	/**
+	 * @since 8.8.0
+	 */
+	public int getChunkCountWithStatus(String theInstanceId, String theStepId, WorkChunkStatusEnum... theStatuses) {
+		int retVal = (int) getChunkStatuses(theInstanceId).stream()
+				.filter(t -> t.myStepId.equals(theStepId))
+				.filter(t -> ArrayUtils.contains(theStatuses, t.myStatus))
+				.count();
+		for (WorkChunkStatistics.StepStatusStatistics next : myInstanceIdToStepStatusStatistics.get(theInstanceId)) {
+			if (next.getStepId().equals(theStepId) && ArrayUtils.contains(theStatuses, next.getStatus())) {
+				retVal += next.getChunkCount();
+			}
+		}
+		return retVal;
 	}
 
 	public List<String> getChunkIdsWithStatus(
@@ -89,6 +105,18 @@ public class JobChunkProgressAccumulator {
 		}
 	}
 
+	/**
+	 * Adds the aggregated statistics for the chunks of an instance. Chunks added this way
+	 * are included in the chunk counts, but not in {@link #getChunkIdsWithStatus}.
+	 *
+	 * @since 8.8.0
+	 */
+	public void addStatistics(String theInstanceId, WorkChunkStatistics theStatistics) {
+		ourLog.debug(
+				"Adding chunk statistics to accumulator. [instanceId={}, statistics={}]", theInstanceId, theStatistics);
+		myInstanceIdToStepStatusStatistics.putAll(theInstanceId, theStatistics.getStepStatusStatistics());
+	}
+
 	private static class ChunkStatusCountValue {
 		public final String myChunkId;
 		public final String myStepId;
@@ -43,10 +43,14 @@ import org.slf4j.Logger;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class JobInstanceProcessor {
 	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
@@ -64,6 +68,7 @@ public class JobInstanceProcessor {
 	private final JobDefinitionRegistry myJobDefinitionegistry;
 
 	private long myPurgeThreshold = PURGE_THRESHOLD;
+	private int myWorkChunkNotificationBatchSize = 1;
 
 	public JobInstanceProcessor(
 			IJobPersistence theJobPersistence,
@@ -88,6 +93,16 @@ public class JobInstanceProcessor {
 		myPurgeThreshold = thePurgeThreshold;
 	}
 
+	/**
+	 * Sets the maximum number of READY chunks of the same step to send to the work channel
+	 * in a single notification (default is 1)
+	 *
+	 * @since 8.8.0
+	 */
+	public void setWorkChunkNotificationBatchSize(int theWorkChunkNotificationBatchSize) {
+		myWorkChunkNotificationBatchSize = theWorkChunkNotificationBatchSize;
+	}
+
 	public void process() {
 		ourLog.debug("Starting job processing: {}", myInstanceId);
 		StopWatch stopWatch = new StopWatch();
@@ -303,6 +318,9 @@ public class JobInstanceProcessor {
 	private void enqueueReadyChunks(JobInstance theJobInstance, JobDefinition<?> theJobDefinition) {
 		Iterator<WorkChunkMetadata> iter = getReadyChunks();
 
+		// Chunks which have been QUEUED but not yet sent, by target step
+		Map<String, List<WorkChunkMetadata>> unsentChunks = new HashMap<>();
+
 		int counter = 0;
 		while (iter.hasNext()) {
 			WorkChunkMetadata metadata = iter.next();
@@ -310,13 +328,14 @@ public class JobInstanceProcessor {
 			/*
 			 * For each chunk id
 			 * * Move to QUEUE'd
-			 * * Send to topic
+			 * * Send to topic (possibly along with other chunks of the same step)
 			 * * flush changes
 			 * * commit
 			 */
-			updateChunkAndSendToQueue(metadata);
+			updateChunkAndSendToQueue(metadata, unsentChunks);
 			counter++;
 		}
+		unsentChunks.values().forEach(this::sendNotification);
 		ourLog.debug(
 				"Encountered {} READY work chunks for job {} of type {}",
 				counter,
@@ -331,14 +350,28 @@ public class JobInstanceProcessor {
 	 * those will not be sent to the queue (but they will still have their
 	 * status updated from READY -> QUEUED).
 	 *
+	 * If notifications are batched, the chunk is added to the unsent chunks for
+	 * its step instead, and they are all sent together once there are enough.
+	 *
 	 * Returns true after processing.
 	 */
-	private void updateChunkAndSendToQueue(WorkChunkMetadata theChunk) {
+	private void updateChunkAndSendToQueue(
+			WorkChunkMetadata theChunk, Map<String, List<WorkChunkMetadata>> theUnsentChunks) {
 		String chunkId = theChunk.getId();
 		myJobPersistence.enqueueWorkChunkForProcessing(chunkId, updated -> {
 			ourLog.info("Updated {} workchunk with id {}", updated, chunkId);
 			if (updated == 1) {
-				sendNotification(theChunk);
+				if (myWorkChunkNotificationBatchSize <= 1) {
+					sendNotification(List.of(theChunk));
+					return;
+				}
+				List<WorkChunkMetadata> unsentChunks =
+						theUnsentChunks.computeIfAbsent(theChunk.getTargetStepId(), t -> new ArrayList<>());
+				unsentChunks.add(theChunk);
+				if (unsentChunks.size() >= myWorkChunkNotificationBatchSize) {
+					sendNotification(unsentChunks);
+					theUnsentChunks.remove(theChunk.getTargetStepId());
+				}
 			} else {
 				// means the work chunk is likely already gone...
 				// we'll log and skip it. If it's still in the DB, the next pass
@@ -352,15 +385,23 @@ public class JobInstanceProcessor {
 		});
 	}
 
-	private void sendNotification(WorkChunkMetadata theChunk) {
+	/**
+	 * Sends a single notification for chunks which all have the same target step
+	 */
+	private void sendNotification(List<WorkChunkMetadata> theChunks) {
 		// send to the queue
 		// we use current step id because it has not been moved to the next step (yet)
+		WorkChunkMetadata firstChunk = theChunks.get(0);
 		JobWorkNotification workNotification = new JobWorkNotification(
-				theChunk.getJobDefinitionId(),
-				theChunk.getJobDefinitionVersion(),
-				theChunk.getInstanceId(),
-				theChunk.getTargetStepId(),
-				theChunk.getId());
+				firstChunk.getJobDefinitionId(),
+				firstChunk.getJobDefinitionVersion(),
+				firstChunk.getInstanceId(),
+				firstChunk.getTargetStepId(),
+				firstChunk.getId());
+		if (theChunks.size() > 1) {
+			workNotification.setChunkIds(
+					theChunks.stream().map(WorkChunkMetadata::getId).collect(Collectors.toList()));
+		}
 		myBatchJobSender.sendWorkChannelMessage(workNotification);
 	}
 
@@ -368,16 +409,16 @@ public class JobInstanceProcessor {
 			JobInstance theInstance, JobDefinition<?> theJobDefinition, String nextStepId) {
 		String instanceId = theInstance.getInstanceId();
 
-		List<String> gateWaitingChunksForNextStep = myProgressAccumulator.getChunkIdsWithStatus(
+		int gateWaitingChunksForNextStep = myProgressAccumulator.getChunkCountWithStatus(
 				instanceId, nextStepId, WorkChunkStatusEnum.GATE_WAITING, WorkChunkStatusEnum.QUEUED);
 		int totalChunksForNextStep = myProgressAccumulator.getTotalChunkCountForInstanceAndStep(instanceId, nextStepId);
-		if (totalChunksForNextStep != gateWaitingChunksForNextStep.size()) {
+		if (totalChunksForNextStep != gateWaitingChunksForNextStep) {
 			ourLog.debug(
 					"Total ProgressAccumulator GATE_WAITING chunk count does not match GATE_WAITING chunk size! [instanceId={}, stepId={}, totalChunks={}, queuedChunks={}]",
 					instanceId,
 					nextStepId,
 					totalChunksForNextStep,
-					gateWaitingChunksForNextStep.size());
+					gateWaitingChunksForNextStep);
 		}
 
 		JobWorkCursor<?, ?, ?> jobWorkCursor =
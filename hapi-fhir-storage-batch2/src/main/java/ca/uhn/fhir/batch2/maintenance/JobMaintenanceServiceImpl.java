@@ -279,6 +279,7 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 		if (myFailedJobLifetimeOverride >= 0) {
 			processor.setPurgeThreshold(myFailedJobLifetimeOverride);
 		}
+		processor.setWorkChunkNotificationBatchSize(myStorageSettings.getJobWorkChunkNotificationBatchSize());
 		return processor;
 	}
 
@@ -20,8 +20,13 @@
 package ca.uhn.fhir.batch2.model;
 
 import ca.uhn.fhir.model.api.IModelJson;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class JobWorkNotification implements IModelJson {
 
@@ -37,6 +42,14 @@ public class JobWorkNotification implements IModelJson {
 	@JsonProperty(value = "chunkId")
 	private String myChunkId;
 
+	/**
+	 * If this notification is for more than one chunk, the IDs of the chunks after the first
+	 * one, which is in {@link #myChunkId}.
+	 */
+	@JsonProperty(value = "additionalChunkIds")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<String> myAdditionalChunkIds;
+
 	@JsonProperty(value = "instanceId")
 	private String myInstanceId;
 
@@ -104,6 +117,39 @@ public class JobWorkNotification implements IModelJson {
 		myChunkId = theChunkId;
 	}
 
+	/**
+	 * Returns the IDs of all of the chunks this notification is for. A notification is normally
+	 * for a single chunk, but the maintenance job can notify workers about several chunks of the
+	 * same instance and step at once.
+	 *
+	 * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setJobWorkChunkNotificationBatchSize(int)
+	 * @since 8.8.0
+	 */
+	@Nonnull
+	public List<String> getChunkIds() {
+		List<String> retVal = new ArrayList<>();
+		if (myChunkId != null) {
+			retVal.add(myChunkId);
+		}
+		if (myAdditionalChunkIds != null) {
+			retVal.addAll(myAdditionalChunkIds);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Sets the IDs of all of the chunks this notification is for. The first ID is also
+	 * available through {@link #getChunkId()}.
+	 *
+	 * @since 8.8.0
+	 */
+	public void setChunkIds(@Nonnull List<String> theChunkIds) {
+		Validate.notEmpty(theChunkIds, "theChunkIds must not be empty");
+		myChunkId = theChunkIds.get(0);
+		myAdditionalChunkIds =
+				theChunkIds.size() > 1 ? new ArrayList<>(theChunkIds.subList(1, theChunkIds.size())) : null;
+	}
+
 	public void setInstanceId(String theInstanceId) {
 		myInstanceId = theInstanceId;
 	}
@@ -114,6 +160,11 @@ public class JobWorkNotification implements IModelJson {
 
 	@Override
 	public String toString() {
+		if (myAdditionalChunkIds != null && !myAdditionalChunkIds.isEmpty()) {
+			return String.format(
+					"job[%s] instance[%s] step[%s] chunk[%s] and %d more",
+					myJobDefinitionId, myInstanceId, myTargetStepId, myChunkId, myAdditionalChunkIds.size());
+		}
 		return String.format(
 				"job[%s] instance[%s] step[%s] chunk[%s]", myJobDefinitionId, myInstanceId, myTargetStepId, myChunkId);
 	}
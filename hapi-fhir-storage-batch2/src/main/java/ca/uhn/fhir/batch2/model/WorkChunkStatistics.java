@@ -0,0 +1,234 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Batch2 Task Processor
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.model;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Aggregated statistics for the work chunks of a job instance, grouped by step and status.
+ * This holds everything the maintenance pass needs to calculate the progress of an instance,
+ * without needing to load every work chunk.
+ *
+ * @since 8.8.0
+ */
+public class WorkChunkStatistics {
+
+	private final List<StepStatusStatistics> myStepStatusStatistics = new ArrayList<>();
+	private final Set<String> myWarningMessages = new HashSet<>();
+
+	/**
+	 * Adds a single work chunk to these statistics
+	 */
+	public void addChunk(WorkChunk theChunk) {
+		StepStatusStatistics statistics = myStepStatusStatistics.stream()
+				.filter(t -> t.getStepId().equals(theChunk.getTargetStepId()) && t.getStatus() == theChunk.getStatus())
+				.findFirst()
+				.orElse(null);
+		if (statistics == null) {
+			statistics = new StepStatusStatistics(theChunk.getTargetStepId(), theChunk.getStatus());
+			myStepStatusStatistics.add(statistics);
+		}
+		statistics.addChunk(theChunk);
+
+		if (theChunk.getWarningMessage() != null) {
+			myWarningMessages.add(theChunk.getWarningMessage());
+		}
+	}
+
+	public void addStepStatusStatistics(StepStatusStatistics theStepStatusStatistics) {
+		myStepStatusStatistics.add(theStepStatusStatistics);
+	}
+
+	/**
+	 * Adds a copy of all of the statistics and warning messages in <code>theStatistics</code>
+	 * to these statistics
+	 */
+	public void addAll(WorkChunkStatistics theStatistics) {
+		for (StepStatusStatistics next : theStatistics.getStepStatusStatistics()) {
+			myStepStatusStatistics.add(next.copy());
+		}
+		myWarningMessages.addAll(theStatistics.getWarningMessages());
+	}
+
+	public List<StepStatusStatistics> getStepStatusStatistics() {
+		return Collections.unmodifiableList(myStepStatusStatistics);
+	}
+
+	public void addWarningMessage(String theWarningMessage) {
+		myWarningMessages.add(theWarningMessage);
+	}
+
+	public Set<String> getWarningMessages() {
+		return Collections.unmodifiableSet(myWarningMessages);
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+				.append("stepStatusStatistics", myStepStatusStatistics)
+				.append("warningMessages", myWarningMessages)
+				.toString();
+	}
+
+	/**
+	 * Statistics for all work chunks of an instance with a given step and status
+	 */
+	public static class StepStatusStatistics {
+
+		private final String myStepId;
+		private final WorkChunkStatusEnum myStatus;
+		private int myChunkCount;
+		private long myRecordsProcessed;
+		private long myErrorCount;
+		private Date myEarliestStartTime;
+		private Date myLatestEndTime;
+		private String myErrorMessage;
+		private Date myErrorMessageEndTime;
+
+		public StepStatusStatistics(String theStepId, WorkChunkStatusEnum theStatus) {
+			myStepId = theStepId;
+			myStatus = theStatus;
+		}
+
+		void addChunk(WorkChunk theChunk) {
+			myChunkCount++;
+			if (theChunk.getRecordsProcessed() != null) {
+				myRecordsProcessed += theChunk.getRecordsProcessed();
+			}
+			myErrorCount += theChunk.getErrorCount();
+			if (theChunk.getStartTime() != null
+					&& (myEarliestStartTime == null || myEarliestStartTime.after(theChunk.getStartTime()))) {
+				myEarliestStartTime = theChunk.getStartTime();
+			}
+			if (theChunk.getEndTime() != null
+					&& (myLatestEndTime == null || myLatestEndTime.before(theChunk.getEndTime()))) {
+				myLatestEndTime = theChunk.getEndTime();
+			}
+			// Keep the error message of the chunk which ended most recently
+			if (theChunk.getErrorMessage() != null
+					&& (myErrorMessage == null
+							|| (theChunk.getEndTime() != null
+									&& (myErrorMessageEndTime == null
+											|| !myErrorMessageEndTime.after(theChunk.getEndTime()))))) {
+				myErrorMessage = theChunk.getErrorMessage();
+				myErrorMessageEndTime = theChunk.getEndTime();
+			}
+		}
+
+		StepStatusStatistics copy() {
+			StepStatusStatistics retVal = new StepStatusStatistics(myStepId, myStatus);
+			retVal.myChunkCount = myChunkCount;
+			retVal.myRecordsProcessed = myRecordsProcessed;
+			retVal.myErrorCount = myErrorCount;
+			retVal.myEarliestStartTime = myEarliestStartTime;
+			retVal.myLatestEndTime = myLatestEndTime;
+			retVal.myErrorMessage = myErrorMessage;
+			retVal.myErrorMessageEndTime = myErrorMessageEndTime;
+			return retVal;
+		}
+
+		public String getStepId() {
+			return myStepId;
+		}
+
+		public WorkChunkStatusEnum getStatus() {
+			return myStatus;
+		}
+
+		public int getChunkCount() {
+			return myChunkCount;
+		}
+
+		public StepStatusStatistics setChunkCount(int theChunkCount) {
+			myChunkCount = theChunkCount;
+			return this;
+		}
+
+		public long getRecordsProcessed() {
+			return myRecordsProcessed;
+		}
+
+		public StepStatusStatistics setRecordsProcessed(long theRecordsProcessed) {
+			myRecordsProcessed = theRecordsProcessed;
+			return this;
+		}
+
+		/**
+		 * The sum of the error counts of the chunks
+		 */
+		public long getErrorCount() {
+			return myErrorCount;
+		}
+
+		public StepStatusStatistics setErrorCount(long theErrorCount) {
+			myErrorCount = theErrorCount;
+			return this;
+		}
+
+		public Date getEarliestStartTime() {
+			return myEarliestStartTime;
+		}
+
+		public StepStatusStatistics setEarliestStartTime(Date theEarliestStartTime) {
+			myEarliestStartTime = theEarliestStartTime;
+			return this;
+		}
+
+		public Date getLatestEndTime() {
+			return myLatestEndTime;
+		}
+
+		public StepStatusStatistics setLatestEndTime(Date theLatestEndTime) {
+			myLatestEndTime = theLatestEndTime;
+			return this;
+		}
+
+		/**
+		 * The error message of the most recently ended chunk which has one, if any of them have one
+		 */
+		public String getErrorMessage() {
+			return myErrorMessage;
+		}
+
+		public StepStatusStatistics setErrorMessage(String theErrorMessage) {
+			myErrorMessage = theErrorMessage;
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+					.append("stepId", myStepId)
+					.append("status", myStatus)
+					.append("chunkCount", myChunkCount)
+					.append("recordsProcessed", myRecordsProcessed)
+					.append("errorCount", myErrorCount)
+					.toString();
+		}
+	}
+}
@@ -22,6 +22,7 @@ package ca.uhn.fhir.batch2.progress;
 import ca.uhn.fhir.batch2.model.JobInstance;
 import ca.uhn.fhir.batch2.model.StatusEnum;
 import ca.uhn.fhir.batch2.model.WorkChunk;
+import ca.uhn.fhir.batch2.model.WorkChunkStatistics;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
 import ca.uhn.fhir.util.Logs;
 import ca.uhn.fhir.util.StopWatch;
@@ -60,60 +61,72 @@ public class InstanceProgress {
 		if (theChunk.getWarningMessage() != null) {
 			myWarningMessages.add(theChunk.getWarningMessage());
 		}
-		updateRecordsProcessed(theChunk);
-		updateEarliestTime(theChunk);
-		updateLatestEndTime(theChunk);
-		updateCompletionStatus(theChunk);
+		if (theChunk.getRecordsProcessed() != null) {
+			myRecordsProcessed += theChunk.getRecordsProcessed();
+		}
+		updateEarliestTime(theChunk.getStartTime());
+		updateLatestEndTime(theChunk.getEndTime());
+		updateCompletionStatus(theChunk.getTargetStepId(), theChunk.getStatus(), 1, theChunk.getErrorMessage());
+	}
+
+	/**
+	 * Adds the aggregated statistics for all of the work chunks of the instance.
+	 * This is equivalent to calling {@link #addChunk(WorkChunk)} for every chunk.
+	 *
+	 * @since 8.8.0
+	 */
+	public void addStatistics(WorkChunkStatistics theStatistics) {
+		myWarningMessages.addAll(theStatistics.getWarningMessages());
+		for (WorkChunkStatistics.StepStatusStatistics next : theStatistics.getStepStatusStatistics()) {
+			myErrorCountForAllStatuses += (int) next.getErrorCount();
+			myRecordsProcessed += (int) next.getRecordsProcessed();
+			updateEarliestTime(next.getEarliestStartTime());
+			updateLatestEndTime(next.getLatestEndTime());
+			updateCompletionStatus(next.getStepId(), next.getStatus(), next.getChunkCount(), next.getErrorMessage());
+		}
 	}
 
-	private void updateCompletionStatus(WorkChunk theChunk) {
+	private void updateCompletionStatus(
+			String theStepId, WorkChunkStatusEnum theStatus, int theChunkCount, String theErrorMessage) {
 		// Update the status map first.
 		Map<WorkChunkStatusEnum, Integer> statusToCountMap =
-				myStepToStatusCountMap.getOrDefault(theChunk.getTargetStepId(), new HashMap<>());
-		statusToCountMap.put(theChunk.getStatus(), statusToCountMap.getOrDefault(theChunk.getStatus(), 0) + 1);
+				myStepToStatusCountMap.computeIfAbsent(theStepId, t -> new HashMap<>());
+		statusToCountMap.merge(theStatus, theChunkCount, Integer::sum);
 
-		switch (theChunk.getStatus()) {
+		switch (theStatus) {
 			case GATE_WAITING:
 			case READY:
 			case QUEUED:
 			case POLL_WAITING:
 			case IN_PROGRESS:
-				myIncompleteChunkCount++;
+				myIncompleteChunkCount += theChunkCount;
 				break;
 			case COMPLETED:
-				myCompleteChunkCount++;
+				myCompleteChunkCount += theChunkCount;
 				break;
 			case ERRORED:
-				myErroredChunkCount++;
+				myErroredChunkCount += theChunkCount;
 				if (myErrormessage == null) {
-					myErrormessage = theChunk.getErrorMessage();
+					myErrormessage = theErrorMessage;
 				}
 				break;
 			case FAILED:
-				myFailedChunkCount++;
-				myErrormessage = theChunk.getErrorMessage();
+				myFailedChunkCount += theChunkCount;
+				myErrormessage = theErrorMessage;
 				break;
 		}
-		ourLog.trace("Chunk has status {} with errored chunk count {}", theChunk.getStatus(), myErroredChunkCount);
+		ourLog.trace("Chunks have status {} with errored chunk count {}", theStatus, myErroredChunkCount);
 	}
 
-	private void updateLatestEndTime(WorkChunk theChunk) {
-		if (theChunk.getEndTime() != null
-				&& (myLatestEndTime == null || myLatestEndTime.before(theChunk.getEndTime()))) {
-			myLatestEndTime = theChunk.getEndTime();
+	private void updateLatestEndTime(Date theEndTime) {
+		if (theEndTime != null && (myLatestEndTime == null || myLatestEndTime.before(theEndTime))) {
+			myLatestEndTime = theEndTime;
 		}
 	}
 
-	private void updateEarliestTime(WorkChunk theChunk) {
-		if (theChunk.getStartTime() != null
-				&& (myEarliestStartTime == null || myEarliestStartTime.after(theChunk.getStartTime()))) {
-			myEarliestStartTime = theChunk.getStartTime();
-		}
-	}
-
-	private void updateRecordsProcessed(WorkChunk theChunk) {
-		if (theChunk.getRecordsProcessed() != null) {
-			myRecordsProcessed += theChunk.getRecordsProcessed();
+	private void updateEarliestTime(Date theStartTime) {
+		if (theStartTime != null && (myEarliestStartTime == null || myEarliestStartTime.after(theStartTime))) {
+			myEarliestStartTime = theStartTime;
 		}
 	}
 
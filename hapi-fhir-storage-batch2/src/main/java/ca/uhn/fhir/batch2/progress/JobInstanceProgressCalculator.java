@@ -24,7 +24,7 @@ import ca.uhn.fhir.batch2.coordinator.JobDefinitionRegistry;
 import ca.uhn.fhir.batch2.maintenance.JobChunkProgressAccumulator;
 import ca.uhn.fhir.batch2.model.JobDefinition;
 import ca.uhn.fhir.batch2.model.JobInstance;
-import ca.uhn.fhir.batch2.model.WorkChunk;
+import ca.uhn.fhir.batch2.model.WorkChunkStatistics;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.api.IInterceptorService;
 import ca.uhn.fhir.model.api.IModelJson;
@@ -34,7 +34,6 @@ import ca.uhn.fhir.util.StopWatch;
 import jakarta.annotation.Nonnull;
 import org.slf4j.Logger;
 
-import java.util.Iterator;
 import java.util.Optional;
 
 public class JobInstanceProgressCalculator {
@@ -96,16 +95,12 @@ public class JobInstanceProgressCalculator {
 	@Nonnull
 	public InstanceProgress calculateInstanceProgress(String instanceId) {
 		InstanceProgress instanceProgress = new InstanceProgress();
-		Iterator<WorkChunk> workChunkIterator = myJobPersistence.fetchAllWorkChunksIterator(instanceId, false);
+		WorkChunkStatistics statistics = myJobPersistence.fetchWorkChunkStatistics(instanceId);
 
-		while (workChunkIterator.hasNext()) {
-			WorkChunk next = workChunkIterator.next();
-
-			// global stats
-			myProgressAccumulator.addChunk(next);
-			// instance stats
-			instanceProgress.addChunk(next);
-		}
+		// global stats
+		myProgressAccumulator.addStatistics(instanceId, statistics);
+		// instance stats
+		instanceProgress.addStatistics(statistics);
 
 		// wipmb separate status update from stats collection in 6.8
 		instanceProgress.calculateNewStatus(lastStepIsReduction(instanceId));
@@ -55,6 +55,7 @@ import org.mockito.stubbing.Answer;
 import org.springframework.messaging.MessageDeliveryException;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -286,6 +287,33 @@ public class JobCoordinatorImplTest extends BaseBatch2Test {
 		verify(myJobInstancePersister, times(1)).onWorkChunkCompletion(new WorkChunkCompletionEvent(CHUNK_ID, 50, 0));
 	}
 
+	@Test
+	public void testPerformStep_SecondStep_MultipleChunks() {
+
+		// Setup
+
+		WorkChunk chunk1 = createWorkChunk(STEP_2, new TestJobStep2InputType(DATA_1_VALUE, DATA_2_VALUE)).setId("chunk1");
+		WorkChunk chunk3 = createWorkChunk(STEP_2, new TestJobStep2InputType(DATA_1_VALUE, DATA_2_VALUE)).setId("chunk3");
+		// chunk2 has already been started elsewhere
+		when(myJobInstancePersister.onWorkChunksDequeue(eq(List.of("chunk1", "chunk2", "chunk3")))).thenReturn(List.of(chunk1, chunk3));
+		doReturn(createJobDefinition()).when(myJobDefinitionRegistry).getJobDefinitionOrThrowException(eq(JOB_DEFINITION_ID), eq(1));
+		when(myJobInstancePersister.fetchInstance(eq(INSTANCE_ID))).thenReturn(Optional.of(createInstance()));
+		when(myStep2Worker.run(any(), any())).thenReturn(new RunOutcome(50));
+
+		// Execute
+
+		JobWorkNotification notification = createWorkNotification(STEP_2);
+		notification.setChunkIds(List.of("chunk1", "chunk2", "chunk3"));
+		myJobProducer.send(new JobWorkNotificationJsonMessage(notification));
+
+		// Verify
+
+		verify(myJobInstancePersister, never()).onWorkChunkDequeue(any());
+		verify(myStep2Worker, times(2)).run(any(), any());
+		verify(myJobInstancePersister, times(1)).onWorkChunkCompletion(new WorkChunkCompletionEvent("chunk1", 50, 0));
+		verify(myJobInstancePersister, times(1)).onWorkChunkCompletion(new WorkChunkCompletionEvent("chunk3", 50, 0));
+	}
+
 	@Test
 	public void testPerformStep_SecondStep_WorkerFailure() {
 
@@ -74,6 +74,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -112,6 +113,7 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 
 	@BeforeEach
 	public void beforeEach() {
+		lenient().when(myJobPersistence.fetchWorkChunkStatistics(any())).thenCallRealMethod();
 		myJobDefinitionRegistry = new JobDefinitionRegistry();
 		BatchJobSender batchJobSender = new BatchJobSender(myWorkChannelProducer);
 		mySvc = new JobMaintenanceServiceImpl(mySchedulerService,
@@ -202,6 +204,7 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		assertEquals("00:10:00", instance.getEstimatedTimeRemaining());
 
 		verify(myJobPersistence).updatePollWaitingChunksForJobIfReady(eq(instance.getInstanceId()));
+		verify(myJobPersistence).fetchWorkChunkStatistics(eq(INSTANCE_ID));
 		verifyNoMoreInteractions(myJobPersistence);
 	}
 
@@ -247,6 +250,7 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		assertEquals(0.08333333333333333, instance.getCombinedRecordsProcessedPerSecond());
 
 		verify(myJobPersistence).updatePollWaitingChunksForJobIfReady(eq(instance.getInstanceId()));
+		verify(myJobPersistence).fetchWorkChunkStatistics(eq(INSTANCE_ID));
 		verifyNoMoreInteractions(myJobPersistence);
 	}
 
@@ -290,6 +294,7 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		verify(myJobPersistence, times(1)).updateInstance(eq(INSTANCE_ID), any());
 		verify(myJobPersistence, times(1)).advanceJobStepAndUpdateChunkStatus(eq(INSTANCE_ID), eq(STEP_2), eq(false));
 		verify(myJobPersistence).updatePollWaitingChunksForJobIfReady(eq(INSTANCE_ID));
+		verify(myJobPersistence).fetchWorkChunkStatistics(eq(INSTANCE_ID));
 		verifyNoMoreInteractions(myJobPersistence);
 		JobWorkNotification payload0 = myMessageCaptor.getAllValues().get(0).getPayload();
 		assertEquals(STEP_2, payload0.getTargetStepId());
@@ -354,6 +359,7 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		verify(myJobPersistence, times(1)).deleteChunksAndMarkInstanceAsChunksPurged(eq(INSTANCE_ID));
 		verify(myCompletionHandler, times(1)).jobComplete(myJobCompletionCaptor.capture());
 		verify(myJobPersistence).updatePollWaitingChunksForJobIfReady(eq(instance.getInstanceId()));
+		verify(myJobPersistence).fetchWorkChunkStatistics(eq(INSTANCE_ID));
 		verifyNoMoreInteractions(myJobPersistence);
 
 		assertEquals(INSTANCE_ID, myJobCompletionCaptor.getValue().getInstance().getInstanceId());
@@ -394,6 +400,7 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		verify(myJobPersistence, times(1)).updateInstance(eq(INSTANCE_ID), any());
 		verify(myJobPersistence, times(1)).deleteChunksAndMarkInstanceAsChunksPurged(eq(INSTANCE_ID));
 		verify(myJobPersistence).updatePollWaitingChunksForJobIfReady(eq(instance.getInstanceId()));
+		verify(myJobPersistence).fetchWorkChunkStatistics(eq(INSTANCE_ID));
 		verifyNoMoreInteractions(myJobPersistence);
 	}
 
@@ -477,6 +484,39 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		}
 	}
 
+	@Test
+	public void testMaintenancePass_withNotificationBatchSize_sendsChunksTogether() {
+		// setup
+		myStorageSettings.setJobWorkChunkNotificationBatchSize(2);
+		List<WorkChunk> chunks = List.of(
+			createWorkChunkStep2().setId("chunk1").setStatus(WorkChunkStatusEnum.READY),
+			createWorkChunkStep2().setId("chunk2").setStatus(WorkChunkStatusEnum.READY),
+			createWorkChunkStep2().setId("chunk3").setStatus(WorkChunkStatusEnum.READY)
+		);
+
+		// when
+		doAnswer(args -> {
+			Consumer<Integer> consumer = args.getArgument(1);
+			consumer.accept(1);
+			return 1;
+		}).when(myJobPersistence).enqueueWorkChunkForProcessing(anyString(), any());
+
+		Page<WorkChunkMetadata> page = getPageOfData(chunks);
+		when(myJobPersistence.fetchAllWorkChunkMetadataForJobInStates(any(Pageable.class), eq(INSTANCE_ID), any())).thenReturn(page);
+
+		// test
+		runEnqueueReadyChunksTest(chunks, createJobDefinition());
+
+		// verify
+		verify(myJobPersistence, times(3)).enqueueWorkChunkForProcessing(anyString(), any());
+		verify(myWorkChannelProducer, times(2)).send(myMessageCaptor.capture());
+		List<IMessage<JobWorkNotification>> sentMessages = myMessageCaptor.getAllValues();
+		assertThat(sentMessages.get(0).getPayload().getChunkIds()).containsExactly("chunk1", "chunk2");
+		assertEquals("chunk1", sentMessages.get(0).getPayload().getChunkId());
+		assertThat(sentMessages.get(1).getPayload().getChunkIds()).containsExactly("chunk3");
+		assertEquals(STEP_2, sentMessages.get(1).getPayload().getTargetStepId());
+	}
+
 	@Test
 	public void testMaintenancePass_whenUpdateFails_skipsWorkChunkAndLogs() {
 		// setup
@@ -0,0 +1,151 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.broker.api.ChannelConsumerSettings;
+import ca.uhn.fhir.broker.api.ChannelProducerSettings;
+import ca.uhn.fhir.broker.api.IBrokerClient;
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IChannelNamer;
+import ca.uhn.fhir.broker.api.IChannelProducer;
+import ca.uhn.fhir.broker.api.IChannelSettings;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.jpa.subscription.channel.impl.RetryPolicyProvider;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A durable {@link IBrokerClient} for single-node deployments which don't have an external message
+ * broker. Each channel is stored as a log of memory-mapped segment files in its own directory under
+ * a base directory, along with the offset of the oldest message its consumers haven't finished
+ * processing. Messages are therefore not bounded by the heap, and any messages which were waiting or
+ * being processed when the JVM stopped are delivered when the channel is next opened. Messages must
+ * be serializable as JSON, which is the case for all {@link IMessage} types used by HAPI FHIR.
+ * <p>
+ * Channels have queue semantics: if several consumers are created for the same channel, they
+ * compete for its messages and each message is normally delivered to only one of them. Delivery is
+ * at-least-once, so a message may be delivered again after a restart. Segments are deleted once all
+ * of their messages have been processed.
+ * </p>
+ * <p>
+ * Writes go to the operating system's page cache, so messages survive the JVM stopping or crashing,
+ * but not necessarily the host crashing. A channel directory can only be opened by one process at a
+ * time. To use this client, declare it as a <code>@Primary</code> {@link IBrokerClient} bean.
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public class MappedFileBrokerClient implements IBrokerClient {
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private final IChannelNamer myChannelNamer;
+	private final RetryPolicyProvider myRetryPolicyProvider;
+	private final Path myBaseDirectory;
+	private final int mySegmentSize;
+	private final Map<String, MappedFileChannel> myChannels = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param theBaseDirectory The directory under which each channel's files are kept
+	 */
+	public MappedFileBrokerClient(
+			IChannelNamer theChannelNamer, RetryPolicyProvider theRetryPolicyProvider, Path theBaseDirectory) {
+		this(theChannelNamer, theRetryPolicyProvider, theBaseDirectory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theBaseDirectory The directory under which each channel's files are kept
+	 * @param theSegmentSize   The size in bytes of each segment file, which is also the upper limit on the size of a message
+	 */
+	public MappedFileBrokerClient(
+			IChannelNamer theChannelNamer,
+			RetryPolicyProvider theRetryPolicyProvider,
+			Path theBaseDirectory,
+			int theSegmentSize) {
+		myChannelNamer = theChannelNamer;
+		myRetryPolicyProvider = theRetryPolicyProvider;
+		myBaseDirectory = theBaseDirectory;
+		mySegmentSize = theSegmentSize;
+	}
+
+	@Override
+	public <T> IChannelConsumer<T> getOrCreateConsumer(
+			String theChannelName,
+			Class<? extends IMessage<T>> theMessageType,
+			IMessageListener<T> theMessageListener,
+			ChannelConsumerSettings theChannelConsumerSettings) {
+		MappedFileChannel channel = getOrCreateChannel(theChannelName, theChannelConsumerSettings);
+		MappedFileChannelConsumer<T> retVal = new MappedFileChannelConsumer<>(
+				channel,
+				theMessageType,
+				theMessageListener,
+				theChannelConsumerSettings.getConcurrentConsumers(),
+				myRetryPolicyProvider);
+		retVal.start();
+		return retVal;
+	}
+
+	@Override
+	public <T> IChannelProducer<T> getOrCreateProducer(
+			String theChannelName,
+			Class<? extends IMessage<T>> theMessageType,
+			ChannelProducerSettings theChannelProducerSettings) {
+		return new MappedFileChannelProducer<>(
+				getOrCreateChannel(theChannelName, theChannelProducerSettings), theMessageType);
+	}
+
+	@Override
+	public IChannelNamer getChannelNamer() {
+		return myChannelNamer;
+	}
+
+	@VisibleForTesting
+	int getQueueSizeForUnitTest(String theChannelName) {
+		MappedFileChannel channel = myChannels.get(theChannelName);
+		return channel != null ? channel.getUnclaimedCount() : 0;
+	}
+
+	@PreDestroy
+	public void stop() {
+		myChannels.values().forEach(MappedFileChannel::close);
+		myChannels.clear();
+	}
+
+	private MappedFileChannel getOrCreateChannel(String theChannelName, IChannelSettings theChannelSettings) {
+		String channelName = myChannelNamer.getChannelName(theChannelName, theChannelSettings);
+		return myChannels.computeIfAbsent(
+				channelName, t -> new MappedFileChannel(t, myBaseDirectory.resolve(toDirectoryName(t)), mySegmentSize));
+	}
+
+	/**
+	 * Channel names may contain characters which aren't allowed in file names
+	 */
+	static String toDirectoryName(String theChannelName) {
+		return theChannelName.replaceAll("[^A-Za-z0-9._-]", "_");
+	}
+}
@@ -0,0 +1,399 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * A single channel of a {@link MappedFileBrokerClient}. Messages are appended to a log made up of
+ * segment files in the channel's directory, each of which is memory-mapped in full. Each record is
+ * a 4 byte length followed by the serialized message, and a length of <code>-1</code> marks the end
+ * of a segment whose remaining space was too small for the next record.
+ * <p>
+ * A position in the log is the segment number in the upper 32 bits and the offset within the
+ * segment in the lower 32 bits. The position of the oldest message which has not finished being
+ * processed is stored in a small mapped offset file, so that after a restart the consumers pick up
+ * from there. Segments entirely before that position are deleted.
+ * </p>
+ */
+class MappedFileChannel {
+	static final String SEGMENT_FILE_SUFFIX = ".segment";
+	static final String OFFSET_FILE_NAME = "consumer.offset";
+	static final String LOCK_FILE_NAME = "channel.lock";
+	private static final Logger ourLog = LoggerFactory.getLogger(MappedFileChannel.class);
+	private static final int LENGTH_SIZE = Integer.BYTES;
+	private static final int END_OF_SEGMENT = -1;
+
+	private final String myChannelName;
+	private final Path myDirectory;
+	private final int mySegmentSize;
+	private final ReentrantLock myLock = new ReentrantLock();
+	private final Condition myNotEmpty = myLock.newCondition();
+	private final NavigableMap<Integer, MappedByteBuffer> mySegments = new TreeMap<>();
+	private final NavigableSet<Long> myInFlightPositions = new TreeSet<>();
+	private final Deque<MappedFileRecord> myReleasedRecords = new ArrayDeque<>();
+	private final List<MappedFileChannelConsumer<?>> myConsumers = new CopyOnWriteArrayList<>();
+	private final FileChannel myLockFileChannel;
+	private final FileLock myFileLock;
+	private final MappedByteBuffer myOffsetBuffer;
+	private long myWritePosition;
+	private long myReadPosition;
+	private long myCommittedPosition;
+	private boolean myClosed;
+
+	MappedFileChannel(String theChannelName, Path theDirectory, int theSegmentSize) {
+		Validate.isTrue(theSegmentSize > LENGTH_SIZE * 2, "Segment size is too small");
+		myChannelName = theChannelName;
+		myDirectory = theDirectory;
+		mySegmentSize = theSegmentSize;
+
+		try {
+			Files.createDirectories(theDirectory);
+			myLockFileChannel = FileChannel.open(
+					theDirectory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			myFileLock = tryLock(myLockFileChannel);
+			if (myFileLock == null) {
+				myLockFileChannel.close();
+				throw new ConfigurationException(
+						Msg.code(2855) + "Channel directory " + theDirectory + " is already in use");
+			}
+
+			myOffsetBuffer = map(theDirectory.resolve(OFFSET_FILE_NAME), Long.BYTES);
+			openSegments();
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2856) + "Failed to open channel " + theChannelName, e);
+		}
+	}
+
+	String getChannelName() {
+		return myChannelName;
+	}
+
+	private void openSegments() throws IOException {
+		try (Stream<Path> files = Files.list(myDirectory)) {
+			for (Path next : (Iterable<Path>) files::iterator) {
+				String fileName = next.getFileName().toString();
+				if (fileName.endsWith(SEGMENT_FILE_SUFFIX)) {
+					int segmentNumber =
+							Integer.parseInt(fileName.substring(0, fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+					mySegments.put(segmentNumber, map(next, 0));
+				}
+			}
+		}
+		if (mySegments.isEmpty()) {
+			mySegments.put(0, map(segmentPath(0), mySegmentSize));
+		}
+
+		// Find the end of the last record written before the previous shutdown
+		int lastSegmentNumber = mySegments.lastKey();
+		MappedByteBuffer lastSegment = mySegments.get(lastSegmentNumber);
+		int offset = 0;
+		while (offset + LENGTH_SIZE <= lastSegment.capacity()) {
+			int length = lastSegment.getInt(offset);
+			if (length <= 0 || offset + LENGTH_SIZE + length > lastSegment.capacity()) {
+				break;
+			}
+			offset += LENGTH_SIZE + length;
+		}
+		myWritePosition = toPosition(lastSegmentNumber, offset);
+
+		myCommittedPosition = myOffsetBuffer.getLong(0);
+		int firstSegmentNumber = mySegments.firstKey();
+		if (segmentNumber(myCommittedPosition) < firstSegmentNumber) {
+			myCommittedPosition = toPosition(firstSegmentNumber, 0);
+		}
+		myReadPosition = myCommittedPosition;
+		deleteConsumedSegments();
+
+		ourLog.info("Opened channel[{}] with {} segment(s) in {}", myChannelName, mySegments.size(), myDirectory);
+	}
+
+	/**
+	 * Appends a serialized message to the end of the log
+	 */
+	void append(byte[] theMessage) {
+		int recordSize = LENGTH_SIZE + theMessage.length;
+		if (recordSize > mySegmentSize - LENGTH_SIZE) {
+			throw new InternalErrorException(Msg.code(2857) + "Message of " + theMessage.length
+					+ " bytes is too large for segment size " + mySegmentSize + " in channel " + myChannelName);
+		}
+
+		myLock.lock();
+		try {
+			int segmentNumber = segmentNumber(myWritePosition);
+			int offset = offset(myWritePosition);
+			MappedByteBuffer segment = mySegments.get(segmentNumber);
+			if (offset + recordSize > segment.capacity()) {
+				if (offset + LENGTH_SIZE <= segment.capacity()) {
+					segment.putInt(offset, END_OF_SEGMENT);
+				}
+				segmentNumber++;
+				offset = 0;
+				segment = map(segmentPath(segmentNumber), mySegmentSize);
+				mySegments.put(segmentNumber, segment);
+			}
+
+			// The length is written last, so a record is never visible after a crash until it is complete
+			segment.put(offset + LENGTH_SIZE, theMessage);
+			segment.putInt(offset, theMessage.length);
+			myWritePosition = toPosition(segmentNumber, offset + recordSize);
+			myNotEmpty.signal();
+		} catch (IOException e) {
+			throw new InternalErrorException(
+					Msg.code(2858) + "Failed to create a new segment for channel " + myChannelName, e);
+		} finally {
+			myLock.unlock();
+		}
+	}
+
+	/**
+	 * Claims up to <code>theMaxRecords</code> records which have not yet been claimed by any consumer,
+	 * waiting up to <code>theTimeoutMillis</code> for one to be appended if there are none. Each claimed
+	 * record must later be passed to either {@link #commit(MappedFileRecord)} or
+	 * {@link #release(Collection)}.
+	 * <p>
+	 * The returned records are views of the mapped segments, so the message bytes are not copied.
+	 * </p>
+	 */
+	List<MappedFileRecord> claim(int theMaxRecords, long theTimeoutMillis) throws InterruptedException {
+		myLock.lock();
+		try {
+			if (!hasUnclaimedRecords() && !myClosed) {
+				myNotEmpty.await(theTimeoutMillis, TimeUnit.MILLISECONDS);
+			}
+
+			List<MappedFileRecord> retVal = new ArrayList<>();
+			while (retVal.size() < theMaxRecords && !myReleasedRecords.isEmpty()) {
+				retVal.add(myReleasedRecords.poll());
+			}
+			while (retVal.size() < theMaxRecords && myReadPosition != myWritePosition) {
+				int segmentNumber = segmentNumber(myReadPosition);
+				int offset = offset(myReadPosition);
+				MappedByteBuffer segment = mySegments.get(segmentNumber);
+				if (offset + LENGTH_SIZE > segment.capacity() || segment.getInt(offset) == END_OF_SEGMENT) {
+					myReadPosition = toPosition(segmentNumber + 1, 0);
+					continue;
+				}
+
+				int length = segment.getInt(offset);
+				ByteBuffer message = segment.slice(offset + LENGTH_SIZE, length).asReadOnlyBuffer();
+				retVal.add(new MappedFileRecord(myReadPosition, message));
+				myInFlightPositions.add(myReadPosition);
+				myReadPosition = toPosition(segmentNumber, offset + LENGTH_SIZE + length);
+			}
+			if (!retVal.isEmpty() && hasUnclaimedRecords()) {
+				// Wake up another consumer thread to help with the rest
+				myNotEmpty.signal();
+			}
+			return retVal;
+		} finally {
+			myLock.unlock();
+		}
+	}
+
+	/**
+	 * Marks a claimed record as processed, advancing the stored consumer offset if it was the oldest
+	 * record in flight
+	 */
+	void commit(MappedFileRecord theRecord) {
+		myLock.lock();
+		try {
+			myInFlightPositions.remove(theRecord.position());
+			long committedPosition = myInFlightPositions.isEmpty() ? myReadPosition : myInFlightPositions.first();
+			if (committedPosition != myCommittedPosition && !myClosed) {
+				myCommittedPosition = committedPosition;
+				myOffsetBuffer.putLong(0, committedPosition);
+				deleteConsumedSegments();
+			}
+		} finally {
+			myLock.unlock();
+		}
+	}
+
+	/**
+	 * Gives back claimed records which were not processed, so that they are claimed again. They stay
+	 * in flight until then, so the stored consumer offset doesn't move past them.
+	 */
+	void release(Collection<MappedFileRecord> theRecords) {
+		if (theRecords.isEmpty()) {
+			return;
+		}
+		myLock.lock();
+		try {
+			myReleasedRecords.addAll(theRecords);
+			myNotEmpty.signal();
+		} finally {
+			myLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of records which have been appended but not yet claimed
+	 */
+	int getUnclaimedCount() {
+		myLock.lock();
+		try {
+			int retVal = myReleasedRecords.size();
+			long position = myReadPosition;
+			while (position != myWritePosition) {
+				int segmentNumber = segmentNumber(position);
+				int offset = offset(position);
+				MappedByteBuffer segment = mySegments.get(segmentNumber);
+				if (offset + LENGTH_SIZE > segment.capacity() || segment.getInt(offset) == END_OF_SEGMENT) {
+					position = toPosition(segmentNumber + 1, 0);
+					continue;
+				}
+				retVal++;
+				position = toPosition(segmentNumber, offset + LENGTH_SIZE + segment.getInt(offset));
+			}
+			return retVal;
+		} finally {
+			myLock.unlock();
+		}
+	}
+
+	void addConsumer(MappedFileChannelConsumer<?> theConsumer) {
+		myConsumers.add(theConsumer);
+	}
+
+	void removeConsumer(MappedFileChannelConsumer<?> theConsumer) {
+		myConsumers.remove(theConsumer);
+	}
+
+	/**
+	 * Stops the consumers and flushes the log and consumer offset to disk
+	 */
+	void close() {
+		myConsumers.forEach(MappedFileChannelConsumer::close);
+
+		myLock.lock();
+		try {
+			if (myClosed) {
+				return;
+			}
+			myClosed = true;
+			myNotEmpty.signalAll();
+			mySegments.values().forEach(MappedByteBuffer::force);
+			myOffsetBuffer.force();
+			myFileLock.release();
+			myLockFileChannel.close();
+		} catch (IOException e) {
+			ourLog.warn("Failed to release lock on channel[{}]: {}", myChannelName, e.toString());
+		} finally {
+			myLock.unlock();
+		}
+	}
+
+	private boolean hasUnclaimedRecords() {
+		return !myReleasedRecords.isEmpty() || myReadPosition != myWritePosition;
+	}
+
+	private void deleteConsumedSegments() {
+		int committedSegmentNumber = segmentNumber(myCommittedPosition);
+		while (mySegments.firstKey() < committedSegmentNumber) {
+			int segmentNumber = mySegments.pollFirstEntry().getKey();
+			try {
+				Files.deleteIfExists(segmentPath(segmentNumber));
+			} catch (IOException e) {
+				ourLog.warn(
+						"Failed to delete consumed segment {} of channel[{}]: {}",
+						segmentNumber,
+						myChannelName,
+						e.toString());
+			}
+		}
+	}
+
+	private Path segmentPath(int theSegmentNumber) {
+		return myDirectory.resolve(String.format("%010d", theSegmentNumber) + SEGMENT_FILE_SUFFIX);
+	}
+
+	/**
+	 * Returns <code>null</code> if the lock is held by another process, or by another broker client
+	 * in this process
+	 */
+	private static FileLock tryLock(FileChannel theFileChannel) throws IOException {
+		try {
+			return theFileChannel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Maps a file in full, creating it with the given size if it doesn't already exist
+	 */
+	private static MappedByteBuffer map(Path thePath, int theSizeIfNew) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(
+				thePath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = Math.max(fileChannel.size(), theSizeIfNew);
+			return fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+
+	private static long toPosition(int theSegmentNumber, int theOffset) {
+		return ((long) theSegmentNumber << 32) | (theOffset & 0xFFFFFFFFL);
+	}
+
+	private static int segmentNumber(long thePosition) {
+		return (int) (thePosition >>> 32);
+	}
+
+	private static int offset(long thePosition) {
+		return (int) thePosition;
+	}
+
+	/**
+	 * A message read from the log
+	 *
+	 * @param position The position of the record in the log
+	 * @param message  A read-only view of the serialized message within the mapped segment
+	 */
+	record MappedFileRecord(long position, ByteBuffer message) {}
+}
@@ -0,0 +1,236 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.broker.api.IRetryAwareMessageListener;
+import ca.uhn.fhir.broker.impl.MappedFileChannel.MappedFileRecord;
+import ca.uhn.fhir.jpa.subscription.channel.impl.RetryPolicyProvider;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.util.BaseUnrecoverableRuntimeException;
+import ca.uhn.fhir.util.IoUtils;
+import ca.uhn.fhir.util.JsonUtil;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes messages from a {@link MappedFileChannel} using a fixed number of threads. Each thread
+ * claims a batch of records at a time, deserializes each message straight from the mapped segment
+ * and passes it to the listener, retrying it according to the {@link RetryPolicyProvider}. A record
+ * is committed once the listener is done with it, successfully or not, so a message which was being
+ * processed when the JVM stopped is delivered again after a restart.
+ *
+ * @param <T> the type of payload this message consumer is expecting to receive
+ */
+class MappedFileChannelConsumer<T> implements IChannelConsumer<T> {
+	static final int MAX_BATCH_SIZE = 64;
+	private static final long POLL_TIMEOUT_MILLIS = 100;
+	private static final Logger ourLog = LoggerFactory.getLogger(MappedFileChannelConsumer.class);
+
+	private final MappedFileChannel myChannel;
+	private final Class<? extends IMessage<T>> myMessageType;
+	private final IMessageListener<T> myMessageListener;
+	private final int myThreadCount;
+	private final RetryTemplate myRetryTemplate;
+	private final List<Thread> myThreads = new ArrayList<>();
+	private volatile boolean myClosed;
+	private volatile boolean myPaused;
+
+	MappedFileChannelConsumer(
+			MappedFileChannel theChannel,
+			Class<? extends IMessage<T>> theMessageType,
+			IMessageListener<T> theMessageListener,
+			int theThreadCount,
+			RetryPolicyProvider theRetryPolicyProvider) {
+		myChannel = theChannel;
+		myMessageType = theMessageType;
+		myMessageListener = theMessageListener;
+		myThreadCount = Math.max(1, theThreadCount);
+		myRetryTemplate = newRetryTemplate(theRetryPolicyProvider);
+	}
+
+	@Override
+	public String getChannelName() {
+		return myChannel.getChannelName();
+	}
+
+	@Override
+	public synchronized void start() {
+		checkState();
+		if (!myThreads.isEmpty()) {
+			return;
+		}
+
+		BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+				.namingPattern(getChannelName() + "-%d")
+				.daemon(true)
+				.build();
+		for (int i = 0; i < myThreadCount; i++) {
+			Thread thread = threadFactory.newThread(this::consume);
+			myThreads.add(thread);
+			thread.start();
+		}
+		myChannel.addConsumer(this);
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (myClosed) {
+				return;
+			}
+			myClosed = true;
+		}
+		myChannel.removeConsumer(this);
+		for (Thread next : myThreads) {
+			if (next != Thread.currentThread()) {
+				try {
+					next.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		if (myMessageListener instanceof AutoCloseable closeable) {
+			IoUtils.closeQuietly(closeable, ourLog);
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return myClosed;
+	}
+
+	@Override
+	public Class<? extends IMessage<T>> getMessageType() {
+		return myMessageType;
+	}
+
+	@Override
+	public IMessageListener<T> getMessageListener() {
+		return myMessageListener;
+	}
+
+	@Override
+	public void pause() {
+		myPaused = true;
+	}
+
+	@Override
+	public void resume() {
+		checkState();
+		myPaused = false;
+	}
+
+	private void consume() {
+		while (!myClosed) {
+			List<MappedFileRecord> batch;
+			try {
+				if (myPaused) {
+					Thread.sleep(POLL_TIMEOUT_MILLIS);
+					continue;
+				}
+				batch = myChannel.claim(MAX_BATCH_SIZE, POLL_TIMEOUT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			for (int i = 0; i < batch.size(); i++) {
+				MappedFileRecord next = batch.get(i);
+				if (myClosed || myPaused || !handleRecord(next)) {
+					// Leave the rest for another consumer, for after resuming, or for the next time the channel is
+					// opened
+					myChannel.release(batch.subList(i, batch.size()));
+					break;
+				}
+				myChannel.commit(next);
+			}
+		}
+	}
+
+	/**
+	 * The template is shared by all of this consumer's threads. This is safe because retry state is
+	 * kept in the context of each call rather than in the template.
+	 */
+	private RetryTemplate newRetryTemplate(RetryPolicyProvider theRetryPolicyProvider) {
+		RetryTemplate retVal = theRetryPolicyProvider.getRetryTemplate();
+		retVal.setListeners(new RetryListener[] {
+			new RetryListener() {
+				@Override
+				public <R, E extends Throwable> void onError(
+						RetryContext theContext, RetryCallback<R, E> theCallback, Throwable theThrowable) {
+					ourLog.error(
+							"Failure {} processing message in channel[{}]: {}",
+							theContext.getRetryCount(),
+							getChannelName(),
+							theThrowable.toString());
+					if (theThrowable instanceof BaseUnrecoverableRuntimeException || myClosed) {
+						theContext.setExhaustedOnly();
+					}
+				}
+			}
+		});
+		return retVal;
+	}
+
+	/**
+	 * @return Returns <code>false</code> if the record should be delivered again because this
+	 * 	consumer was closed before the listener succeeded
+	 */
+	private boolean handleRecord(MappedFileRecord theRecord) {
+		IMessage<T> message;
+		try {
+			message = JsonUtil.deserialize(new ByteBufferBackedInputStream(theRecord.message()), myMessageType);
+		} catch (IOException e) {
+			// A message which can't be read will never be readable, so skip it rather than clog up the channel
+			ourLog.error(
+					"Skipping unreadable message at position {} in channel[{}]: {}",
+					theRecord.position(),
+					getChannelName(),
+					e.toString());
+			return true;
+		}
+
+		try {
+			myRetryTemplate.execute(context -> {
+				IRetryAwareMessageListener.handleMessage(myMessageListener, context::getRetryCount, message);
+				return null;
+			});
+		} catch (Exception e) {
+			if (myClosed) {
+				return false;
+			}
+			ourLog.error("Giving up on message in channel[{}]", getChannelName(), e);
+		}
+		return true;
+	}
+}
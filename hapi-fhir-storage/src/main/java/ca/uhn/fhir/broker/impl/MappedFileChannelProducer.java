@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.broker.api.IChannelProducer;
+import ca.uhn.fhir.broker.api.ISendResult;
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.model.api.IModelJson;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.util.JsonUtil;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends messages to a {@link MappedFileChannel}. Messages are serialized as JSON, including any
+ * fields which are normally hidden as sensitive data, since they must be complete when read back.
+ *
+ * @param <T> the type of payload this message producer is expecting to send
+ */
+class MappedFileChannelProducer<T> implements IChannelProducer<T> {
+	private static final ISendResult SUCCESS = () -> true;
+
+	private final MappedFileChannel myChannel;
+	private final Class<? extends IMessage<T>> myMessageType;
+
+	MappedFileChannelProducer(MappedFileChannel theChannel, Class<? extends IMessage<T>> theMessageType) {
+		myChannel = theChannel;
+		myMessageType = theMessageType;
+	}
+
+	@Override
+	public String getChannelName() {
+		return myChannel.getChannelName();
+	}
+
+	@Override
+	public ISendResult send(IMessage<T> theMessage) {
+		if (!myMessageType.isAssignableFrom(theMessage.getClass())) {
+			throw new ConfigurationException(Msg.code(2859) + "Expecting message of type " + myMessageType
+					+ ". But received message of type: " + theMessage.getClass());
+		}
+
+		String json = theMessage instanceof IModelJson modelJson
+				? JsonUtil.serializeWithSensitiveData(modelJson)
+				: JsonUtil.serialize(theMessage, false);
+		myChannel.append(json.getBytes(StandardCharsets.UTF_8));
+		return SUCCESS;
+	}
+}
@@ -0,0 +1,69 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.broker.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A single channel of a {@link RingBufferBrokerClient}: the ring buffer holding its messages, and the
+ * consumers competing for them.
+ */
+class RingBufferChannel {
+	private final String myChannelName;
+	private final RingBufferQueue<Object> myQueue;
+	private final List<RingBufferChannelConsumer<?>> myConsumers = new CopyOnWriteArrayList<>();
+
+	RingBufferChannel(String theChannelName, int theRingBufferSize) {
+		myChannelName = theChannelName;
+		myQueue = new RingBufferQueue<>(theRingBufferSize);
+	}
+
+	String getChannelName() {
+		return myChannelName;
+	}
+
+	RingBufferQueue<Object> getQueue() {
+		return myQueue;
+	}
+
+	void addConsumer(RingBufferChannelConsumer<?> theConsumer) {
+		myConsumers.add(theConsumer);
+	}
+
+	void removeConsumer(RingBufferChannelConsumer<?> theConsumer) {
+		myConsumers.remove(theConsumer);
+	}
+
+	/**
+	 * Returns the total number of threads consuming from this channel
+	 */
+	int getConsumerThreadCount() {
+		int retVal = 0;
+		for (RingBufferChannelConsumer<?> next : myConsumers) {
+			retVal += next.getThreadCount();
+		}
+		return Math.max(1, retVal);
+	}
+
+	void close() {
+		myConsumers.forEach(RingBufferChannelConsumer::close);
+	}
+}
@@ -0,0 +1,241 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.broker.api.IRetryAwareMessageListener;
+import ca.uhn.fhir.jpa.subscription.channel.impl.RetryPolicyProvider;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.util.BaseUnrecoverableRuntimeException;
+import ca.uhn.fhir.util.IoUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumes messages from a {@link RingBufferChannel} using a fixed number of threads. Each thread
+ * removes its share of the waiting messages from the ring buffer at a time (at most
+ * {@link #MAX_BATCH_SIZE}, and only one when few messages are waiting, so that the other threads
+ * aren't left idle) and passes them to the listener one after another, retrying each message
+ * according to the {@link RetryPolicyProvider}. Threads which find the buffer empty spin briefly
+ * and then block until a message is sent.
+ *
+ * @param <T> the type of payload this message consumer is expecting to receive
+ */
+class RingBufferChannelConsumer<T> implements IChannelConsumer<T> {
+	static final int MAX_BATCH_SIZE = 64;
+	private static final Logger ourLog = LoggerFactory.getLogger(RingBufferChannelConsumer.class);
+
+	private final RingBufferChannel myChannel;
+	private final Class<? extends IMessage<T>> myMessageType;
+	private final IMessageListener<T> myMessageListener;
+	private final int myThreadCount;
+	private final RetryTemplate myRetryTemplate;
+	private final List<Thread> myThreads = new ArrayList<>();
+	private volatile boolean myClosed;
+	private volatile boolean myPaused;
+
+	RingBufferChannelConsumer(
+			RingBufferChannel theChannel,
+			Class<? extends IMessage<T>> theMessageType,
+			IMessageListener<T> theMessageListener,
+			int theThreadCount,
+			RetryPolicyProvider theRetryPolicyProvider) {
+		myChannel = theChannel;
+		myMessageType = theMessageType;
+		myMessageListener = theMessageListener;
+		myThreadCount = Math.max(1, theThreadCount);
+		myRetryTemplate = newRetryTemplate(theRetryPolicyProvider);
+	}
+
+	@Override
+	public String getChannelName() {
+		return myChannel.getChannelName();
+	}
+
+	@Override
+	public synchronized void start() {
+		checkState();
+		if (!myThreads.isEmpty()) {
+			return;
+		}
+
+		BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+				.namingPattern(getChannelName() + "-%d")
+				.daemon(true)
+				.build();
+		for (int i = 0; i < myThreadCount; i++) {
+			Thread thread = threadFactory.newThread(this::consume);
+			myThreads.add(thread);
+			thread.start();
+		}
+		myChannel.addConsumer(this);
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (myClosed) {
+				return;
+			}
+			myClosed = true;
+		}
+		myChannel.removeConsumer(this);
+		myChannel.getQueue().signalConsumers();
+		myThreads.forEach(LockSupport::unpark);
+		for (Thread next : myThreads) {
+			if (next != Thread.currentThread()) {
+				try {
+					next.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		if (myMessageListener instanceof AutoCloseable closeable) {
+			IoUtils.closeQuietly(closeable, ourLog);
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return myClosed;
+	}
+
+	@Override
+	public Class<? extends IMessage<T>> getMessageType() {
+		return myMessageType;
+	}
+
+	@Override
+	public IMessageListener<T> getMessageListener() {
+		return myMessageListener;
+	}
+
+	@Override
+	public void pause() {
+		myPaused = true;
+	}
+
+	@Override
+	public void resume() {
+		checkState();
+		myPaused = false;
+		myThreads.forEach(LockSupport::unpark);
+	}
+
+	int getThreadCount() {
+		return myThreadCount;
+	}
+
+	private void consume() {
+		RingBufferQueue<Object> queue = myChannel.getQueue();
+		Object[] batch = new Object[MAX_BATCH_SIZE];
+		int idleCount = 0;
+
+		while (!myClosed) {
+			if (myPaused) {
+				LockSupport.park(this);
+				continue;
+			}
+
+			int claimSize = Math.max(1, Math.min(batch.length, queue.size() / myChannel.getConsumerThreadCount()));
+			int count = queue.drainTo(batch, claimSize);
+			if (count == 0) {
+				if (RingBufferQueue.isSpinning(idleCount)) {
+					Thread.onSpinWait();
+					idleCount++;
+				} else {
+					try {
+						queue.awaitNotEmpty(() -> myClosed || myPaused);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					idleCount = 0;
+				}
+				continue;
+			}
+			idleCount = 0;
+
+			for (int i = 0; i < count; i++) {
+				handleMessage(batch[i]);
+				batch[i] = null;
+			}
+		}
+	}
+
+	/**
+	 * The template is shared by all of this consumer's threads. This is safe because retry state is
+	 * kept in the context of each call rather than in the template.
+	 */
+	private RetryTemplate newRetryTemplate(RetryPolicyProvider theRetryPolicyProvider) {
+		RetryTemplate retVal = theRetryPolicyProvider.getRetryTemplate();
+		retVal.setListeners(new RetryListener[] {
+			new RetryListener() {
+				@Override
+				public <R, E extends Throwable> void onError(
+						RetryContext theContext, RetryCallback<R, E> theCallback, Throwable theThrowable) {
+					ourLog.error(
+							"Failure {} processing message in channel[{}]: {}",
+							theContext.getRetryCount(),
+							getChannelName(),
+							theThrowable.toString());
+					if (theThrowable instanceof BaseUnrecoverableRuntimeException || myClosed) {
+						theContext.setExhaustedOnly();
+					}
+				}
+			}
+		});
+		return retVal;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void handleMessage(Object theMessage) {
+		if (!myMessageType.isAssignableFrom(theMessage.getClass())) {
+			// Wrong message types should never happen.  If it does, we should quietly fail so it doesn't
+			// clog up the channel.
+			ourLog.warn(
+					"Received unexpected message type. Expecting message of type {}, but received message of type {}. Skipping message.",
+					myMessageType,
+					theMessage.getClass());
+			return;
+		}
+		IMessage<T> message = (IMessage<T>) theMessage;
+
+		try {
+			myRetryTemplate.execute(context -> {
+				IRetryAwareMessageListener.handleMessage(myMessageListener, context::getRetryCount, message);
+				return null;
+			});
+		} catch (Exception e) {
+			ourLog.error("Giving up on message in channel[{}]", getChannelName(), e);
+		}
+	}
+}
@@ -0,0 +1,253 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.broker.impl;
+
+import jakarta.annotation.Nonnull;
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A bounded, lock-free queue supporting any number of producers and consumers, backed by a ring of
+ * slots which are all allocated up front. Each slot carries a sequence number which tells producers
+ * and consumers whether the slot is ready to be written or read, so claiming a slot is a single
+ * compare-and-set on the producer or consumer cursor and no node is allocated per element.
+ * <p>
+ * Consumers can claim a run of consecutive elements with a single compare-and-set using
+ * {@link #drainTo(Object[], int)}, which keeps contention on the consumer cursor low when the queue
+ * is busy. A consumer which finds the queue empty can block in {@link #awaitNotEmpty(BooleanSupplier)}
+ * until a producer adds an element, so idle consumers don't use any CPU. Producers only take the
+ * lock used for this when a consumer is actually waiting.
+ * </p>
+ *
+ * @param <E> The element type
+ * @since 8.8.0
+ */
+class RingBufferQueue<E> {
+
+	private static final int SPIN_TRIES = 100;
+	private static final long MAX_PARK_NANOS = 1_000_000;
+
+	private final int myCapacity;
+	private final int myMask;
+	private final AtomicReferenceArray<E> myElements;
+	/*
+	 * For the slot at index i, a sequence of p (where i == p & mask) means the slot can be written by
+	 * the producer claiming position p, p + 1 means it holds the element for position p, and
+	 * p + capacity means it has been read and can be written by the producer claiming that position.
+	 */
+	private final AtomicLongArray mySequences;
+	private final AtomicLong myProducerCursor = new AtomicLong();
+	private final AtomicLong myConsumerCursor = new AtomicLong();
+	private final ReentrantLock myWaitLock = new ReentrantLock();
+	private final Condition myNotEmpty = myWaitLock.newCondition();
+	private final AtomicInteger myWaitingConsumerCount = new AtomicInteger();
+
+	/**
+	 * Constructor
+	 *
+	 * @param theCapacity The number of slots, which is rounded up to the next power of 2
+	 */
+	RingBufferQueue(int theCapacity) {
+		Validate.isTrue(theCapacity > 0, "Capacity must be positive");
+		myCapacity = Integer.highestOneBit(theCapacity) == theCapacity
+				? theCapacity
+				: Integer.highestOneBit(theCapacity) << 1;
+		myMask = myCapacity - 1;
+		myElements = new AtomicReferenceArray<>(myCapacity);
+		mySequences = new AtomicLongArray(myCapacity);
+		for (int i = 0; i < myCapacity; i++) {
+			mySequences.set(i, i);
+		}
+	}
+
+	int getCapacity() {
+		return myCapacity;
+	}
+
+	/**
+	 * Adds an element if there is room for it
+	 *
+	 * @return Returns <code>false</code> if the queue is full
+	 */
+	boolean offer(@Nonnull E theElement) {
+		Validate.notNull(theElement);
+		while (true) {
+			long position = myProducerCursor.get();
+			int index = (int) (position & myMask);
+			long sequence = mySequences.get(index);
+			long difference = sequence - position;
+			if (difference == 0) {
+				if (myProducerCursor.compareAndSet(position, position + 1)) {
+					myElements.lazySet(index, theElement);
+					mySequences.set(index, position + 1);
+					if (myWaitingConsumerCount.get() > 0) {
+						signalConsumers();
+					}
+					return true;
+				}
+			} else if (difference < 0) {
+				// The slot still holds an element from the previous lap
+				return false;
+			}
+			// Otherwise another producer claimed this position first, so try the next one
+		}
+	}
+
+	/**
+	 * Adds an element, waiting for room if the queue is full
+	 */
+	void put(@Nonnull E theElement) throws InterruptedException {
+		int tries = 0;
+		while (!offer(theElement)) {
+			tries = idle(tries);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	/**
+	 * Removes up to <code>theMaxElements</code> elements from the head of the queue, placing them in
+	 * <code>theTarget</code> starting at index 0.
+	 *
+	 * @return The number of elements removed, which is 0 if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	int drainTo(Object[] theTarget, int theMaxElements) {
+		int max = Math.min(theMaxElements, theTarget.length);
+		while (true) {
+			long position = myConsumerCursor.get();
+			int available = 0;
+			while (available < max) {
+				long nextPosition = position + available;
+				if (mySequences.get((int) (nextPosition & myMask)) != nextPosition + 1) {
+					break;
+				}
+				available++;
+			}
+			if (available == 0) {
+				if (mySequences.get((int) (position & myMask)) - (position + 1) < 0) {
+					// Nothing has been published at the head yet
+					return 0;
+				}
+				// Another consumer claimed the head first
+				continue;
+			}
+
+			/*
+			 * Published slots stay published until they are read, and reading them requires moving
+			 * the consumer cursor past them, so if this succeeds the whole run belongs to us.
+			 */
+			if (myConsumerCursor.compareAndSet(position, position + available)) {
+				for (int i = 0; i < available; i++) {
+					long nextPosition = position + i;
+					int index = (int) (nextPosition & myMask);
+					theTarget[i] = myElements.get(index);
+					myElements.lazySet(index, null);
+					mySequences.set(index, nextPosition + myCapacity);
+				}
+				return available;
+			}
+		}
+	}
+
+	/**
+	 * Blocks until the queue is not empty, or until <code>theStopCondition</code> is true when the
+	 * queue is checked. Threads which change the stop condition must call {@link #signalConsumers()}
+	 * so that waiting consumers check it again.
+	 */
+	void awaitNotEmpty(BooleanSupplier theStopCondition) throws InterruptedException {
+		myWaitLock.lock();
+		try {
+			/*
+			 * The waiting count is incremented before checking for elements, and producers check it
+			 * after publishing an element, so either the check below sees the element or the
+			 * producer sees this consumer waiting and signals it.
+			 */
+			myWaitingConsumerCount.incrementAndGet();
+			try {
+				while (isEmpty() && !theStopCondition.getAsBoolean()) {
+					myNotEmpty.await();
+				}
+			} finally {
+				myWaitingConsumerCount.decrementAndGet();
+			}
+		} finally {
+			myWaitLock.unlock();
+		}
+	}
+
+	/**
+	 * Wakes up all consumers waiting in {@link #awaitNotEmpty(BooleanSupplier)}
+	 */
+	void signalConsumers() {
+		myWaitLock.lock();
+		try {
+			myNotEmpty.signalAll();
+		} finally {
+			myWaitLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns an estimate of the number of elements in the queue
+	 */
+	int size() {
+		long size = myProducerCursor.get() - myConsumerCursor.get();
+		return (int) Math.max(0, Math.min(size, myCapacity));
+	}
+
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Backs off while waiting for room in a full queue: spins briefly, then parks for progressively
+	 * longer periods up to a millisecond.
+	 *
+	 * @param theTries The number of times the caller has already waited
+	 * @return The value to pass as <code>theTries</code> next time
+	 */
+	static int idle(int theTries) {
+		if (isSpinning(theTries)) {
+			Thread.onSpinWait();
+		} else {
+			long parkNanos = Math.min(MAX_PARK_NANOS, 1000L << Math.min(10, theTries - SPIN_TRIES));
+			LockSupport.parkNanos(parkNanos);
+		}
+		return theTries + 1;
+	}
+
+	/**
+	 * Returns <code>true</code> if a caller which has already waited <code>theTries</code> times
+	 * should keep spinning rather than park or block
+	 */
+	static boolean isSpinning(int theTries) {
+		return theTries < SPIN_TRIES;
+	}
+}
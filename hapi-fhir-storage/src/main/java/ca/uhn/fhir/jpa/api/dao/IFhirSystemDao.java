@@ -22,6 +22,7 @@ package ca.uhn.fhir.jpa.api.dao;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.model.ExpungeOptions;
 import ca.uhn.fhir.jpa.api.model.ExpungeOutcome;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
@@ -84,6 +85,18 @@ public interface IFhirSystemDao<T, MT> extends IDao {
 		throw new UnsupportedOperationException(Msg.code(570));
 	}
 
+	/**
+	 * Executes a FHIR transaction or batch using a new database transaction, reading the entries
+	 * from the given iterator. Batches are processed one entry at a time as the entries are
+	 * parsed where possible, so the complete request Bundle does not need to be held in memory.
+	 * This method must not be called from within a DB transaction.
+	 *
+	 * @since 8.8.0
+	 */
+	default T transactionFromEntries(RequestDetails theRequestDetails, IBundleEntryIterator theEntries) {
+		throw new UnsupportedOperationException(Msg.code(2867));
+	}
+
 	/**
 	 * Preload resources from the database in batch. This method is purely
 	 * a performance optimization and must be purely idempotent.
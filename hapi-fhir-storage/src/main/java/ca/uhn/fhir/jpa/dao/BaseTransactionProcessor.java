@@ -58,6 +58,7 @@ import ca.uhn.fhir.jpa.util.TransactionSemanticsHeader;
 import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
 import ca.uhn.fhir.model.valueset.BundleEntryTransactionMethodEnum;
 import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.PatchTypeEnum;
@@ -273,6 +274,54 @@ public abstract class BaseTransactionProcessor {
 		return (BUNDLE) response;
 	}
 
+	/**
+	 * Processes a transaction or batch whose entries are supplied by an {@link IBundleEntryIterator}.
+	 * <p>
+	 * If the Bundle is a batch, no <code>X-Transaction-Semantics</code> header was supplied and no interceptors
+	 * need to see the complete request Bundle, each entry is processed as soon as it has been parsed and is then
+	 * released, so that the memory required is independent of the number of entries in the request. Otherwise,
+	 * the entries are collected into the Bundle and processed as though
+	 * {@link #transaction(RequestDetails, IBaseBundle, boolean)} had been called.
+	 * </p>
+	 *
+	 * @since 8.8.0
+	 */
+	public IBaseBundle transaction(
+			RequestDetails theRequestDetails, IBundleEntryIterator theEntries, boolean theNestedMode) {
+		IBaseBundle bundle = theEntries.getBundle();
+		if (!isEligibleForStreamingBatch(theRequestDetails, bundle)) {
+			return transaction(theRequestDetails, theEntries.readRemainingEntriesIntoBundle(myContext), theNestedMode);
+		}
+
+		validateDependencies();
+		BaseStorageDao.markRequestAsProcessingSubRequest(theRequestDetails);
+		IBaseBundle response;
+		try {
+			response = processBatch(theRequestDetails, theEntries, theNestedMode);
+		} finally {
+			BaseStorageDao.clearRequestAsProcessingSubRequest(theRequestDetails);
+		}
+
+		List<IBase> entries = myVersionAdapter.getEntries(response);
+		entries.removeIf(ElementUtil::isEmpty);
+		return response;
+	}
+
+	private boolean isEligibleForStreamingBatch(RequestDetails theRequestDetails, IBaseBundle theBundle) {
+		if (!org.hl7.fhir.r4.model.Bundle.BundleType.BATCH.toCode().equals(myVersionAdapter.getBundleType(theBundle))) {
+			return false;
+		}
+		if (theRequestDetails != null && theRequestDetails.getHeader("X-Transaction-Semantics") != null) {
+			return false;
+		}
+
+		// These hooks are passed the complete request Bundle
+		IInterceptorBroadcaster compositeBroadcaster =
+				CompositeInterceptorBroadcaster.newCompositeBroadcaster(myInterceptorBroadcaster, theRequestDetails);
+		return !compositeBroadcaster.hasHooks(Pointcut.STORAGE_TRANSACTION_PROCESSING)
+				&& !compositeBroadcaster.hasHooks(Pointcut.STORAGE_TRANSACTION_PRE_PARTITION);
+	}
+
 	public IBaseBundle collection(final RequestDetails theRequestDetails, IBaseBundle theRequest) {
 		String transactionType = myVersionAdapter.getBundleType(theRequest);
 
@@ -498,9 +547,12 @@ public abstract class BaseTransactionProcessor {
 	}
 
 	private IBaseBundle processBatch(RequestDetails theRequestDetails, IBaseBundle theRequest, boolean theNestedMode) {
-		ourLog.info(
-				"Beginning batch with {} resources",
-				myVersionAdapter.getEntries(theRequest).size());
+		return processBatch(theRequestDetails, IBundleEntryIterator.fromBundle(myContext, theRequest), theNestedMode);
+	}
+
+	private IBaseBundle processBatch(
+			RequestDetails theRequestDetails, IBundleEntryIterator theRequestEntries, boolean theNestedMode) {
+		ourLog.info("Beginning batch");
 
 		long start = System.currentTimeMillis();
 
@@ -508,30 +560,39 @@ public abstract class BaseTransactionProcessor {
 				myVersionAdapter.createBundle(org.hl7.fhir.r4.model.Bundle.BundleType.BATCHRESPONSE.toCode());
 		Map<Integer, Object> responseMap = new ConcurrentHashMap<>();
 
-		List<IBase> requestEntries = myVersionAdapter.getEntries(theRequest);
-		int requestEntriesSize = requestEntries.size();
-
-		// Now, run all non-gets sequentially, and all gets are submitted to the executor to run (potentially) in
-		// parallel
-		// The result is kept in the map to save the original position
-		List<RetriableBundleTask> getCalls = new ArrayList<>();
-		List<RetriableBundleTask> nonGetCalls = new ArrayList<>();
-
-		CountDownLatch completionLatch = new CountDownLatch(requestEntriesSize);
-		for (int i = 0; i < requestEntriesSize; i++) {
-			IBase nextRequestEntry = requestEntries.get(i);
-			RetriableBundleTask retriableBundleTask = new RetriableBundleTask(
-					completionLatch, theRequestDetails, responseMap, i, nextRequestEntry, theNestedMode);
+		/*
+		 * Run all non-gets sequentially on the calling thread as they are read, so that each
+		 * request entry can be released as soon as it has been processed. All gets are
+		 * collected and then submitted to the executor to run (potentially) in parallel.
+		 * The result is kept in the map to save the original position
+		 */
+		Map<Integer, IBase> getEntries = new LinkedHashMap<>();
+		int requestEntriesSize = 0;
+		while (theRequestEntries.hasNext()) {
+			IBase nextRequestEntry = theRequestEntries.next();
+			int index = requestEntriesSize++;
 			if (myVersionAdapter
 					.getEntryRequestVerb(myContext, nextRequestEntry)
 					.equalsIgnoreCase("GET")) {
-				getCalls.add(retriableBundleTask);
+				getEntries.put(index, nextRequestEntry);
 			} else {
-				nonGetCalls.add(retriableBundleTask);
+				new RetriableBundleTask(
+								new CountDownLatch(1),
+								theRequestDetails,
+								responseMap,
+								index,
+								nextRequestEntry,
+								theNestedMode)
+						.run();
 			}
 		}
-		// Execute all non-gets on calling thread.
-		nonGetCalls.forEach(RetriableBundleTask::run);
+
+		CountDownLatch completionLatch = new CountDownLatch(getEntries.size());
+		List<RetriableBundleTask> getCalls = new ArrayList<>(getEntries.size());
+		getEntries.forEach((index, entry) -> getCalls.add(
+				new RetriableBundleTask(completionLatch, theRequestDetails, responseMap, index, entry, theNestedMode)));
+		getEntries.clear();
+
 		// Execute all gets (potentially in a pool)
 		if (myStorageSettings.getBundleBatchPoolSize() == 1) {
 			getCalls.forEach(RetriableBundleTask::run);
@@ -561,7 +622,7 @@ public abstract class BaseTransactionProcessor {
 		}
 
 		long delay = System.currentTimeMillis() - start;
-		ourLog.info("Batch completed in {}ms", delay);
+		ourLog.info("Batch with {} entries completed in {}ms", requestEntriesSize, delay);
 
 		return response;
 	}
@@ -0,0 +1,205 @@
+/*
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.i18n.Msg;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses encoded resources using deflate with a preset dictionary of JSON fragments
+ * that occur in most FHIR resources. Resources are usually small, so plain gzip spends
+ * a large part of each payload learning the same element names over and over again.
+ * Priming the compressor with those names lets even the first occurrence of each be
+ * encoded as a back-reference.
+ * <p>
+ * Each payload starts with a single byte identifying the dictionary it was compressed
+ * with. Dictionaries must never change once released, since stored payloads depend on
+ * them: an improved dictionary must be added under a new version, leaving the existing
+ * ones in place so that older payloads remain readable.
+ * </p>
+ *
+ * @since 8.8.0
+ */
+public class DeflateDictionaryUtil {
+
+	private static final byte DICTIONARY_VERSION_1 = 1;
+
+	/**
+	 * Deflate prefers the most recent (closest) matches, so fragments are ordered from the
+	 * least to the most common. DO NOT MODIFY - see the class documentation.
+	 */
+	private static final byte[] DICTIONARY_1 = String.join(
+					"",
+					"\"contained\":[",
+					"\"modifierExtension\":[",
+					"\"implicitRules\":\"",
+					"\"language\":\"en\",",
+					"\"_value\":{",
+					"\"valueQuantity\":{",
+					"\"valueCodeableConcept\":{",
+					"\"valueString\":\"",
+					"\"valueReference\":{",
+					"\"valueBoolean\":true}",
+					"\"valueDateTime\":\"",
+					"\"valueCode\":\"",
+					"\"unit\":\"",
+					"\"comparator\":\"",
+					"\"http://unitsofmeasure.org\",",
+					"\"low\":{",
+					"\"high\":{",
+					"\"period\":{\"start\":\"",
+					"\"end\":\"",
+					"\"effectiveDateTime\":\"",
+					"\"issued\":\"",
+					"\"authoredOn\":\"",
+					"\"recordedDate\":\"",
+					"\"onsetDateTime\":\"",
+					"\"birthDate\":\"",
+					"\"gender\":\"female\",",
+					"\"gender\":\"male\",",
+					"\"deceasedBoolean\":false,",
+					"\"address\":[{\"use\":\"home\",\"line\":[\"",
+					"\"city\":\"",
+					"\"state\":\"",
+					"\"postalCode\":\"",
+					"\"country\":\"",
+					"\"telecom\":[{\"system\":\"phone\",\"value\":\"",
+					"\"system\":\"email\",\"value\":\"",
+					"\"name\":[{\"use\":\"official\",\"family\":\"",
+					"\"given\":[\"",
+					"\"prefix\":[\"",
+					"\"communication\":[{\"language\":{",
+					"\"maritalStatus\":{",
+					"\"managingOrganization\":{",
+					"\"generalPractitioner\":[{",
+					"\"encounter\":{\"reference\":\"Encounter/",
+					"\"performer\":[{\"reference\":\"Practitioner/",
+					"\"requester\":{",
+					"\"recorder\":{",
+					"\"asserter\":{",
+					"\"author\":[{",
+					"\"participant\":[{",
+					"\"serviceProvider\":{\"reference\":\"Organization/",
+					"\"partOf\":{",
+					"\"basedOn\":[{",
+					"\"note\":[{\"text\":\"",
+					"\"intent\":\"order\",",
+					"\"priority\":\"routine\",",
+					"\"clinicalStatus\":{",
+					"\"verificationStatus\":{",
+					"\"severity\":{",
+					"\"bodySite\":[{",
+					"\"method\":{",
+					"\"interpretation\":[{",
+					"\"referenceRange\":[{",
+					"\"component\":[{",
+					"\"dosageInstruction\":[{",
+					"\"medicationCodeableConcept\":{",
+					"\"class\":{\"system\":\"http://terminology.hl7.org/CodeSystem/v3-ActCode\",\"code\":\"",
+					"\"category\":[{\"coding\":[{\"system\":\"http://terminology.hl7.org/CodeSystem/",
+					"\"status\":\"active\",",
+					"\"status\":\"final\",",
+					"\"status\":\"finished\",",
+					"\"status\":\"completed\",",
+					"\"active\":true,",
+					"\"identifier\":[{\"use\":\"usual\",\"type\":{\"coding\":[{\"system\":\"http://terminology.hl7.org/CodeSystem/v2-0203\",\"code\":\"",
+					"\"assigner\":{",
+					"\"subject\":{\"reference\":\"Patient/",
+					"\"patient\":{\"reference\":\"Patient/",
+					"\"display\":\"",
+					"\"reference\":\"",
+					"\"extension\":[{\"url\":\"http://hl7.org/fhir/StructureDefinition/",
+					"\"extension\":[{\"url\":\"",
+					"\"http://snomed.info/sct\",",
+					"\"http://loinc.org\",",
+					"\"text\":{\"status\":\"generated\",\"div\":\"<div xmlns=\\\"http://www.w3.org/1999/xhtml\\\">",
+					"</div>\"},",
+					"\"code\":{\"coding\":[{\"system\":\"",
+					"\"type\":[{\"coding\":[{\"system\":\"",
+					"\"coding\":[{\"system\":\"",
+					"\"system\":\"",
+					"\"version\":\"",
+					"\"value\":\"",
+					"\"code\":\"",
+					"\"text\":\"",
+					"{\"resourceType\":\"")
+			.getBytes(StandardCharsets.UTF_8);
+
+	private DeflateDictionaryUtil() {
+		// non-instantiable
+	}
+
+	public static String decompress(byte[] theResource) {
+		if (theResource.length == 0 || theResource[0] != DICTIONARY_VERSION_1) {
+			throw new ca.uhn.fhir.parser.DataFormatException(
+					Msg.code(2846) + "Failed to decompress contents, unknown dictionary version");
+		}
+
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(theResource, 1, theResource.length - 1);
+			ByteArrayOutputStream os = new ByteArrayOutputStream(theResource.length * 4);
+			byte[] buffer = new byte[4096];
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0) {
+					if (inflater.needsDictionary()) {
+						inflater.setDictionary(DICTIONARY_1);
+					} else if (inflater.needsInput()) {
+						throw new ca.uhn.fhir.parser.DataFormatException(
+								Msg.code(2847) + "Failed to decompress contents, data is truncated");
+					}
+				}
+				os.write(buffer, 0, count);
+			}
+			return os.toString(StandardCharsets.UTF_8);
+		} catch (DataFormatException | IllegalArgumentException e) {
+			throw new ca.uhn.fhir.parser.DataFormatException(Msg.code(2848) + "Failed to decompress contents", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	public static byte[] compress(String theEncoded) {
+		byte[] input = theEncoded.getBytes(StandardCharsets.UTF_8);
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			deflater.setDictionary(DICTIONARY_1);
+			deflater.setInput(input);
+			deflater.finish();
+
+			ByteArrayOutputStream os = new ByteArrayOutputStream(input.length / 3 + 16);
+			os.write(DICTIONARY_VERSION_1);
+			byte[] buffer = new byte[4096];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				os.write(buffer, 0, count);
+			}
+			return os.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+}
@@ -78,6 +78,18 @@ import static ca.uhn.fhir.rest.server.provider.ProviderConstants.OPERATION_META;
 public abstract class BaseJpaResourceProvider<T extends IBaseResource> extends BaseJpaProvider
 		implements IResourceProvider {
 
+	/**
+	 * Request user data key set to {@link Boolean#TRUE} by the built-in JPA resource providers and by the
+	 * JPA paging provider on read and search requests whose results are returned to the client without
+	 * being handed to any other code. Stored resource JSON is only passed through to the response for
+	 * such requests (see
+	 * {@link ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setStoredResourcePassthroughEnabled(boolean)}).
+	 *
+	 * @since 8.8.0
+	 */
+	public static final String USER_DATA_STORED_RESOURCE_PASSTHROUGH_PERMITTED =
+			BaseJpaResourceProvider.class.getName() + "_STORED_RESOURCE_PASSTHROUGH_PERMITTED";
+
 	@Autowired(required = false)
 	private IMergeOperationProviderSvc myMergeOperationProviderSvc;
 
@@ -125,6 +137,30 @@ public abstract class BaseJpaResourceProvider<T extends IBaseResource> extends B
 		return myMergeOperationProviderSvc;
 	}
 
+	/**
+	 * Returns <code>true</code> if this is one of the built-in JPA resource providers, rather than a
+	 * subclass of one. Subclasses may look at the resources returned by the
+	 * read and search methods, so they must only ever see fully populated resources.
+	 *
+	 * @since 8.8.0
+	 */
+	protected boolean isBuiltInProvider() {
+		return false;
+	}
+
+	/**
+	 * Marks the given request as one whose results are returned to the client unchanged, if this is
+	 * a built-in provider
+	 *
+	 * @see #USER_DATA_STORED_RESOURCE_PASSTHROUGH_PERMITTED
+	 * @since 8.8.0
+	 */
+	protected void permitStoredResourcePassthrough(RequestDetails theRequestDetails) {
+		if (theRequestDetails != null && isBuiltInProvider()) {
+			theRequestDetails.getUserData().put(USER_DATA_STORED_RESOURCE_PASSTHROUGH_PERMITTED, Boolean.TRUE);
+		}
+	}
+
 	@History
 	public IBundleProvider getHistoryForResourceInstance(
 			HttpServletRequest theRequest,
@@ -192,6 +228,7 @@ public abstract class BaseJpaResourceProvider<T extends IBaseResource> extends B
 	public T read(HttpServletRequest theRequest, @IdParam IIdType theId, RequestDetails theRequestDetails) {
 		startRequest(theRequest);
 		try {
+			permitStoredResourcePassthrough(theRequestDetails);
 			return myDao.read(theId, theRequestDetails);
 		} finally {
 			endRequest(theRequest);
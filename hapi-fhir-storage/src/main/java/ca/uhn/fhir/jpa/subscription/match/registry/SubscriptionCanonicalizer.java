@@ -66,6 +66,7 @@ import static ca.uhn.fhir.util.HapiExtensions.EX_SEND_DELETE_MESSAGES;
 import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class SubscriptionCanonicalizer {
 	private static final Logger ourLog = LoggerFactory.getLogger(SubscriptionCanonicalizer.class);
@@ -214,6 +215,7 @@ public class SubscriptionCanonicalizer {
 				}
 				retVal.getRestHookDetails().setStripVersionId(Boolean.parseBoolean(stripVersionIds));
 				retVal.getRestHookDetails().setDeliverLatestVersion(Boolean.parseBoolean(deliverLatestVersion));
+				setRestHookBatchDetails(retVal);
 			}
 			retVal.setSendDeleteMessages(extractSendDeletesDstu3(subscription));
 
@@ -405,6 +407,7 @@ public class SubscriptionCanonicalizer {
 			}
 			retVal.getRestHookDetails().setStripVersionId(Boolean.parseBoolean(stripVersionIds));
 			retVal.getRestHookDetails().setDeliverLatestVersion(Boolean.parseBoolean(deliverLatestVersion));
+			setRestHookBatchDetails(retVal);
 		}
 
 		List<Extension> topicExts = subscription.getExtensionsByUrl("http://hl7.org/fhir/subscription/topics");
@@ -502,6 +505,7 @@ public class SubscriptionCanonicalizer {
 			}
 			retVal.getRestHookDetails().setStripVersionId(Boolean.parseBoolean(stripVersionIds));
 			retVal.getRestHookDetails().setDeliverLatestVersion(Boolean.parseBoolean(deliverLatestVersion));
+			setRestHookBatchDetails(retVal);
 		}
 
 		List<org.hl7.fhir.r4b.model.Extension> topicExts =
@@ -618,6 +622,31 @@ public class SubscriptionCanonicalizer {
 			}
 			retVal.getRestHookDetails().setStripVersionId(Boolean.parseBoolean(stripVersionIds));
 			retVal.getRestHookDetails().setDeliverLatestVersion(Boolean.parseBoolean(deliverLatestVersion));
+			setRestHookBatchDetails(retVal);
+		}
+	}
+
+	/**
+	 * The batch settings are read from the channel extensions that were already extracted
+	 * from the subscription, since they live in the same place for every FHIR version.
+	 */
+	private void setRestHookBatchDetails(CanonicalSubscription theCanonicalSubscription) {
+		String batchMaxSize =
+				theCanonicalSubscription.getChannelExtension(HapiExtensions.EXT_SUBSCRIPTION_RESTHOOK_BATCH_MAX_SIZE);
+		String batchWindowMillis = theCanonicalSubscription.getChannelExtension(
+				HapiExtensions.EXT_SUBSCRIPTION_RESTHOOK_BATCH_WINDOW_MILLIS);
+		try {
+			if (isNotBlank(batchMaxSize)) {
+				theCanonicalSubscription.getRestHookDetails().setBatchMaxSize(Integer.parseInt(batchMaxSize.trim()));
+			}
+			if (isNotBlank(batchWindowMillis)) {
+				theCanonicalSubscription
+						.getRestHookDetails()
+						.setBatchWindowMillis(Long.parseLong(batchWindowMillis.trim()));
+			}
+		} catch (NumberFormatException theE) {
+			throw new ConfigurationException(
+					Msg.code(2851) + "Failed to extract subscription extension(s): " + theE.getMessage(), theE);
 		}
 	}
 
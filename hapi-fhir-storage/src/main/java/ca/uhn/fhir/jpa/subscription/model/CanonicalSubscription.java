@@ -493,6 +493,12 @@ public class CanonicalSubscription implements Serializable, Cloneable, IModelJso
 		@JsonProperty("deliverLatestVersion")
 		private boolean myDeliverLatestVersion;
 
+		@JsonProperty("batchMaxSize")
+		private int myBatchMaxSize;
+
+		@JsonProperty("batchWindowMillis")
+		private long myBatchWindowMillis;
+
 		/**
 		 * Constructor
 		 */
@@ -516,6 +522,48 @@ public class CanonicalSubscription implements Serializable, Cloneable, IModelJso
 			myStripVersionId = theStripVersionId;
 		}
 
+		/**
+		 * Returns the maximum number of notifications which will be coalesced into a single
+		 * <code>history</code> Bundle for delivery. A value of 1 or less means that notifications
+		 * are not coalesced.
+		 *
+		 * @since 8.8.0
+		 */
+		public int getBatchMaxSize() {
+			return myBatchMaxSize;
+		}
+
+		/**
+		 * @since 8.8.0
+		 */
+		public void setBatchMaxSize(int theBatchMaxSize) {
+			myBatchMaxSize = theBatchMaxSize;
+		}
+
+		/**
+		 * Returns the maximum number of milliseconds a notification will be held while waiting to be
+		 * coalesced with others. Only used if {@link #getBatchMaxSize()} is greater than 1.
+		 *
+		 * @since 8.8.0
+		 */
+		public long getBatchWindowMillis() {
+			return myBatchWindowMillis;
+		}
+
+		/**
+		 * @since 8.8.0
+		 */
+		public void setBatchWindowMillis(long theBatchWindowMillis) {
+			myBatchWindowMillis = theBatchWindowMillis;
+		}
+
+		/**
+		 * @since 8.8.0
+		 */
+		public boolean isBatchDelivery() {
+			return myBatchMaxSize > 1;
+		}
+
 		@Override
 		public boolean equals(Object theO) {
 			if (this == theO) return true;
@@ -527,6 +575,8 @@ public class CanonicalSubscription implements Serializable, Cloneable, IModelJso
 			return new EqualsBuilder()
 					.append(myStripVersionId, that.myStripVersionId)
 					.append(myDeliverLatestVersion, that.myDeliverLatestVersion)
+					.append(myBatchMaxSize, that.myBatchMaxSize)
+					.append(myBatchWindowMillis, that.myBatchWindowMillis)
 					.isEquals();
 		}
 
@@ -535,6 +585,8 @@ public class CanonicalSubscription implements Serializable, Cloneable, IModelJso
 			return new HashCodeBuilder(17, 37)
 					.append(myStripVersionId)
 					.append(myDeliverLatestVersion)
+					.append(myBatchMaxSize)
+					.append(myBatchWindowMillis)
 					.toHashCode();
 		}
 	}
@@ -21,14 +21,23 @@ package ca.uhn.fhir.jpa.subscription.model;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.searchparam.matcher.LazyResourceIndexedSearchParams;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.messaging.BaseResourceModifiedMessage;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nonnull;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
  * Most of this class has been moved to ResourceModifiedMessage in the hapi-fhir-server project, for a reusable channel ResourceModifiedMessage
@@ -45,6 +54,16 @@ public class ResourceModifiedMessage extends BaseResourceModifiedMessage {
 	@JsonProperty(value = "subscriptionId")
 	private String mySubscriptionId;
 
+	/**
+	 * This will only be set if the resource is being retried for several specific
+	 * subscriptions, in which case {@link #mySubscriptionId} is not set
+	 */
+	@JsonProperty(value = "subscriptionIds")
+	private Set<String> mySubscriptionIds;
+
+	@JsonIgnore
+	private transient LazyResourceIndexedSearchParams myIndexedSearchParams;
+
 	/**
 	 * Constructor
 	 */
@@ -92,6 +111,58 @@ public class ResourceModifiedMessage extends BaseResourceModifiedMessage {
 
 	public void setSubscriptionId(String theSubscriptionId) {
 		mySubscriptionId = theSubscriptionId;
+		mySubscriptionIds = null;
+	}
+
+	/**
+	 * Returns the IDs of the subscriptions this message is limited to, or an empty set if the resource
+	 * should be tested against every subscription
+	 *
+	 * @since 8.8.0
+	 */
+	@Nonnull
+	public Set<String> getSubscriptionIds() {
+		if (mySubscriptionIds != null) {
+			return Collections.unmodifiableSet(mySubscriptionIds);
+		}
+		if (isNotBlank(mySubscriptionId)) {
+			return Set.of(mySubscriptionId);
+		}
+		return Set.of();
+	}
+
+	/**
+	 * Limits this message to the given subscriptions. If only one ID is given, this is the same as
+	 * {@link #setSubscriptionId(String)}. An empty collection means the message isn't limited to any
+	 * subscription.
+	 *
+	 * @since 8.8.0
+	 */
+	public void setSubscriptionIds(@Nonnull Collection<String> theSubscriptionIds) {
+		if (theSubscriptionIds.size() == 1) {
+			setSubscriptionId(theSubscriptionIds.iterator().next());
+			return;
+		}
+		mySubscriptionId = null;
+		mySubscriptionIds = theSubscriptionIds.isEmpty() ? null : new TreeSet<>(theSubscriptionIds);
+	}
+
+	/**
+	 * Returns the search parameter indexes for the new resource carried by this message. Indexes are
+	 * extracted on demand and shared by every subscription and subscription topic matcher that processes
+	 * this message, so each search parameter is only extracted once per message.
+	 *
+	 * @since 8.8.0
+	 */
+	@Nonnull
+	public LazyResourceIndexedSearchParams getNewResourceIndexedSearchParams(FhirContext theCtx) {
+		IBaseResource resource = getNewResource(theCtx);
+		LazyResourceIndexedSearchParams retVal = myIndexedSearchParams;
+		if (retVal == null || retVal.getResource() != resource) {
+			retVal = new LazyResourceIndexedSearchParams(resource);
+			myIndexedSearchParams = retVal;
+		}
+		return retVal;
 	}
 
 	public void setPayloadToNull() {
@@ -103,6 +174,7 @@ public class ResourceModifiedMessage extends BaseResourceModifiedMessage {
 		return new ToStringBuilder(this)
 				.append("operationType", myOperationType)
 				.append("subscriptionId", mySubscriptionId)
+				.append("subscriptionIds", mySubscriptionIds)
 				.append("payloadId", myPayloadId)
 				.append("partitionId", myPartitionId)
 				.toString();
@@ -114,11 +186,12 @@ public class ResourceModifiedMessage extends BaseResourceModifiedMessage {
 		if (theO == null || getClass() != theO.getClass()) return false;
 		if (!super.equals(theO)) return false;
 		ResourceModifiedMessage that = (ResourceModifiedMessage) theO;
-		return Objects.equals(getSubscriptionId(), that.getSubscriptionId());
+		return Objects.equals(getSubscriptionId(), that.getSubscriptionId())
+				&& Objects.equals(mySubscriptionIds, that.mySubscriptionIds);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(super.hashCode(), getSubscriptionId());
+		return Objects.hash(super.hashCode(), getSubscriptionId(), mySubscriptionIds);
 	}
 }
@@ -20,6 +20,7 @@ package ca.uhn.fhir.subscription.api;
  * #L%
  */
 
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.model.entity.IPersistedResourceModifiedMessage;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.IResourceModifiedConsumer;
 
@@ -38,4 +39,31 @@ public interface IResourceModifiedConsumerWithRetries {
 	 */
 	boolean submitPersisedResourceModifiedMessage(
 			IPersistedResourceModifiedMessage thePersistedResourceModifiedMessage);
+
+	/**
+	 * Returns <code>true</code> if this implementation supports {@link #submitPersistedResourceModifiedMessages(int)}.
+	 * Otherwise, persisted messages are fetched and submitted one at a time using
+	 * {@link #submitPersisedResourceModifiedMessage(IPersistedResourceModifiedMessage)}.
+	 *
+	 * @since 8.8.0
+	 */
+	default boolean isBatchSubmissionSupported() {
+		return false;
+	}
+
+	/**
+	 * The implementer of this method should claim up to <code>theMaxCount</code> of the oldest IPersistedResourceModifiedMessage
+	 * (see {@link IResourceModifiedMessagePersistenceSvc#lockOldestForSubmission(int)}), submit them to a broker and delete
+	 * the ones which were submitted, all within a single transaction. Implementers which override this method must also
+	 * override {@link #isBatchSubmissionSupported()}.
+	 *
+	 * @param theMaxCount The maximum number of messages to submit.
+	 * @return The number of messages which were submitted. If submission fails, submission stops and the number returned
+	 * is less than the number of messages claimed.
+	 * @since 8.8.0
+	 */
+	default int submitPersistedResourceModifiedMessages(int theMaxCount) {
+		throw new UnsupportedOperationException(
+				Msg.code(2866) + getClass().getName() + " does not support batch submission");
+	}
 }
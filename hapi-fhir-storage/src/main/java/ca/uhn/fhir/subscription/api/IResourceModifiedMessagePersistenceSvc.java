@@ -24,8 +24,11 @@ import ca.uhn.fhir.jpa.model.entity.IPersistedResourceModifiedMessage;
 import ca.uhn.fhir.jpa.model.entity.IPersistedResourceModifiedMessagePK;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -52,6 +55,34 @@ public interface IResourceModifiedMessagePersistenceSvc {
 	 */
 	boolean deleteByPK(IPersistedResourceModifiedMessagePK thePersistedResourceModifiedMessagePK);
 
+	/**
+	 * Find and lock up to <code>theMaxCount</code> persistedResourceModifiedMessage, oldest first. This method must be
+	 * called within a transaction, and the returned messages stay locked until that transaction ends. Messages which
+	 * are already locked by another transaction (e.g. one running on another node) are skipped rather than waited for
+	 * when the database supports it, so that several callers can drain the persisted messages concurrently.
+	 * <p>
+	 * The default implementation returns the first page of {@link #findAllOrderedByCreatedTime(Pageable)} without
+	 * locking anything.
+	 * </p>
+	 *
+	 * @param theMaxCount The maximum number of messages to lock.
+	 * @return The locked messages, sorted by ascending created dates.
+	 * @since 8.8.0
+	 */
+	default List<IPersistedResourceModifiedMessage> lockOldestForSubmission(int theMaxCount) {
+		return findAllOrderedByCreatedTime(PageRequest.of(0, theMaxCount)).getContent();
+	}
+
+	/**
+	 * Delete a collection of persistedResourceModifiedMessage by their primary keys.
+	 *
+	 * @param thePersistedResourceModifiedMessagePKs The primary keys of the persistedResourceModifiedMessage to delete.
+	 * @since 8.8.0
+	 */
+	default void deleteByPKs(Collection<IPersistedResourceModifiedMessagePK> thePersistedResourceModifiedMessagePKs) {
+		thePersistedResourceModifiedMessagePKs.forEach(this::deleteByPK);
+	}
+
 	/**
 	 * Persist a resourceModifiedMessage and return its resulting persisted representation.
 	 *
@@ -0,0 +1,141 @@
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.broker.api.ChannelConsumerSettings;
+import ca.uhn.fhir.broker.api.ChannelProducerSettings;
+import ca.uhn.fhir.broker.api.IBrokerClient;
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IChannelNamer;
+import ca.uhn.fhir.broker.api.IChannelProducer;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.jpa.subscription.channel.impl.LinkedBlockingChannelFactory;
+import ca.uhn.fhir.jpa.subscription.channel.impl.RetryPolicyProvider;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import jakarta.annotation.Nonnull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Compares the throughput of {@link RingBufferBrokerClient} and {@link LinkedBlockingBrokerClient}
+ * across a range of producer and consumer thread counts. This is not run as part of the build;
+ * run {@link #main(String[])} directly, ideally with nothing else running on the machine.
+ * <p>
+ * Each combination is run with a handler that does no work, and with a handler that is occasionally
+ * slow. The second shows whether the other consumer threads of a channel keep going while one of them
+ * is held up, since the ring buffer consumer threads share the waiting messages between them.
+ * </p>
+ */
+public class BrokerClientThroughputBenchmark {
+	private static final int MESSAGE_COUNT = 1_000_000;
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int MEASURED_ROUNDS = 5;
+	private static final int[] PRODUCER_COUNTS = {1, 4, 8};
+	private static final int[] CONSUMER_COUNTS = {1, 2, 4};
+	private static final int SLOW_MESSAGE_INTERVAL = 10_000;
+	private static final long SLOW_MESSAGE_MILLIS = 2;
+
+	private static final IChannelNamer ourChannelNamer = (theNameComponent, theChannelSettings) -> theNameComponent;
+	private static final RetryPolicyProvider ourRetryPolicyProvider = new RetryPolicyProvider();
+
+	public static void main(String[] theArgs) throws Exception {
+		System.out.printf("%-14s %-8s %9s %9s %15s%n", "client", "handler", "producers", "consumers", "messages/sec");
+		for (boolean slowHandler : new boolean[] {false, true}) {
+			for (int producers : PRODUCER_COUNTS) {
+				for (int consumers : CONSUMER_COUNTS) {
+					run("LinkedBlocking", BrokerClientThroughputBenchmark::newLinkedBlockingBrokerClient, producers, consumers, slowHandler);
+					run("RingBuffer", () -> new RingBufferBrokerClient(ourChannelNamer, ourRetryPolicyProvider), producers, consumers, slowHandler);
+				}
+			}
+		}
+	}
+
+	private static void run(String theName, Supplier<IBrokerClient> theBrokerClientSupplier, int theProducerCount, int theConsumerCount, boolean theSlowHandler) throws Exception {
+		double total = 0;
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+			double rate = runRound(theBrokerClientSupplier.get(), theProducerCount, theConsumerCount, theSlowHandler, "channel-" + round);
+			if (round >= WARMUP_ROUNDS) {
+				total += rate;
+			}
+		}
+		System.out.printf("%-14s %-8s %9d %9d %,15.0f%n", theName, theSlowHandler ? "slow" : "fast", theProducerCount, theConsumerCount, total / MEASURED_ROUNDS);
+	}
+
+	private static double runRound(IBrokerClient theBrokerClient, int theProducerCount, int theConsumerCount, boolean theSlowHandler, String theChannelName) throws Exception {
+		int perProducer = MESSAGE_COUNT / theProducerCount;
+		CountDownLatch latch = new CountDownLatch(perProducer * theProducerCount);
+		AtomicLong handledCount = new AtomicLong();
+		IMessageListener<String> listener = new IMessageListener<>() {
+			@Override
+			public void handleMessage(@Nonnull IMessage<String> theMessage) {
+				if (theSlowHandler && handledCount.incrementAndGet() % SLOW_MESSAGE_INTERVAL == 0) {
+					try {
+						Thread.sleep(SLOW_MESSAGE_MILLIS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				latch.countDown();
+			}
+
+			@Override
+			public Class<String> getPayloadType() {
+				return String.class;
+			}
+		};
+
+		ChannelProducerSettings producerSettings = new ChannelProducerSettings();
+		producerSettings.setConcurrentConsumers(theConsumerCount);
+		IChannelProducer<String> producer = theBrokerClient.getOrCreateProducer(theChannelName, BenchmarkMessage.class, producerSettings);
+		ExecutorService executor = Executors.newFixedThreadPool(theProducerCount);
+		try (IChannelConsumer<String> consumer = theBrokerClient.getOrCreateConsumer(
+				theChannelName, BenchmarkMessage.class, listener, new ChannelConsumerSettings().setConcurrentConsumers(theConsumerCount))) {
+			BenchmarkMessage message = new BenchmarkMessage("payload");
+			long start = System.nanoTime();
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < theProducerCount; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < perProducer; j++) {
+						producer.send(message);
+					}
+				}));
+			}
+			for (Future<?> next : futures) {
+				next.get();
+			}
+			latch.await();
+			long elapsedNanos = System.nanoTime() - start;
+			return latch.getCount() == 0 ? (perProducer * theProducerCount) * 1e9 / elapsedNanos : 0;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static IBrokerClient newLinkedBlockingBrokerClient() {
+		LinkedBlockingBrokerClient retVal = new LinkedBlockingBrokerClient(ourChannelNamer);
+		retVal.setLinkedBlockingChannelFactory(new LinkedBlockingChannelFactory(ourChannelNamer, ourRetryPolicyProvider));
+		return retVal;
+	}
+
+	/**
+	 * {@link LinkedBlockingBrokerClient} only accepts messages which are also Spring messages
+	 */
+	private static class BenchmarkMessage extends TestMessage<String> implements Message<String> {
+		BenchmarkMessage(String thePayload) {
+			super(thePayload);
+		}
+
+		@Override
+		public MessageHeaders getHeaders() {
+			return new MessageHeaders(new HashMap<>());
+		}
+	}
+}
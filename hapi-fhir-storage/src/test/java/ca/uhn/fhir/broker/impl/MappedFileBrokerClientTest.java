@@ -0,0 +1,244 @@
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.broker.api.ChannelConsumerSettings;
+import ca.uhn.fhir.broker.api.ChannelProducerSettings;
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IChannelNamer;
+import ca.uhn.fhir.broker.api.IChannelProducer;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.jpa.subscription.channel.impl.RetryPolicyProvider;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.rest.server.messaging.json.BaseJsonMessage;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileBrokerClientTest {
+	private static final String TEST_CHANNEL_NAME = "MappedFileBrokerClientTest-TestChannel";
+	private static final int SEGMENT_SIZE = 1024;
+	private final IChannelNamer myChannelNamer = (theNameComponent, theChannelSettings) -> theNameComponent;
+	private final RetryPolicyProvider myRetryPolicyProvider = new RetryPolicyProvider() {
+		@Override
+		protected BackOffPolicy backOffPolicy() {
+			return new NoBackOffPolicy();
+		}
+	};
+	@TempDir
+	private Path myBaseDirectory;
+	private MappedFileBrokerClient myBrokerClient;
+
+	@BeforeEach
+	public void before() {
+		myBrokerClient = newBrokerClient();
+	}
+
+	@AfterEach
+	public void after() {
+		myBrokerClient.stop();
+	}
+
+	@Test
+	public void testSendReceiveInOrderAcrossSegments() throws IOException {
+		IChannelProducer<String> producer = newProducer();
+		CollectingListener listener = new CollectingListener();
+		try (IChannelConsumer<String> consumer = newConsumer(listener)) {
+			for (int i = 0; i < 100; i++) {
+				assertTrue(producer.send(new StringJsonMessage("message" + i)).isSuccessful());
+			}
+
+			await().until(() -> listener.myReceived.size() == 100);
+			assertEquals("message0", listener.myReceived.get(0));
+			assertEquals("message99", listener.myReceived.get(99));
+			assertEquals(TEST_CHANNEL_NAME, consumer.getChannelName());
+		}
+
+		// Consumed segments are deleted
+		await().until(() -> listSegments().size() == 1);
+	}
+
+	@Test
+	public void testMessagesSurviveRestart() {
+		IChannelProducer<String> producer = newProducer();
+		for (int i = 0; i < 50; i++) {
+			producer.send(new StringJsonMessage("message" + i));
+		}
+		assertEquals(50, myBrokerClient.getQueueSizeForUnitTest(TEST_CHANNEL_NAME));
+		myBrokerClient.stop();
+
+		myBrokerClient = newBrokerClient();
+		newProducer().send(new StringJsonMessage("message50"));
+		assertEquals(51, myBrokerClient.getQueueSizeForUnitTest(TEST_CHANNEL_NAME));
+
+		CollectingListener listener = new CollectingListener();
+		try (IChannelConsumer<String> consumer = newConsumer(listener)) {
+			await().until(() -> listener.myReceived.size() == 51);
+			assertEquals("message0", listener.myReceived.get(0));
+			assertEquals("message50", listener.myReceived.get(50));
+		}
+		myBrokerClient.stop();
+
+		// Nothing is delivered twice once it has been committed
+		myBrokerClient = newBrokerClient();
+		newProducer();
+		assertEquals(0, myBrokerClient.getQueueSizeForUnitTest(TEST_CHANNEL_NAME));
+	}
+
+	@Test
+	public void testMessageBeingProcessedAtShutdownIsRedelivered() {
+		IChannelProducer<String> producer = newProducer();
+		producer.send(new StringJsonMessage("interrupted"));
+		AtomicInteger attempts = new AtomicInteger();
+		CollectingListener failingListener = new CollectingListener() {
+			@Override
+			public void handleMessage(@Nonnull IMessage<String> theMessage) {
+				attempts.incrementAndGet();
+				throw new IllegalStateException("Failure");
+			}
+		};
+		IChannelConsumer<String> consumer = newConsumer(failingListener);
+		await().until(() -> attempts.get() > 0);
+		consumer.close();
+		myBrokerClient.stop();
+
+		myBrokerClient = newBrokerClient();
+		CollectingListener listener = new CollectingListener();
+		try (IChannelConsumer<String> consumer2 = newConsumer(listener)) {
+			await().until(() -> listener.myReceived.size() == 1);
+			assertEquals("interrupted", listener.myReceived.get(0));
+		}
+	}
+
+	@Test
+	public void testCompetingConsumersEachReceiveDistinctMessages() {
+		IChannelProducer<String> producer = newProducer();
+		CollectingListener listener1 = new CollectingListener();
+		CollectingListener listener2 = new CollectingListener();
+		try (IChannelConsumer<String> consumer1 = newConsumer(listener1);
+			 IChannelConsumer<String> consumer2 = newConsumer(listener2)) {
+			for (int i = 0; i < 1000; i++) {
+				producer.send(new StringJsonMessage("message" + i));
+			}
+
+			await().until(() -> listener1.myReceived.size() + listener2.myReceived.size() == 1000);
+			assertThat(listener1.myReceived).doesNotContainAnyElementsOf(listener2.myReceived);
+		}
+	}
+
+	@Test
+	public void testFailedMessageIsRetried() {
+		IChannelProducer<String> producer = newProducer();
+		AtomicInteger attempts = new AtomicInteger();
+		CollectingListener listener = new CollectingListener() {
+			@Override
+			public void handleMessage(@Nonnull IMessage<String> theMessage) {
+				if (attempts.incrementAndGet() < 3) {
+					throw new IllegalStateException("Failure " + attempts.get());
+				}
+				super.handleMessage(theMessage);
+			}
+		};
+		try (IChannelConsumer<String> consumer = newConsumer(listener)) {
+			producer.send(new StringJsonMessage("retried"));
+
+			await().until(() -> listener.myReceived.size() == 1);
+			assertEquals(3, attempts.get());
+		}
+	}
+
+	@Test
+	public void testPauseAndResume() throws InterruptedException {
+		IChannelProducer<String> producer = newProducer();
+		CollectingListener listener = new CollectingListener();
+		try (IChannelConsumer<String> consumer = newConsumer(listener)) {
+			consumer.pause();
+			producer.send(new StringJsonMessage("paused"));
+			Thread.sleep(300);
+			assertThat(listener.myReceived).isEmpty();
+
+			consumer.resume();
+			await().until(() -> listener.myReceived.size() == 1);
+		}
+	}
+
+	@Test
+	public void testChannelDirectoryCanOnlyBeOpenedOnce() {
+		newProducer();
+		MappedFileBrokerClient otherClient = newBrokerClient();
+		assertThrows(ConfigurationException.class, () -> otherClient.getOrCreateProducer(TEST_CHANNEL_NAME, StringJsonMessage.class, new ChannelProducerSettings()));
+	}
+
+	@Test
+	public void testToDirectoryName() {
+		assertEquals("subscription-delivery-Subscription_123", MappedFileBrokerClient.toDirectoryName("subscription-delivery-Subscription/123"));
+	}
+
+	private List<Path> listSegments() throws IOException {
+		try (Stream<Path> files = Files.list(myBaseDirectory.resolve(TEST_CHANNEL_NAME))) {
+			return files.filter(t -> t.toString().endsWith(MappedFileChannel.SEGMENT_FILE_SUFFIX)).toList();
+		}
+	}
+
+	private MappedFileBrokerClient newBrokerClient() {
+		return new MappedFileBrokerClient(myChannelNamer, myRetryPolicyProvider, myBaseDirectory, SEGMENT_SIZE);
+	}
+
+	private IChannelProducer<String> newProducer() {
+		return myBrokerClient.getOrCreateProducer(TEST_CHANNEL_NAME, StringJsonMessage.class, new ChannelProducerSettings());
+	}
+
+	private IChannelConsumer<String> newConsumer(CollectingListener theListener) {
+		return myBrokerClient.getOrCreateConsumer(TEST_CHANNEL_NAME, StringJsonMessage.class, theListener, new ChannelConsumerSettings().setConcurrentConsumers(1));
+	}
+
+	public static class StringJsonMessage extends BaseJsonMessage<String> {
+		@JsonProperty("payload")
+		private String myPayload;
+
+		public StringJsonMessage() {
+			super();
+		}
+
+		StringJsonMessage(String thePayload) {
+			myPayload = thePayload;
+		}
+
+		@Override
+		public String getPayload() {
+			return myPayload;
+		}
+	}
+
+	private static class CollectingListener implements IMessageListener<String> {
+		private final List<String> myReceived = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void handleMessage(@Nonnull IMessage<String> theMessage) {
+			myReceived.add(theMessage.getPayload());
+		}
+
+		@Override
+		public Class<String> getPayloadType() {
+			return String.class;
+		}
+	}
+}
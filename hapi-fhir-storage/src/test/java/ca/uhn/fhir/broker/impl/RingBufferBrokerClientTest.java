@@ -0,0 +1,143 @@
+package ca.uhn.fhir.broker.impl;
+
+import ca.uhn.fhir.broker.api.ChannelConsumerSettings;
+import ca.uhn.fhir.broker.api.ChannelProducerSettings;
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IChannelNamer;
+import ca.uhn.fhir.broker.api.IChannelProducer;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.jpa.subscription.channel.impl.RetryPolicyProvider;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferBrokerClientTest {
+	private static final String TEST_CHANNEL_NAME = "RingBufferBrokerClientTest-TestChannel";
+	private final IChannelNamer myChannelNamer = (theNameComponent, theChannelSettings) -> theNameComponent;
+	private final RetryPolicyProvider myRetryPolicyProvider = new RetryPolicyProvider() {
+		@Override
+		protected BackOffPolicy backOffPolicy() {
+			return new NoBackOffPolicy();
+		}
+	};
+	private final RingBufferBrokerClient myBrokerClient = new RingBufferBrokerClient(myChannelNamer, myRetryPolicyProvider, 16);
+
+	@AfterEach
+	public void after() {
+		myBrokerClient.stop();
+	}
+
+	@Test
+	public void testSendReceiveInOrder() {
+		IChannelProducer<String> producer = myBrokerClient.getOrCreateProducer(TEST_CHANNEL_NAME, StringMessage.class, new ChannelProducerSettings());
+		CollectingListener listener = new CollectingListener();
+		try (IChannelConsumer<String> consumer = myBrokerClient.getOrCreateConsumer(TEST_CHANNEL_NAME, StringMessage.class, listener, new ChannelConsumerSettings().setConcurrentConsumers(1))) {
+			// More messages than the ring buffer holds, so the producer has to wait for the consumer
+			for (int i = 0; i < 100; i++) {
+				assertTrue(producer.send(new StringMessage("message" + i)).isSuccessful());
+			}
+
+			await().until(() -> listener.myReceived.size() == 100);
+			assertEquals("message0", listener.myReceived.get(0));
+			assertEquals("message99", listener.myReceived.get(99));
+			assertEquals(TEST_CHANNEL_NAME, consumer.getChannelName());
+		}
+	}
+
+	@Test
+	public void testMessagesSentBeforeConsumerIsCreatedAreDelivered() {
+		IChannelProducer<String> producer = myBrokerClient.getOrCreateProducer(TEST_CHANNEL_NAME, StringMessage.class, new ChannelProducerSettings());
+		producer.send(new StringMessage("early"));
+		assertEquals(1, myBrokerClient.getQueueSizeForUnitTest(TEST_CHANNEL_NAME));
+
+		CollectingListener listener = new CollectingListener();
+		try (IChannelConsumer<String> consumer = myBrokerClient.getOrCreateConsumer(TEST_CHANNEL_NAME, StringMessage.class, listener, new ChannelConsumerSettings())) {
+			await().until(() -> listener.myReceived.size() == 1);
+			assertEquals("early", listener.myReceived.get(0));
+		}
+	}
+
+	@Test
+	public void testCompetingConsumersEachReceiveDistinctMessages() {
+		IChannelProducer<String> producer = myBrokerClient.getOrCreateProducer(TEST_CHANNEL_NAME, StringMessage.class, new ChannelProducerSettings());
+		CollectingListener listener1 = new CollectingListener();
+		CollectingListener listener2 = new CollectingListener();
+		try (IChannelConsumer<String> consumer1 = myBrokerClient.getOrCreateConsumer(TEST_CHANNEL_NAME, StringMessage.class, listener1, new ChannelConsumerSettings());
+			 IChannelConsumer<String> consumer2 = myBrokerClient.getOrCreateConsumer(TEST_CHANNEL_NAME, StringMessage.class, listener2, new ChannelConsumerSettings())) {
+			for (int i = 0; i < 1000; i++) {
+				producer.send(new StringMessage("message" + i));
+			}
+
+			await().until(() -> listener1.myReceived.size() + listener2.myReceived.size() == 1000);
+			assertThat(listener1.myReceived).doesNotContainAnyElementsOf(listener2.myReceived);
+		}
+	}
+
+	@Test
+	public void testFailedMessageIsRetried() {
+		IChannelProducer<String> producer = myBrokerClient.getOrCreateProducer(TEST_CHANNEL_NAME, StringMessage.class, new ChannelProducerSettings());
+		AtomicInteger attempts = new AtomicInteger();
+		CollectingListener listener = new CollectingListener() {
+			@Override
+			public void handleMessage(@Nonnull IMessage<String> theMessage) {
+				if (attempts.incrementAndGet() < 3) {
+					throw new IllegalStateException("Failure " + attempts.get());
+				}
+				super.handleMessage(theMessage);
+			}
+		};
+		try (IChannelConsumer<String> consumer = myBrokerClient.getOrCreateConsumer(TEST_CHANNEL_NAME, StringMessage.class, listener, new ChannelConsumerSettings())) {
+			producer.send(new StringMessage("retried"));
+
+			await().until(() -> listener.myReceived.size() == 1);
+			assertEquals(3, attempts.get());
+		}
+	}
+
+	@Test
+	public void testPauseAndResume() throws InterruptedException {
+		IChannelProducer<String> producer = myBrokerClient.getOrCreateProducer(TEST_CHANNEL_NAME, StringMessage.class, new ChannelProducerSettings());
+		CollectingListener listener = new CollectingListener();
+		try (IChannelConsumer<String> consumer = myBrokerClient.getOrCreateConsumer(TEST_CHANNEL_NAME, StringMessage.class, listener, new ChannelConsumerSettings())) {
+			consumer.pause();
+			producer.send(new StringMessage("paused"));
+			Thread.sleep(100);
+			assertThat(listener.myReceived).isEmpty();
+
+			consumer.resume();
+			await().until(() -> listener.myReceived.size() == 1);
+		}
+	}
+
+	private static class StringMessage extends TestMessage<String> {
+		StringMessage(String thePayload) {
+			super(thePayload);
+		}
+	}
+
+	private static class CollectingListener implements IMessageListener<String> {
+		private final List<String> myReceived = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void handleMessage(@Nonnull IMessage<String> theMessage) {
+			myReceived.add(theMessage.getPayload());
+		}
+
+		@Override
+		public Class<String> getPayloadType() {
+			return String.class;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package ca.uhn.fhir.broker.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferQueueTest {
+
+	@Test
+	void testCapacityIsRoundedUpToPowerOfTwo() {
+		assertEquals(8, new RingBufferQueue<String>(8).getCapacity());
+		assertEquals(1024, new RingBufferQueue<String>(1000).getCapacity());
+	}
+
+	@Test
+	void testOfferUntilFullThenDrainInOrder() {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(queue.offer(i));
+		}
+		assertFalse(queue.offer(4));
+		assertEquals(4, queue.size());
+
+		Object[] batch = new Object[3];
+		assertEquals(3, queue.drainTo(batch, 10));
+		assertThat(batch).containsExactly(0, 1, 2);
+
+		// Wraps around into the freed slots
+		assertTrue(queue.offer(4));
+		assertTrue(queue.offer(5));
+		assertTrue(queue.offer(6));
+		assertFalse(queue.offer(7));
+
+		assertEquals(3, queue.drainTo(batch, 3));
+		assertThat(batch).containsExactly(3, 4, 5);
+		assertEquals(1, queue.drainTo(batch, 3));
+		assertEquals(6, batch[0]);
+		assertEquals(0, queue.drainTo(batch, 3));
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	void testAwaitNotEmptyIsWokenByProducer() throws Exception {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(4);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> waiter = executor.submit(() -> {
+				queue.awaitNotEmpty(() -> false);
+				return null;
+			});
+			Thread.sleep(100);
+			assertFalse(waiter.isDone());
+
+			assertTrue(queue.offer(1));
+			waiter.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testAwaitNotEmptyReturnsWhenStopConditionIsSignalled() throws Exception {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(4);
+		AtomicBoolean stop = new AtomicBoolean();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> waiter = executor.submit(() -> {
+				queue.awaitNotEmpty(stop::get);
+				return null;
+			});
+			Thread.sleep(100);
+			assertFalse(waiter.isDone());
+
+			stop.set(true);
+			queue.signalConsumers();
+			waiter.get(10, TimeUnit.SECONDS);
+			assertTrue(queue.isEmpty());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testConcurrentProducersAndConsumersDeliverEachElementOnce() throws Exception {
+		int producerCount = 4;
+		int consumerCount = 4;
+		int perProducer = 20000;
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(64);
+		Set<Integer> received = ConcurrentHashMap.newKeySet();
+		AtomicInteger receivedCount = new AtomicInteger();
+		int total = producerCount * perProducer;
+
+		ExecutorService executor = Executors.newFixedThreadPool(producerCount + consumerCount);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int p = 0; p < producerCount; p++) {
+				int offset = p * perProducer;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < perProducer; i++) {
+						queue.put(offset + i);
+					}
+					return null;
+				}));
+			}
+			for (int c = 0; c < consumerCount; c++) {
+				futures.add(executor.submit(() -> {
+					Object[] batch = new Object[16];
+					while (receivedCount.get() < total) {
+						int count = queue.drainTo(batch, batch.length);
+						if (count == 0) {
+							queue.awaitNotEmpty(() -> receivedCount.get() >= total);
+							continue;
+						}
+						for (int i = 0; i < count; i++) {
+							assertTrue(received.add((Integer) batch[i]), "Duplicate " + batch[i]);
+						}
+						receivedCount.addAndGet(count);
+					}
+					return null;
+				}));
+			}
+			for (int p = 0; p < producerCount; p++) {
+				futures.get(p).get(60, TimeUnit.SECONDS);
+			}
+			// Consumers which are waiting when the last element is taken need to check their stop condition
+			await().until(() -> receivedCount.get() >= total);
+			queue.signalConsumers();
+			for (Future<?> next : futures) {
+				next.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(total, received.size());
+		Set<Integer> expected = new HashSet<>();
+		for (int i = 0; i < total; i++) {
+			expected.add(i);
+		}
+		assertEquals(expected, received);
+	}
+}
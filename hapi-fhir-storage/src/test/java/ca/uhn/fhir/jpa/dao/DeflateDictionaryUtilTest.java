@@ -0,0 +1,144 @@
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DeflateDictionaryUtilTest {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(DeflateDictionaryUtilTest.class);
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	@Test
+	public void testRoundTrip() {
+		for (IBaseResource next : List.of(newPatient(), newObservation())) {
+			String encoded = ourCtx.newJsonParser().encodeResourceToString(next);
+
+			byte[] compressed = DeflateDictionaryUtil.compress(encoded);
+
+			assertEquals(encoded, DeflateDictionaryUtil.decompress(compressed));
+		}
+	}
+
+	@Test
+	public void testRoundTrip_NonAscii() {
+		String encoded = "{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"Müller\",\"given\":[\"Zoë\",\"日本\"]}]}";
+
+		assertEquals(encoded, DeflateDictionaryUtil.decompress(DeflateDictionaryUtil.compress(encoded)));
+	}
+
+	@Test
+	public void testRoundTrip_LargerThanBuffer() {
+		Patient patient = newPatient();
+		for (int i = 0; i < 500; i++) {
+			patient.addName().setFamily("Family" + i).addGiven("Given" + i);
+		}
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(patient);
+
+		assertEquals(encoded, DeflateDictionaryUtil.decompress(DeflateDictionaryUtil.compress(encoded)));
+	}
+
+	/**
+	 * Compares compressed size and decompression time against gzip (as used by the JSONC
+	 * encoding). The timings are only logged, since they are too noisy to assert on.
+	 */
+	@Test
+	public void testCompareToGzip() {
+		for (IBaseResource next : List.of(newPatient(), newObservation())) {
+			String encoded = ourCtx.newJsonParser().encodeResourceToString(next);
+			byte[] gzip = GZipUtil.compress(encoded);
+			byte[] dictionary = DeflateDictionaryUtil.compress(encoded);
+
+			int iterations = 2000;
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				GZipUtil.decompress(gzip);
+			}
+			long gzipNanos = (System.nanoTime() - start) / iterations;
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				DeflateDictionaryUtil.decompress(dictionary);
+			}
+			long dictionaryNanos = (System.nanoTime() - start) / iterations;
+
+			ourLog.info(
+					"{}: {} bytes raw, {} bytes gzip ({}ns/decode), {} bytes dictionary ({}ns/decode)",
+					next.fhirType(),
+					encoded.length(),
+					gzip.length,
+					gzipNanos,
+					dictionary.length,
+					dictionaryNanos);
+			assertThat(dictionary.length).isLessThan(gzip.length);
+		}
+	}
+
+	@Test
+	public void testDecompress_UnknownVersion() {
+		byte[] compressed = DeflateDictionaryUtil.compress("{\"resourceType\":\"Patient\"}");
+		compressed[0] = 99;
+
+		assertThatThrownBy(() -> DeflateDictionaryUtil.decompress(compressed))
+				.isInstanceOf(DataFormatException.class)
+				.hasMessageContaining("HAPI-2846");
+	}
+
+	@Test
+	public void testDecompress_Truncated() {
+		byte[] compressed = DeflateDictionaryUtil.compress(
+				ourCtx.newJsonParser().encodeResourceToString(newPatient()));
+		byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+		assertThatThrownBy(() -> DeflateDictionaryUtil.decompress(truncated))
+				.isInstanceOf(DataFormatException.class)
+				.hasMessageContaining("HAPI-2847");
+	}
+
+	@Test
+	public void testDecompress_NotCompressed() {
+		assertThatThrownBy(() -> DeflateDictionaryUtil.decompress(new byte[] {1, 2, 3, 4, 5}))
+				.isInstanceOf(DataFormatException.class)
+				.hasMessageContaining("HAPI-2848");
+	}
+
+	private static Patient newPatient() {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://hospital.example.org/mrn").setValue("12345");
+		patient.setActive(true);
+		patient.addName().setFamily("Smith").addGiven("John");
+		patient.addTelecom().setSystem(org.hl7.fhir.r4.model.ContactPoint.ContactPointSystem.PHONE).setValue("555-1234");
+		patient.setGender(Enumerations.AdministrativeGender.MALE);
+		patient.setBirthDateElement(new org.hl7.fhir.r4.model.DateType("1970-01-01"));
+		patient.addAddress().addLine("123 Main St").setCity("Toronto").setState("ON").setPostalCode("M1M 1M1").setCountry("CA");
+		patient.setManagingOrganization(new Reference("Organization/1"));
+		return patient;
+	}
+
+	private static Observation newObservation() {
+		Observation observation = new Observation();
+		observation.setStatus(Observation.ObservationStatus.FINAL);
+		observation.addCategory().addCoding(new Coding("http://terminology.hl7.org/CodeSystem/observation-category", "vital-signs", "Vital Signs"));
+		observation.getCode().addCoding(new Coding("http://loinc.org", "29463-7", "Body Weight"));
+		observation.setSubject(new Reference("Patient/123"));
+		observation.setEffective(new DateTimeType("2024-01-02T10:11:12Z"));
+		observation.setValue(new Quantity().setValue(70).setUnit("kg").setSystem("http://unitsofmeasure.org").setCode("kg"));
+		return observation;
+	}
+}
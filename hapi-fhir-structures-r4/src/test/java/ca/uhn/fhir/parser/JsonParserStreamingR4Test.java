@@ -0,0 +1,288 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.ClasspathUtil;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link ca.uhn.fhir.context.ParserOptions#setStreamingJsonParsing(boolean) streaming JSON parsing}
+ * produces the same model as the default tree based parsing
+ */
+public class JsonParserStreamingR4Test {
+	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(JsonParserStreamingR4Test.class);
+	private static final FhirContext ourTreeCtx = FhirContext.forR4();
+	private static final FhirContext ourStreamingCtx = FhirContext.forR4();
+
+	static {
+		ourStreamingCtx.getParserOptions().setStreamingJsonParsing(true);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/transaction-bundle.json",
+		"/bundle-with-two-patient-resources.json",
+		"/bundle-circ-ref.json",
+		"/observation-decimal-element-with-leading-plus.json",
+		"/static-capabilitystatement.json"
+	})
+	public void testParseClasspathResource(String theFile) {
+		String input = ClasspathUtil.loadResource(theFile);
+		assertParsesIdentically(input);
+	}
+
+	@Test
+	public void testParsePrimitiveExtensionsBeforeAndAfterValue() {
+		String input = """
+			{
+			  "resourceType": "Patient",
+			  "id": "A",
+			  "_birthDate": {
+			    "id": "bd",
+			    "extension": [ { "url": "http://foo", "valueString": "before" } ]
+			  },
+			  "birthDate": "2020-01-01",
+			  "name": [ {
+			    "family": "Simpson",
+			    "given": [ "Homer", "Jay" ],
+			    "_given": [ null, { "extension": [ { "url": "http://foo", "valueString": "after" } ] } ]
+			  } ],
+			  "gender": "male",
+			  "_gender": { "extension": [ { "url": "http://foo", "valueString": "after" } ] },
+			  "_active": { "extension": [ { "url": "http://foo", "valueString": "no value" } ] }
+			}""";
+
+		Patient patient = assertParsesIdentically(input);
+		assertThat(patient.getBirthDateElement().getId()).isEqualTo("bd");
+		assertThat(patient.getBirthDateElement().getExtensionString("http://foo")).isEqualTo("before");
+		assertThat(patient.getNameFirstRep().getGiven().get(1).getExtensionString("http://foo")).isEqualTo("after");
+		assertThat(patient.getGenderElement().getExtensionString("http://foo")).isEqualTo("after");
+		assertThat(patient.getActiveElement().getExtensionString("http://foo")).isEqualTo("no value");
+	}
+
+	@Test
+	public void testParseBundleWithContainedResources() {
+		String input = """
+			{
+			  "resourceType": "Bundle",
+			  "type": "collection",
+			  "entry": [ {
+			    "fullUrl": "http://example.com/Observation/1",
+			    "resource": {
+			      "resourceType": "Observation",
+			      "contained": [ { "resourceType": "Patient", "id": "p1", "active": true } ],
+			      "status": "final",
+			      "subject": { "reference": "#p1" },
+			      "valueQuantity": { "value": 1.50, "unit": "mg" }
+			    }
+			  }, {
+			    "resource": {
+			      "id": "2",
+			      "status": "final",
+			      "resourceType": "Observation"
+			    }
+			  } ]
+			}""";
+
+		Bundle bundle = assertParsesIdentically(input);
+		Observation first = (Observation) bundle.getEntry().get(0).getResource();
+		assertThat(first.getIdElement().getIdPart()).isEqualTo("1");
+		assertThat(first.getContained()).hasSize(1);
+		assertThat(first.getValueQuantity().getValueElement().getValueAsString()).isEqualTo("1.50");
+		Observation second = (Observation) bundle.getEntry().get(1).getResource();
+		assertThat(second.getIdElement().getIdPart()).isEqualTo("2");
+	}
+
+	@Test
+	public void testParseResourceTypeNotFirst() {
+		String input = """
+			{ "id": "A", "active": true, "resourceType": "Patient" }""";
+
+		Patient patient = assertParsesIdentically(input);
+		assertThat(patient.getActive()).isTrue();
+	}
+
+	@Test
+	public void testParseMissingResourceType() {
+		IParser parser = ourStreamingCtx.newJsonParser();
+
+		assertThatThrownBy(() -> parser.parseResource("{ \"id\": \"A\" }"))
+				.isInstanceOf(DataFormatException.class)
+				.hasMessageContaining("HAPI-1838");
+
+		String nestedInput = """
+			{ "resourceType": "Bundle", "entry": [ { "resource": { "id": "A" } } ] }""";
+		assertThatThrownBy(() -> parser.parseResource(nestedInput))
+				.isInstanceOf(DataFormatException.class)
+				.hasMessageContaining("HAPI-1843");
+	}
+
+	@Test
+	public void testParseTrailingContent() {
+		IParser parser = ourStreamingCtx.newJsonParser();
+
+		assertThatThrownBy(() -> parser.parseResource("{ \"resourceType\": \"Patient\" } {"))
+				.isInstanceOf(DataFormatException.class);
+	}
+
+	@Test
+	public void testParseInvalidJson() {
+		IParser parser = ourStreamingCtx.newJsonParser();
+
+		assertThatThrownBy(() -> parser.parseResource("{ \"resourceType\": \"Patient\", \"active\": tru }"))
+				.isInstanceOf(DataFormatException.class)
+				.hasMessageContaining("HAPI-1861");
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	public void testParseBundleEntries(boolean theResourceTypeFirst) throws IOException {
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.BATCH);
+		for (int i = 0; i < 5; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("Family " + i);
+			input.addEntry()
+					.setFullUrl("urn:uuid:patient-" + i)
+					.setResource(patient)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.POST)
+					.setUrl("Patient");
+		}
+		input.setTotal(5);
+		String encoded = ourTreeCtx.newJsonParser().encodeResourceToString(input);
+		if (!theResourceTypeFirst) {
+			encoded = encoded.replace("\"resourceType\":\"Bundle\",", "") + "";
+			encoded = encoded.substring(0, encoded.length() - 1) + ",\"resourceType\":\"Bundle\"}";
+		}
+		Bundle expected = ourTreeCtx.newJsonParser().parseResource(Bundle.class, encoded);
+
+		List<Bundle.BundleEntryComponent> actualEntries = new ArrayList<>();
+		Bundle shell;
+		try (IBundleEntryIterator iter = ourStreamingCtx.newJsonParser().parseBundleEntries(new StringReader(encoded))) {
+			shell = (Bundle) iter.getBundle();
+			assertThat(shell.getType()).isEqualTo(Bundle.BundleType.BATCH);
+			iter.forEachRemaining(t -> actualEntries.add((Bundle.BundleEntryComponent) t));
+			assertThat(shell.getTotal()).isEqualTo(5);
+		}
+
+		assertThat(shell.getEntry()).isEmpty();
+		assertThat(actualEntries).hasSize(5);
+		for (int i = 0; i < 5; i++) {
+			Bundle.BundleEntryComponent expectedEntry = expected.getEntry().get(i);
+			Bundle.BundleEntryComponent actualEntry = actualEntries.get(i);
+			assertThat(actualEntry.getResource().getIdElement().getValue()).isEqualTo("urn:uuid:patient-" + i);
+			assertThat(ourTreeCtx.newJsonParser().encodeToString(actualEntry))
+					.isEqualTo(ourTreeCtx.newJsonParser().encodeToString(expectedEntry));
+		}
+	}
+
+	@Test
+	public void testParseBundleEntriesNotABundle() {
+		IParser parser = ourStreamingCtx.newJsonParser();
+
+		assertThatThrownBy(() -> parser.parseBundleEntries(new StringReader("{ \"resourceType\": \"Patient\" }")))
+				.isInstanceOf(DataFormatException.class)
+				.hasMessageContaining("HAPI-2842");
+	}
+
+	@Test
+	public void testParseBundleEntriesNonStreamingParser() {
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		input.addEntry().setResource(new Patient().setActive(true));
+		input.addEntry().setResource(new Observation().setStatus(Observation.ObservationStatus.FINAL));
+		String encoded = ourTreeCtx.newXmlParser().encodeResourceToString(input);
+
+		IBundleEntryIterator iter = ourTreeCtx.newXmlParser().parseBundleEntries(new StringReader(encoded));
+		assertThat(((Bundle) iter.getBundle()).getType()).isEqualTo(Bundle.BundleType.TRANSACTION);
+		assertThat(((Bundle) iter.getBundle()).getEntry()).isEmpty();
+		List<IBase> entries = iter.stream().toList();
+		assertThat(entries).hasSize(2);
+		assertThat(((Bundle.BundleEntryComponent) entries.get(1)).getResource()).isInstanceOf(Observation.class);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/transaction-bundle.json",
+		"/bundle-with-two-patient-resources.json",
+		"/bundle-circ-ref.json"
+	})
+	public void testEncodeBundleEntries(String theFile) throws IOException {
+		String input = ClasspathUtil.loadResource(theFile);
+
+		for (boolean prettyPrint : new boolean[] {true, false}) {
+			Bundle bundle = ourTreeCtx.newJsonParser().parseResource(Bundle.class, input);
+			String expected = ourTreeCtx.newJsonParser().setPrettyPrint(prettyPrint).encodeResourceToString(bundle);
+
+			bundle = ourTreeCtx.newJsonParser().parseResource(Bundle.class, input);
+			IBundleEntryIterator entries = IBundleEntryIterator.detachFromBundle(ourTreeCtx, bundle);
+			StringWriter actual = new StringWriter();
+			ourTreeCtx.newJsonParser().setPrettyPrint(prettyPrint).encodeBundleToWriter(entries, actual);
+
+			assertThat(actual.toString()).isEqualTo(expected);
+			assertThat(bundle.getEntry()).isEmpty();
+		}
+	}
+
+	@Test
+	public void testEncodeBundleEntriesWithPlaceholderIds() throws IOException {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		Patient patient = new Patient().setActive(true);
+		bundle.addEntry().setFullUrl("urn:uuid:0001").setResource(patient);
+		bundle.addEntry().setResource(new Observation().setSubject(new Reference(patient)));
+		String expected = ourTreeCtx.newJsonParser().encodeResourceToString(bundle);
+		patient.setId((String) null);
+
+		IBundleEntryIterator entries = IBundleEntryIterator.detachFromBundle(ourTreeCtx, bundle);
+		StringWriter actual = new StringWriter();
+		ourTreeCtx.newJsonParser().encodeBundleToWriter(entries, actual);
+
+		assertThat(actual.toString()).isEqualTo(expected);
+		assertThat(actual.toString()).contains("\"reference\":\"urn:uuid:0001\"");
+	}
+
+	@Test
+	public void testEncodeBundleEntriesNonStreamingParser() throws IOException {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		bundle.addEntry().setResource(new Patient().setActive(true));
+		String expected = ourTreeCtx.newXmlParser().encodeResourceToString(bundle);
+
+		IBundleEntryIterator entries = IBundleEntryIterator.detachFromBundle(ourTreeCtx, bundle);
+		StringWriter actual = new StringWriter();
+		ourTreeCtx.newXmlParser().encodeBundleToWriter(entries, actual);
+
+		assertThat(actual.toString()).isEqualTo(expected);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends IBaseResource> T assertParsesIdentically(String theInput) {
+		IBaseResource expected = ourTreeCtx.newJsonParser().parseResource(theInput);
+		IBaseResource actual = ourStreamingCtx.newJsonParser().parseResource(theInput);
+
+		String expectedEncoded = ourTreeCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(expected);
+		String actualEncoded = ourTreeCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(actual);
+		ourLog.debug("Encoded: {}", actualEncoded);
+		assertThat(actualEncoded).isEqualTo(expectedEncoded);
+
+		return (T) actual;
+	}
+}
@@ -0,0 +1,149 @@
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.server.IRestfulResponse;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RestfulServerUtilsR4Test {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	@Mock
+	private RequestDetails myRequestDetails;
+
+	@Mock
+	private IRestfulResponse myResponse;
+
+	private RestfulServer myServer;
+	private EntryCountingWriter myWriter;
+
+	@BeforeEach
+	public void before() throws Exception {
+		myServer = new RestfulServer(ourCtx);
+		myWriter = new EntryCountingWriter();
+
+		when(myRequestDetails.getResponse()).thenReturn(myResponse);
+		when(myRequestDetails.getServer()).thenReturn(myServer);
+		when(myRequestDetails.getParameters()).thenReturn(Collections.emptyMap());
+		when(myResponse.getResponseWriter(anyInt(), anyString(), anyString(), anyBoolean())).thenReturn(myWriter);
+		when(myResponse.commitResponse(any())).thenReturn(null);
+	}
+
+	@Test
+	public void testStreamResponseAsResource_ServerBuiltBundle_EntriesWrittenAndReleased() throws Exception {
+		myServer.setBundleEntryStreamingEnabled(true);
+		Bundle bundle = createSearchSetBundle();
+		bundle.setUserData(RestfulServerUtils.USER_DATA_SERVER_BUILT_BUNDLE, Boolean.TRUE);
+		String expected = ourCtx.newJsonParser().encodeResourceToString(bundle);
+		myWriter.setBundle(bundle);
+
+		RestfulServerUtils.streamResponseAsResource(myServer, bundle, Collections.emptySet(), 200, false, false, myRequestDetails);
+
+		assertEquals(expected, myWriter.toString());
+		// The entries were removed from the Bundle before anything was written
+		assertThat(myWriter.getEntryCountsSeenWhileWriting()).containsOnly(0);
+		assertThat(bundle.getEntry()).isEmpty();
+	}
+
+	@Test
+	public void testStreamResponseAsResource_BundleReturnedByMethod_NotModified() throws Exception {
+		myServer.setBundleEntryStreamingEnabled(true);
+		Bundle bundle = createSearchSetBundle();
+		String expected = ourCtx.newJsonParser().encodeResourceToString(bundle);
+		myWriter.setBundle(bundle);
+
+		RestfulServerUtils.streamResponseAsResource(myServer, bundle, Collections.emptySet(), 200, false, false, myRequestDetails);
+
+		assertEquals(expected, myWriter.toString());
+		assertThat(myWriter.getEntryCountsSeenWhileWriting()).containsOnly(3);
+		assertThat(bundle.getEntry()).hasSize(3);
+	}
+
+	@Test
+	public void testStreamResponseAsResource_StreamingDisabled_NotModified() throws Exception {
+		Bundle bundle = createSearchSetBundle();
+		bundle.setUserData(RestfulServerUtils.USER_DATA_SERVER_BUILT_BUNDLE, Boolean.TRUE);
+		String expected = ourCtx.newJsonParser().encodeResourceToString(bundle);
+		myWriter.setBundle(bundle);
+
+		RestfulServerUtils.streamResponseAsResource(myServer, bundle, Collections.emptySet(), 200, false, false, myRequestDetails);
+
+		assertEquals(expected, myWriter.toString());
+		assertThat(bundle.getEntry()).hasSize(3);
+	}
+
+	private static Bundle createSearchSetBundle() {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		bundle.setTotal(3);
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.setId("Patient/" + i);
+			patient.addName().setFamily("FAMILY" + i);
+			bundle.addEntry().setFullUrl("http://localhost/Patient/" + i).setResource(patient);
+		}
+		return bundle;
+	}
+
+	/**
+	 * Records how many entries the Bundle being encoded still holds each time
+	 * something is written
+	 */
+	private static class EntryCountingWriter extends Writer {
+
+		private final StringBuilder myOutput = new StringBuilder();
+		private final List<Integer> myEntryCountsSeenWhileWriting = new ArrayList<>();
+		private Bundle myBundle;
+
+		void setBundle(Bundle theBundle) {
+			myBundle = theBundle;
+		}
+
+		List<Integer> getEntryCountsSeenWhileWriting() {
+			return myEntryCountsSeenWhileWriting;
+		}
+
+		@Override
+		public void write(char[] theBuffer, int theOffset, int theLength) {
+			myEntryCountsSeenWhileWriting.add(myBundle.getEntry().size());
+			myOutput.append(theBuffer, theOffset, theLength);
+		}
+
+		@Override
+		public void flush() {
+			// nothing
+		}
+
+		@Override
+		public void close() {
+			// nothing
+		}
+
+		@Override
+		public String toString() {
+			return myOutput.toString();
+		}
+	}
+
+}
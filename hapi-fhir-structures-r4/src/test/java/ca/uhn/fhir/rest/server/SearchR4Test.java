@@ -43,6 +43,8 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -412,6 +414,41 @@ public class SearchR4Test {
 
 	}
 
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/Patient?identifier=foo%7Cbar",
+		"/Patient?identifier=foo%7Cbar&_pretty=true",
+		"/Patient?identifier=foo%7Cbar&_elements=identifier,name",
+		"/Patient?identifier=foo%7Cbar&_summary=count",
+		"/MedicationRequest?_include=*",
+		"/Patient?identifier=foo%7Cbar&_format=xml"
+	})
+	public void testSearchWithBundleEntryStreaming(String theUrl) throws Exception {
+		String expected = executeAndReturnNormalizedBundle(theUrl);
+
+		myRestfulServerExtension.getRestfulServer().setBundleEntryStreamingEnabled(true);
+		try {
+			String actual = executeAndReturnNormalizedBundle(theUrl);
+			assertEquals(expected, actual);
+		} finally {
+			myRestfulServerExtension.getRestfulServer().setBundleEntryStreamingEnabled(false);
+		}
+	}
+
+	private String executeAndReturnNormalizedBundle(String theUrl) throws IOException {
+		HttpGet httpGet = new HttpGet("http://localhost:" + myPort + theUrl);
+		try (CloseableHttpResponse status = ourClient.execute(httpGet)) {
+			String responseContent = IOUtils.toString(status.getEntity().getContent(), StandardCharsets.UTF_8);
+			assertEquals(200, status.getStatusLine().getStatusCode());
+			EncodingEnum ct = EncodingEnum.forContentType(status.getEntity().getContentType().getValue().replaceAll(";.*", "").trim());
+			Bundle bundle = ct.newParser(myCtx).parseResource(Bundle.class, responseContent);
+			bundle.setId((String) null);
+			bundle.getMeta().setLastUpdated(null);
+			bundle.getLink().removeIf(t -> t.getRelation().equals(Constants.LINK_NEXT));
+			return myCtx.newJsonParser().encodeResourceToString(bundle);
+		}
+	}
+
 	@Test
 	public void testSearchNormal() throws Exception {
 		HttpGet httpGet = new HttpGet("http://localhost:" + myPort + "/Patient?identifier=foo%7Cbar&_pretty=true");
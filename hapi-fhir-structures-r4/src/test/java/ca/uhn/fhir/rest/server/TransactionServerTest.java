@@ -1,14 +1,27 @@
 package ca.uhn.fhir.rest.server;
 
 import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.parser.IBundleEntryIterator;
 import ca.uhn.fhir.rest.annotation.Transaction;
 import ca.uhn.fhir.rest.annotation.TransactionParam;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class TransactionServerTest {
@@ -16,6 +29,10 @@ public class TransactionServerTest {
 	@RegisterExtension
 	public RestfulServerExtension myServerRule = new RestfulServerExtension(FhirVersionEnum.R4);
 
+	@AfterEach
+	public void after() {
+		myServerRule.getFhirContext().getParserOptions().setStreamingJsonParsing(false);
+	}
 
 	@Test
 	public void testTransactionParamIsInterface() {
@@ -40,4 +57,55 @@ public class TransactionServerTest {
 
 	}
 
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	public void testTransactionParamIsEntryIterator(boolean theRegisterPreHandledInterceptor) {
+		myServerRule.getFhirContext().getParserOptions().setStreamingJsonParsing(true);
+
+		List<Integer> interceptorEntryCounts = new ArrayList<>();
+		if (theRegisterPreHandledInterceptor) {
+			myServerRule.getRestfulServer().registerInterceptor(new Object() {
+				@Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED)
+				public void preHandled(RequestDetails theRequestDetails) {
+					interceptorEntryCounts.add(((Bundle) theRequestDetails.getResource()).getEntry().size());
+				}
+			});
+		}
+
+		class MyProvider {
+
+			@Transaction
+			public Bundle transaction(@TransactionParam IBundleEntryIterator theInput) {
+				Bundle retVal = new Bundle();
+				retVal.setType(Bundle.BundleType.BATCHRESPONSE);
+				retVal.setId(theInput.getBundle().getIdElement().getIdPart());
+				while (theInput.hasNext()) {
+					IBase next = theInput.next();
+					Patient patient = (Patient) ((Bundle.BundleEntryComponent) next).getResource();
+					retVal.addEntry().getResponse().setStatus("201 Created").setLocation("Patient/" + patient.getNameFirstRep().getFamily());
+				}
+				return retVal;
+			}
+
+		}
+
+		myServerRule.getRestfulServer().registerProvider(new MyProvider());
+
+		Bundle input = new Bundle();
+		input.setId("ABC");
+		input.setType(Bundle.BundleType.BATCH);
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("P" + i);
+			input.addEntry().setResource(patient).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+		}
+		Bundle output = myServerRule.getFhirClient().transaction().withBundle(input).execute();
+
+		assertEquals("ABC", output.getIdElement().getIdPart());
+		assertThat(output.getEntry()).extracting(t -> t.getResponse().getLocation()).containsExactly("Patient/P0", "Patient/P1", "Patient/P2");
+		if (theRegisterPreHandledInterceptor) {
+			assertThat(interceptorEntryCounts).containsExactly(3);
+		}
+	}
+
 }
@@ -0,0 +1,141 @@
+package ca.uhn.fhir.util;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.InstantType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PreEncodedResourceUtilTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	/**
+	 * Stored with the elements in non-canonical order so that it is possible to tell whether
+	 * the JSON was written as-is or parsed and re-encoded
+	 */
+	private static final String STORED_JSON = "{\"resourceType\":\"Patient\",\"gender\":\"male\",\"active\":true}";
+
+	@Test
+	public void testSpliceResourceJson() {
+		Patient idAndMeta = newIdAndMeta();
+
+		String json = PreEncodedResourceUtil.spliceResourceJson(ourCtx, idAndMeta, STORED_JSON);
+
+		assertEquals(
+				"{\"resourceType\":\"Patient\",\"id\":\"123\",\"meta\":{\"versionId\":\"2\",\"lastUpdated\":\"2024-01-02T10:11:12.000Z\",\"tag\":[{\"system\":\"http://tags\",\"code\":\"tag0\"}]},\"gender\":\"male\",\"active\":true}",
+				json);
+	}
+
+	@Test
+	public void testSpliceResourceJson_NoElements() {
+		String json = PreEncodedResourceUtil.spliceResourceJson(
+				ourCtx, newIdAndMeta(), "{\"resourceType\":\"Patient\"}");
+
+		assertEquals(ourCtx.newJsonParser().encodeResourceToString(newIdAndMeta()), json);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"{\"resourceType\":\"Patient\",\"meta\":{\"source\":\"http://foo\"},\"active\":true}",
+		"{\"resourceType\":\"Patient\",\"id\":\"123\",\"active\":true}",
+		"{\"active\":true,\"resourceType\":\"Patient\"}",
+		"{\"resourceType\":\"Observation\",\"status\":\"final\"}",
+		"{\"resourceType\":\"Patient\",\"active\":true}}",
+		"{\"resourceType\":\"Patient\",\"active\":tru"
+	})
+	public void testSpliceResourceJson_NotPossible(String theStoredJson) {
+		assertNull(PreEncodedResourceUtil.spliceResourceJson(ourCtx, newIdAndMeta(), theStoredJson));
+	}
+
+	@Test
+	public void testEncodePreEncodedResource() {
+		Patient resource = newPreEncodedResource();
+
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(resource);
+
+		assertEquals(PreEncodedResourceUtil.getPreEncodedJson(resource), encoded);
+	}
+
+	@Test
+	public void testEncodePreEncodedResourceInBundle() {
+		Patient resource = newPreEncodedResource();
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		bundle.addEntry().setFullUrl("http://foo/Patient/123").setResource(resource);
+		bundle.addEntry().setFullUrl("http://foo/Patient/456").setResource(new Patient().setActive(false).setId("456"));
+
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		assertThat(encoded).contains("\"resource\":" + PreEncodedResourceUtil.getPreEncodedJson(resource) + "}");
+		Bundle parsed = ourCtx.newJsonParser().parseResource(Bundle.class, encoded);
+		assertEquals("2", parsed.getEntry().get(0).getResource().getMeta().getVersionId());
+		assertTrue(((Patient) parsed.getEntry().get(0).getResource()).getActive());
+		assertEquals("456", parsed.getEntry().get(1).getResource().getIdElement().getIdPart());
+	}
+
+	@Test
+	public void testEncodePreEncodedResource_PrettyPrint() {
+		Patient resource = newPreEncodedResource();
+
+		String encoded = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(resource);
+
+		assertThat(encoded).contains("\"active\": true,\n  \"gender\": \"male\"");
+		assertThat(encoded).contains("\"versionId\": \"2\"");
+	}
+
+	@Test
+	public void testEncodePreEncodedResource_SummaryMode() {
+		Patient resource = newPreEncodedResource();
+
+		String encoded = ourCtx.newJsonParser().setSummaryMode(true).encodeResourceToString(resource);
+
+		assertThat(encoded).contains("\"active\":true,\"gender\":\"male\"");
+		assertThat(encoded).contains("SUBSETTED");
+	}
+
+	@Test
+	public void testEncodePreEncodedResource_Elements() {
+		IParser parser = ourCtx.newJsonParser();
+		parser.setEncodeElements(Set.of("Patient.active"));
+
+		String encoded = parser.encodeResourceToString(newPreEncodedResource());
+
+		assertThat(encoded).contains("\"active\":true");
+		assertThat(encoded).doesNotContain("gender");
+	}
+
+	@Test
+	public void testEncodePreEncodedResource_Xml() {
+		String encoded = ourCtx.newXmlParser().encodeResourceToString(newPreEncodedResource());
+
+		assertThat(encoded).contains("<active value=\"true\"/><gender value=\"male\"/>");
+		assertThat(encoded).contains("<versionId value=\"2\"/>");
+	}
+
+	private static Patient newPreEncodedResource() {
+		Patient retVal = newIdAndMeta();
+		String json = PreEncodedResourceUtil.spliceResourceJson(ourCtx, retVal, STORED_JSON);
+		PreEncodedResourceUtil.setPreEncodedJson(retVal, json);
+		return retVal;
+	}
+
+	private static Patient newIdAndMeta() {
+		Patient retVal = new Patient();
+		retVal.setId("Patient/123/_history/2");
+		retVal.getMeta().setVersionId("2");
+		retVal.getMeta().setLastUpdatedElement(new InstantType("2024-01-02T10:11:12.000Z"));
+		retVal.getMeta().addTag("http://tags", "tag0", null);
+		return retVal;
+	}
+}
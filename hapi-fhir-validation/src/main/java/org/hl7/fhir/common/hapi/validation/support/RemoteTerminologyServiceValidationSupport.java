@@ -14,6 +14,7 @@ import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.api.IRestfulClientFactory;
 import ca.uhn.fhir.rest.gclient.IQuery;
 import ca.uhn.fhir.rest.gclient.StringClientParam;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.util.BundleUtil;
@@ -21,8 +22,10 @@ import ca.uhn.fhir.util.Logs;
 import ca.uhn.fhir.util.ParametersUtil;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseDatatype;
 import org.hl7.fhir.instance.model.api.IBaseOperationOutcome;
@@ -44,9 +47,17 @@ import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.util.ParametersUtil.getNamedParameterResource;
@@ -72,6 +83,9 @@ public class RemoteTerminologyServiceValidationSupport extends BaseValidationSup
 	@Nullable
 	private final IRestfulClientFactory myRestfulClientFactory;
 
+	private int myMaxConcurrentRequests = 1;
+	private ThreadPoolExecutor myBatchExecutor;
+
 	/**
 	 * Constructor
 	 *
@@ -149,6 +163,94 @@ public class RemoteTerminologyServiceValidationSupport extends BaseValidationSup
 		return invokeRemoteValidateCode(codeSystem, theCode, theDisplay, valueSetUrl, valueSet);
 	}
 
+	/**
+	 * Validates the distinct codes in the batch using up to {@link #getMaxConcurrentRequests()}
+	 * concurrent requests to the remote terminology server. Each request is made with its own
+	 * {@link ValidationSupportContext} (sharing the root validation support of the supplied
+	 * context), since a context is not intended to be used by several threads at once.
+	 */
+	@Nonnull
+	@Override
+	public List<CodeValidationResult> validateCodeBatch(
+			ValidationSupportContext theValidationSupportContext,
+			ConceptValidationOptions theOptions,
+			@Nonnull List<CodeValidationRequest> theRequests,
+			@Nullable IBaseResource theValueSet) {
+		if (myMaxConcurrentRequests <= 1 || theRequests.size() <= 1) {
+			return super.validateCodeBatch(theValidationSupportContext, theOptions, theRequests, theValueSet);
+		}
+
+		ExecutorService executor = getBatchExecutor();
+		IValidationSupport rootValidationSupport = theValidationSupportContext.getRootValidationSupport();
+		Map<CodeValidationRequest, Future<CodeValidationResult>> futures = new HashMap<>();
+		for (CodeValidationRequest next : theRequests) {
+			futures.computeIfAbsent(
+					next,
+					t -> executor.submit(() -> {
+						ValidationSupportContext taskContext = new ValidationSupportContext(rootValidationSupport);
+						if (theValueSet != null) {
+							return validateCodeInValueSet(
+									taskContext, theOptions, t.getSystem(), t.getCode(), t.getDisplay(), theValueSet);
+						}
+						return validateCode(taskContext, theOptions, t.getSystem(), t.getCode(), t.getDisplay(), null);
+					}));
+		}
+
+		List<CodeValidationResult> retVal = new ArrayList<>(theRequests.size());
+		for (CodeValidationRequest next : theRequests) {
+			retVal.add(getBatchResult(futures.get(next)));
+		}
+		return retVal;
+	}
+
+	private static CodeValidationResult getBatchResult(Future<CodeValidationResult> theFuture) {
+		try {
+			return theFuture.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2864) + "Interrupted while validating codes", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2865) + e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Shuts down the threads used to validate batches of codes concurrently. This is called
+	 * automatically when this module is a Spring bean which is destroyed, and should otherwise
+	 * be called when this module is no longer needed. If the module is used again afterward,
+	 * new threads are created as needed.
+	 *
+	 * @since 8.8.0
+	 */
+	@PreDestroy
+	public synchronized void stop() {
+		if (myBatchExecutor != null) {
+			myBatchExecutor.shutdownNow();
+			myBatchExecutor = null;
+		}
+	}
+
+	private synchronized ExecutorService getBatchExecutor() {
+		if (myBatchExecutor == null) {
+			BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+					.namingPattern("remote-terminology-%d")
+					.daemon(true)
+					.build();
+			myBatchExecutor = new ThreadPoolExecutor(
+					myMaxConcurrentRequests,
+					myMaxConcurrentRequests,
+					60,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(),
+					threadFactory);
+			myBatchExecutor.allowCoreThreadTimeOut(true);
+		}
+		return myBatchExecutor;
+	}
+
 	@Override
 	public IBaseResource fetchCodeSystem(String theSystem) {
 		// callers of this want the whole resource.
@@ -844,6 +946,35 @@ public class RemoteTerminologyServiceValidationSupport extends BaseValidationSup
 		myBaseUrl = theBaseUrl;
 	}
 
+	/**
+	 * Returns the maximum number of concurrent requests which will be made to the remote
+	 * terminology server when validating a batch of codes. Defaults to 1, meaning that
+	 * the codes in a batch are validated one at a time.
+	 *
+	 * @since 8.8.0
+	 */
+	public int getMaxConcurrentRequests() {
+		return myMaxConcurrentRequests;
+	}
+
+	/**
+	 * Sets the maximum number of concurrent requests which will be made to the remote
+	 * terminology server when validating a batch of codes (see
+	 * {@link #validateCodeBatch(ValidationSupportContext, ConceptValidationOptions, List, IBaseResource)}).
+	 * Defaults to 1, meaning that the codes in a batch are validated one at a time.
+	 *
+	 * @param theMaxConcurrentRequests The maximum number of concurrent requests (must be at least 1)
+	 * @since 8.8.0
+	 */
+	public synchronized void setMaxConcurrentRequests(int theMaxConcurrentRequests) {
+		Validate.isTrue(theMaxConcurrentRequests >= 1, "theMaxConcurrentRequests must be at least 1");
+		myMaxConcurrentRequests = theMaxConcurrentRequests;
+		if (myBatchExecutor != null) {
+			myBatchExecutor.shutdown();
+			myBatchExecutor = null;
+		}
+	}
+
 	/**
 	 * Adds an interceptor that will be registered to all clients.
 	 * <p>
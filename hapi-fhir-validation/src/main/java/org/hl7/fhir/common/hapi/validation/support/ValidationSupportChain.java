@@ -36,6 +36,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -933,6 +934,105 @@ public class ValidationSupportChain implements IValidationSupport {
 		return retVal.getValue();
 	}
 
+	/**
+	 * Validates the codes which aren't already cached together, passing each module in the chain
+	 * all of the codes it supports that haven't been resolved by an earlier module, so that modules
+	 * which can validate codes more efficiently in bulk are able to do so.
+	 */
+	@Nonnull
+	@Override
+	public List<CodeValidationResult> validateCodeBatch(
+			ValidationSupportContext theValidationSupportContext,
+			ConceptValidationOptions theOptions,
+			@Nonnull List<CodeValidationRequest> theRequests,
+			@Nullable IBaseResource theValueSet) {
+		String valueSetUrl = null;
+		if (theValueSet != null) {
+			valueSetUrl = CommonCodeSystemsTerminologyService.getValueSetUrl(getFhirContext(), theValueSet);
+			if (isBlank(valueSetUrl)) {
+				// Results can't be cached without a ValueSet URL, so validate the codes one at a time
+				return IValidationSupport.super.validateCodeBatch(
+						theValidationSupportContext, theOptions, theRequests, theValueSet);
+			}
+		}
+
+		List<ValidateCodeKey> keys = new ArrayList<>(theRequests.size());
+		Map<ValidateCodeKey, CacheValue<CodeValidationResult>> results = new HashMap<>();
+		Map<ValidateCodeKey, CodeValidationRequest> unresolved = new LinkedHashMap<>();
+		for (CodeValidationRequest next : theRequests) {
+			ValidateCodeKey key =
+					new ValidateCodeKey(theOptions, next.getSystem(), next.getCode(), next.getDisplay(), valueSetUrl);
+			keys.add(key);
+			if (!results.containsKey(key) && !unresolved.containsKey(key)) {
+				CacheValue<CodeValidationResult> cachedValue = getFromCache(key);
+				if (cachedValue != null) {
+					results.put(key, cachedValue);
+				} else {
+					unresolved.put(key, next);
+				}
+			}
+		}
+		List<ValidateCodeKey> keysToCache = new ArrayList<>(unresolved.keySet());
+
+		for (IValidationSupport next : myChain) {
+			if (unresolved.isEmpty()) {
+				break;
+			}
+
+			List<ValidateCodeKey> supportedKeys = new ArrayList<>();
+			List<CodeValidationRequest> supportedRequests = new ArrayList<>();
+			for (Map.Entry<ValidateCodeKey, CodeValidationRequest> nextEntry : unresolved.entrySet()) {
+				if ((theValueSet == null
+								&& isCodeSystemSupported(
+										theValidationSupportContext,
+										next,
+										nextEntry.getValue().getSystem()))
+						|| (theValueSet != null
+								&& isValueSetSupported(theValidationSupportContext, next, valueSetUrl))) {
+					supportedKeys.add(nextEntry.getKey());
+					supportedRequests.add(nextEntry.getValue());
+				}
+			}
+			if (supportedRequests.isEmpty()) {
+				continue;
+			}
+
+			List<CodeValidationResult> outcomes =
+					next.validateCodeBatch(theValidationSupportContext, theOptions, supportedRequests, theValueSet);
+			for (int i = 0; i < supportedKeys.size(); i++) {
+				CodeValidationResult outcome = outcomes.get(i);
+				if (outcome != null) {
+					ValidateCodeKey key = supportedKeys.get(i);
+					ourLog.debug("Code batch request {} validated by {}", key, next.getName());
+					results.put(key, new CacheValue<>(outcome));
+					unresolved.remove(key);
+				}
+			}
+		}
+
+		for (Map.Entry<ValidateCodeKey, CodeValidationRequest> nextEntry : unresolved.entrySet()) {
+			CacheValue<CodeValidationResult> value = CacheValue.empty();
+			if (theValueSet == null) {
+				CodeValidationResult unknownCodeSystemResult = generateResultForUnknownCodeSystem(
+						nextEntry.getValue().getSystem(), nextEntry.getValue().getCode());
+				if (unknownCodeSystemResult != null) {
+					value = new CacheValue<>(unknownCodeSystemResult);
+				}
+			}
+			results.put(nextEntry.getKey(), value);
+		}
+
+		for (ValidateCodeKey next : keysToCache) {
+			putInCache(next, results.get(next));
+		}
+
+		List<CodeValidationResult> retVal = new ArrayList<>(keys.size());
+		for (ValidateCodeKey next : keys) {
+			retVal.add(results.get(next).getValue());
+		}
+		return retVal;
+	}
+
 	@Override
 	public LookupCodeResult lookupCode(
 			ValidationSupportContext theValidationSupportContext, @Nonnull LookupCodeRequest theLookupCodeRequest) {
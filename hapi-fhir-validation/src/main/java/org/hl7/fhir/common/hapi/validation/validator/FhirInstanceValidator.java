@@ -44,6 +44,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	private IValidatorResourceFetcher validatorResourceFetcher;
 	private IValidationPolicyAdvisor validatorPolicyAdvisor = new FhirDefaultPolicyAdvisor();
 	private boolean myAllowExamples;
+	private boolean myBatchCodeValidationEnabled;
 	private IHostApplicationServices hostApplicationServices;
 
 	/**
@@ -266,6 +267,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 		if (wrappedWorkerContext == null) {
 			wrappedWorkerContext =
 					WorkerContextValidationSupportAdapter.newVersionSpecificWorkerContextWrapper(myValidationSupport);
+			wrappedWorkerContext.setBatchCodeValidationEnabled(myBatchCodeValidationEnabled);
 		}
 		myWrappedWorkerContext = wrappedWorkerContext;
 		return wrappedWorkerContext;
@@ -329,6 +331,33 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 		myAllowExamples = theAllowExamples;
 	}
 
+	/**
+	 * If enabled (default is <code>false</code>), batches of codes are validated through the
+	 * validation support chain. This causes invalid codes in ValueSet <code>compose.include</code>
+	 * elements to be reported.
+	 *
+	 * @see WorkerContextValidationSupportAdapter#setBatchCodeValidationEnabled(boolean)
+	 * @since 8.8.0
+	 */
+	public boolean isBatchCodeValidationEnabled() {
+		return myBatchCodeValidationEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), batches of codes are validated through the
+	 * validation support chain. This causes invalid codes in ValueSet <code>compose.include</code>
+	 * elements to be reported.
+	 *
+	 * @see WorkerContextValidationSupportAdapter#setBatchCodeValidationEnabled(boolean)
+	 * @since 8.8.0
+	 */
+	public void setBatchCodeValidationEnabled(boolean theBatchCodeValidationEnabled) {
+		myBatchCodeValidationEnabled = theBatchCodeValidationEnabled;
+		if (myWrappedWorkerContext != null) {
+			myWrappedWorkerContext.setBatchCodeValidationEnabled(theBatchCodeValidationEnabled);
+		}
+	}
+
 	public boolean isAllowExamples() {
 		return myAllowExamples;
 	}
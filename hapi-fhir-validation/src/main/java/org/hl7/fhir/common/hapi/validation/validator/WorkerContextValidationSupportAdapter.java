@@ -151,6 +151,7 @@ public class WorkerContextValidationSupportAdapter extends I18nBase implements I
 	private Parameters myExpansionProfile;
 	private volatile FHIRPathEngine myFHIRPathEngine;
 	private FhirContext myFhirContext;
+	private volatile boolean myBatchCodeValidationEnabled;
 
 	/**
 	 * Constructor
@@ -185,6 +186,36 @@ public class WorkerContextValidationSupportAdapter extends I18nBase implements I
 		setValidationMessageLanguage(getLocale());
 	}
 
+	/**
+	 * If enabled (default is <code>false</code>), batches of codes which the validator passes to
+	 * {@link #validateCodeBatch(ValidationOptions, List, ValueSet, boolean)} are validated through the
+	 * {@link IValidationSupport} chain, allowing them to be resolved together (e.g. using concurrent
+	 * requests to a remote terminology server). The validator uses this method to check the codes in
+	 * the <code>compose.include</code> elements of ValueSets, so enabling this setting means that
+	 * invalid codes in those elements are reported as issues. If disabled, batches are ignored and
+	 * each code is validated individually where the validator needs a result.
+	 *
+	 * @since 8.8.0
+	 */
+	public boolean isBatchCodeValidationEnabled() {
+		return myBatchCodeValidationEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), batches of codes which the validator passes to
+	 * {@link #validateCodeBatch(ValidationOptions, List, ValueSet, boolean)} are validated through the
+	 * {@link IValidationSupport} chain, allowing them to be resolved together (e.g. using concurrent
+	 * requests to a remote terminology server). The validator uses this method to check the codes in
+	 * the <code>compose.include</code> elements of ValueSets, so enabling this setting means that
+	 * invalid codes in those elements are reported as issues. If disabled, batches are ignored and
+	 * each code is validated individually where the validator needs a result.
+	 *
+	 * @since 8.8.0
+	 */
+	public void setBatchCodeValidationEnabled(boolean theBatchCodeValidationEnabled) {
+		myBatchCodeValidationEnabled = theBatchCodeValidationEnabled;
+	}
+
 	@Override
 	public Set<String> getBinaryKeysAsSet() {
 		throw new UnsupportedOperationException(Msg.code(2118));
@@ -749,9 +780,70 @@ public class WorkerContextValidationSupportAdapter extends I18nBase implements I
 		return validateCode(options, code, vs);
 	}
 
+	/**
+	 * If {@link #setBatchCodeValidationEnabled(boolean) batch code validation} is enabled, validates
+	 * all of the codings at once through the support chain, so that they can be resolved together
+	 * (e.g. using concurrent requests to a remote terminology server) rather than one by one.
+	 * Otherwise, does nothing.
+	 */
 	@Override
 	public void validateCodeBatch(
-			ValidationOptions options, List<? extends CodingValidationRequest> codes, ValueSet vs, boolean passVS) {}
+			ValidationOptions options, List<? extends CodingValidationRequest> codes, ValueSet vs, boolean passVS) {
+		if (!myBatchCodeValidationEnabled || codes.isEmpty()) {
+			return;
+		}
+
+		ConceptValidationOptions validationOptions = convertConceptValidationOptions(options);
+		IBaseResource convertedVs = getOrConvertValueSet(vs);
+		ValidationSupportContext validationSupportContext = newValidationSupportContext();
+
+		List<IValidationSupport.CodeValidationRequest> requests = new ArrayList<>(codes.size());
+		for (CodingValidationRequest next : codes) {
+			Coding coding = next.getCoding();
+			requests.add(new IValidationSupport.CodeValidationRequest(
+					coding.getSystem(), coding.getCode(), coding.getDisplay()));
+		}
+
+		List<IValidationSupport.CodeValidationResult> valueSetResults = null;
+		if (convertedVs != null) {
+			valueSetResults = myValidationSupport.validateCodeBatch(
+					validationSupportContext, validationOptions, requests, convertedVs);
+		}
+
+		// Codes are also validated against their CodeSystem, unless they are being validated
+		// against a ValueSet and don't have a system
+		List<Integer> codeSystemRequestIndexes = new ArrayList<>();
+		List<IValidationSupport.CodeValidationRequest> codeSystemRequests = new ArrayList<>();
+		for (int i = 0; i < requests.size(); i++) {
+			if (convertedVs == null || isNotBlank(requests.get(i).getSystem())) {
+				codeSystemRequestIndexes.add(i);
+				codeSystemRequests.add(requests.get(i));
+			}
+		}
+		IValidationSupport.CodeValidationResult[] codeSystemResults =
+				new IValidationSupport.CodeValidationResult[requests.size()];
+		if (!codeSystemRequests.isEmpty()) {
+			List<IValidationSupport.CodeValidationResult> results = myValidationSupport.validateCodeBatch(
+					validationSupportContext, validationOptions, codeSystemRequests, null);
+			for (int i = 0; i < codeSystemRequestIndexes.size(); i++) {
+				codeSystemResults[codeSystemRequestIndexes.get(i)] = results.get(i);
+			}
+		}
+
+		for (int i = 0; i < requests.size(); i++) {
+			String system = requests.get(i).getSystem();
+			IValidationSupport.CodeValidationResult result;
+			if (valueSetResults != null) {
+				result = valueSetResults.get(i);
+				if (result != null && isNotBlank(system)) {
+					result = addCodeSystemIssues(result, codeSystemResults[i]);
+				}
+			} else {
+				result = codeSystemResults[i];
+			}
+			codes.get(i).setResult(convertValidationResult(system, result));
+		}
+	}
 
 	@Nonnull
 	private ValidationResult doValidation(
@@ -829,23 +921,32 @@ public class WorkerContextValidationSupportAdapter extends I18nBase implements I
 			*/
 			IValidationSupport.CodeValidationResult codeSystemResult =
 					validateCodeInCodeSystem(theValidationOptions, theSystem, theCode, theDisplay);
-			final boolean valueSetResultContainsInvalidDisplay = result.getIssues().stream()
-					.anyMatch(WorkerContextValidationSupportAdapter::hasInvalidDisplayDetailCode);
-			if (codeSystemResult != null) {
-				result = copyCodeValidationResult(result);
-				for (IValidationSupport.CodeValidationIssue codeValidationIssue : codeSystemResult.getIssues()) {
-					/* Value set validation should already have checked the display name. If we get INVALID_DISPLAY
-					issues from code system validation, they will only repeat what was already caught.
-					*/
-					if (!hasInvalidDisplayDetailCode(codeValidationIssue) || !valueSetResultContainsInvalidDisplay) {
-						result.addIssue(codeValidationIssue);
-					}
-				}
-			}
+			result = addCodeSystemIssues(result, codeSystemResult);
 		}
 		return result;
 	}
 
+	private IValidationSupport.CodeValidationResult addCodeSystemIssues(
+			@Nonnull IValidationSupport.CodeValidationResult theValueSetResult,
+			@Nullable IValidationSupport.CodeValidationResult theCodeSystemResult) {
+		if (theCodeSystemResult == null) {
+			return theValueSetResult;
+		}
+
+		final boolean valueSetResultContainsInvalidDisplay = theValueSetResult.getIssues().stream()
+				.anyMatch(WorkerContextValidationSupportAdapter::hasInvalidDisplayDetailCode);
+		IValidationSupport.CodeValidationResult retVal = copyCodeValidationResult(theValueSetResult);
+		for (IValidationSupport.CodeValidationIssue codeValidationIssue : theCodeSystemResult.getIssues()) {
+			/* Value set validation should already have checked the display name. If we get INVALID_DISPLAY
+			issues from code system validation, they will only repeat what was already caught.
+			*/
+			if (!hasInvalidDisplayDetailCode(codeValidationIssue) || !valueSetResultContainsInvalidDisplay) {
+				retVal.addIssue(codeValidationIssue);
+			}
+		}
+		return retVal;
+	}
+
 	private IValidationSupport.CodeValidationResult copyCodeValidationResult(
 			IValidationSupport.CodeValidationResult toCopy) {
 		IValidationSupport.CodeValidationResult result = new IValidationSupport.CodeValidationResult();
@@ -224,6 +224,56 @@ public class ValidationSupportChainTest extends BaseTest {
 		}
 	}
 
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	public void testValidateCodeBatch(boolean theUseCache) {
+		// Setup
+		prepareMock(myValidationSupport0, myValidationSupport1, myValidationSupport2);
+		ValidationSupportChain chain = new ValidationSupportChain(newCacheConfiguration(theUseCache), myValidationSupport0, myValidationSupport1, myValidationSupport2);
+
+		String codeSystemUrl1 = "http://code-system-url-1";
+		when(myValidationSupport0.isCodeSystemSupported(any(), eq(CODE_SYSTEM_URL_0))).thenReturn(true);
+		when(myValidationSupport1.isCodeSystemSupported(any(), eq(codeSystemUrl1))).thenReturn(true);
+		when(myValidationSupport0.validateCodeBatch(any(), any(), any(), any())).thenAnswer(t -> newBatchResults(t.getArgument(2)));
+		when(myValidationSupport1.validateCodeBatch(any(), any(), any(), any())).thenAnswer(t -> newBatchResults(t.getArgument(2)));
+
+		List<IValidationSupport.CodeValidationRequest> requests = List.of(
+			new IValidationSupport.CodeValidationRequest(CODE_SYSTEM_URL_0, CODE_0, DISPLAY_0),
+			new IValidationSupport.CodeValidationRequest(codeSystemUrl1, "code-1", null),
+			new IValidationSupport.CodeValidationRequest(CODE_SYSTEM_URL_0, CODE_0, DISPLAY_0),
+			new IValidationSupport.CodeValidationRequest("http://unknown", "code-2", null));
+
+		// Test
+		List<IValidationSupport.CodeValidationResult> results = chain.validateCodeBatch(newValidationCtx(chain), new ConceptValidationOptions(), requests, null);
+
+		// Verify
+		assertThat(results).hasSize(4);
+		assertEquals(CODE_0, results.get(0).getCode());
+		assertEquals("code-1", results.get(1).getCode());
+		assertSame(results.get(0), results.get(2));
+		assertEquals(IValidationSupport.IssueSeverity.ERROR, results.get(3).getSeverity());
+		verify(myValidationSupport0, times(1)).validateCodeBatch(any(), any(), eq(List.of(requests.get(0))), any());
+		verify(myValidationSupport1, times(1)).validateCodeBatch(any(), any(), eq(List.of(requests.get(1))), any());
+		verify(myValidationSupport2, never()).validateCodeBatch(any(), any(), any(), any());
+
+		// Test again (should use cache), and check that the results are shared with validateCode
+		prepareMock(myValidationSupport0, myValidationSupport1, myValidationSupport2);
+		if (theUseCache) {
+			IValidationSupport.CodeValidationResult result = chain.validateCode(newValidationCtx(chain), new ConceptValidationOptions(), CODE_SYSTEM_URL_0, CODE_0, DISPLAY_0, null);
+			List<IValidationSupport.CodeValidationResult> results2 = chain.validateCodeBatch(newValidationCtx(chain), new ConceptValidationOptions(), requests, null);
+			assertSame(results.get(0), result);
+			assertEquals(results, results2);
+			verifyNoInteractions(myValidationSupport0, myValidationSupport1, myValidationSupport2);
+		}
+	}
+
+	private static List<IValidationSupport.CodeValidationResult> newBatchResults(List<IValidationSupport.CodeValidationRequest> theRequests) {
+		return theRequests
+			.stream()
+			.map(t -> new IValidationSupport.CodeValidationResult().setCode(t.getCode()))
+			.collect(Collectors.toList());
+	}
+
 	@ParameterizedTest
 	@CsvSource({
 		"true,  true",
@@ -17,6 +17,7 @@ import org.hl7.fhir.r5.model.Coding;
 import org.hl7.fhir.r5.model.PackageInformation;
 import org.hl7.fhir.r5.model.Resource;
 import org.hl7.fhir.r5.model.ValueSet;
+import org.hl7.fhir.r5.terminologies.utilities.CodingValidationRequest;
 import org.hl7.fhir.r5.terminologies.utilities.ValidationResult;
 import org.hl7.fhir.utilities.validation.ValidationOptions;
 import org.junit.jupiter.api.Test;
@@ -161,6 +162,70 @@ public class WorkerContextValidationSupportAdapterTest extends BaseValidationTes
 		}
 	}
 
+	@Test
+	public void validateCodeBatch_disabledByDefault_doesNothing() {
+		// setup
+		setupValidation();
+		List<CodingValidationRequest> codes = List.of(new CodingValidationRequest(new Coding("http://codesystems.com/system", "code0", null)));
+
+		// execute
+		assertThat(myWorkerContextWrapper.isBatchCodeValidationEnabled()).isFalse();
+		myWorkerContextWrapper.validateCodeBatch(new ValidationOptions(), codes, null, false);
+
+		// verify
+		assertThat(codes.get(0).hasResult()).isFalse();
+		verify(myValidationSupport, never()).validateCodeBatch(any(), any(), any(), any());
+	}
+
+	@Test
+	public void validateCodeBatch_enabled_reportsInvalidCodes() {
+		// setup
+		setupValidation();
+		myWorkerContextWrapper.setBatchCodeValidationEnabled(true);
+
+		String system = "http://codesystems.com/system";
+		String issueMessage = "Unknown code 'code1'";
+		CodeValidationResult validResult = new CodeValidationResult().setCode("code0").setDisplay("Code 0");
+		CodeValidationResult invalidResult = new CodeValidationResult()
+			.setSeverity(IssueSeverity.ERROR)
+			.setMessage(issueMessage)
+			.addIssue(new CodeValidationIssue(issueMessage, IssueSeverity.ERROR, CodeValidationIssueCode.NOT_FOUND, CodeValidationIssueCoding.NOT_FOUND));
+		when(myValidationSupport.validateCodeBatch(any(), any(), any(), isNull())).thenReturn(List.of(validResult, invalidResult));
+
+		List<CodingValidationRequest> codes = List.of(
+			new CodingValidationRequest(new Coding(system, "code0", null)),
+			new CodingValidationRequest(new Coding(system, "code1", null)));
+
+		// execute
+		myWorkerContextWrapper.validateCodeBatch(new ValidationOptions(), codes, null, false);
+
+		// verify
+		ValidationResult result0 = codes.get(0).getResult();
+		assertThat(result0.isOk()).isTrue();
+		assertThat(result0.getDisplay()).isEqualTo("Code 0");
+
+		ValidationResult result1 = codes.get(1).getResult();
+		assertThat(result1.isOk()).isFalse();
+		assertThat(result1.getMessage()).isEqualTo(issueMessage);
+		assertThat(result1.getIssues()).hasSize(1);
+		assertThat(result1.getIssues().get(0).getDiagnostics()).isEqualTo(issueMessage);
+	}
+
+	@Test
+	public void validateCodeBatch_enabledOnInstanceValidator_isPassedToWorkerContext() {
+		setupValidation();
+
+		FhirInstanceValidator validator = new FhirInstanceValidator(myValidationSupport);
+		assertThat(validator.provideWorkerContext().isBatchCodeValidationEnabled()).isFalse();
+
+		validator.setBatchCodeValidationEnabled(true);
+		assertThat(validator.provideWorkerContext().isBatchCodeValidationEnabled()).isTrue();
+
+		validator = new FhirInstanceValidator(myValidationSupport);
+		validator.setBatchCodeValidationEnabled(true);
+		assertThat(validator.provideWorkerContext().isBatchCodeValidationEnabled()).isTrue();
+	}
+
 	@Test
 	public void isPrimitive_primitive() {
 		// setup
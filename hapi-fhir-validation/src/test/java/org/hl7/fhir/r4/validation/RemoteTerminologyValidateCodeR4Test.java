@@ -2,7 +2,9 @@ package org.hl7.fhir.r4.validation;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.ConceptValidationOptions;
+import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.IValidationSupport.CodeValidationResult;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.parser.IJsonLikeParser;
 import ca.uhn.fhir.rest.client.api.IClientInterceptor;
@@ -35,8 +37,10 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static ca.uhn.fhir.test.utilities.validation.IValidationProviders.CODE;
@@ -46,11 +50,14 @@ import static ca.uhn.fhir.test.utilities.validation.IValidationProviders.DISPLAY
 import static ca.uhn.fhir.test.utilities.validation.IValidationProviders.ERROR_MESSAGE;
 import static ca.uhn.fhir.test.utilities.validation.IValidationProviders.VALUE_SET_URL;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.hl7.fhir.common.hapi.validation.support.RemoteTerminologyServiceValidationSupport.ERROR_CODE_UNKNOWN_CODE_IN_CODE_SYSTEM;
 import static org.hl7.fhir.common.hapi.validation.support.RemoteTerminologyServiceValidationSupport.ERROR_CODE_UNKNOWN_CODE_IN_VALUE_SET;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -150,6 +157,59 @@ public class RemoteTerminologyValidateCodeR4Test implements IRemoteTerminologyVa
 		assertNull(outcome.getMessage());
 	}
 
+	@Test
+	void validateCodeBatch_concurrentRequests() {
+		mySvc.setMaxConcurrentRequests(3);
+		AtomicInteger requestCount = new AtomicInteger();
+		mySvc.addClientInterceptor(new IClientInterceptor() {
+			@Override
+			public void interceptRequest(IHttpRequest theRequest) {
+				if (theRequest.getUri().contains("$validate-code")) {
+					requestCount.incrementAndGet();
+				}
+			}
+
+			@Override
+			public void interceptResponse(IHttpResponse theResponse) {}
+		});
+
+		List<IValidationSupport.CodeValidationRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			String code = CODE + i;
+			Parameters parameters = new Parameters()
+					.addParameter("result", i != 4)
+					.addParameter("display", DISPLAY + i)
+					.addParameter("message", ERROR_MESSAGE);
+			myCodeSystemProvider.addTerminologyResponse("$validate-code", CODE_SYSTEM, code, parameters);
+			requests.add(new IValidationSupport.CodeValidationRequest(CODE_SYSTEM, code, null));
+		}
+		requests.add(new IValidationSupport.CodeValidationRequest(CODE_SYSTEM, CODE + 0, null));
+
+		List<CodeValidationResult> outcomes = mySvc.validateCodeBatch(new ValidationSupportContext(mySvc), new ConceptValidationOptions(), requests, null);
+
+		assertThat(outcomes).hasSize(6);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(outcomes.get(i).isOk());
+			assertEquals(CODE + i, outcomes.get(i).getCode());
+			assertEquals(DISPLAY + i, outcomes.get(i).getDisplay());
+		}
+		assertFalse(outcomes.get(4).isOk());
+		assertEquals(IValidationSupport.IssueSeverity.ERROR, outcomes.get(4).getSeverity());
+		assertSame(outcomes.get(0), outcomes.get(5));
+		assertEquals(5, requestCount.get());
+		assertThat(getBatchThreads()).isNotEmpty();
+
+		// The batch threads are shut down with the module
+		mySvc.stop();
+		await().until(() -> getBatchThreads().isEmpty());
+	}
+
+	private static List<Thread> getBatchThreads() {
+		return Thread.getAllStackTraces().keySet().stream()
+				.filter(t -> t.getName().startsWith("remote-terminology-") && t.isAlive())
+				.toList();
+	}
+
 	@Override
 	public Parameters createParameters(Boolean theResult, String theDisplay, String theMessage, IBaseResource theIssuesResource) {
 		Parameters parameters = new Parameters()